@@ -0,0 +1,234 @@
+package me.jellysquid.mods.sodium.client.model.light.cache;
+
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlagsBenchmark;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockRenderView;
+import net.minecraft.world.LightType;
+import net.minecraft.world.chunk.light.LightingProvider;
+import net.minecraft.world.level.ColorResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to fill the light data cache of a chunk section and the blocks around it, as done by the
+ * light pipelines while a section is being meshed.
+ *
+ * The "table" mode computes the light data of each block using the properties from {@link BlockStateFlags}. As the
+ * mixins of the mod are not applied when running benchmarks, the properties of each block are read from a table
+ * indexed by an array running parallel to the blocks of the world rather than by a slot stored on the state itself.
+ * The "vanilla" mode queries each property from the block state as the light data cache did before, which serves as
+ * the baseline. Both modes use the same cache, so only the computation of missing entries differs.
+ *
+ * The "stone" section is a solid mix of stone and ores, while the "foliage" section is a mix of air, plants, leaves and
+ * water as found on the surface.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayLightDataCacheBenchmark {
+    private static final ChunkSectionPos ORIGIN = ChunkSectionPos.from(0, 4, 0);
+
+    // The blocks of the section and its neighbors which are held by the cache
+    private static final int NEIGHBOR_BLOCK_RADIUS = 2;
+    private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
+    private static final int BLOCK_COUNT = BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH;
+
+    @Param({ "table", "vanilla" })
+    public String mode;
+
+    @Param({ "stone", "foliage" })
+    public String contents;
+
+    private SliceBlockView world;
+    private ArrayLightDataCache cache;
+
+    @Setup(Level.Trial)
+    public void createWorld() {
+        Bootstrap.initialize();
+
+        int[] table = new int[Block.STATE_IDS.size()];
+
+        for (BlockState state : Block.STATE_IDS) {
+            table[Block.STATE_IDS.getRawId(state)] = BlockStateFlags.compute(state);
+        }
+
+        List<BlockState> states = BlockStateFlagsBenchmark.getSectionStates(this.contents);
+        Random random = new Random(42L);
+
+        BlockState[] blocks = new BlockState[BLOCK_COUNT];
+        int[] slots = new int[BLOCK_COUNT];
+
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            BlockState state = states.get(random.nextInt(states.size()));
+
+            blocks[i] = state;
+            slots[i] = Block.STATE_IDS.getRawId(state);
+        }
+
+        this.world = new SliceBlockView(blocks, slots);
+
+        switch (this.mode) {
+            case "table":
+                this.cache = new TableLightDataCache(this.world, table);
+                break;
+            case "vanilla":
+                this.cache = new VanillaLightDataCache();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + this.mode);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_COUNT)
+    public long fill() {
+        ArrayLightDataCache cache = this.cache;
+        cache.init(this.world, ORIGIN);
+
+        int minX = ORIGIN.getMinX() - NEIGHBOR_BLOCK_RADIUS;
+        int minY = ORIGIN.getMinY() - NEIGHBOR_BLOCK_RADIUS;
+        int minZ = ORIGIN.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
+
+        long sum = 0L;
+
+        for (int y = 0; y < BLOCK_LENGTH; y++) {
+            for (int z = 0; z < BLOCK_LENGTH; z++) {
+                for (int x = 0; x < BLOCK_LENGTH; x++) {
+                    sum += cache.get(minX + x, minY + y, minZ + z);
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Computes light data with the properties of each block read from the table of {@link BlockStateFlags}.
+     */
+    private static class TableLightDataCache extends ArrayLightDataCache {
+        private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        private final SliceBlockView world;
+        private final int[] table;
+
+        private TableLightDataCache(SliceBlockView world, int[] table) {
+            this.world = world;
+            this.table = table;
+        }
+
+        @Override
+        protected long compute(int x, int y, int z) {
+            BlockPos pos = this.pos.set(x, y, z);
+            BlockState state = this.world.getBlockState(pos);
+
+            return this.compute(pos, state, this.table[this.world.getSlot(pos)]);
+        }
+    }
+
+    /**
+     * Computes light data in the same way as the light data cache did before block properties were stored in a table.
+     */
+    private static class VanillaLightDataCache extends ArrayLightDataCache {
+        private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        @Override
+        protected long compute(int x, int y, int z) {
+            BlockPos pos = this.pos.set(x, y, z);
+            BlockRenderView world = this.world;
+
+            BlockState state = world.getBlockState(pos);
+
+            float ao;
+
+            if (state.getLuminance() == 0) {
+                ao = state.getAmbientOcclusionLightLevel(world, pos);
+            } else {
+                ao = 1.0f;
+            }
+
+            boolean op = !state.getFluidState().isEmpty() || state.getOpacity(world, pos) == 0;
+            boolean fo = state.isOpaqueFullCube(world, pos);
+            boolean em = state.hasEmissiveLighting(world, pos);
+
+            int lm = (fo && !em) ? 0 : WorldRenderer.getLightmapCoordinates(world, state, pos);
+
+            return packAO(ao) | packLM(lm) | packOP(op) | packFO(fo) | (1L << 60);
+        }
+    }
+
+    /**
+     * The blocks held by the light data cache for a section, along with the slot of each block in the table of block
+     * properties. The section is fully lit by the sky and has no block light.
+     */
+    private static class SliceBlockView implements BlockRenderView {
+        private final BlockState[] blocks;
+        private final int[] slots;
+
+        private SliceBlockView(BlockState[] blocks, int[] slots) {
+            this.blocks = blocks;
+            this.slots = slots;
+        }
+
+        private static int getIndex(BlockPos pos) {
+            int x = pos.getX() - (ORIGIN.getMinX() - NEIGHBOR_BLOCK_RADIUS);
+            int y = pos.getY() - (ORIGIN.getMinY() - NEIGHBOR_BLOCK_RADIUS);
+            int z = pos.getZ() - (ORIGIN.getMinZ() - NEIGHBOR_BLOCK_RADIUS);
+
+            return (((y * BLOCK_LENGTH) + z) * BLOCK_LENGTH) + x;
+        }
+
+        public int getSlot(BlockPos pos) {
+            return this.slots[getIndex(pos)];
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            return this.blocks[getIndex(pos)];
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            return this.getBlockState(pos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos pos) {
+            return null;
+        }
+
+        @Override
+        public int getLightLevel(LightType type, BlockPos pos) {
+            return type == LightType.SKY ? 15 : 0;
+        }
+
+        @Override
+        public float getBrightness(Direction direction, boolean shaded) {
+            return 1.0f;
+        }
+
+        @Override
+        public LightingProvider getLightingProvider() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getColor(BlockPos pos, ColorResolver colorResolver) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to compute the visibility data of a chunk section from its closed blocks.
+ *
+ * The "sodium" mode uses {@link ChunkVisibilityBuilder} on an opacity mask of the section. As the mask is filled anyway
+ * to skip hidden blocks while the section is meshed, filling it is not part of the measurement. The "vanilla" mode marks
+ * each closed block in a new {@link ChunkOcclusionDataBuilder} and builds the occlusion data from it, as done for every
+ * section before, which serves as the baseline.
+ *
+ * The "random" sections have their blocks closed at random, with densities around the point at which sections stop
+ * being connected on all sides. The "tunnels" sections are solid apart from a few winding tunnels, as found in caves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkVisibilityBuilderBenchmark {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    // The number of different sections which are built in each invocation, so that no single layout is learned
+    private static final int SECTION_COUNT = 16;
+
+    @Param({ "sodium", "vanilla" })
+    public String mode;
+
+    @Param({ "random", "tunnels" })
+    public String contents;
+
+    private ChunkOpacityMask[] masks;
+    private BlockPos[][] closedBlocks;
+
+    private boolean useVanilla;
+
+    @Setup(Level.Trial)
+    public void createSections() {
+        Random random = new Random(42L);
+
+        this.masks = new ChunkOpacityMask[SECTION_COUNT];
+        this.closedBlocks = new BlockPos[SECTION_COUNT][];
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            boolean[] closed;
+
+            switch (this.contents) {
+                case "random":
+                    closed = createRandomSection(random);
+                    break;
+                case "tunnels":
+                    closed = createTunnelSection(random);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown contents: " + this.contents);
+            }
+
+            ChunkOpacityMask mask = new ChunkOpacityMask();
+            BlockPos[] positions = new BlockPos[SECTION_BLOCK_COUNT];
+            int count = 0;
+
+            for (int j = 0; j < SECTION_BLOCK_COUNT; j++) {
+                if (closed[j]) {
+                    int x = j & 15;
+                    int y = j >> 8;
+                    int z = (j >> 4) & 15;
+
+                    mask.setOpaque(x, y, z);
+                    positions[count++] = new BlockPos(x, y, z);
+                }
+            }
+
+            this.masks[i] = mask;
+            this.closedBlocks[i] = Arrays.copyOf(positions, count);
+        }
+
+        switch (this.mode) {
+            case "sodium":
+                this.useVanilla = false;
+                break;
+            case "vanilla":
+                this.useVanilla = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + this.mode);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SECTION_COUNT)
+    public long build() {
+        long sum = 0L;
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (this.useVanilla) {
+                ChunkOcclusionDataBuilder builder = new ChunkOcclusionDataBuilder();
+
+                for (BlockPos pos : this.closedBlocks[i]) {
+                    builder.markClosed(pos);
+                }
+
+                sum += builder.build().isVisibleThrough(Direction.DOWN, Direction.UP) ? 1 : 0;
+            } else {
+                sum += ChunkVisibilityBuilder.build(this.masks[i]);
+            }
+        }
+
+        return sum;
+    }
+
+    private static boolean[] createRandomSection(Random random) {
+        double density = 0.55D + (random.nextDouble() * 0.3D);
+
+        boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            closed[i] = random.nextDouble() < density;
+        }
+
+        return closed;
+    }
+
+    private static boolean[] createTunnelSection(Random random) {
+        boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+        Arrays.fill(closed, true);
+
+        int tunnels = 1 + random.nextInt(4);
+
+        for (int i = 0; i < tunnels; i++) {
+            int x = random.nextInt(16);
+            int y = random.nextInt(16);
+            int z = random.nextInt(16);
+
+            // Carves a random walk through the section, which stays within its bounds
+            for (int step = 0; step < 400; step++) {
+                closed[(y << 8) | (z << 4) | x] = false;
+
+                Direction dir = DirectionUtil.ALL_DIRECTIONS[random.nextInt(DirectionUtil.ALL_DIRECTIONS.length)];
+
+                x = Math.max(0, Math.min(15, x + dir.getOffsetX()));
+                y = Math.max(0, Math.min(15, y + dir.getOffsetY()));
+                z = Math.max(0, Math.min(15, z + dir.getOffsetZ()));
+            }
+        }
+
+        return closed;
+    }
+}
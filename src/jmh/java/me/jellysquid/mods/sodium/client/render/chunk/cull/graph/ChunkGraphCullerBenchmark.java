@@ -0,0 +1,84 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkVisibilityData;
+import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken by the chunk graph culler to search a synthetic world in which every section within the
+ * render distance is loaded. The sections above the camera are empty while those below it are a random mix of open
+ * and occluding sections, which keeps the search's levels as wide as they would be in a typical overworld.
+ *
+ * The "serial" mode expands every level of the search on the calling thread, which serves as the baseline. The
+ * "parallel" mode expands large levels across the common fork-join pool, and is identical to the serial mode when the
+ * pool only has a single thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkGraphCullerBenchmark {
+    private static final BlockPos ORIGIN = new BlockPos(8, 72, 8);
+
+    // Every section is inside the frustum, which is the worst case for the search
+    private static final FrustumExtended NO_FRUSTUM = (minX, minY, minZ, maxX, maxY, maxZ) -> true;
+
+    @Param({ "8", "16", "32" })
+    public int renderDistance;
+
+    @Param({ "parallel", "serial" })
+    public String mode;
+
+    @Param({ "true", "false" })
+    public boolean occlusionCulling;
+
+    private ChunkGraphCuller culler;
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        this.culler = new ChunkGraphCuller(null, this.renderDistance, this.mode.equals("parallel"));
+
+        Random random = new Random(42L);
+
+        int originX = ORIGIN.getX() >> 4;
+        int originY = ORIGIN.getY() >> 4;
+        int originZ = ORIGIN.getZ() >> 4;
+
+        int id = 0;
+
+        for (int x = originX - this.renderDistance; x <= originX + this.renderDistance; x++) {
+            for (int z = originZ - this.renderDistance; z <= originZ + this.renderDistance; z++) {
+                for (int y = 0; y < 16; y++) {
+                    this.culler.onSectionLoaded(x, y, z, id++);
+                    this.culler.onSectionStateChanged(x, y, z, y >= originY ? ChunkVisibilityData.ALL : createVisibilityData(random));
+                }
+            }
+        }
+    }
+
+    static int createVisibilityData(Random random) {
+        int type = random.nextInt(4);
+
+        if (type == 0) {
+            return ChunkVisibilityData.NONE;
+        } else if (type == 1) {
+            return ChunkVisibilityData.ALL;
+        }
+
+        // A cave system which connects a random set of faces
+        return ChunkVisibilityData.fromFaces(random.nextInt(1 << 6));
+    }
+
+    @Benchmark
+    public IntArrayList computeVisible() {
+        return this.culler.computeVisible(ORIGIN, NO_FRUSTUM, this.frame++, this.occlusionCulling);
+    }
+}
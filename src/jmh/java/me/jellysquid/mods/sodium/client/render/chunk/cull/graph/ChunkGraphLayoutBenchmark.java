@@ -0,0 +1,283 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkVisibilityData;
+import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the storage of the chunk graph in flat arrays indexed by section position against the previous layout, in
+ * which every section was an object holding pointers to its neighbors and was found through a hash table. Both layouts
+ * are filled with the same synthetic world as {@link ChunkGraphCullerBenchmark} and searched serially.
+ *
+ * The "arrays" layout uses {@link ChunkGraphCuller}. The "objects" layout is a copy of the serial search as it was
+ * before the graph was moved into {@link ChunkGraph}, which serves as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkGraphLayoutBenchmark {
+    private static final BlockPos ORIGIN = new BlockPos(8, 72, 8);
+
+    private static final FrustumExtended NO_FRUSTUM = (minX, minY, minZ, maxX, maxY, maxZ) -> true;
+
+    @Param({ "8", "16", "32" })
+    public int renderDistance;
+
+    @Param({ "arrays", "objects" })
+    public String layout;
+
+    private ChunkGraphCuller culler;
+    private NodeGraphCuller nodeCuller;
+
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        boolean useArrays = this.layout.equals("arrays");
+
+        if (useArrays) {
+            this.culler = new ChunkGraphCuller(null, this.renderDistance, false);
+        } else {
+            this.nodeCuller = new NodeGraphCuller();
+        }
+
+        Random random = new Random(42L);
+
+        int originX = ORIGIN.getX() >> 4;
+        int originY = ORIGIN.getY() >> 4;
+        int originZ = ORIGIN.getZ() >> 4;
+
+        int id = 0;
+
+        for (int x = originX - this.renderDistance; x <= originX + this.renderDistance; x++) {
+            for (int z = originZ - this.renderDistance; z <= originZ + this.renderDistance; z++) {
+                for (int y = 0; y < 16; y++) {
+                    int data = y >= originY ? ChunkVisibilityData.ALL : ChunkGraphCullerBenchmark.createVisibilityData(random);
+
+                    if (useArrays) {
+                        this.culler.onSectionLoaded(x, y, z, id);
+                        this.culler.onSectionStateChanged(x, y, z, data);
+                    } else {
+                        this.nodeCuller.onSectionLoaded(x, y, z, id, data);
+                    }
+
+                    id++;
+                }
+            }
+        }
+
+        // Leaves the visible sections marked for the lookup benchmark
+        this.computeVisible();
+    }
+
+    @Benchmark
+    public IntArrayList computeVisible() {
+        int frame = this.frame++;
+
+        if (this.culler != null) {
+            return this.culler.computeVisible(ORIGIN, NO_FRUSTUM, frame, true);
+        } else {
+            return this.nodeCuller.computeVisible(ORIGIN, NO_FRUSTUM, frame);
+        }
+    }
+
+    /**
+     * Looks up whether each section within the render distance is visible, as done for every pending build task and
+     * upload when prioritizing them.
+     */
+    @Benchmark
+    public int isSectionVisible() {
+        int originX = ORIGIN.getX() >> 4;
+        int originZ = ORIGIN.getZ() >> 4;
+
+        int count = 0;
+
+        for (int x = originX - this.renderDistance; x <= originX + this.renderDistance; x++) {
+            for (int z = originZ - this.renderDistance; z <= originZ + this.renderDistance; z++) {
+                for (int y = 0; y < 16; y++) {
+                    boolean visible = this.culler != null ? this.culler.isSectionVisible(x, y, z) : this.nodeCuller.isSectionVisible(x, y, z);
+
+                    if (visible) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * The serial search of the chunk graph culler as it was when each section was stored as a {@link Node}. Only the
+     * path taken when the camera is inside a loaded section is kept.
+     */
+    private static class NodeGraphCuller {
+        private final Long2ObjectMap<Node> nodes = new Long2ObjectOpenHashMap<>();
+
+        private Node[] queueNodes = new Node[4096];
+        private Direction[] queueDirections = new Direction[4096];
+        private int[] queuePositions = new int[4096];
+        private int queueSize;
+
+        private FrustumExtended frustum;
+        private int activeFrame;
+
+        public IntArrayList computeVisible(BlockPos origin, FrustumExtended frustum, int frame) {
+            this.activeFrame = frame;
+            this.frustum = frustum;
+            this.queueSize = 0;
+
+            Node rootNode = this.getNode(origin.getX() >> 4, origin.getY() >> 4, origin.getZ() >> 4);
+            rootNode.cullingState = 0;
+            rootNode.lastVisibleFrame = frame;
+
+            this.enqueue(rootNode, null);
+
+            for (int i = 0; i < this.queueSize; i++) {
+                Node node = this.queueNodes[i];
+                Direction flow = this.queueDirections[i];
+
+                for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+                    if (this.isCulled(node, flow, dir)) {
+                        continue;
+                    }
+
+                    Node adj = node.nodes[dir.ordinal()];
+
+                    if (adj != null) {
+                        this.bfsEnqueue(node, adj, dir.getOpposite());
+                    }
+                }
+            }
+
+            return IntArrayList.wrap(this.queuePositions, this.queueSize);
+        }
+
+        private boolean isCulled(Node node, Direction from, Direction to) {
+            if (node.canCull(to)) {
+                return true;
+            }
+
+            return from != null && !node.isVisibleThrough(from, to);
+        }
+
+        private void bfsEnqueue(Node parent, Node node, Direction flow) {
+            if (node.lastVisibleFrame == this.activeFrame) {
+                return;
+            }
+
+            if (node.isCulledByFrustum(this.frustum)) {
+                return;
+            }
+
+            node.lastVisibleFrame = this.activeFrame;
+            node.cullingState = (byte) (parent.cullingState | (1 << flow.ordinal()));
+
+            this.enqueue(node, flow);
+        }
+
+        private void enqueue(Node node, Direction flow) {
+            int i = this.queueSize++;
+
+            if (i == this.queueNodes.length) {
+                int capacity = this.queueNodes.length * 2;
+
+                this.queueNodes = Arrays.copyOf(this.queueNodes, capacity);
+                this.queueDirections = Arrays.copyOf(this.queueDirections, capacity);
+                this.queuePositions = Arrays.copyOf(this.queuePositions, capacity);
+            }
+
+            this.queueNodes[i] = node;
+            this.queueDirections[i] = flow;
+            this.queuePositions[i] = node.id;
+        }
+
+        public void onSectionLoaded(int x, int y, int z, int id, int visibilityData) {
+            Node node = new Node(x, y, z, id, visibilityData);
+
+            this.nodes.put(ChunkSectionPos.asLong(x, y, z), node);
+
+            for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+                Node adj = this.getNode(x + dir.getOffsetX(), y + dir.getOffsetY(), z + dir.getOffsetZ());
+
+                if (adj != null) {
+                    adj.nodes[dir.getOpposite().ordinal()] = node;
+                }
+
+                node.nodes[dir.ordinal()] = adj;
+            }
+        }
+
+        public boolean isSectionVisible(int x, int y, int z) {
+            Node node = this.getNode(x, y, z);
+
+            return node != null && node.lastVisibleFrame == this.activeFrame;
+        }
+
+        private Node getNode(int x, int y, int z) {
+            return this.nodes.get(ChunkSectionPos.asLong(x, y, z));
+        }
+    }
+
+    private static class Node {
+        private final Node[] nodes = new Node[DirectionUtil.DIRECTION_COUNT];
+
+        private final int id;
+        private final int chunkX, chunkY, chunkZ;
+
+        private final long visibilityData;
+
+        private int lastVisibleFrame = -1;
+        private byte cullingState;
+
+        private Node(int chunkX, int chunkY, int chunkZ, int id, int visibilityData) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.chunkZ = chunkZ;
+            this.id = id;
+
+            long matrix = 0L;
+
+            // The previous layout stored one bit for each ordered pair of faces
+            for (Direction from : DirectionUtil.ALL_DIRECTIONS) {
+                for (Direction to : DirectionUtil.ALL_DIRECTIONS) {
+                    if (ChunkVisibilityData.isVisibleThrough(visibilityData, from.ordinal(), to.ordinal())) {
+                        matrix |= 1L << ((from.ordinal() << 3) + to.ordinal());
+                    }
+                }
+            }
+
+            this.visibilityData = matrix;
+        }
+
+        private boolean isVisibleThrough(Direction from, Direction to) {
+            return (this.visibilityData & (1L << ((from.ordinal() << 3) + to.ordinal()))) != 0L;
+        }
+
+        private boolean canCull(Direction dir) {
+            return (this.cullingState & 1 << dir.ordinal()) != 0;
+        }
+
+        private boolean isCulledByFrustum(FrustumExtended frustum) {
+            float x = this.chunkX << 4;
+            float y = this.chunkY << 4;
+            float z = this.chunkZ << 4;
+
+            return !frustum.fastAabbTest(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import net.minecraft.util.collection.PackedIntegerArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to decode the palette indices of a chunk section. Widths of up to 8 bits are decoded into
+ * bytes, as done for sections with a local palette, while wider elements are decoded into shorts, as done for sections
+ * using the global palette.
+ *
+ * The "bulk" mode uses {@link PackedIntegerArrayUtil}. The "vanilla" mode calls {@link PackedIntegerArray#get(int)} for
+ * each element, which serves as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedIntegerArrayUtilBenchmark {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    @Param({ "4", "5", "6", "7", "8", "14" })
+    public int bits;
+
+    @Param({ "bulk", "vanilla" })
+    public String mode;
+
+    private PackedIntegerArray array;
+
+    private final byte[] bytes = new byte[SECTION_BLOCK_COUNT];
+    private final short[] shorts = new short[SECTION_BLOCK_COUNT];
+
+    private boolean useBulk;
+
+    @Setup(Level.Trial)
+    public void createArray() {
+        Random random = new Random(42L);
+
+        this.array = new PackedIntegerArray(this.bits, SECTION_BLOCK_COUNT);
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            this.array.set(i, random.nextInt(1 << this.bits));
+        }
+
+        this.useBulk = this.mode.equals("bulk");
+    }
+
+    @Benchmark
+    public void unpack() {
+        PackedIntegerArray array = this.array;
+
+        if (this.bits <= 8) {
+            byte[] dst = this.bytes;
+
+            if (this.useBulk) {
+                PackedIntegerArrayUtil.unpack(array, dst);
+            } else {
+                for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+                    dst[i] = (byte) array.get(i);
+                }
+            }
+        } else {
+            short[] dst = this.shorts;
+
+            if (this.useBulk) {
+                PackedIntegerArrayUtil.unpack(array, dst);
+            } else {
+                for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+                    dst[i] = (short) array.get(i);
+                }
+            }
+        }
+    }
+}
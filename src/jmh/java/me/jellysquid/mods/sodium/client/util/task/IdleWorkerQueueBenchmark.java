@@ -0,0 +1,186 @@
+package me.jellysquid.mods.sodium.client.util.task;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the latency from submitting tasks to a pool of idle chunk build workers until a worker has started each of
+ * them. The workers park between invocations as the task queue is always drained, so this includes the cost of waking
+ * them up again.
+ *
+ * The "park" mode uses {@link IdleWorkerQueue} in the same way as the chunk builder. The "monitor" mode waits on and
+ * notifies a shared monitor for each task, as the chunk builder did before, which serves as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdleWorkerQueueBenchmark {
+    private static final int BATCH_SIZE = 16;
+
+    @Param({ "1", "4", "16" })
+    public int workers;
+
+    @Param({ "park", "monitor" })
+    public String mode;
+
+    private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final IdleWorkerQueue idleWorkers = new IdleWorkerQueue();
+    private final Object monitor = new Object();
+
+    private boolean useMonitor;
+
+    @Setup(Level.Trial)
+    public void startWorkers() {
+        this.useMonitor = this.mode.equals("monitor");
+        this.running.set(true);
+
+        for (int i = 0; i < this.workers; i++) {
+            Thread thread;
+
+            if (this.useMonitor) {
+                thread = new Thread(this::runMonitorWorker);
+            } else {
+                WorkerHolder holder = new WorkerHolder();
+
+                thread = new Thread(() -> this.runParkingWorker(holder.worker));
+                holder.worker = new IdleWorkerQueue.Worker(thread);
+            }
+
+            thread.setDaemon(true);
+            thread.start();
+
+            this.threads.add(thread);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWorkers() throws InterruptedException {
+        this.running.set(false);
+
+        synchronized (this.monitor) {
+            this.monitor.notifyAll();
+        }
+
+        for (Thread thread : this.threads) {
+            LockSupport.unpark(thread);
+        }
+
+        for (Thread thread : this.threads) {
+            thread.join();
+        }
+
+        this.threads.clear();
+        this.idleWorkers.clear();
+    }
+
+    @Benchmark
+    public void submitOne() {
+        Task task = new Task();
+
+        this.submit(task);
+        this.awaitStart(task);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void submitBatch() {
+        Task[] batch = new Task[BATCH_SIZE];
+
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Task();
+        }
+
+        this.submitAll(batch);
+
+        for (Task task : batch) {
+            this.awaitStart(task);
+        }
+    }
+
+    private void submit(Task task) {
+        this.tasks.add(task);
+
+        if (this.useMonitor) {
+            synchronized (this.monitor) {
+                this.monitor.notify();
+            }
+        } else {
+            this.idleWorkers.wake(1);
+        }
+    }
+
+    private void submitAll(Task[] batch) {
+        if (this.useMonitor) {
+            // The monitor has to be notified once per task, as every notification only wakes a single worker
+            for (Task task : batch) {
+                this.submit(task);
+            }
+        } else {
+            for (Task task : batch) {
+                this.tasks.add(task);
+            }
+
+            this.idleWorkers.wake(batch.length);
+        }
+    }
+
+    private void awaitStart(Task task) {
+        while (!task.started) {
+            // Spin, as parking the submitting thread would dominate the measured latency
+        }
+    }
+
+    private void runParkingWorker(IdleWorkerQueue.Worker worker) {
+        while (this.running.get()) {
+            Task task = this.idleWorkers.take(worker, this.tasks::poll, this.running::get);
+
+            if (task != null) {
+                task.started = true;
+            }
+        }
+    }
+
+    private void runMonitorWorker() {
+        while (this.running.get()) {
+            Task task = this.tasks.poll();
+
+            if (task == null) {
+                // Unlike the chunk builder did, the queue is checked again while holding the monitor, as a lost
+                // wake-up would otherwise stall the benchmark
+                synchronized (this.monitor) {
+                    while (this.running.get() && (task = this.tasks.poll()) == null) {
+                        try {
+                            this.monitor.wait();
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                }
+            }
+
+            if (task != null) {
+                task.started = true;
+            }
+        }
+    }
+
+    private static class Task {
+        private volatile boolean started;
+    }
+
+    private static class WorkerHolder {
+        private IdleWorkerQueue.Worker worker;
+    }
+}
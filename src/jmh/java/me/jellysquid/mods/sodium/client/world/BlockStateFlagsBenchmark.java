@@ -0,0 +1,154 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.RenderLayers;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.EmptyBlockView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken by the meshing loop of the rebuild task to query the properties of every block in a section,
+ * which decide how the block is rendered and whether it occludes its neighbors.
+ *
+ * The "table" mode reads the properties from the packed table of {@link BlockStateFlags}. As the mixins of the mod are
+ * not applied when running benchmarks, the slot of each state in the table is read from an array running parallel to
+ * the blocks of the section rather than from the state itself. The "vanilla" mode queries each property from the block
+ * as the meshing loop did before, which serves as the baseline.
+ *
+ * The "stone" section is a solid mix of stone and ores, while the "foliage" section is a mix of air, plants, leaves and
+ * water as found on the surface.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockStateFlagsBenchmark {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    @Param({ "table", "vanilla" })
+    public String mode;
+
+    @Param({ "stone", "foliage" })
+    public String contents;
+
+    private final BlockState[] blocks = new BlockState[SECTION_BLOCK_COUNT];
+    private final int[] slots = new int[SECTION_BLOCK_COUNT];
+
+    private final RenderLayer[] layers = new RenderLayer[SECTION_BLOCK_COUNT];
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+    private int[] table;
+    private boolean useTable;
+
+    @Setup(Level.Trial)
+    public void createSection() {
+        Bootstrap.initialize();
+
+        this.table = new int[Block.STATE_IDS.size()];
+
+        for (BlockState state : Block.STATE_IDS) {
+            this.table[Block.STATE_IDS.getRawId(state)] = BlockStateFlags.compute(state);
+        }
+
+        List<BlockState> states = getSectionStates(this.contents);
+        Random random = new Random(42L);
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            BlockState state = states.get(random.nextInt(states.size()));
+
+            this.blocks[i] = state;
+            this.slots[i] = Block.STATE_IDS.getRawId(state);
+        }
+
+        this.useTable = this.mode.equals("table");
+    }
+
+    public static List<BlockState> getSectionStates(String contents) {
+        switch (contents) {
+            case "stone":
+                return Arrays.asList(Blocks.STONE.getDefaultState(), Blocks.STONE.getDefaultState(),
+                        Blocks.STONE.getDefaultState(), Blocks.ANDESITE.getDefaultState(),
+                        Blocks.DIRT.getDefaultState(), Blocks.GRAVEL.getDefaultState(),
+                        Blocks.COAL_ORE.getDefaultState(), Blocks.IRON_ORE.getDefaultState());
+            case "foliage":
+                return Arrays.asList(Blocks.AIR.getDefaultState(), Blocks.AIR.getDefaultState(),
+                        Blocks.GRASS_BLOCK.getDefaultState(), Blocks.GRASS.getDefaultState(),
+                        Blocks.FERN.getDefaultState(), Blocks.POPPY.getDefaultState(),
+                        Blocks.OAK_LEAVES.getDefaultState(), Blocks.WATER.getDefaultState());
+            default:
+                throw new IllegalArgumentException("Unknown contents: " + contents);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SECTION_BLOCK_COUNT)
+    public int queryProperties() {
+        BlockView world = EmptyBlockView.INSTANCE;
+        BlockPos.Mutable pos = this.pos;
+
+        int count = 0;
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            BlockState state = this.blocks[i];
+
+            if (state.isAir()) {
+                continue;
+            }
+
+            pos.set(i & 15, i >> 8, (i >> 4) & 15);
+
+            if (this.useTable) {
+                int flags = this.table[this.slots[i]];
+
+                if (BlockStateFlags.has(flags, BlockStateFlags.RENDERS_MODEL)) {
+                    this.layers[i] = BlockStateFlags.getBlockLayer(flags, state);
+                }
+
+                if (BlockStateFlags.has(flags, BlockStateFlags.HAS_FLUID)) {
+                    count++;
+                }
+
+                if (BlockStateFlags.has(flags, BlockStateFlags.HAS_BLOCK_ENTITY)) {
+                    count++;
+                }
+
+                if (BlockStateFlags.isOpaqueFullCube(flags, state, world, pos)) {
+                    count++;
+                }
+            } else {
+                Block block = state.getBlock();
+
+                if (block.getRenderType(state) == BlockRenderType.MODEL) {
+                    this.layers[i] = RenderLayers.getBlockLayer(state);
+                }
+
+                if (!block.getFluidState(state).isEmpty()) {
+                    count++;
+                }
+
+                if (block.hasBlockEntity()) {
+                    count++;
+                }
+
+                if (state.isOpaqueFullCube(world, pos)) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,182 @@
+package me.jellysquid.mods.sodium.client.world.biome;
+
+import me.jellysquid.mods.sodium.client.util.color.ColorARGB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to create the biome color cache of a chunk column and read the blended color of every block
+ * it holds, as done by the color blender while the sections of the column are meshed.
+ *
+ * The "table" mode uses {@link BiomeColorCache}, which blends colors using summed-area tables. The "vanilla" mode
+ * averages the samples around each block as the color cache did before, which serves as the baseline. Both modes
+ * resolve each sample only once, and the samples are taken from a cheap hash of their position so that the cost of
+ * blending dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiomeColorCacheBenchmark {
+    private static final ChunkSectionPos ORIGIN = ChunkSectionPos.from(-3, 4, 5);
+
+    // The number of blocks outside of the chunk column which blended colors are cached for
+    private static final int BORDER = 2;
+
+    // Every radius which can be selected in the video settings
+    @Param({ "0", "1", "2", "3", "4", "5", "6", "7" })
+    public int radius;
+
+    @Param({ "table", "vanilla" })
+    public String mode;
+
+    private BlockPos[] positions;
+
+    private boolean useVanilla;
+
+    @Setup(Level.Trial)
+    public void createPositions() {
+        int size = 16 + (BORDER * 2);
+
+        this.positions = new BlockPos[size * size];
+
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                this.positions[(x * size) + z] = new BlockPos(ORIGIN.getMinX() - BORDER + x, 64, ORIGIN.getMinZ() - BORDER + z);
+            }
+        }
+
+        switch (this.mode) {
+            case "table":
+                this.useVanilla = false;
+                break;
+            case "vanilla":
+                this.useVanilla = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + this.mode);
+        }
+    }
+
+    @Benchmark
+    public long blend() {
+        BiomeColorCache.ColorSampler sampler = BiomeColorCacheBenchmark::getNoiseColor;
+
+        long sum = 0L;
+
+        if (this.useVanilla) {
+            PerBlockColorCache cache = new PerBlockColorCache(sampler, this.radius);
+
+            for (BlockPos pos : this.positions) {
+                sum += cache.getBlendedColor(pos);
+            }
+        } else {
+            BiomeColorCache cache = new BiomeColorCache(sampler, ORIGIN, this.radius);
+
+            for (BlockPos pos : this.positions) {
+                sum += cache.getBlendedColor(pos);
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * @return An opaque color which only depends on the given position
+     */
+    private static int getNoiseColor(int x, int z) {
+        int hash = (x * 0x27D4EB2D) ^ (z * 0x165667B1);
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA77;
+        hash ^= hash >>> 13;
+
+        return hash | 0xFF000000;
+    }
+
+    /**
+     * Blends colors in the same way as the color cache did before it used summed-area tables, by averaging the
+     * samples around each block when its color is first requested.
+     */
+    private static class PerBlockColorCache {
+        private final BiomeColorCache.ColorSampler sampler;
+
+        private final int[] blendedColors;
+        private final int[] cache;
+
+        private final int radius;
+        private final int dim;
+        private final int minX, minZ;
+
+        private PerBlockColorCache(BiomeColorCache.ColorSampler sampler, int radius) {
+            this.sampler = sampler;
+            this.radius = radius;
+
+            this.minX = ORIGIN.getMinX() - (this.radius + BORDER);
+            this.minZ = ORIGIN.getMinZ() - (this.radius + BORDER);
+
+            this.dim = 16 + ((this.radius + BORDER) * 2);
+
+            this.cache = new int[this.dim * this.dim];
+            this.blendedColors = new int[this.dim * this.dim];
+
+            Arrays.fill(this.cache, -1);
+            Arrays.fill(this.blendedColors, -1);
+        }
+
+        private int getBlendedColor(BlockPos pos) {
+            int x2 = pos.getX() - this.minX;
+            int z2 = pos.getZ() - this.minZ;
+
+            int index = (x2 * this.dim) + z2;
+            int color = this.blendedColors[index];
+
+            if (color == -1) {
+                this.blendedColors[index] = color = this.calculateBlendedColor(pos.getX(), pos.getZ());
+            }
+
+            return color;
+        }
+
+        private int calculateBlendedColor(int posX, int posZ) {
+            if (this.radius == 0) {
+                return this.getColor(posX, posZ);
+            }
+
+            int diameter = (this.radius * 2) + 1;
+            int area = diameter * diameter;
+
+            int r = 0;
+            int g = 0;
+            int b = 0;
+
+            for (int x2 = posX - this.radius; x2 <= posX + this.radius; x2++) {
+                for (int z2 = posZ - this.radius; z2 <= posZ + this.radius; z2++) {
+                    int color = this.getColor(x2, z2);
+
+                    r += ColorARGB.unpackRed(color);
+                    g += ColorARGB.unpackGreen(color);
+                    b += ColorARGB.unpackBlue(color);
+                }
+            }
+
+            return ColorARGB.pack(r / area, g / area, b / area, 255);
+        }
+
+        private int getColor(int x, int z) {
+            int index = ((x - this.minX) * this.dim) + (z - this.minZ);
+            int color = this.cache[index];
+
+            if (color == -1) {
+                this.cache[index] = color = this.sampler.getColor(x, z);
+            }
+
+            return color;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.world.chunk.ChunkSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the storage of decoded chunk sections as palette indices against arrays of block state references, both
+ * for the cost of unpacking the 27 sections of a world slice and for the throughput of block state lookups.
+ *
+ * The "indices" layout uses {@link CachedChunkSection}. The "references" layout decodes each section into an array of
+ * 4096 block states, as cached sections did before, which serves as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkSectionLayoutBenchmark {
+    private static final int SECTION_LENGTH = 3;
+    private static final int SECTION_COUNT = SECTION_LENGTH * SECTION_LENGTH * SECTION_LENGTH;
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    // The section at the center of the slice
+    private static final int ORIGIN_SECTION = SECTION_COUNT / 2;
+
+    // The blocks of a world slice, which extends one block into each neighboring section
+    private static final int SLICE_MIN = 15;
+    private static final int SLICE_MAX = 32;
+    private static final int SLICE_LENGTH = SLICE_MAX - SLICE_MIN + 1;
+
+    @Param({ "indices", "references" })
+    public String layout;
+
+    @Param({ "local", "global" })
+    public String palette;
+
+    private final ChunkSectionSnapshot[] snapshots = new ChunkSectionSnapshot[SECTION_COUNT];
+
+    private final CachedChunkSection[] sections = new CachedChunkSection[SECTION_COUNT];
+    private final BlockState[][] blockStates = new BlockState[SECTION_COUNT][SECTION_BLOCK_COUNT];
+
+    private boolean useIndices;
+
+    @Setup(Level.Trial)
+    public void createSections() {
+        ChunkSection[] worldSections = new ChunkSection[SECTION_COUNT];
+        ChunkSectionSnapshotBenchmark.createSections(worldSections, this.palette);
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            this.snapshots[i] = ChunkSectionSnapshot.create(worldSections[i], 0);
+            this.sections[i] = new CachedChunkSection();
+        }
+
+        this.useIndices = this.layout.equals("indices");
+
+        this.unpackSlice();
+    }
+
+    @Benchmark
+    public void unpackSlice() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (this.useIndices) {
+                CachedChunkSection section = this.sections[i];
+                section.reset();
+                section.init(this.snapshots[i]);
+                section.unpack();
+            } else {
+                unpackReferences(this.snapshots[i], this.blockStates[i]);
+            }
+        }
+    }
+
+    /**
+     * Visits every block of the origin section in the same order as the meshing loop of the rebuild task.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SECTION_BLOCK_COUNT)
+    public int getOriginBlockState() {
+        int count = 0;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (!this.getBlockState(ORIGIN_SECTION, getLocalBlockIndex(x, y, z)).isAir()) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Visits every block of the slice, finding the section of each block first as done for lookups which aren't known
+     * to be inside the origin section.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SLICE_LENGTH * SLICE_LENGTH * SLICE_LENGTH)
+    public int getBlockState() {
+        int count = 0;
+
+        for (int y = SLICE_MIN; y <= SLICE_MAX; y++) {
+            for (int z = SLICE_MIN; z <= SLICE_MAX; z++) {
+                for (int x = SLICE_MIN; x <= SLICE_MAX; x++) {
+                    int sectionIdx = getLocalSectionIndex(x >> 4, y >> 4, z >> 4);
+
+                    if (!this.getBlockState(sectionIdx, getLocalBlockIndex(x & 15, y & 15, z & 15)).isAir()) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private BlockState getBlockState(int sectionIdx, int blockIdx) {
+        if (this.useIndices) {
+            return this.sections[sectionIdx].getBlockState(blockIdx);
+        } else {
+            return this.blockStates[sectionIdx][blockIdx];
+        }
+    }
+
+    /**
+     * Decodes a snapshot into block state references in the same way as cached sections did before they were stored
+     * as palette indices.
+     */
+    private static void unpackReferences(ChunkSectionSnapshot snapshot, BlockState[] dst) {
+        PackedIntegerArray data = snapshot.getData();
+
+        int prevPaletteId = -1;
+        BlockState prevPaletteState = null;
+
+        for (int i = 0; i < dst.length; i++) {
+            int paletteId = data.get(i);
+
+            if (prevPaletteId != paletteId) {
+                prevPaletteState = snapshot.getPaletteEntry(paletteId);
+                prevPaletteId = paletteId;
+            }
+
+            dst[i] = prevPaletteState;
+        }
+    }
+
+    private static int getLocalSectionIndex(int x, int y, int z) {
+        return (((y * SECTION_LENGTH) + z) * SECTION_LENGTH) + x;
+    }
+
+    private static int getLocalBlockIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+}
@@ -0,0 +1,171 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost on the main thread of capturing the sections around a chunk section which is scheduled for a
+ * rebuild. Each invocation captures the 27 sections which make up a world slice.
+ *
+ * The "snapshot" mode copies the packed data of each section into a {@link ChunkSectionSnapshot}, as done when a world
+ * slice is created. The "decode" mode unpacks every block within the bounds of the slice into arrays of block states,
+ * as world slices did before snapshots were introduced, which serves as the baseline.
+ *
+ * The sections are filled with a single state, a random mix of a few states which fits into a local palette, or a
+ * random mix of so many states that the global palette is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkSectionSnapshotBenchmark {
+    private static final int SECTION_LENGTH = 3;
+    private static final int SECTION_COUNT = SECTION_LENGTH * SECTION_LENGTH * SECTION_LENGTH;
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    // The number of blocks around the origin section which are included in a world slice
+    private static final int NEIGHBOR_BLOCK_RADIUS = 1;
+
+    @Param({ "snapshot", "decode" })
+    public String mode;
+
+    @Param({ "single", "local", "global" })
+    public String palette;
+
+    private final ChunkSection[] sections = new ChunkSection[SECTION_COUNT];
+
+    private final ChunkSectionSnapshot[] snapshots = new ChunkSectionSnapshot[SECTION_COUNT];
+    private final BlockState[][] blockStates = new BlockState[SECTION_COUNT][SECTION_BLOCK_COUNT];
+
+    @Setup(Level.Trial)
+    public void createSections() {
+        createSections(this.sections, this.palette);
+    }
+
+    /**
+     * Fills the given array with sections made up of random blocks from the given kind of palette.
+     * @param palette Either "single", "local" or "global"
+     */
+    static void createSections(ChunkSection[] sections, String palette) {
+        Bootstrap.initialize();
+
+        List<BlockState> states = getPaletteStates(palette);
+        Random random = new Random(42L);
+
+        for (int i = 0; i < sections.length; i++) {
+            ChunkSection section = new ChunkSection(0);
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        section.setBlockState(x, y, z, states.get(random.nextInt(states.size())), false);
+                    }
+                }
+            }
+
+            sections[i] = section;
+        }
+    }
+
+    private static List<BlockState> getPaletteStates(String palette) {
+        switch (palette) {
+            case "single":
+                return Arrays.asList(Blocks.STONE.getDefaultState());
+            case "local":
+                return Arrays.asList(Blocks.STONE.getDefaultState(), Blocks.DIRT.getDefaultState(),
+                        Blocks.GRAVEL.getDefaultState(), Blocks.ANDESITE.getDefaultState(),
+                        Blocks.DIORITE.getDefaultState(), Blocks.GRANITE.getDefaultState(),
+                        Blocks.COAL_ORE.getDefaultState(), Blocks.IRON_ORE.getDefaultState());
+            case "global":
+                List<BlockState> states = new ArrayList<>();
+
+                // Local palettes can hold at most 256 states
+                for (int i = 0; i < 512; i++) {
+                    states.add(Block.STATE_IDS.get(i));
+                }
+
+                return states;
+            default:
+                throw new IllegalArgumentException("Unknown palette: " + palette);
+        }
+    }
+
+    @Benchmark
+    public void captureSections() {
+        if (this.mode.equals("snapshot")) {
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                this.snapshots[i] = ChunkSectionSnapshot.create(this.sections[i], 0);
+            }
+        } else {
+            for (int x = 0; x < SECTION_LENGTH; x++) {
+                for (int y = 0; y < SECTION_LENGTH; y++) {
+                    for (int z = 0; z < SECTION_LENGTH; z++) {
+                        int sectionIdx = (((y * SECTION_LENGTH) + z) * SECTION_LENGTH) + x;
+
+                        decodeSection(this.sections[sectionIdx], this.blockStates[sectionIdx], x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the blocks of a section which are within the bounds of a world slice, in the same way as world slices did
+     * before block data was captured as snapshots.
+     * @param x The position of the section within the slice on the X axis, from 0 to 2
+     */
+    private static void decodeSection(ChunkSection section, BlockState[] dst, int x, int y, int z) {
+        PalettedContainer<BlockState> container = section.getContainer();
+
+        PackedIntegerArray intArray = container.data;
+        Palette<BlockState> palette = container.palette;
+
+        int prevPaletteId = -1;
+        BlockState prevPaletteState = null;
+
+        for (int blockY = getMinBlock(y); blockY <= getMaxBlock(y); blockY++) {
+            for (int blockZ = getMinBlock(z); blockZ <= getMaxBlock(z); blockZ++) {
+                for (int blockX = getMinBlock(x); blockX <= getMaxBlock(x); blockX++) {
+                    int blockIdx = (blockY << 8) | (blockZ << 4) | blockX;
+                    int paletteId = intArray.get(blockIdx);
+
+                    BlockState state;
+
+                    if (prevPaletteId == paletteId) {
+                        state = prevPaletteState;
+                    } else {
+                        state = palette.getByIndex(paletteId);
+
+                        prevPaletteState = state;
+                        prevPaletteId = paletteId;
+                    }
+
+                    dst[blockIdx] = state;
+                }
+            }
+        }
+    }
+
+    private static int getMinBlock(int sectionPos) {
+        return sectionPos == 0 ? 16 - NEIGHBOR_BLOCK_RADIUS : 0;
+    }
+
+    private static int getMaxBlock(int sectionPos) {
+        return sectionPos == SECTION_LENGTH - 1 ? NEIGHBOR_BLOCK_RADIUS - 1 : 15;
+    }
+}
@@ -0,0 +1,306 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2IntSortedMap;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+
+/**
+ * Manages the free space of a linear address range, such as the storage of a {@link GlBufferArena}. This class has no
+ * dependency on OpenGL so that its behavior can be verified without a graphics context.
+ *
+ * Free blocks are indexed twice: by their offset, which allows adjacent blocks to be coalesced when space is freed, and
+ * by their length, which allows the best fitting block for an allocation to be found in O(log n) time. The unused space
+ * at the end of the range is treated as just another free block.
+ */
+public class ArenaAllocator {
+    // Maps the offset of each free block to its length
+    private final Int2IntSortedMap freeByOffset = new Int2IntRBTreeMap();
+
+    // The free blocks ordered by their length, then by their offset (see #key(int, int))
+    private final LongSortedSet freeBySize = new LongRBTreeSet();
+
+    private int capacity;
+    private int usedBytes;
+
+    public ArenaAllocator(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+
+        this.capacity = capacity;
+
+        if (capacity > 0) {
+            this.addFreeBlock(0, capacity);
+        }
+    }
+
+    /**
+     * Allocates a block of the given length using the smallest free block which can contain it.
+     * @param len The number of bytes to allocate
+     * @return The offset of the allocated block, or -1 if no free block is large enough
+     */
+    public int alloc(int len) {
+        if (len <= 0) {
+            throw new IllegalArgumentException("Allocation length must be positive");
+        }
+
+        LongSortedSet candidates = this.freeBySize.tailSet(key(len, 0));
+
+        if (candidates.isEmpty()) {
+            return -1;
+        }
+
+        long best = candidates.firstLong();
+
+        int start = keyOffset(best);
+        int blockLen = keyLength(best);
+
+        this.removeFreeBlock(start, blockLen);
+
+        if (blockLen > len) {
+            this.addFreeBlock(start + len, blockLen - len);
+        }
+
+        this.usedBytes += len;
+
+        return start;
+    }
+
+    /**
+     * Returns a previously allocated block to the free space, merging it with any free blocks directly before and
+     * after it.
+     * @throws IllegalArgumentException If the block overlaps any free space or lies outside the address range
+     */
+    public void free(int start, int len) {
+        if (start < 0 || len <= 0 || start + len > this.capacity) {
+            throw new IllegalArgumentException("Block [" + start + ", " + (start + len) + ") is out of bounds");
+        }
+
+        int end = start + len;
+
+        Int2IntSortedMap before = this.freeByOffset.headMap(end);
+
+        if (!before.isEmpty()) {
+            int prevStart = before.lastIntKey();
+            int prevEnd = prevStart + before.get(prevStart);
+
+            if (prevEnd > start) {
+                throw new IllegalArgumentException("Block [" + start + ", " + end + ") was already freed");
+            }
+
+            if (prevEnd == start) {
+                this.removeFreeBlock(prevStart, prevEnd - prevStart);
+
+                start = prevStart;
+            }
+        }
+
+        if (this.freeByOffset.containsKey(end)) {
+            int nextLen = this.freeByOffset.get(end);
+            this.removeFreeBlock(end, nextLen);
+
+            end += nextLen;
+        }
+
+        this.addFreeBlock(start, end - start);
+
+        this.usedBytes -= len;
+    }
+
+    /**
+     * Extends the address range to the given capacity. The new space is added to the free space.
+     */
+    public void grow(int capacity) {
+        if (capacity < this.capacity) {
+            throw new IllegalArgumentException("Capacity cannot shrink");
+        }
+
+        if (capacity == this.capacity) {
+            return;
+        }
+
+        int start = this.capacity;
+
+        // The new space is always free, so it's enough to mark it as allocated and then free it again to have it
+        // coalesced with a free block at the end of the previous range
+        this.capacity = capacity;
+        this.usedBytes += capacity - start;
+
+        this.free(start, capacity - start);
+    }
+
+    /**
+     * Moves an allocated block to the first free block which can contain it and lies entirely before the block's
+     * current location. The old location is then freed. This is used to incrementally compact the address range by
+     * moving blocks at the end of it towards the front. Since the new location never overlaps the old one, the caller
+     * can copy the data between them directly.
+     *
+     * @param start The offset of the allocated block
+     * @param len The length of the allocated block
+     * @return The new offset of the block, or -1 if no suitable free block exists before it
+     */
+    public int relocate(int start, int len) {
+        int target = -1;
+        int targetLen = 0;
+
+        for (Int2IntMap.Entry entry : this.freeByOffset.headMap(start).int2IntEntrySet()) {
+            int blockStart = entry.getIntKey();
+            int blockLen = entry.getIntValue();
+
+            if (blockStart + len > start) {
+                break;
+            }
+
+            if (blockLen >= len) {
+                target = blockStart;
+                targetLen = blockLen;
+
+                break;
+            }
+        }
+
+        if (target < 0) {
+            return -1;
+        }
+
+        this.removeFreeBlock(target, targetLen);
+
+        if (targetLen > len) {
+            this.addFreeBlock(target + len, targetLen - len);
+        }
+
+        // The old location is released after the new one was taken, keeping the number of used bytes unchanged
+        this.usedBytes += len;
+        this.free(start, len);
+
+        return target;
+    }
+
+    /**
+     * Reduces the address range to the given capacity. All space past the new capacity must be free.
+     */
+    public void shrink(int capacity) {
+        if (capacity > this.capacity || capacity < this.getHighWaterMark()) {
+            throw new IllegalArgumentException("Capacity must be between the high water mark and the current capacity");
+        }
+
+        if (capacity == this.capacity) {
+            return;
+        }
+
+        int tailStart = this.capacity - this.getTailLength();
+
+        this.removeFreeBlock(tailStart, this.capacity - tailStart);
+
+        if (capacity > tailStart) {
+            this.addFreeBlock(tailStart, capacity - tailStart);
+        }
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return The end offset of the last allocated block, which is the smallest capacity the range could shrink to
+     */
+    public int getHighWaterMark() {
+        return this.capacity - this.getTailLength();
+    }
+
+    /**
+     * @return The length of the free block at the end of the range, or zero if the last byte is allocated
+     */
+    private int getTailLength() {
+        if (this.freeByOffset.isEmpty()) {
+            return 0;
+        }
+
+        int lastStart = this.freeByOffset.lastIntKey();
+        int lastLen = this.freeByOffset.get(lastStart);
+
+        return lastStart + lastLen == this.capacity ? lastLen : 0;
+    }
+
+    /**
+     * @return The length of the largest free block, or zero if there is no free space
+     */
+    public int getLargestFreeBlock() {
+        return this.freeBySize.isEmpty() ? 0 : keyLength(this.freeBySize.lastLong());
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    public int getFreeBytes() {
+        return this.capacity - this.usedBytes;
+    }
+
+    public int getFreeBlockCount() {
+        return this.freeByOffset.size();
+    }
+
+    /**
+     * Returns true if all free space lies at the end of the range, after the last allocated block. Otherwise, blocks
+     * could be moved into the free space before them to reduce the high water mark. This is not implied by a
+     * fragmentation of zero, as a single free block between two allocated blocks is not fragmented.
+     */
+    public boolean isCompacted() {
+        return this.getFreeBytes() == this.getTailLength();
+    }
+
+    /**
+     * Returns the fraction of free space which is not part of the largest free block. A value of zero means that all
+     * free space is contiguous, while values approaching one mean that the free space is scattered into many small
+     * blocks which cannot service large allocations.
+     */
+    public double getFragmentation() {
+        int free = this.getFreeBytes();
+
+        if (free <= 0) {
+            return 0.0D;
+        }
+
+        return 1.0D - ((double) this.getLargestFreeBlock() / (double) free);
+    }
+
+    /**
+     * Visits each free block in ascending order of offset.
+     */
+    public void forEachFreeBlock(FreeBlockConsumer consumer) {
+        for (Int2IntMap.Entry entry : this.freeByOffset.int2IntEntrySet()) {
+            consumer.accept(entry.getIntKey(), entry.getIntValue());
+        }
+    }
+
+    private void addFreeBlock(int start, int len) {
+        this.freeByOffset.put(start, len);
+        this.freeBySize.add(key(len, start));
+    }
+
+    private void removeFreeBlock(int start, int len) {
+        this.freeByOffset.remove(start);
+        this.freeBySize.remove(key(len, start));
+    }
+
+    private static long key(int len, int start) {
+        return ((long) len << 32) | (start & 0xFFFFFFFFL);
+    }
+
+    private static int keyLength(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int keyOffset(long key) {
+        return (int) key;
+    }
+
+    public interface FreeBlockConsumer {
+        void accept(int start, int len);
+    }
+}
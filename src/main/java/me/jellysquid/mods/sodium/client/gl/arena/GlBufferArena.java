@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.gl.arena;
 
-import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
 import me.jellysquid.mods.sodium.client.gl.util.MemoryTracker;
@@ -8,21 +9,30 @@ import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL31;
 import org.lwjgl.opengl.GL33;
 
-import java.util.Set;
-
 public class GlBufferArena {
+    // The arena will only be shrunk if less than this fraction of its capacity is in use
+    private static final double SHRINK_UTILIZATION_THRESHOLD = 0.5D;
+
+    private final int initialSize;
     private final int resizeIncrement;
 
     private final MemoryTracker memoryTracker;
-    private final Set<GlBufferRegion> freeRegions = new ObjectLinkedOpenHashSet<>();
+    private final ArenaAllocator allocator;
+
+    // The live regions of this arena keyed by their current offset, used to find the regions to move during compaction
+    private final Int2ObjectSortedMap<GlBufferRegion> regions = new Int2ObjectRBTreeMap<>();
 
     private GlBuffer vertexBuffer;
     private boolean isBufferBound;
 
-    private int position;
     private int capacity;
     private int allocCount;
-    private int usedBytes;
+
+    // Whether or not space has been freed since the last compaction pass which couldn't move any more regions
+    private boolean compactionPending;
+
+    // The size of the largest free block as last reported to the memory tracker
+    private int reportedLargestFreeBlock;
 
     public GlBufferArena(MemoryTracker memoryTracker, int initialSize, int resizeIncrement) {
         this.memoryTracker = memoryTracker;
@@ -34,8 +44,12 @@ public class GlBufferArena {
 
         this.memoryTracker.onMemoryAllocate(this.vertexBuffer.getSize());
 
+        this.initialSize = initialSize;
         this.resizeIncrement = resizeIncrement;
         this.capacity = initialSize;
+
+        this.allocator = new ArenaAllocator(initialSize);
+        this.updateFragmentation();
     }
 
     private void resize(int size) {
@@ -46,7 +60,7 @@ public class GlBufferArena {
 
         GlBuffer dst = this.createBuffer();
 
-        GlBuffer.copy(src, dst, 0, 0, this.capacity, size);
+        GlBuffer.copy(src, dst, 0, 0, Math.min(this.capacity, size), size);
         src.delete();
 
         dst.bind(GL31.GL_COPY_WRITE_BUFFER);
@@ -54,7 +68,14 @@ public class GlBufferArena {
         this.vertexBuffer = dst;
         this.capacity = size;
 
+        if (size > this.allocator.getCapacity()) {
+            this.allocator.grow(size);
+        } else {
+            this.allocator.shrink(size);
+        }
+
         this.memoryTracker.onMemoryAllocate(this.vertexBuffer.getSize());
+        this.updateFragmentation();
     }
 
     private GlBuffer createBuffer() {
@@ -66,8 +87,12 @@ public class GlBufferArena {
         this.isBufferBound = true;
     }
 
+    /**
+     * Ensures that the arena contains a contiguous free block of at least {@param len} bytes, growing the buffer if
+     * necessary.
+     */
     public void ensureCapacity(int len) {
-        if (this.position + len >= this.capacity) {
+        if (this.allocator.getLargestFreeBlock() < len) {
             this.resize(this.getNextSize(len));
         }
     }
@@ -94,63 +119,144 @@ public class GlBufferArena {
     }
 
     public void free(GlBufferRegion segment) {
-        if (!this.freeRegions.add(segment)) {
-            throw new IllegalArgumentException("Segment already freed");
-        }
+        this.allocator.free(segment.getStart(), segment.getLength());
+        this.regions.remove(segment.getStart());
+
+        this.compactionPending = true;
 
         this.memoryTracker.onMemoryFree(segment.getLength());
         this.allocCount--;
-        this.usedBytes -= segment.getLength();
+
+        this.updateFragmentation();
     }
 
     private GlBufferRegion alloc(int len) {
-        GlBufferRegion segment = this.allocReuse(len);
-
-        if (segment == null) {
-            segment = new GlBufferRegion(this, this.position, len);
+        int start = this.allocator.alloc(len);
 
-            this.position += len;
+        if (start < 0) {
+            throw new IllegalStateException("No free block large enough for allocation of " + len + " bytes");
         }
 
         this.allocCount++;
-        this.usedBytes += segment.getLength();
 
-        this.memoryTracker.onMemoryUse(segment.getLength());
+        this.memoryTracker.onMemoryUse(len);
+        this.updateFragmentation();
 
-        return segment;
+        GlBufferRegion region = new GlBufferRegion(this, start, len);
+        this.regions.put(start, region);
+
+        return region;
     }
 
-    private GlBufferRegion allocReuse(int len) {
-        GlBufferRegion bestSegment = null;
+    /**
+     * @return True if space has been freed since the last compaction pass and the arena might benefit from another
+     */
+    public boolean isCompactionPending() {
+        return this.compactionPending;
+    }
 
-        for (GlBufferRegion segment : this.freeRegions) {
-            if (segment.getLength() < len) {
-                continue;
+    /**
+     * Incrementally compacts the arena by moving the regions at the end of the buffer into free space closer to its
+     * front, and then shrinks the buffer if enough space at its end became free. The data of each region is copied on
+     * the GPU and the new offset is reflected by {@link GlBufferRegion#getStart()} immediately. The arena must not be
+     * bound while compacting.
+     *
+     * @param maxBytes The maximum number of bytes to move before returning, which bounds the time spent on a single call
+     * @return The number of bytes which were moved or copied
+     */
+    public int compact(int maxBytes) {
+        if (this.isBufferBound) {
+            throw new IllegalStateException("Buffer is bound");
+        }
+
+        int moved = 0;
+
+        if (!this.allocator.isCompacted()) {
+            moved += this.moveRegions(maxBytes);
+        }
+
+        // Only give up on compaction once a pass completes without running out of budget
+        if (moved < maxBytes) {
+            this.compactionPending = false;
+
+            moved += this.shrink();
+        }
+
+        this.updateFragmentation();
+
+        return moved;
+    }
+
+    private int moveRegions(int maxBytes) {
+        int moved = 0;
+
+        this.vertexBuffer.bind(GL31.GL_COPY_READ_BUFFER);
+        this.vertexBuffer.bind(GL31.GL_COPY_WRITE_BUFFER);
+
+        int cursor = Integer.MAX_VALUE;
+
+        while (moved < maxBytes) {
+            Int2ObjectSortedMap<GlBufferRegion> remaining = this.regions.headMap(cursor);
+
+            if (remaining.isEmpty()) {
+                break;
             }
 
-            if (bestSegment == null || bestSegment.getLength() > segment.getLength()) {
-                bestSegment = segment;
+            int src = remaining.lastIntKey();
+            cursor = src;
+
+            GlBufferRegion region = remaining.get(src);
+            int dst = this.allocator.relocate(src, region.getLength());
+
+            if (dst < 0) {
+                continue;
             }
-        }
 
-        if (bestSegment == null) {
-            return null;
+            // The allocator never picks a location overlapping the old one, so the copy within one buffer is safe
+            GL33.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, src, dst, region.getLength());
+
+            this.regions.remove(src);
+            this.regions.put(dst, region);
+
+            region.setStart(dst);
+
+            moved += region.getLength();
         }
 
-        this.freeRegions.remove(bestSegment);
+        this.vertexBuffer.unbind(GL31.GL_COPY_WRITE_BUFFER);
+        this.vertexBuffer.unbind(GL31.GL_COPY_READ_BUFFER);
+
+        return moved;
+    }
 
-        int excess = bestSegment.getLength() - len;
+    private int shrink() {
+        int size = Math.max(this.initialSize, this.allocator.getHighWaterMark() + this.resizeIncrement);
 
-        if (excess > 0) {
-            this.freeRegions.add(new GlBufferRegion(this, bestSegment.getStart() + len, excess));
+        if (this.capacity - size < this.resizeIncrement) {
+            return 0;
         }
 
-        return new GlBufferRegion(this, bestSegment.getStart(), len);
+        if (this.allocator.getUsedBytes() >= this.capacity * SHRINK_UTILIZATION_THRESHOLD) {
+            return 0;
+        }
+
+        this.resize(size);
+        this.vertexBuffer.unbind(GL31.GL_COPY_WRITE_BUFFER);
+
+        return size;
+    }
+
+    private void updateFragmentation() {
+        int largest = this.allocator.getLargestFreeBlock();
+
+        this.memoryTracker.onLargestFreeBlockChanged(this.reportedLargestFreeBlock, largest);
+        this.reportedLargestFreeBlock = largest;
     }
 
     public void delete() {
-        this.memoryTracker.onMemoryFree(this.usedBytes);
+        this.memoryTracker.onMemoryFree(this.allocator.getUsedBytes());
         this.memoryTracker.onMemoryRelease(this.vertexBuffer.getSize());
+        this.memoryTracker.onLargestFreeBlockChanged(this.reportedLargestFreeBlock, 0);
 
         this.vertexBuffer.delete();
     }
@@ -163,6 +269,14 @@ public class GlBufferArena {
         return this.vertexBuffer;
     }
 
+    /**
+     * @return The fraction of free space in this arena which is not part of its largest free block
+     * @see ArenaAllocator#getFragmentation()
+     */
+    public double getFragmentation() {
+        return this.allocator.getFragmentation();
+    }
+
     private void checkBufferBound() {
         if (!this.isBufferBound) {
             throw new IllegalStateException("Buffer is not bound");
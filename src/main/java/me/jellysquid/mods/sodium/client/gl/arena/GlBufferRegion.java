@@ -2,7 +2,7 @@ package me.jellysquid.mods.sodium.client.gl.arena;
 
 public class GlBufferRegion {
     private final GlBufferArena arena;
-    private final int start;
+    private int start;
     private final int len;
 
     GlBufferRegion(GlBufferArena arena, int start, int len) {
@@ -15,6 +15,13 @@ public class GlBufferRegion {
         return this.start;
     }
 
+    /**
+     * Called by the owning arena after the contents of this region have been moved to a new location.
+     */
+    void setStart(int start) {
+        this.start = start;
+    }
+
     public int getLength() {
         return this.len;
     }
@@ -0,0 +1,116 @@
+package me.jellysquid.mods.sodium.client.gl.buffer;
+
+import me.jellysquid.mods.sodium.client.gl.GlObject;
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
+import me.jellysquid.mods.sodium.client.gl.util.GlFence;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A persistently mapped buffer which is used as a ring of staging memory for uploads. Data is copied into the mapped
+ * memory directly by the CPU and then copied into its destination buffer on the GPU, which avoids having to re-allocate
+ * a scratch buffer for every upload. Fences are used to determine when the GPU has finished reading a range of the
+ * ring so that it can be written again.
+ *
+ * Requires buffer storage (OpenGL 4.4 or ARB_buffer_storage) and sync objects (OpenGL 3.2 or ARB_sync).
+ */
+public class GlStagingBuffer extends GlObject {
+    private static final int STORAGE_FLAGS = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+
+    private final RingAllocator<GlFence> allocator;
+    private final long mappedAddress;
+
+    public GlStagingBuffer(int capacity) {
+        this.setHandle(GL15.glGenBuffers());
+
+        this.bind(GL31.GL_COPY_READ_BUFFER);
+        GlFunctions.BUFFER_STORAGE.glBufferStorage(GL31.GL_COPY_READ_BUFFER, capacity, STORAGE_FLAGS);
+
+        ByteBuffer mapped = GL30.glMapBufferRange(GL31.GL_COPY_READ_BUFFER, 0, capacity, STORAGE_FLAGS);
+
+        if (mapped == null) {
+            throw new RuntimeException("Failed to map staging buffer");
+        }
+
+        this.unbind(GL31.GL_COPY_READ_BUFFER);
+
+        this.mappedAddress = MemoryUtil.memAddress(mapped);
+        this.allocator = new RingAllocator<>(capacity);
+    }
+
+    public static boolean isSupported() {
+        return GlFunctions.isBufferStorageSupported() && GlFunctions.isSyncSupported();
+    }
+
+    /**
+     * Copies the remaining bytes of the given buffer into staging memory. This does not block if the ring is full and
+     * instead fails, in which case the caller should fall back to another upload path.
+     *
+     * @return The offset of the data within this buffer, or -1 if there is not enough free space
+     */
+    public int write(ByteBuffer data) {
+        int len = data.remaining();
+
+        if (len > this.allocator.getCapacity()) {
+            return -1;
+        }
+
+        this.reclaim();
+
+        int offset = this.allocator.alloc(len);
+
+        if (offset >= 0) {
+            MemoryUtil.memCopy(MemoryUtil.memAddress(data), this.mappedAddress + offset, len);
+        }
+
+        return offset;
+    }
+
+    /**
+     * Inserts a fence after all copy commands which read from the data written since the last call. This must be called
+     * after the commands have been issued and before the next frame begins writing to the buffer.
+     */
+    public void flush() {
+        if (this.allocator.hasOpenSection()) {
+            this.allocator.closeSection(new GlFence());
+        }
+    }
+
+    private void reclaim() {
+        GlFence fence;
+
+        while ((fence = this.allocator.getOldestFence()) != null && fence.isSignaled()) {
+            this.allocator.releaseOldestSection().delete();
+        }
+    }
+
+    public void bind(int target) {
+        GL15.glBindBuffer(target, this.handle());
+    }
+
+    public void unbind(int target) {
+        GL15.glBindBuffer(target, 0);
+    }
+
+    public int getCapacity() {
+        return this.allocator.getCapacity();
+    }
+
+    public void delete() {
+        while (this.allocator.getClosedSectionCount() > 0) {
+            this.allocator.releaseOldestSection().delete();
+        }
+
+        this.bind(GL31.GL_COPY_READ_BUFFER);
+        GL15.glUnmapBuffer(GL31.GL_COPY_READ_BUFFER);
+        this.unbind(GL31.GL_COPY_READ_BUFFER);
+
+        GL15.glDeleteBuffers(this.handle());
+        this.invalidateHandle();
+    }
+}
@@ -0,0 +1,160 @@
+package me.jellysquid.mods.sodium.client.gl.buffer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Manages the space of a fixed-size ring buffer which is written by the CPU and read by the GPU, such as a staging
+ * buffer for uploads. This class has no dependency on OpenGL so that its behavior can be verified without a graphics
+ * context.
+ *
+ * Allocations are always made at the head of the ring and are grouped into sections. Once the commands reading from
+ * the current section have been submitted, the section is closed with a fence object. The space of a section can only
+ * be reused after its fence has been signaled, and sections are always released in the order they were closed.
+ *
+ * @param <F> The type of fence object used to track the completion of sections
+ */
+public class RingAllocator<F> {
+    private final int capacity;
+
+    // The sections which have been closed but not yet released, in order of submission
+    private final Deque<Section<F>> sections = new ArrayDeque<>();
+
+    // The offset at which the next allocation will be attempted
+    private int head;
+
+    // The number of bytes which can't be reused, including padding skipped when wrapping around
+    private int usedBytes;
+
+    // The number of bytes allocated since the last section was closed
+    private int openBytes;
+
+    public RingAllocator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Allocates a contiguous block of the given length at the head of the ring. If the block doesn't fit into the space
+     * before the end of the ring, the remaining space is skipped and the block is allocated at the start instead.
+     *
+     * @param len The number of bytes to allocate
+     * @return The offset of the allocated block, or -1 if there is not enough free space
+     */
+    public int alloc(int len) {
+        if (len <= 0) {
+            throw new IllegalArgumentException("Allocation length must be positive");
+        }
+
+        if (len > this.capacity - this.usedBytes) {
+            return -1;
+        }
+
+        // Nothing is in flight, so the next allocation can start from the beginning and avoid wrapping around
+        if (this.usedBytes == 0) {
+            this.head = 0;
+        }
+
+        int tail = this.getTail();
+
+        if (this.head >= tail) {
+            // The free space is split between [head, capacity) and [0, tail)
+            if (len > this.capacity - this.head) {
+                if (len > tail) {
+                    return -1;
+                }
+
+                int padding = this.capacity - this.head;
+
+                this.usedBytes += padding;
+                this.openBytes += padding;
+
+                this.head = 0;
+            }
+        } else if (len > tail - this.head) {
+            return -1;
+        }
+
+        int start = this.head;
+
+        this.head = (start + len) % this.capacity;
+        this.usedBytes += len;
+        this.openBytes += len;
+
+        return start;
+    }
+
+    /**
+     * @return True if allocations have been made since the last section was closed
+     */
+    public boolean hasOpenSection() {
+        return this.openBytes > 0;
+    }
+
+    /**
+     * Closes the current section. Its space will be reused once {@link RingAllocator#releaseOldestSection()} is called
+     * after the given fence has been signaled.
+     */
+    public void closeSection(F fence) {
+        if (!this.hasOpenSection()) {
+            throw new IllegalStateException("No allocations have been made since the last section was closed");
+        }
+
+        this.sections.addLast(new Section<>(fence, this.openBytes));
+        this.openBytes = 0;
+    }
+
+    /**
+     * @return The fence of the oldest closed section, or null if all closed sections have been released
+     */
+    public F getOldestFence() {
+        Section<F> section = this.sections.peekFirst();
+
+        return section != null ? section.fence : null;
+    }
+
+    /**
+     * Releases the space of the oldest closed section, making it available for new allocations.
+     * @return The fence of the released section
+     */
+    public F releaseOldestSection() {
+        Section<F> section = this.sections.pollFirst();
+
+        if (section == null) {
+            throw new IllegalStateException("No closed sections to release");
+        }
+
+        this.usedBytes -= section.bytes;
+
+        return section.fence;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    public int getClosedSectionCount() {
+        return this.sections.size();
+    }
+
+    private int getTail() {
+        return Math.floorMod(this.head - this.usedBytes, this.capacity);
+    }
+
+    private static class Section<F> {
+        private final F fence;
+        private final int bytes;
+
+        private Section(F fence, int bytes) {
+            this.fence = fence;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.jellysquid.mods.sodium.client.gl.func;
+
+import org.lwjgl.opengl.ARBSync;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Requires OpenGL 3.2+ or the ARB_sync extension.
+ */
+public enum GlSyncFunctions {
+    CORE {
+        @Override
+        public long glFenceSync(int condition, int flags) {
+            return GL32.glFenceSync(condition, flags);
+        }
+
+        @Override
+        public int glClientWaitSync(long sync, int flags, long timeout) {
+            return GL32.glClientWaitSync(sync, flags, timeout);
+        }
+
+        @Override
+        public void glDeleteSync(long sync) {
+            GL32.glDeleteSync(sync);
+        }
+    },
+    ARB {
+        @Override
+        public long glFenceSync(int condition, int flags) {
+            return ARBSync.glFenceSync(condition, flags);
+        }
+
+        @Override
+        public int glClientWaitSync(long sync, int flags, long timeout) {
+            return ARBSync.glClientWaitSync(sync, flags, timeout);
+        }
+
+        @Override
+        public void glDeleteSync(long sync) {
+            ARBSync.glDeleteSync(sync);
+        }
+    },
+    UNSUPPORTED {
+        @Override
+        public long glFenceSync(int condition, int flags) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int glClientWaitSync(long sync, int flags, long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void glDeleteSync(long sync) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    static GlSyncFunctions load(GLCapabilities capabilities) {
+        if (capabilities.OpenGL32) {
+            return GlSyncFunctions.CORE;
+        } else if (capabilities.GL_ARB_sync) {
+            return GlSyncFunctions.ARB;
+        } else {
+            return GlSyncFunctions.UNSUPPORTED;
+        }
+    }
+
+    public abstract long glFenceSync(int condition, int flags);
+
+    public abstract int glClientWaitSync(long sync, int flags, long timeout);
+
+    public abstract void glDeleteSync(long sync);
+}
@@ -0,0 +1,48 @@
+package me.jellysquid.mods.sodium.client.gl.util;
+
+import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
+import org.lwjgl.opengl.GL32;
+
+/**
+ * A fence sync object which is signaled once the GPU has completed all commands submitted before its creation.
+ */
+public class GlFence {
+    private long handle;
+
+    public GlFence() {
+        this.handle = GlFunctions.SYNC.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /**
+     * @return True if the fence has been signaled, without waiting for it
+     */
+    public boolean isSignaled() {
+        return this.waitFor(0L);
+    }
+
+    /**
+     * Blocks until the fence is signaled or the timeout expires, flushing any pending commands first.
+     * @param timeout The maximum time to wait in nanoseconds
+     * @return True if the fence has been signaled
+     */
+    public boolean waitFor(long timeout) {
+        this.checkHandle();
+
+        int result = GlFunctions.SYNC.glClientWaitSync(this.handle, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, timeout);
+
+        return result == GL32.GL_ALREADY_SIGNALED || result == GL32.GL_CONDITION_SATISFIED;
+    }
+
+    public void delete() {
+        this.checkHandle();
+
+        GlFunctions.SYNC.glDeleteSync(this.handle);
+        this.handle = 0L;
+    }
+
+    private void checkHandle() {
+        if (this.handle == 0L) {
+            throw new IllegalStateException("Fence has been deleted");
+        }
+    }
+}
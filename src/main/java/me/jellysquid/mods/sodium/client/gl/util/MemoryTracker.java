@@ -2,6 +2,7 @@ package me.jellysquid.mods.sodium.client.gl.util;
 
 public class MemoryTracker {
     private long allocated, used;
+    private long largestFreeBlocks;
 
     public void onMemoryAllocate(long mem) {
         this.allocated += mem;
@@ -19,6 +20,29 @@ public class MemoryTracker {
         this.used -= mem;
     }
 
+    /**
+     * Called when the largest free block of a tracked buffer changes size.
+     * @param prev The previously reported size of the buffer's largest free block
+     * @param cur The new size of the buffer's largest free block
+     */
+    public void onLargestFreeBlockChanged(long prev, long cur) {
+        this.largestFreeBlocks += cur - prev;
+    }
+
+    /**
+     * Returns the fraction of unused memory which is not part of the largest free block of its buffer. Zero means all
+     * unused memory is contiguous within each buffer, while values approaching one indicate heavy fragmentation.
+     */
+    public double getFragmentationRatio() {
+        long free = this.allocated - this.used;
+
+        if (free <= 0) {
+            return 0.0D;
+        }
+
+        return Math.max(0.0D, 1.0D - ((double) this.largestFreeBlocks / (double) free));
+    }
+
     public long getUsedMemory() {
         return this.used;
     }
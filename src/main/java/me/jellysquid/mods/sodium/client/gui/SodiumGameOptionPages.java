@@ -264,6 +264,49 @@ public class SodiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Use Incremental Chunk Updates")
+                        .setTooltip("If enabled, a copy of each chunk's geometry will be kept in system memory so that when only a few blocks change, " +
+                                "just those blocks need to be rendered again instead of the whole chunk. This makes frequent block updates (such as " +
+                                "those caused by redstone contraptions) much cheaper, but increases memory usage.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useIncrementalChunkUpdates = value, opts -> opts.advanced.useIncrementalChunkUpdates)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Use Chunk Face Merging")
+                        .setTooltip("If enabled, the faces of neighboring solid blocks which look exactly the same (such as those of flat walls and floors) " +
+                                "will be merged into larger faces, reducing the amount of geometry which needs to be drawn. This disables incremental " +
+                                "chunk updates, and only blocks with standard-sized textures can be merged.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useChunkFaceMerging = value, opts -> opts.advanced.useChunkFaceMerging)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(int.class, sodiumOpts)
+                        .setName("Chunk Upload Time Budget")
+                        .setTooltip("Limits the amount of time which can be spent each frame on uploading finished chunk meshes to the graphics card. " +
+                                "Lower values prevent stuttering when many chunks finish building at once, such as after teleporting, but cause " +
+                                "chunks to appear more slowly.")
+                        .setControl(option -> new SliderControl(option, 1, 20, 1, ControlValueFormatter.quantity("ms")))
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.chunkUploadTimeBudget = value, opts -> opts.advanced.chunkUploadTimeBudget)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setName("Use Parallel Chunk Culling")
+                        .setTooltip("If enabled, the search which determines the visible chunks will be spread across multiple threads when many " +
+                                "chunks need to be checked. This can reduce frame times at high render distances on CPUs with many cores, but the threads " +
+                                "are shared with other tasks of the game and mods, which may be slowed down or slow down the search in turn.")
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useParallelChunkCulling = value, opts -> opts.advanced.useParallelChunkCulling)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setName("Use Compact Vertex Format")
                         .setTooltip("If enabled, a more compact vertex format will be used for chunk meshes which limits the precision of vertex attributes. This format " +
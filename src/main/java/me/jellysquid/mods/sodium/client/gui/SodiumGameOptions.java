@@ -36,6 +36,10 @@ public class SodiumGameOptions {
         public boolean useFogOcclusion = true;
         public boolean useCompactVertexFormat = true;
         public boolean useChunkFaceCulling = true;
+        public boolean useParallelChunkCulling = false;
+        public boolean useIncrementalChunkUpdates = false;
+        public boolean useChunkFaceMerging = false;
+        public int chunkUploadTimeBudget = 4;
         public boolean useMemoryIntrinsics = true;
         public boolean disableDriverBlacklist = false;
     }
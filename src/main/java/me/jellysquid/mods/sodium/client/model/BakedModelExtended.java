@@ -0,0 +1,18 @@
+package me.jellysquid.mods.sodium.client.model;
+
+import net.minecraft.client.render.model.BakedModel;
+
+public interface BakedModelExtended {
+    /**
+     * @return True if the quads returned by the model depend on the random generator passed to it, otherwise false
+     */
+    boolean usesRandom();
+
+    /**
+     * Returns whether the given model depends on the random generator passed to it. Models which are not known to this
+     * interface are assumed to always use it.
+     */
+    static boolean usesRandom(BakedModel model) {
+        return !(model instanceof BakedModelExtended) || ((BakedModelExtended) model).usesRandom();
+    }
+}
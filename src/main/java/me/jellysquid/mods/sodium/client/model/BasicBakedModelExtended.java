@@ -0,0 +1,61 @@
+package me.jellysquid.mods.sodium.client.model;
+
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFlags;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.util.math.Direction;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BasicBakedModelExtended {
+    /**
+     * Returns the faces of the model if it is a simple cube, which consists of exactly one quad covering each face of
+     * the block and nothing else. The quads of such models do not depend on the block state or random seed.
+     *
+     * @return The quad for each face of the cube indexed by {@link net.minecraft.util.math.Direction#ordinal()}, or
+     * null if the model is not a simple cube
+     */
+    BakedQuad[] getCubeFaces();
+
+    /**
+     * Classifies the quads of a basic model as returned by {@link #getCubeFaces()}. Rendering the returned faces in the
+     * order of {@link DirectionUtil#ALL_DIRECTIONS} emits the same quads in the same order as fetching the quads of
+     * each side followed by the unculled quads.
+     *
+     * @param quads The unculled quads of the model
+     * @param faceQuads The quads of the model for each side which can be culled
+     * @return The quad for each face of the cube, or null if the model is not a simple cube
+     */
+    static BakedQuad[] findCubeFaces(List<BakedQuad> quads, Map<Direction, List<BakedQuad>> faceQuads) {
+        if (!quads.isEmpty()) {
+            return null;
+        }
+
+        BakedQuad[] faces = new BakedQuad[DirectionUtil.ALL_DIRECTIONS.length];
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            List<BakedQuad> sided = faceQuads.get(dir);
+
+            if (sided == null || sided.size() != 1) {
+                return null;
+            }
+
+            BakedQuad quad = sided.get(0);
+
+            if (quad.getFace() != dir) {
+                return null;
+            }
+
+            int flags = ModelQuadFlags.getQuadFlags(quad);
+
+            if (!ModelQuadFlags.contains(flags, ModelQuadFlags.IS_ALIGNED) || ModelQuadFlags.contains(flags, ModelQuadFlags.IS_PARTIAL)) {
+                return null;
+            }
+
+            faces[dir.ordinal()] = quad;
+        }
+
+        return faces;
+    }
+}
@@ -1,6 +1,7 @@
 package me.jellysquid.mods.sodium.client.model.light;
 
 import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
 import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
@@ -19,4 +20,21 @@ public interface LightPipeline {
      * @param shade True if the block is shaded by ambient occlusion
      */
     void calculate(ModelQuadView quad, BlockPos pos, QuadLightData out, Direction face, boolean shade);
+
+    /**
+     * Re-computes the light map texture coordinates of a single vertex from the source which was recorded for it by
+     * {@link LightPipeline#calculate(ModelQuadView, BlockPos, QuadLightData, Direction, boolean)}. The source must have
+     * been produced by this pipeline.
+     * @param pos The block position of the model the vertex belongs to
+     * @param source The light source of the vertex, as described by {@link VertexLightSource}
+     * @return The light map texture coordinates of the vertex
+     */
+    int relight(BlockPos pos, int source);
+
+    /**
+     * Discards any light data cached by this pipeline. This must be called whenever the light data it accesses changes.
+     */
+    default void reset() {
+
+    }
 }
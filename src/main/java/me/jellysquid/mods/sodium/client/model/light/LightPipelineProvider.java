@@ -14,6 +14,15 @@ public class LightPipelineProvider {
         this.lighters.put(LightMode.FLAT, new FlatLightPipeline(cache));
     }
 
+    /**
+     * Discards the cached light data of all pipelines.
+     */
+    public void reset() {
+        for (LightPipeline pipeline : this.lighters.values()) {
+            pipeline.reset();
+        }
+    }
+
     public LightPipeline getLighter(LightMode type) {
         LightPipeline pipeline = this.lighters.get(type);
 
@@ -10,17 +10,26 @@ import java.util.Arrays;
  * A light data cache which uses a flat-array to store the light data for the blocks in a given chunk and its direct
  * neighbors. This is considerably faster than using a hash table to lookup values for a given block position and
  * can be re-used by {@link me.jellysquid.mods.sodium.client.world.WorldSlice} to avoid allocations.
+ *
+ * Rather than clearing the whole array for each chunk, every entry is stamped with the epoch of the chunk it was
+ * computed for, and entries from any other epoch are treated as missing. Starting a new chunk is then a constant-time
+ * operation, and entries which are never accessed don't need to be touched at all.
  */
 public class ArrayLightDataCache extends LightDataAccess {
     private static final int NEIGHBOR_BLOCK_RADIUS = 2;
     private static final int BLOCK_LENGTH = 16 + (NEIGHBOR_BLOCK_RADIUS * 2);
 
     private final long[] light;
+    private final int[] epochs;
+
+    // The epoch of the current chunk, which is never zero so that entries which were never written are always stale
+    private int epoch;
 
     private int xOffset, yOffset, zOffset;
 
     public ArrayLightDataCache() {
         this.light = new long[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
+        this.epochs = new int[BLOCK_LENGTH * BLOCK_LENGTH * BLOCK_LENGTH];
     }
 
     public void init(BlockRenderView world, ChunkSectionPos origin) {
@@ -30,7 +39,12 @@ public class ArrayLightDataCache extends LightDataAccess {
         this.yOffset = origin.getMinY() - NEIGHBOR_BLOCK_RADIUS;
         this.zOffset = origin.getMinZ() - NEIGHBOR_BLOCK_RADIUS;
 
-        Arrays.fill(this.light, 0L);
+        // Once every epoch has been used, the stamps need to be cleared before they can be re-used
+        if (++this.epoch == 0) {
+            Arrays.fill(this.epochs, 0);
+
+            this.epoch = 1;
+        }
     }
 
     private int index(int x, int y, int z) {
@@ -45,13 +59,16 @@ public class ArrayLightDataCache extends LightDataAccess {
     public long get(int x, int y, int z) {
         int l = this.index(x, y, z);
 
-        long word = this.light[l];
-
-        if (word != 0) {
-            return word;
+        if (this.epochs[l] == this.epoch) {
+            return this.light[l];
         }
 
-        return this.light[l] = this.compute(x, y, z);
+        long word = this.compute(x, y, z);
+
+        this.light[l] = word;
+        this.epochs[l] = this.epoch;
+
+        return word;
     }
 
 }
\ No newline at end of file
@@ -1,9 +1,8 @@
 package me.jellysquid.mods.sodium.client.model.light.data;
 
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.WorldRenderer;
-import net.minecraft.fluid.FluidState;
-import net.minecraft.fluid.Fluids;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.BlockRenderView;
@@ -24,8 +23,6 @@ import net.minecraft.world.BlockRenderView;
  * You can use the various static pack/unpack methods to extract these values in a usable format.
  */
 public abstract class LightDataAccess {
-    protected static final FluidState EMPTY_FLUID_STATE = Fluids.EMPTY.getDefaultState();
-
     private final BlockPos.Mutable pos = new BlockPos.Mutable();
     protected BlockRenderView world;
 
@@ -57,23 +54,31 @@ public abstract class LightDataAccess {
 
     protected long compute(int x, int y, int z) {
         BlockPos pos = this.pos.set(x, y, z);
-        BlockRenderView world = this.world;
+        BlockState state = this.world.getBlockState(pos);
+
+        return this.compute(pos, state, BlockStateFlags.get(state));
+    }
 
-        BlockState state = world.getBlockState(pos);
+    /**
+     * Computes the light data for a block from its state and the packed properties of that state.
+     * @param flags The properties of the block state, see {@link BlockStateFlags}
+     */
+    protected long compute(BlockPos pos, BlockState state, int flags) {
+        BlockRenderView world = this.world;
 
         float ao;
 
-        if (state.getLuminance() == 0) {
-            ao = state.getAmbientOcclusionLightLevel(world, pos);
+        if (BlockStateFlags.getLuminance(flags) == 0) {
+            ao = BlockStateFlags.getAmbientOcclusionLightLevel(flags, state, world, pos);
         } else {
             ao = 1.0f;
         }
 
         // FIX: Fluids are always non-translucent despite blocking light, so we need a special check here in order to
         // solve lighting issues underwater.
-        boolean op = state.getFluidState() != EMPTY_FLUID_STATE || state.getOpacity(world, pos) == 0;
-        boolean fo = state.isOpaqueFullCube(world, pos);
-        boolean em = state.hasEmissiveLighting(world, pos);
+        boolean op = BlockStateFlags.has(flags, BlockStateFlags.HAS_FLUID) || BlockStateFlags.getOpacity(flags, state, world, pos) == 0;
+        boolean fo = BlockStateFlags.isOpaqueFullCube(flags, state, world, pos);
+        boolean em = BlockStateFlags.hasEmissiveLighting(flags, state, world, pos);
 
         // OPTIMIZE: Do not calculate lightmap data if the block is full and opaque.
         // FIX: Calculate lightmap data for emissive blocks (currently only magma), even though they are full and opaque.
@@ -14,4 +14,9 @@ public class QuadLightData {
      * The lightmap texture coordinates for each vertex in the quad.
      */
     public final int[] lm = new int[4];
+
+    /**
+     * The source of each vertex's light map texture coordinates, as described by {@link VertexLightSource}.
+     */
+    public final int[] src = new int[4];
 }
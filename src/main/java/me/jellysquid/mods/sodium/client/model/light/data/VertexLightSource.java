@@ -0,0 +1,68 @@
+package me.jellysquid.mods.sodium.client.model.light.data;
+
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.util.math.Direction;
+
+/**
+ * Describes where the light map coordinates of a vertex were taken from by a light pipeline, which allows them to be
+ * re-computed later from new light data without rendering the block's model again. This is only valid for as long as
+ * the block and its neighbors have the same shape, as that decides which blocks the light is sampled from.
+ *
+ * Each source is packed into the low 7 bits of an integer with the following fields:
+ * - MO: The kind of source (see the constants below), 2 bits
+ * - FA: The ordinal of the face which light was sampled through, 3 bits
+ * - CO: The corner of the face's light data which was mapped to the vertex, 2 bits
+ */
+public class VertexLightSource {
+    /** The light of the vertex was interpolated and can only be re-computed by rendering the block again **/
+    public static final int NONE = 0;
+
+    /** The light of the vertex is the light at the block's own position **/
+    public static final int FLAT_BLOCK = 1;
+
+    /** The light of the vertex is the light at the block adjacent to the face **/
+    public static final int FLAT_FACE = 2;
+
+    /** The light of the vertex is a corner of the smooth light data of a full, aligned face **/
+    public static final int SMOOTH_FACE = 3;
+
+    private static final int MODE_MASK = 0b11;
+
+    private static final int FACE_SHIFT = 2;
+    private static final int FACE_MASK = 0b111;
+
+    private static final int CORNER_SHIFT = 5;
+    private static final int CORNER_MASK = 0b11;
+
+    public static int pack(int mode, Direction face, int corner) {
+        return mode | (face.ordinal() << FACE_SHIFT) | (corner << CORNER_SHIFT);
+    }
+
+    public static int getMode(int source) {
+        return source & MODE_MASK;
+    }
+
+    public static Direction getFace(int source) {
+        return DirectionUtil.ALL_DIRECTIONS[(source >>> FACE_SHIFT) & FACE_MASK];
+    }
+
+    public static int getCorner(int source) {
+        return (source >>> CORNER_SHIFT) & CORNER_MASK;
+    }
+
+    /**
+     * @return The light pipeline which can re-compute the light of the given source
+     */
+    public static LightMode getLightMode(int source) {
+        switch (getMode(source)) {
+            case FLAT_BLOCK:
+            case FLAT_FACE:
+                return LightMode.FLAT;
+            case SMOOTH_FACE:
+                return LightMode.SMOOTH;
+            default:
+                throw new IllegalArgumentException("Light source cannot be re-computed: " + source);
+        }
+    }
+}
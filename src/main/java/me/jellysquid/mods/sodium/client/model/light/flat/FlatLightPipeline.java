@@ -3,10 +3,14 @@ package me.jellysquid.mods.sodium.client.model.light.flat;
 import me.jellysquid.mods.sodium.client.model.light.LightPipeline;
 import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
 import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
 import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFlags;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
+import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockRenderView;
 
 import java.util.Arrays;
 
@@ -29,12 +33,33 @@ public class FlatLightPipeline implements LightPipeline {
     @Override
     public void calculate(ModelQuadView quad, BlockPos pos, QuadLightData out, Direction face, boolean shade) {
         // If the face is aligned, use the light data above it
-        if ((quad.getFlags() & ModelQuadFlags.IS_ALIGNED) != 0 && !this.lightCache.getWorld().getBlockState(pos).hasEmissiveLighting(this.lightCache.getWorld(), pos)) {
+        if ((quad.getFlags() & ModelQuadFlags.IS_ALIGNED) != 0 && !this.hasEmissiveLighting(pos)) {
             Arrays.fill(out.lm, unpackLM(this.lightCache.get(pos, face)));
+            Arrays.fill(out.src, VertexLightSource.pack(VertexLightSource.FLAT_FACE, face, 0));
         } else {
             Arrays.fill(out.lm, unpackLM(this.lightCache.get(pos)));
+            Arrays.fill(out.src, VertexLightSource.pack(VertexLightSource.FLAT_BLOCK, face, 0));
         }
 
         Arrays.fill(out.br, this.lightCache.getWorld().getBrightness(face, shade));
     }
+
+    private boolean hasEmissiveLighting(BlockPos pos) {
+        BlockRenderView world = this.lightCache.getWorld();
+        BlockState state = world.getBlockState(pos);
+
+        return BlockStateFlags.hasEmissiveLighting(BlockStateFlags.get(state), state, world, pos);
+    }
+
+    @Override
+    public int relight(BlockPos pos, int source) {
+        switch (VertexLightSource.getMode(source)) {
+            case VertexLightSource.FLAT_FACE:
+                return unpackLM(this.lightCache.get(pos, VertexLightSource.getFace(source)));
+            case VertexLightSource.FLAT_BLOCK:
+                return unpackLM(this.lightCache.get(pos));
+            default:
+                throw new IllegalArgumentException("Light source was not produced by this pipeline: " + source);
+        }
+    }
 }
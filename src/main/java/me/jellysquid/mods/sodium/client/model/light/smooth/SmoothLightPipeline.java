@@ -3,12 +3,16 @@ package me.jellysquid.mods.sodium.client.model.light.smooth;
 import me.jellysquid.mods.sodium.client.model.light.LightPipeline;
 import me.jellysquid.mods.sodium.client.model.light.data.LightDataAccess;
 import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
 import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFlags;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 
+import java.util.Arrays;
+
 /**
  * A light pipeline which produces smooth interpolated lighting and ambient occlusion for model quads. This
  * implementation makes a number of improvements over vanilla's own "smooth lighting" option. In no particular order:
@@ -36,6 +40,17 @@ import net.minecraft.util.math.MathHelper;
  *   unnecessary computation
  */
 public class SmoothLightPipeline implements LightPipeline {
+    /**
+     * The corner of the face data which is mapped onto each vertex of a full aligned face, for each direction.
+     */
+    private static final int[][] ALIGNED_CORNERS = new int[6][4];
+
+    static {
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            AoNeighborInfo.get(dir).mapCorners(new int[] { 0, 1, 2, 3 }, new float[4], ALIGNED_CORNERS[dir.ordinal()], new float[4]);
+        }
+    }
+
     /**
      * The cache which light data will be accessed from.
      */
@@ -84,6 +99,24 @@ public class SmoothLightPipeline implements LightPipeline {
         this.applySidedBrightness(out, face, shade);
     }
 
+    @Override
+    public int relight(BlockPos pos, int source) {
+        if (VertexLightSource.getMode(source) != VertexLightSource.SMOOTH_FACE) {
+            throw new IllegalArgumentException("Light source was not produced by this pipeline: " + source);
+        }
+
+        this.updateCachedData(pos.asLong());
+
+        AoFaceData faceData = this.getCachedFaceData(pos, VertexLightSource.getFace(source), true);
+
+        return faceData.lm[VertexLightSource.getCorner(source)];
+    }
+
+    @Override
+    public void reset() {
+        this.cachedPos = Long.MIN_VALUE;
+    }
+
     private void applySidedBrightness(QuadLightData out, Direction face, boolean shade) {
         float brightness = this.lightCache.getWorld().getBrightness(face, shade);
         float[] br = out.br;
@@ -94,6 +127,9 @@ public class SmoothLightPipeline implements LightPipeline {
     }
 
     private void applyComplex(AoNeighborInfo neighborInfo, ModelQuadView quad, BlockPos pos, Direction dir, QuadLightData out, int flags) {
+        // Interpolated light values can't be re-computed without the quad's vertex positions
+        Arrays.fill(out.src, VertexLightSource.NONE);
+
         // If the model quad is aligned to the block face, use the corner blocks above this face
         // TODO: is this correct for outset faces? do we even handle that case at all?
         boolean offset = ModelQuadFlags.contains(flags, ModelQuadFlags.IS_ALIGNED);
@@ -170,6 +206,12 @@ public class SmoothLightPipeline implements LightPipeline {
     private void applyAlignedFullFace(AoNeighborInfo neighborInfo, BlockPos pos, Direction dir, QuadLightData out, int flags) {
         AoFaceData faceData = this.getCachedFaceData(pos, dir, ModelQuadFlags.contains(flags, ModelQuadFlags.IS_ALIGNED));
         neighborInfo.mapCorners(faceData.lm, faceData.ao, out.lm, out.br);
+
+        int[] corners = ALIGNED_CORNERS[dir.ordinal()];
+
+        for (int i = 0; i < 4; i++) {
+            out.src[i] = VertexLightSource.pack(VertexLightSource.SMOOTH_FACE, dir, corners[i]);
+        }
     }
 
     /**
@@ -1,9 +1,10 @@
 package me.jellysquid.mods.sodium.client.model.quad.properties;
 
-import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.util.math.Direction;
 
+import static me.jellysquid.mods.sodium.client.util.ModelQuadUtil.*;
+
 public class ModelQuadFlags {
     /**
      * Indicates that the quad is aligned to the block grid.
@@ -27,7 +28,8 @@ public class ModelQuadFlags {
      * certain optimizations.
      */
     public static int getQuadFlags(BakedQuad bakedQuad) {
-        ModelQuadView quad = (ModelQuadView) bakedQuad;
+        // Positions are read from the vertex data directly so this doesn't depend on the quad view being mixed in
+        int[] data = bakedQuad.getVertexData();
         Direction face = bakedQuad.getFace();
 
         float minX = 32.0F;
@@ -39,9 +41,9 @@ public class ModelQuadFlags {
         float maxZ = -32.0F;
 
         for (int i = 0; i < 4; ++i) {
-            float x = quad.getX(i);
-            float y = quad.getY(i);
-            float z = quad.getZ(i);
+            float x = Float.intBitsToFloat(data[vertexOffset(i) + POSITION_INDEX]);
+            float y = Float.intBitsToFloat(data[vertexOffset(i) + POSITION_INDEX + 1]);
+            float z = Float.intBitsToFloat(data[vertexOffset(i) + POSITION_INDEX + 2]);
 
             minX = Math.min(minX, x);
             minY = Math.min(minY, y);
@@ -91,6 +91,13 @@ public class VertexBufferBuilder implements VertexBufferView {
         dst.put(this.buffer.slice());
 
         // Reset the position and limit set earlier of the backing scratch buffer
+        this.reset();
+    }
+
+    /**
+     * Discards all written data without copying it anywhere.
+     */
+    public void reset() {
         this.buffer.clear();
         this.writerOffset = 0;
     }
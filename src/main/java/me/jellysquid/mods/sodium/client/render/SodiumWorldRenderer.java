@@ -18,6 +18,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderManager;
 import me.jellysquid.mods.sodium.client.render.chunk.backends.gl20.GL20ChunkRenderBackend;
 import me.jellysquid.mods.sodium.client.render.chunk.backends.gl30.GL30ChunkRenderBackend;
 import me.jellysquid.mods.sodium.client.render.chunk.backends.gl43.GL43ChunkRenderBackend;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildStatistics;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
@@ -440,7 +441,13 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
      * Schedules chunk rebuilds for all chunks in the specified block region.
      */
     public void scheduleRebuildForBlockArea(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean important) {
-        this.scheduleRebuildForChunks(minX >> 4, minY >> 4, minZ >> 4, maxX >> 4, maxY >> 4, maxZ >> 4, important);
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkY = minY >> 4; chunkY <= maxY >> 4; chunkY++) {
+                for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                    this.chunkRenderManager.scheduleRebuildForBlocks(chunkX, chunkY, chunkZ, important, minX, minY, minZ, maxX, maxY, maxZ);
+                }
+            }
+        }
     }
 
     /**
@@ -463,7 +470,33 @@ public class SodiumWorldRenderer implements ChunkStatusListener {
         this.chunkRenderManager.scheduleRebuild(x, y, z, important);
     }
 
+    /**
+     * Schedules chunk rebuilds for all chunks in the specified chunk region after the light values around them have
+     * changed.
+     */
+    public void scheduleRelightForChunks(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkY = minY; chunkY <= maxY; chunkY++) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                    this.scheduleRelightForChunk(chunkX, chunkY, chunkZ);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules a chunk rebuild for the render belonging to the given chunk section position after the light values
+     * within it have changed.
+     */
+    public void scheduleRelightForChunk(int x, int y, int z) {
+        this.chunkRenderManager.scheduleRelight(x, y, z);
+    }
+
     public ChunkRenderBackend<?> getChunkRenderer() {
         return this.chunkRenderBackend;
     }
+
+    public ChunkBuildStatistics getChunkBuildStatistics() {
+        return this.chunkRenderManager.getBuildStatistics();
+    }
 }
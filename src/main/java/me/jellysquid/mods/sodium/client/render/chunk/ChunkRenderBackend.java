@@ -28,6 +28,14 @@ public interface ChunkRenderBackend<T extends ChunkGraphicsState> {
      */
     void render(ChunkRenderListIterator<T> renders, ChunkCameraContext camera);
 
+    /**
+     * Performs incremental maintenance of the graphics resources owned by this backend, such as compacting fragmented
+     * buffers. This is called once per frame after pending uploads have been processed.
+     */
+    default void performMaintenance() {
+
+    }
+
     void createShaders();
 
     void begin(MatrixStack matrixStack, boolean translucent);
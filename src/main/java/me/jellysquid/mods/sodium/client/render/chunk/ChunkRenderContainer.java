@@ -1,6 +1,9 @@
 package me.jellysquid.mods.sodium.client.render.chunk;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshIndex;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
@@ -18,6 +21,11 @@ import java.util.concurrent.CompletableFuture;
  * data about the render in the chunk visibility graph.
  */
 public class ChunkRenderContainer<T extends ChunkGraphicsState> {
+    /**
+     * The maximum number of blocks which can be tracked as dirty before the render falls back to a full rebuild.
+     */
+    private static final int DIRTY_BLOCK_LIMIT = 256;
+
     private final SodiumWorldRenderer worldRenderer;
     private final int chunkX, chunkY, chunkZ;
 
@@ -30,6 +38,20 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
     private boolean needsRebuild;
     private boolean needsImportantRebuild;
 
+    // The blocks (as packed by ChunkMeshIndex#packIndex) which changed since the last rebuild was scheduled, or null if
+    // the whole render needs to be rebuilt
+    private IntArrayList dirtyBlocks;
+
+    // True if the light around the render changed since the last rebuild was scheduled
+    private boolean needsRelight;
+
+    // The version of the most recently created build task and the version of the build which produced the current data
+    private int buildVersion;
+    private int dataVersion;
+
+    // True once the render has been deleted, after which the results of any build tasks must be discarded
+    private boolean deleted;
+
     private boolean tickable;
     private int id;
 
@@ -52,6 +74,8 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
     public void cancelRebuildTask() {
         this.needsRebuild = false;
         this.needsImportantRebuild = false;
+        this.dirtyBlocks = null;
+        this.needsRelight = false;
 
         if (this.rebuildTask != null) {
             this.rebuildTask.cancel(false);
@@ -83,6 +107,8 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
      * be used.
      */
     public void delete() {
+        this.deleted = true;
+
         this.cancelRebuildTask();
         this.setData(ChunkRenderData.ABSENT);
         this.deleteGraphicsState();
@@ -102,10 +128,21 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
     }
 
     public void setData(ChunkRenderData info) {
+        this.setData(info, this.dataVersion);
+    }
+
+    /**
+     * Replaces the data of this render with the result of a build task.
+     * @param info The new render data
+     * @param version The version of the build task which produced the data
+     */
+    public void setData(ChunkRenderData info, int version) {
         if (info == null) {
             throw new NullPointerException("Mesh information must not be null");
         }
 
+        this.dataVersion = version;
+
         this.worldRenderer.onChunkRenderUpdated(this.chunkX, this.chunkY, this.chunkZ, this.data, info);
         this.data = info;
 
@@ -122,10 +159,158 @@ public class ChunkRenderContainer<T extends ChunkGraphicsState> {
 
         this.needsImportantRebuild = important;
         this.needsRebuild = true;
+        this.dirtyBlocks = null;
+
+        return changed;
+    }
+
+    /**
+     * Marks this render as needing an update for only the given blocks. If no other updates are pending, this allows
+     * the next rebuild to only re-render the changed blocks. The coordinates are clamped to the bounds of this render.
+     * @param important True if the update is blocking, otherwise false
+     * @return True if the render's rebuild state changed
+     */
+    public boolean scheduleRebuild(boolean important, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        IntArrayList dirtyBlocks = this.dirtyBlocks;
+
+        // Only track individual blocks if nothing else has asked for a full rebuild yet
+        if (!this.needsRebuild) {
+            dirtyBlocks = new IntArrayList();
+        }
+
+        boolean changed = this.scheduleRebuild(important);
+
+        if (dirtyBlocks != null) {
+            int x1 = Math.max(minX - this.getOriginX(), 0), x2 = Math.min(maxX - this.getOriginX(), 15);
+            int y1 = Math.max(minY - this.getOriginY(), 0), y2 = Math.min(maxY - this.getOriginY(), 15);
+            int z1 = Math.max(minZ - this.getOriginZ(), 0), z2 = Math.min(maxZ - this.getOriginZ(), 15);
+
+            int count = Math.max(0, x2 - x1 + 1) * Math.max(0, y2 - y1 + 1) * Math.max(0, z2 - z1 + 1);
+
+            if (dirtyBlocks.size() + count <= DIRTY_BLOCK_LIMIT) {
+                for (int y = y1; y <= y2; y++) {
+                    for (int z = z1; z <= z2; z++) {
+                        for (int x = x1; x <= x2; x++) {
+                            dirtyBlocks.add(ChunkMeshIndex.packIndex(x, y, z));
+                        }
+                    }
+                }
+
+                this.dirtyBlocks = dirtyBlocks;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Marks this render as needing an update because the light values around it have changed. If no other updates are
+     * pending for the render, this allows the next rebuild to re-compute the light of the existing geometry in place.
+     * @param important True if the update is blocking, otherwise false
+     * @return True if the render's rebuild state changed
+     */
+    public boolean scheduleRelight(boolean important) {
+        boolean changed = false;
+
+        // An empty set of dirty blocks allows the rebuild to be performed incrementally, while any pending full rebuild
+        // will already pick up the new light values
+        if (!this.needsRebuild) {
+            changed = this.scheduleRebuild(important);
+
+            this.dirtyBlocks = new IntArrayList();
+        } else if (important && !this.needsImportantRebuild) {
+            changed = true;
+
+            this.needsImportantRebuild = true;
+        }
+
+        this.needsRelight = true;
 
         return changed;
     }
 
+    /**
+     * Marks this render as needing the update of a build task which was dropped before it was executed, merging it with
+     * any updates which were scheduled after the task was created.
+     * @param version The version of the dropped task
+     * @param dirtyBlocks The blocks which the dropped task would have re-rendered, or null if it was a full rebuild
+     * @param relight True if the dropped task would have re-computed the light of the retained geometry
+     */
+    public void rescheduleDroppedBuild(int version, IntList dirtyBlocks, boolean relight) {
+        if (this.deleted) {
+            return;
+        }
+
+        // The dropped task will never replace the current data, so the data can still be patched by the next build as
+        // long as no other task was created after the one which replaced it
+        if (version == this.buildVersion && this.dataVersion == version - 1) {
+            this.dataVersion = version;
+        }
+
+        if (dirtyBlocks == null) {
+            this.needsRebuild = true;
+            this.dirtyBlocks = null;
+        } else if (!this.needsRebuild) {
+            this.needsRebuild = true;
+            this.dirtyBlocks = new IntArrayList(dirtyBlocks);
+        } else if (this.dirtyBlocks != null) {
+            // Any pending full rebuild will already re-render the dirty blocks
+            if (this.dirtyBlocks.size() + dirtyBlocks.size() <= DIRTY_BLOCK_LIMIT) {
+                this.dirtyBlocks.addAll(dirtyBlocks);
+            } else {
+                this.dirtyBlocks = null;
+            }
+        }
+
+        this.needsRelight |= relight;
+    }
+
+    /**
+     * @return True if the light around this render has changed since the last rebuild was scheduled. This must be
+     * called before {@link ChunkRenderContainer#cancelRebuildTask()}.
+     */
+    public boolean needsRelight() {
+        return this.needsRelight;
+    }
+
+    /**
+     * Returns the blocks which have changed since the last rebuild was scheduled and can be incrementally re-rendered,
+     * or null if a full rebuild is required. This must be called before {@link ChunkRenderContainer#cancelRebuildTask()}.
+     */
+    public IntArrayList getDirtyBlocks() {
+        return this.dirtyBlocks;
+    }
+
+    /**
+     * Advances the build version of this render. This should be called for each build task created for this render.
+     * @return The version of the new build task
+     */
+    public int createBuildVersion() {
+        return ++this.buildVersion;
+    }
+
+    /**
+     * @return The version of the most recently created build task
+     */
+    public int getBuildVersion() {
+        return this.buildVersion;
+    }
+
+    /**
+     * @return True if this render has been deleted, in which case the results of its build tasks must not be uploaded
+     */
+    public boolean isDeleted() {
+        return this.deleted;
+    }
+
+    /**
+     * @return True if the current data was produced by the most recently created build task, meaning that no other
+     *         build tasks are in flight which might replace it
+     */
+    public boolean isDataCurrent() {
+        return this.dataVersion == this.buildVersion;
+    }
+
     /**
      * @return True if the chunk render contains no data, otherwise false
      */
@@ -15,6 +15,7 @@ import me.jellysquid.mods.sodium.client.gl.TranslucencyFramebuffer;
 import me.jellysquid.mods.sodium.client.gl.util.GlFogHelper;
 import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildStatistics;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.cull.ChunkCuller;
 import me.jellysquid.mods.sodium.client.render.chunk.cull.ChunkFaceFlags;
@@ -29,7 +30,6 @@ import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
 import me.jellysquid.mods.sodium.client.world.ChunkStatusListener;
 import me.jellysquid.mods.sodium.common.util.DirectionUtil;
 import me.jellysquid.mods.sodium.common.util.IdTable;
-import me.jellysquid.mods.sodium.common.util.collections.FutureDequeDrain;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gl.Framebuffer;
@@ -43,8 +43,10 @@ import net.minecraft.world.chunk.ChunkSection;
 import org.lwjgl.opengl.GL20;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkStatusListener {
@@ -110,7 +112,7 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
             this.chunkRenderLists[i] = new ChunkRenderList<>();
         }
 
-        this.culler = new ChunkGraphCuller(world, renderDistance);
+        this.culler = new ChunkGraphCuller(world, renderDistance, SodiumClientMod.options().advanced.useParallelChunkCulling);
         this.useChunkFaceCulling = SodiumClientMod.options().advanced.useChunkFaceCulling;
     }
 
@@ -120,6 +122,9 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         this.setup(camera);
         this.iterateChunks(camera, frustum, frame, spectator);
 
+        // Any deferred rebuilds for chunks which are no longer visible would only delay the ones in view
+        this.builder.dropInvisibleTasks(render -> this.culler.isSectionVisible(render.getChunkX(), render.getChunkY(), render.getChunkZ()));
+
         this.dirty = false;
     }
 
@@ -454,6 +459,7 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
 
     public void updateChunks() {
         Deque<CompletableFuture<ChunkBuildResult<T>>> futures = new ArrayDeque<>();
+        List<ChunkRenderContainer<T>> deferred = new ArrayList<>();
 
         int budget = this.builder.getSchedulingBudget();
         int submitted = 0;
@@ -463,7 +469,7 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
 
             // Do not allow distant chunks to block rendering
             if (!this.isChunkPrioritized(render)) {
-                this.builder.deferRebuild(render);
+                deferred.add(render);
             } else {
                 futures.add(this.builder.scheduleRebuildTaskAsync(render));
             }
@@ -475,17 +481,42 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         while (submitted < budget && !this.rebuildQueue.isEmpty()) {
             ChunkRenderContainer<T> render = this.rebuildQueue.dequeue();
 
-            this.builder.deferRebuild(render);
+            deferred.add(render);
             submitted++;
         }
 
+        // Submit all deferred rebuilds as one batch so that idle workers are only woken once
+        this.builder.deferRebuilds(deferred);
+
         this.dirty |= submitted > 0;
 
         // Try to complete some other work on the main thread while we wait for rebuilds to complete
-        this.dirty |= this.builder.performPendingUploads();
+        this.dirty |= this.builder.performPendingUploads(render -> this.culler.isSectionVisible(render.getChunkX(), render.getChunkY(), render.getChunkZ()));
 
         if (!futures.isEmpty()) {
-            this.backend.upload(new FutureDequeDrain<>(futures));
+            this.uploadBlocking(futures);
+        }
+
+        this.backend.performMaintenance();
+    }
+
+    /**
+     * Waits for the given build tasks to complete and uploads their results. Results which have already been superseded
+     * by a newer build task for the same render are discarded, as uploading them would overwrite newer data.
+     */
+    private void uploadBlocking(Deque<CompletableFuture<ChunkBuildResult<T>>> futures) {
+        ObjectList<ChunkBuildResult<T>> results = new ObjectArrayList<>(futures.size());
+
+        for (CompletableFuture<ChunkBuildResult<T>> future : futures) {
+            ChunkBuildResult<T> result = future.join();
+
+            if (result.isCurrent()) {
+                results.add(result);
+            }
+        }
+
+        if (!results.isEmpty()) {
+            this.backend.upload(results.iterator());
         }
     }
 
@@ -552,6 +583,56 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         }
     }
 
+    /**
+     * Schedules a rebuild of the given chunk render for a change in the light values around it. If no other updates are
+     * pending for the render, this allows the light of its existing geometry to be re-computed in place.
+     */
+    public void scheduleRelight(int x, int y, int z) {
+        if (y < 0 || y >= 16) {
+            return;
+        }
+
+        ChunkRenderContainer<T> render = this.getRender(x, y, z);
+
+        if (render != null) {
+            // Nearby chunks are always rendered immediately
+            boolean important = this.isChunkPrioritized(render);
+
+            // Only enqueue chunks for updates during the next frame if it is visible and wasn't already dirty
+            if (render.scheduleRelight(important) && this.culler.isSectionVisible(x, y, z)) {
+                (render.needsImportantRebuild() ? this.importantRebuildQueue : this.rebuildQueue)
+                        .enqueue(render);
+            }
+
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Schedules a rebuild of the given chunk render for a change affecting only the specified block area. If no other
+     * updates are pending for the render, this allows the changed blocks to be incrementally re-rendered.
+     */
+    public void scheduleRebuildForBlocks(int x, int y, int z, boolean important, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (y < 0 || y >= 16) {
+            return;
+        }
+
+        ChunkRenderContainer<T> render = this.getRender(x, y, z);
+
+        if (render != null) {
+            // Nearby chunks are always rendered immediately
+            important = important || this.isChunkPrioritized(render);
+
+            // Only enqueue chunks for updates during the next frame if it is visible and wasn't already dirty
+            if (render.scheduleRebuild(important, minX, minY, minZ, maxX, maxY, maxZ) && this.culler.isSectionVisible(x, y, z)) {
+                (render.needsImportantRebuild() ? this.importantRebuildQueue : this.rebuildQueue)
+                        .enqueue(render);
+            }
+
+            this.dirty = true;
+        }
+    }
+
     public boolean isChunkPrioritized(ChunkRenderContainer<T> render) {
         return render.getSquaredDistance(this.cameraX, this.cameraY, this.cameraZ) <= NEARBY_CHUNK_DISTANCE;
     }
@@ -560,7 +641,11 @@ public class ChunkRenderManager<T extends ChunkGraphicsState> implements ChunkSt
         return this.visibleChunkCount;
     }
 
+    public ChunkBuildStatistics getBuildStatistics() {
+        return this.builder.getStatistics();
+    }
+
     public void onChunkRenderUpdates(int x, int y, int z, ChunkRenderData data) {
-        this.culler.onSectionStateChanged(x, y, z, data.getOcclusionData());
+        this.culler.onSectionStateChanged(x, y, z, data.getVisibilityData());
     }
 }
@@ -8,6 +8,7 @@ import me.jellysquid.mods.sodium.client.gl.arena.GlBufferRegion;
 import me.jellysquid.mods.sodium.client.gl.array.GlVertexArray;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.GlMutableBuffer;
+import me.jellysquid.mods.sodium.client.gl.buffer.GlStagingBuffer;
 import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
 import me.jellysquid.mods.sodium.client.gl.func.GlFunctions;
 import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
@@ -75,14 +76,27 @@ import java.util.regex.Pattern;
  * With both of these changes, the amount of CPU time taken by rendering chunks linearly decreases with the reduction
  * in buffer bind/setup/draw calls. Using the default settings of 4x2x4 chunk region buffers, the number of calls can be
  * reduced up to a factor of ~32x.
+ *
+ * When buffer storage is available (OpenGL 4.4 or ARB_buffer_storage), the scratch buffer is replaced by a persistently
+ * mapped ring of staging memory. Mesh data is copied into the mapped memory directly and the GPU then copies it into the
+ * chunk region buffers, with fences used to determine when parts of the ring can be written again. This avoids the
+ * re-allocation of the scratch buffer for each mesh entirely. Meshes which don't fit into the ring (either because they
+ * are too large or the GPU hasn't caught up yet) still go through the scratch buffer.
  */
 public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraphicsState> {
+    // The maximum number of bytes which will be moved between or within buffers by compaction each frame
+    private static final int COMPACTION_BYTES_PER_FRAME = 4 * 1024 * 1024;
+
+    // The size of the persistently mapped staging buffer used for uploads, if supported
+    private static final int STAGING_BUFFER_SIZE = 8 * 1024 * 1024;
+
     private final ChunkRegionManager<LCBGraphicsState> bufferManager;
 
     private final ObjectArrayList<ChunkRegion<LCBGraphicsState>> pendingBatches = new ObjectArrayList<>();
     private final ObjectArrayFIFOQueue<ChunkRegion<LCBGraphicsState>> pendingUploads = new ObjectArrayFIFOQueue<>();
 
     private final GlMutableBuffer uploadBuffer;
+    private final GlStagingBuffer stagingBuffer;
     private final GlMutableBuffer uniformBuffer;
     private final GlMutableBuffer commandBuffer;
 
@@ -91,11 +105,16 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
 
     private final MemoryTracker memoryTracker = new MemoryTracker();
 
+    // Upload statistics for the current frame, and the totals of the previous frame for display
+    private long frameUploadBytes, frameStagedBytes, frameUploadNanos;
+    private long lastUploadBytes, lastStagedBytes, lastUploadNanos;
+
     public GL43ChunkRenderBackend(ChunkVertexType vertexType) {
         super(vertexType);
 
         this.bufferManager = new ChunkRegionManager<>(this.memoryTracker);
         this.uploadBuffer = new GlMutableBuffer(GL15.GL_STREAM_COPY);
+        this.stagingBuffer = GlStagingBuffer.isSupported() ? new GlStagingBuffer(STAGING_BUFFER_SIZE) : null;
         this.uniformBuffer = new GlMutableBuffer(GL15.GL_STATIC_DRAW);
         this.commandBuffer = new GlMutableBuffer(GL15.GL_STATIC_DRAW);
 
@@ -105,10 +124,9 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
 
     @Override
     public void upload(Iterator<ChunkBuildResult<LCBGraphicsState>> queue) {
-        this.setupUploadBatches(queue);
+        long start = System.nanoTime();
 
-        GlMutableBuffer uploadBuffer = this.uploadBuffer;
-        uploadBuffer.bind(GL15.GL_ARRAY_BUFFER);
+        this.setupUploadBatches(queue);
 
         while (!this.pendingUploads.isEmpty()) {
             ChunkRegion<LCBGraphicsState> region = this.pendingUploads.dequeue();
@@ -135,10 +153,7 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
                     ChunkMeshData meshData = data.getMesh(pass);
 
                     if (meshData.hasVertexData()) {
-                        VertexData upload = meshData.takeVertexData();
-                        uploadBuffer.upload(GL15.GL_ARRAY_BUFFER, upload);
-
-                        GlBufferRegion segment = arena.upload(GL15.GL_ARRAY_BUFFER, 0, upload.buffer.capacity());
+                        GlBufferRegion segment = this.uploadMesh(arena, meshData.takeVertexData());
 
                         render.setGraphicsState(pass, new LCBGraphicsState(render, region, segment, meshData, this.vertexFormat));
                     } else {
@@ -146,15 +161,63 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
                     }
                 }
 
-                render.setData(data);
+                render.setData(data, result.version);
             }
 
             arena.unbind();
             uploadQueue.clear();
         }
 
-        uploadBuffer.invalidate(GL15.GL_ARRAY_BUFFER);
-        uploadBuffer.unbind(GL15.GL_ARRAY_BUFFER);
+        if (this.stagingBuffer != null) {
+            this.stagingBuffer.flush();
+        }
+
+        this.uploadBuffer.bind(GL15.GL_ARRAY_BUFFER);
+        this.uploadBuffer.invalidate(GL15.GL_ARRAY_BUFFER);
+        this.uploadBuffer.unbind(GL15.GL_ARRAY_BUFFER);
+
+        this.frameUploadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Copies the vertex data into the arena, preferring the staging buffer if it's available and has enough free space.
+     * The arena must be bound.
+     */
+    private GlBufferRegion uploadMesh(GlBufferArena arena, VertexData data) {
+        int len = data.buffer.remaining();
+
+        this.frameUploadBytes += len;
+
+        if (this.stagingBuffer != null) {
+            int offset = this.stagingBuffer.write(data.buffer);
+
+            if (offset >= 0) {
+                this.frameStagedBytes += len;
+
+                this.stagingBuffer.bind(GL15.GL_ARRAY_BUFFER);
+
+                return arena.upload(GL15.GL_ARRAY_BUFFER, offset, len);
+            }
+        }
+
+        GlMutableBuffer uploadBuffer = this.uploadBuffer;
+        uploadBuffer.bind(GL15.GL_ARRAY_BUFFER);
+        uploadBuffer.upload(GL15.GL_ARRAY_BUFFER, data);
+
+        return arena.upload(GL15.GL_ARRAY_BUFFER, 0, len);
+    }
+
+    @Override
+    public void performMaintenance() {
+        this.bufferManager.compact(COMPACTION_BYTES_PER_FRAME);
+
+        this.lastUploadBytes = this.frameUploadBytes;
+        this.lastStagedBytes = this.frameStagedBytes;
+        this.lastUploadNanos = this.frameUploadNanos;
+
+        this.frameUploadBytes = 0;
+        this.frameStagedBytes = 0;
+        this.frameUploadNanos = 0;
     }
 
     @Override
@@ -252,7 +315,7 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
 
             if (region == null) {
                 if (result.data.getMeshSize() <= 0) {
-                    render.setData(result.data);
+                    render.setData(result.data, result.version);
                     continue;
                 }
 
@@ -329,6 +392,10 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
 
         this.bufferManager.delete();
         this.uploadBuffer.delete();
+
+        if (this.stagingBuffer != null) {
+            this.stagingBuffer.delete();
+        }
         this.uniformBuffer.delete();
         this.commandBuffer.delete();
 
@@ -391,7 +458,11 @@ public class GL43ChunkRenderBackend extends ChunkRenderBackendMultiDraw<LCBGraph
 
         List<String> list = new ArrayList<>();
         list.add(String.format("VRAM Pool: %d/%d MB (%d%%)", MemoryTracker.toMiB(used), MemoryTracker.toMiB(allocated), ratio));
+        list.add(String.format("VRAM Fragmentation: %d%%", (int) Math.floor(this.memoryTracker.getFragmentationRatio() * 100.0D)));
         list.add(String.format("Allocated Buffers: %s", this.bufferManager.getAllocatedRegionCount()));
+        list.add(String.format("Chunk Uploads: %d KB in %.2f ms (%d KB staged)", this.lastUploadBytes / 1024L,
+                this.lastUploadNanos / 1_000_000.0D, this.lastStagedBytes / 1024L));
+        list.add(String.format("Staging Buffer: %s", this.stagingBuffer != null ? MemoryTracker.toMiB(this.stagingBuffer.getCapacity()) + " MB" : "Unsupported"));
 
         return list;
     }
@@ -15,6 +15,9 @@ public class LCBGraphicsState extends ChunkGraphicsState {
     private final ChunkRegion<LCBGraphicsState> region;
 
     private final GlBufferRegion segment;
+    private final int stride;
+
+    // The vertex ranges of each facing relative to the start of the segment, as the segment can be moved by compaction
     private final long[] parts;
 
     public LCBGraphicsState(ChunkRenderContainer<?> container, ChunkRegion<LCBGraphicsState> region, GlBufferRegion segment, ChunkMeshData meshData, GlVertexFormat<?> vertexFormat) {
@@ -22,6 +25,7 @@ public class LCBGraphicsState extends ChunkGraphicsState {
 
         this.region = region;
         this.segment = segment;
+        this.stride = vertexFormat.getStride();
 
         this.parts = new long[ModelQuadFacing.COUNT];
 
@@ -29,8 +33,8 @@ public class LCBGraphicsState extends ChunkGraphicsState {
             ModelQuadFacing facing = entry.getKey();
             BufferSlice slice = entry.getValue();
 
-            int start = (segment.getStart() + slice.start) / vertexFormat.getStride();
-            int count = slice.len / vertexFormat.getStride();
+            int start = slice.start / this.stride;
+            int count = slice.len / this.stride;
 
             this.parts[facing.ordinal()] = BufferSlice.pack(start, count);
         }
@@ -46,7 +50,9 @@ public class LCBGraphicsState extends ChunkGraphicsState {
     }
 
     public long getModelPart(int facing) {
-        return this.parts[facing];
+        long part = this.parts[facing];
+
+        return BufferSlice.pack((this.segment.getStart() / this.stride) + BufferSlice.unpackStart(part), BufferSlice.unpackLength(part));
     }
 
 }
@@ -1,20 +1,28 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
 import me.jellysquid.mods.sodium.client.gl.buffer.VertexData;
 import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferBuilder;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.BakedChunkModelBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkFaceMerger;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelVertexTransformer;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshIndex;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkModelOffset;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.util.UnsafeUtil;
 import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.util.GlAllocationUtils;
 
 import java.nio.ByteBuffer;
@@ -33,15 +41,57 @@ public class ChunkBuildBuffers {
     private final BlockRenderPassManager renderPassManager;
     private final ChunkModelOffset offset;
 
-    public ChunkBuildBuffers(ChunkVertexType vertexType, BlockRenderPassManager renderPassManager) {
+    // The blocks which emitted geometry into each scratch buffer and the offset of their first vertex, used to build
+    // the mesh index when block tracking is enabled
+    private final ShortArrayList[][] trackedBlocks;
+    private final IntArrayList[][] trackedOffsets;
+    private final int[][] trackedSizes;
+    private final ChunkMeshIndex.Pass[] trackedPasses;
+
+    // The light source of each vertex written into each scratch buffer when block tracking is enabled
+    private final ByteArrayList[][] trackedLightSources;
+
+    // The size of each vertex and the offset of its light attribute, used to patch the light of retained vertices
+    private final int stride;
+    private final int lightOffset;
+
+    // Collects the faces of full cubes in the solid pass, or null if face merging is not available to these buffers
+    private final ChunkFaceMerger faceMerger;
+
+    private boolean trackBlocks;
+    private boolean mergeFaces;
+
+    /**
+     * @param tileSprite The sprite given by {@link ChunkFaceMerger#getTileSprite()} if faces are merged by any build
+     *                   using these buffers, otherwise null
+     */
+    public ChunkBuildBuffers(ChunkVertexType vertexType, BlockRenderPassManager renderPassManager, Sprite tileSprite) {
         this.vertexType = vertexType;
         this.renderPassManager = renderPassManager;
+        this.faceMerger = tileSprite != null ? new ChunkFaceMerger(tileSprite) : null;
+
+        this.stride = vertexType.getCustomVertexFormat().getStride();
+        this.lightOffset = vertexType.getCustomVertexFormat().getAttribute(ChunkMeshAttribute.LIGHT).getPointer();
 
         this.delegates = new ChunkModelBuffers[BlockRenderPass.COUNT];
         this.buffersByLayer = new VertexBufferBuilder[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
 
         this.offset = new ChunkModelOffset();
 
+        this.trackedBlocks = new ShortArrayList[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.trackedOffsets = new IntArrayList[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.trackedSizes = new int[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+        this.trackedPasses = new ChunkMeshIndex.Pass[BlockRenderPass.COUNT];
+        this.trackedLightSources = new ByteArrayList[BlockRenderPass.COUNT][ModelQuadFacing.COUNT];
+
+        for (int i = 0; i < BlockRenderPass.COUNT; i++) {
+            for (int j = 0; j < ModelQuadFacing.COUNT; j++) {
+                this.trackedBlocks[i][j] = new ShortArrayList();
+                this.trackedOffsets[i][j] = new IntArrayList();
+                this.trackedLightSources[i][j] = new ByteArrayList();
+            }
+        }
+
         for (RenderLayer layer : RenderLayer.getBlockLayers()) {
             int passId = this.renderPassManager.getRenderPassId(layer);
 
@@ -53,7 +103,46 @@ public class ChunkBuildBuffers {
         }
     }
 
-    public void init(ChunkRenderData.Builder renderData) {
+    /**
+     * Prepares the scratch buffers for a new build.
+     * @param renderData The render data which block renderers will output extra data to
+     * @param trackBlocks True if the range of vertices written by each block should be tracked in order to produce a
+     *                    {@link ChunkMeshIndex} for the meshes, otherwise false
+     * @param mergeFaces True if the faces of full cubes in the solid pass should be merged with their neighbors using
+     *                   a {@link ChunkFaceMerger}, which can't be combined with block tracking as merged faces don't
+     *                   belong to any single block
+     */
+    public void init(ChunkRenderData.Builder renderData, boolean trackBlocks, boolean mergeFaces) {
+        if (trackBlocks && mergeFaces) {
+            throw new IllegalArgumentException("Faces can't be merged while block tracking is enabled");
+        }
+
+        if (mergeFaces && this.faceMerger == null) {
+            throw new IllegalStateException("Faces can't be merged without a tile sprite");
+        }
+
+        this.trackBlocks = trackBlocks;
+        this.mergeFaces = mergeFaces;
+
+        int mergedPassId = -1;
+
+        if (mergeFaces) {
+            this.faceMerger.init();
+
+            mergedPassId = this.renderPassManager.getRenderPassId(RenderLayer.getSolid());
+        }
+
+        for (int i = 0; i < BlockRenderPass.COUNT; i++) {
+            for (int j = 0; j < ModelQuadFacing.COUNT; j++) {
+                this.trackedBlocks[i][j].clear();
+                this.trackedOffsets[i][j].clear();
+                this.trackedLightSources[i][j].clear();
+                this.trackedSizes[i][j] = 0;
+            }
+
+            this.trackedPasses[i] = null;
+        }
+
         for (int i = 0; i < this.buffersByLayer.length; i++) {
             ChunkModelVertexTransformer[] writers = new ChunkModelVertexTransformer[ModelQuadFacing.COUNT];
 
@@ -61,7 +150,8 @@ public class ChunkBuildBuffers {
                 writers[facing.ordinal()] = new ChunkModelVertexTransformer(this.vertexType.createBufferWriter(this.buffersByLayer[i][facing.ordinal()], UnsafeUtil.isAvailable()), this.offset);
             }
 
-            this.delegates[i] = new BakedChunkModelBuffers(writers, renderData);
+            this.delegates[i] = new BakedChunkModelBuffers(writers, renderData, this.trackBlocks ? this.trackedLightSources[i] : null,
+                    i == mergedPassId ? this.faceMerger : null);
         }
     }
 
@@ -73,6 +163,67 @@ public class ChunkBuildBuffers {
         return this.delegates[this.renderPassManager.getRenderPassId(layer)];
     }
 
+    /**
+     * Records the vertices written since the last call as belonging to the given block. This must be called after each
+     * block which rendered any geometry, in ascending block index order, when block tracking is enabled.
+     * @param blockIndex The index of the block as given by {@link ChunkMeshIndex#packIndex(int, int, int)}
+     */
+    public void trackBlock(int blockIndex) {
+        if (!this.trackBlocks) {
+            return;
+        }
+
+        for (int i = 0; i < this.buffersByLayer.length; i++) {
+            VertexBufferBuilder[] builders = this.buffersByLayer[i];
+            int[] sizes = this.trackedSizes[i];
+
+            for (int j = 0; j < builders.length; j++) {
+                VertexBufferBuilder builder = builders[j];
+
+                if (builder == null) {
+                    continue;
+                }
+
+                int size = builder.getSize();
+
+                if (size != sizes[j]) {
+                    this.trackedBlocks[i][j].add((short) blockIndex);
+                    this.trackedOffsets[i][j].add(sizes[j]);
+
+                    sizes[j] = size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the faces collected by the face merger into the scratch buffers after merging them. This must be called
+     * after all blocks have been rendered and before the meshes are created when face merging is enabled.
+     * @param x The x-offset of the chunk section's origin, as would be passed to {@link ChunkBuildBuffers#setRenderOffset(int, int, int)}
+     * @param y The y-offset of the chunk section's origin
+     * @param z The z-offset of the chunk section's origin
+     */
+    public void flushMergedFaces(int x, int y, int z) {
+        if (!this.mergeFaces) {
+            return;
+        }
+
+        this.setRenderOffset(x, y, z);
+        this.faceMerger.flush(this.get(RenderLayer.getSolid()));
+    }
+
+    /**
+     * Returns the mesh index of all meshes created since {@link ChunkBuildBuffers#init(ChunkRenderData.Builder, boolean, boolean)}
+     * was called, or null if block tracking is not enabled.
+     */
+    public ChunkMeshIndex createMeshIndex() {
+        if (!this.trackBlocks) {
+            return null;
+        }
+
+        return new ChunkMeshIndex(this.trackedPasses.clone());
+    }
+
     /**
      * Creates immutable baked chunk meshes from all non-empty scratch buffers and resets the state of all mesh
      * builders. This is used after all blocks have been rendered to pass the finished meshes over to the graphics card.
@@ -114,12 +265,236 @@ public class ChunkBuildBuffers {
 
         buffer.flip();
 
+        if (this.trackBlocks) {
+            this.trackedPasses[pass.ordinal()] = this.createPassIndex(pass, meshData, buffer);
+        }
+
+        meshData.setVertexData(new VertexData(buffer, this.vertexType.getCustomVertexFormat()));
+
+        return meshData;
+    }
+
+    /**
+     * Creates the chunk mesh for a render pass by splicing the geometry of re-rendered blocks into the retained
+     * geometry of a previous build. The vertices of each block contained in {@param dirtyBlocks} are dropped from the
+     * previous mesh and replaced by whatever geometry those blocks emitted into the scratch buffers during this build.
+     * Block tracking must be enabled for the current build.
+     *
+     * If a relighter is given, the light of every retained vertex is re-computed from its light source, which is used
+     * when only the light values around the chunk have changed since the previous build.
+     *
+     * @param pass The render pass to create the mesh for
+     * @param previous The retained data of the previous build for this pass, or null if it had no geometry
+     * @param dirtyBlocks A bit-set of the block indices which were re-rendered during this build
+     * @param relighter The relighter for retained vertices, or null if their light should be kept as-is
+     */
+    public ChunkMeshData createPatchedMesh(BlockRenderPass pass, ChunkMeshIndex.Pass previous, long[] dirtyBlocks, VertexRelighter relighter) {
+        if (!this.trackBlocks) {
+            throw new IllegalStateException("Block tracking must be enabled to patch meshes");
+        }
+
+        int passId = pass.ordinal();
+
+        VertexBufferBuilder[] builders = this.buffersByLayer[passId];
+        ByteBuffer previousData = previous != null ? previous.getVertexData() : null;
+
+        BufferSlice[] slices = new BufferSlice[ModelQuadFacing.COUNT];
+        int bufferLen = 0;
+
+        // Determine the size of each facing's slice after the dirty blocks have been replaced
+        for (int facingId = 0; facingId < ModelQuadFacing.COUNT; facingId++) {
+            ModelQuadFacing facing = ModelQuadFacing.VALUES[facingId];
+            VertexBufferBuilder builder = builders[facingId];
+
+            int size = builder != null ? builder.getSize() : 0;
+
+            if (previous != null && previous.getSlice(facing) != null) {
+                size += getRetainedSize(previous.getSlice(facing), previous.getBlocks(facing), previous.getOffsets(facing), dirtyBlocks);
+            }
+
+            if (size > 0) {
+                slices[facingId] = new BufferSlice(bufferLen, size);
+                bufferLen += size;
+            }
+        }
+
+        if (bufferLen <= 0) {
+            this.clearScratchBuffers(builders);
+
+            return null;
+        }
+
+        ByteBuffer buffer = GlAllocationUtils.allocateByteBuffer(bufferLen);
+
+        ShortArrayList blocks = new ShortArrayList();
+        IntArrayList offsets = new IntArrayList();
+        ByteArrayList sources = new ByteArrayList();
+
+        short[][] blockTables = new short[ModelQuadFacing.COUNT][];
+        int[][] offsetTables = new int[ModelQuadFacing.COUNT][];
+        byte[][] sourceTables = new byte[ModelQuadFacing.COUNT][];
+
+        ChunkMeshData meshData = new ChunkMeshData();
+
+        for (int facingId = 0; facingId < ModelQuadFacing.COUNT; facingId++) {
+            BufferSlice slice = slices[facingId];
+
+            if (slice == null) {
+                continue;
+            }
+
+            ModelQuadFacing facing = ModelQuadFacing.VALUES[facingId];
+            VertexBufferBuilder builder = builders[facingId];
+
+            ShortArrayList newBlocks = this.trackedBlocks[passId][facingId];
+            IntArrayList newOffsets = this.trackedOffsets[passId][facingId];
+            ByteArrayList newSources = this.trackedLightSources[passId][facingId];
+            int newSize = builder != null ? builder.getSize() : 0;
+            ByteBuffer newData = builder != null ? builder.getDirectBuffer().duplicate() : null;
+
+            BufferSlice oldSlice = previous != null ? previous.getSlice(facing) : null;
+            short[] oldBlocks = oldSlice != null ? previous.getBlocks(facing) : new short[0];
+            int[] oldOffsets = oldSlice != null ? previous.getOffsets(facing) : new int[0];
+            byte[] oldSources = oldSlice != null ? previous.getLightSources(facing) : new byte[0];
+
+            blocks.clear();
+            offsets.clear();
+            sources.clear();
+
+            int i = 0, j = 0;
+
+            // Merge the retained and new blocks in ascending index order so that the tables remain sorted
+            while (i < oldBlocks.length || j < newBlocks.size()) {
+                if (i < oldBlocks.length && ChunkMeshIndex.isInBlockSet(dirtyBlocks, oldBlocks[i])) {
+                    i++;
+                    continue;
+                }
+
+                int relStart = buffer.position() - slice.start;
+
+                if (j < newBlocks.size() && (i >= oldBlocks.length || newBlocks.getShort(j) < oldBlocks[i])) {
+                    int start = newOffsets.getInt(j);
+                    int end = j + 1 < newBlocks.size() ? newOffsets.getInt(j + 1) : newSize;
+
+                    copyRange(newData, start, end, buffer);
+
+                    sources.addElements(sources.size(), newSources.elements(), start / this.stride, (end - start) / this.stride);
+
+                    blocks.add(newBlocks.getShort(j));
+                    j++;
+                } else {
+                    int start = oldSlice.start + oldOffsets[i];
+                    int end = oldSlice.start + (i + 1 < oldBlocks.length ? oldOffsets[i + 1] : oldSlice.len);
+
+                    int position = buffer.position();
+
+                    copyRange(previousData, start, end, buffer);
+
+                    int first = oldOffsets[i] / this.stride;
+                    int count = (end - start) / this.stride;
+
+                    sources.addElements(sources.size(), oldSources, first, count);
+
+                    if (relighter != null) {
+                        this.relightVertices(buffer, position, oldBlocks[i], oldSources, first, count, relighter);
+                    }
+
+                    blocks.add(oldBlocks[i]);
+                    i++;
+                }
+
+                offsets.add(relStart);
+            }
+
+            blockTables[facingId] = blocks.toShortArray();
+            offsetTables[facingId] = offsets.toIntArray();
+            sourceTables[facingId] = sources.toByteArray();
+
+            meshData.setModelSlice(facing, slice);
+        }
+
+        this.clearScratchBuffers(builders);
+
+        buffer.flip();
+
+        this.trackedPasses[passId] = new ChunkMeshIndex.Pass(buffer, this.stride, slices, blockTables, offsetTables, sourceTables);
+
         meshData.setVertexData(new VertexData(buffer, this.vertexType.getCustomVertexFormat()));
 
         return meshData;
     }
 
+    private ChunkMeshIndex.Pass createPassIndex(BlockRenderPass pass, ChunkMeshData meshData, ByteBuffer buffer) {
+        BufferSlice[] slices = new BufferSlice[ModelQuadFacing.COUNT];
+        short[][] blocks = new short[ModelQuadFacing.COUNT][];
+        int[][] offsets = new int[ModelQuadFacing.COUNT][];
+        byte[][] sources = new byte[ModelQuadFacing.COUNT][];
+
+        for (Map.Entry<ModelQuadFacing, BufferSlice> entry : meshData.getSlices()) {
+            int facingId = entry.getKey().ordinal();
+
+            slices[facingId] = entry.getValue();
+            blocks[facingId] = this.trackedBlocks[pass.ordinal()][facingId].toShortArray();
+            offsets[facingId] = this.trackedOffsets[pass.ordinal()][facingId].toIntArray();
+            sources[facingId] = this.trackedLightSources[pass.ordinal()][facingId].toByteArray();
+        }
+
+        return new ChunkMeshIndex.Pass(buffer, this.stride, slices, blocks, offsets, sources);
+    }
+
+    /**
+     * Re-computes the light of a block's vertices which have been copied into the buffer at the given position, and
+     * overwrites only their light attribute. Both chunk vertex formats encode light using
+     * {@link ModelVertexUtil#encodeLightMapTexCoord(int)}.
+     */
+    private void relightVertices(ByteBuffer buffer, int position, int block, byte[] sources, int first, int count, VertexRelighter relighter) {
+        for (int i = 0; i < count; i++) {
+            int light = relighter.relight(block, sources[first + i]);
+
+            buffer.putInt(position + (i * this.stride) + this.lightOffset, ModelVertexUtil.encodeLightMapTexCoord(light));
+        }
+    }
+
+    private void clearScratchBuffers(VertexBufferBuilder[] builders) {
+        for (VertexBufferBuilder builder : builders) {
+            if (builder != null) {
+                builder.reset();
+            }
+        }
+    }
+
+    private static int getRetainedSize(BufferSlice slice, short[] blocks, int[] offsets, long[] dirtyBlocks) {
+        int size = slice.len;
+
+        for (int i = 0; i < blocks.length; i++) {
+            if (ChunkMeshIndex.isInBlockSet(dirtyBlocks, blocks[i])) {
+                int end = i + 1 < blocks.length ? offsets[i + 1] : slice.len;
+
+                size -= end - offsets[i];
+            }
+        }
+
+        return size;
+    }
+
+    private static void copyRange(ByteBuffer src, int start, int end, ByteBuffer dst) {
+        src.limit(end);
+        src.position(start);
+
+        dst.put(src);
+    }
+
     public void setRenderOffset(int x, int y, int z) {
         this.offset.set(x, y, z);
     }
+
+    public interface VertexRelighter {
+        /**
+         * @param block The index of the block which the vertex belongs to
+         * @param source The light source of the vertex, as described by
+         *               {@link me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource}
+         * @return The new light map texture coordinates of the vertex
+         */
+        int relight(int block, int source);
+    }
 }
@@ -12,9 +12,20 @@ import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 public class ChunkBuildResult<T extends ChunkGraphicsState> {
     public final ChunkRenderContainer<T> render;
     public final ChunkRenderData data;
+    public final int version;
 
-    public ChunkBuildResult(ChunkRenderContainer<T> render, ChunkRenderData data) {
+    public ChunkBuildResult(ChunkRenderContainer<T> render, ChunkRenderData data, int version) {
         this.render = render;
         this.data = data;
+        this.version = version;
+    }
+
+    /**
+     * @return True if this result was produced by the most recently created build task of its render, otherwise false
+     *         if it has been superseded or its render has been deleted and it should be discarded instead of being
+     *         uploaded
+     */
+    public boolean isCurrent() {
+        return !this.render.isDeleted() && this.version == this.render.getBuildVersion();
     }
 }
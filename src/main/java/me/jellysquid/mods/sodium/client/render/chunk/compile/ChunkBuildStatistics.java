@@ -0,0 +1,45 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates counters about the work done by chunk build tasks for display in the debug HUD. Build tasks report their
+ * counters once after completing, so this class is safe to update from any number of worker threads.
+ */
+public class ChunkBuildStatistics {
+    private final AtomicLong builtSections = new AtomicLong();
+    private final AtomicLong visitedBlocks = new AtomicLong();
+    private final AtomicLong hiddenBlocks = new AtomicLong();
+
+    private final AtomicLong renderedModels = new AtomicLong();
+    private final AtomicLong unseededModels = new AtomicLong();
+
+    /**
+     * @param visitedBlocks The number of non-air blocks which were visited by the build
+     * @param hiddenBlocks The number of those blocks which were skipped as they were enclosed by opaque blocks
+     */
+    public void addBuild(int visitedBlocks, int hiddenBlocks) {
+        this.builtSections.incrementAndGet();
+        this.visitedBlocks.addAndGet(visitedBlocks);
+        this.hiddenBlocks.addAndGet(hiddenBlocks);
+    }
+
+    /**
+     * @param renderedModels The number of block models which were rendered by the build
+     * @param unseededModels The number of those models which didn't use randomness and skipped seeding
+     */
+    public void addModels(int renderedModels, int unseededModels) {
+        this.renderedModels.addAndGet(renderedModels);
+        this.unseededModels.addAndGet(unseededModels);
+    }
+
+    public String getDebugString() {
+        return String.format("Chunk Builds: %d (%d%% of blocks hidden, %d%% of models unseeded)", this.builtSections.get(),
+                getPercentage(this.hiddenBlocks.get(), this.visitedBlocks.get()),
+                getPercentage(this.unseededModels.get(), this.renderedModels.get()));
+    }
+
+    private static int getPercentage(long value, long total) {
+        return total > 0L ? (int) Math.floor(((double) value / (double) total) * 100.0D) : 0;
+    }
+}
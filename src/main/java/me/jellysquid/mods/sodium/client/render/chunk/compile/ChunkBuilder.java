@@ -1,21 +1,32 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2DoubleOpenHashMap;
+import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderBackend;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkFaceMerger;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderBuildTask;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderEmptyBuildTask;
+import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderIncrementalRebuildTask;
 import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderRebuildTask;
+import me.jellysquid.mods.sodium.client.render.occlusion.ShapeOcclusionTable;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.util.task.IdleWorkerQueue;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
 import me.jellysquid.mods.sodium.client.world.ClientWorldExtended;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCacheManager;
-import me.jellysquid.mods.sodium.common.util.collections.DequeDrain;
+import me.jellysquid.mods.sodium.client.world.snapshot.ChunkSectionCache;
 import me.jellysquid.mods.sodium.common.util.pool.ObjectPool;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.util.math.Vector3d;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.ChunkSectionPos;
@@ -25,11 +36,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 public class ChunkBuilder<T extends ChunkGraphicsState> {
     /**
@@ -37,31 +54,72 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      */
     private static final int TASK_QUEUE_LIMIT_PER_WORKER = 2;
 
+    /**
+     * The squared distance (in blocks) the camera must move before the pending tasks in the build queue will be
+     * re-prioritized. Re-sorting the queue on every small movement would be wasteful as the relative order of chunk
+     * sections barely changes.
+     */
+    private static final double REPRIORITIZE_DISTANCE = Math.pow(8.0D, 2.0D);
+
+    /**
+     * The maximum number of bytes of mesh data which will be uploaded in a single frame, regardless of the time budget.
+     */
+    private static final long MAX_UPLOAD_BYTES_PER_FRAME = 16L * 1024L * 1024L;
+
+    /**
+     * The number of build results passed to the render backend at once. The time budget is only checked between
+     * batches, so this bounds how far an expensive frame can overshoot it.
+     */
+    private static final int UPLOAD_BATCH_SIZE = 8;
+
     private static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
 
-    private final Deque<WrappedTask<T>> buildQueue = new ConcurrentLinkedDeque<>();
+    // Ordered by task priority, see WrappedTask#compareTo. The skip list allows workers to take tasks without locking.
+    private final ConcurrentSkipListSet<WrappedTask<T>> buildQueue = new ConcurrentSkipListSet<>();
+    private final AtomicInteger buildQueueSize = new AtomicInteger();
     private final Deque<ChunkBuildResult<T>> uploadQueue = new ConcurrentLinkedDeque<>();
 
-    private final Object jobNotifier = new Object();
+    // Results taken from the upload queue which didn't fit into the upload budget of a previous frame. Only accessed by
+    // the main thread.
+    private final ObjectArrayList<ChunkBuildResult<T>> pendingUploads = new ObjectArrayList<>();
+
+    // The workers which are currently parked and waiting for new tasks
+    private final IdleWorkerQueue idleWorkers = new IdleWorkerQueue();
+    private final AtomicLong jobSequence = new AtomicLong();
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final List<Thread> threads = new ArrayList<>();
+    private final List<WorkerRunnable> workers = new ArrayList<>();
 
     private final ObjectPool<WorldSlice> pool;
 
     private World world;
     private Vector3d cameraPosition;
+    private Vector3d lastPrioritizedPosition;
     private BiomeCacheManager biomeCacheManager;
+    private ChunkSectionCache sectionCache;
     private BlockRenderPassManager renderPassManager;
 
     private final int limitThreads;
     private final ChunkVertexType vertexType;
     private final ChunkRenderBackend<T> backend;
+    private final boolean useIncrementalUpdates;
+    private final boolean useFaceMerging;
+
+    // The sprite which defines the size of a tile when texturing merged faces, or null if faces are not merged
+    private final Sprite tileSprite;
+
+    private final ChunkBuildStatistics statistics = new ChunkBuildStatistics();
 
     public ChunkBuilder(ChunkVertexType vertexType, ChunkRenderBackend<T> backend) {
         this.vertexType = vertexType;
         this.backend = backend;
         this.limitThreads = getOptimalThreadCount();
+        this.useFaceMerging = SodiumClientMod.options().advanced.useChunkFaceMerging;
+        this.tileSprite = this.useFaceMerging ? ChunkFaceMerger.getTileSprite() : null;
+
+        // Merged faces don't belong to any single block, so chunks can't be updated incrementally while they are used
+        this.useIncrementalUpdates = SodiumClientMod.options().advanced.useIncrementalChunkUpdates && !this.useFaceMerging;
         this.pool = new ObjectPool<>(this.getSchedulingBudget(), WorldSlice::new);
     }
 
@@ -70,12 +128,13 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * spawn more tasks than the budget allows, it will block until resources become available.
      */
     public int getSchedulingBudget() {
-        return Math.max(0, (this.limitThreads * TASK_QUEUE_LIMIT_PER_WORKER) - this.buildQueue.size());
+        return Math.max(0, (this.limitThreads * TASK_QUEUE_LIMIT_PER_WORKER) - this.buildQueueSize.get());
     }
 
     /**
-     * Spawns a number of work-stealing threads to process results in the build queue. If the builder is already
-     * running, this method does nothing and exits.
+     * Spawns a number of worker threads which take tasks from the shared build queue. Workers which find the queue
+     * empty park themselves in {@link ChunkBuilder#idleWorkers} until a new task is submitted, which wakes only as many
+     * of them as there are new tasks. If the builder is already running, this method does nothing and exits.
      */
     public void startWorkers() {
         if (this.running.getAndSet(true)) {
@@ -89,16 +148,19 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         MinecraftClient client = MinecraftClient.getInstance();
 
         for (int i = 0; i < this.limitThreads; i++) {
-            ChunkBuildBuffers buffers = new ChunkBuildBuffers(this.vertexType, this.renderPassManager);
+            ChunkBuildBuffers buffers = new ChunkBuildBuffers(this.vertexType, this.renderPassManager, this.tileSprite);
             ChunkRenderContext pipeline = new ChunkRenderContext(client);
 
             WorkerRunnable worker = new WorkerRunnable(buffers, pipeline);
 
             Thread thread = new Thread(worker, "Chunk Render Task Executor #" + i);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
+
+            worker.idleState = new IdleWorkerQueue.Worker(thread);
             thread.start();
 
             this.threads.add(thread);
+            this.workers.add(worker);
         }
 
         LOGGER.info("Started {} worker threads", this.threads.size());
@@ -121,8 +183,8 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         LOGGER.info("Stopping worker threads");
 
         // Notify all worker threads to wake up, where they will then terminate
-        synchronized (this.jobNotifier) {
-            this.jobNotifier.notifyAll();
+        for (Thread thread : this.threads) {
+            LockSupport.unpark(thread);
         }
 
         // Wait for every remaining thread to terminate
@@ -134,49 +196,176 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         }
 
         this.threads.clear();
+        this.workers.clear();
+        this.idleWorkers.clear();
 
         // Drop any pending work queues and cancel futures
         this.uploadQueue.clear();
+        this.pendingUploads.clear();
 
         for (WrappedTask<?> job : this.buildQueue) {
             job.future.cancel(true);
         }
 
         this.buildQueue.clear();
+        this.buildQueueSize.set(0);
 
         this.world = null;
         this.biomeCacheManager = null;
+        this.sectionCache = null;
         this.pool.reset();
     }
 
     /**
-     * Processes all pending build task uploads using the chunk render backend.
+     * Processes pending build task uploads using the chunk render backend. Results are uploaded in order of priority
+     * (visible renders first, then by distance to the camera) until either the configured time budget or the byte limit
+     * for the frame is exhausted. Any remaining results are carried over to the next frame. Results which have been
+     * superseded by a newer build task for the same render are discarded without being uploaded.
+     * @param isVisible A predicate which returns true if the given render is currently visible
+     * @return True if any results were uploaded, otherwise false
      */
-    // TODO: Limit the amount of time this can take per frame
-    public boolean performPendingUploads() {
-        if (this.uploadQueue.isEmpty()) {
+    public boolean performPendingUploads(Predicate<ChunkRenderContainer<T>> isVisible) {
+        ChunkBuildResult<T> next;
+
+        while ((next = this.uploadQueue.poll()) != null) {
+            this.pendingUploads.add(next);
+        }
+
+        this.pendingUploads.removeIf(result -> !result.isCurrent());
+
+        if (this.pendingUploads.isEmpty()) {
             return false;
         }
 
-        this.backend.upload(new DequeDrain<>(this.uploadQueue));
+        this.sortPendingUploads(isVisible);
+
+        long deadline = System.nanoTime() + (SodiumClientMod.options().advanced.chunkUploadTimeBudget * 1_000_000L);
+        long bytes = 0;
+
+        int uploaded = 0;
+        int count = this.pendingUploads.size();
+
+        while (uploaded < count && bytes < MAX_UPLOAD_BYTES_PER_FRAME) {
+            int end = uploaded;
+
+            // The first batch always contains at least one result so that uploads can't stall entirely
+            while (end < count && end - uploaded < UPLOAD_BATCH_SIZE && bytes < MAX_UPLOAD_BYTES_PER_FRAME) {
+                bytes += this.pendingUploads.get(end++).data.getMeshSize();
+            }
+
+            this.backend.upload(this.pendingUploads.subList(uploaded, end).iterator());
+
+            uploaded = end;
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        this.pendingUploads.removeElements(0, uploaded);
 
         return true;
     }
 
-    public CompletableFuture<ChunkBuildResult<T>> schedule(ChunkRenderBuildTask<T> task) {
+    private void sortPendingUploads(Predicate<ChunkRenderContainer<T>> isVisible) {
+        if (this.pendingUploads.size() <= 1) {
+            return;
+        }
+
+        Vector3d camera = this.cameraPosition;
+
+        // Both keys are computed up front as the visibility predicate can be comparatively expensive
+        Reference2DoubleOpenHashMap<ChunkRenderContainer<T>> priorities = new Reference2DoubleOpenHashMap<>(this.pendingUploads.size());
+
+        for (ChunkBuildResult<T> result : this.pendingUploads) {
+            ChunkRenderContainer<T> render = result.render;
+
+            double distance = camera == null ? 0.0D : render.getSquaredDistance(camera.x, camera.y, camera.z);
+
+            // Invisible renders are ordered after all visible renders by their negated distance
+            priorities.put(render, isVisible.test(render) ? distance : -1.0D - distance);
+        }
+
+        this.pendingUploads.sort((a, b) -> comparePriority(priorities.getDouble(a.render), priorities.getDouble(b.render)));
+    }
+
+    private static int comparePriority(double a, double b) {
+        boolean aVisible = a >= 0.0D;
+        boolean bVisible = b >= 0.0D;
+
+        if (aVisible != bVisible) {
+            return aVisible ? -1 : 1;
+        }
+
+        return aVisible ? Double.compare(a, b) : Double.compare(b, a);
+    }
+
+    /**
+     * Schedules a build task for execution on the worker threads. Tasks are ordered by the distance of their render
+     * to the camera so that the chunks closest to the player are always built first.
+     * @param render The render which the task will build
+     * @param task The task to execute
+     * @param droppable True if the task may be discarded when its render leaves the visible set, otherwise false if
+     *                  the caller will be waiting on its result
+     */
+    public CompletableFuture<ChunkBuildResult<T>> schedule(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task, boolean droppable) {
         if (!this.running.get()) {
             throw new IllegalStateException("Executor is stopped");
         }
 
-        WrappedTask<T> job = new WrappedTask<>(task);
+        WrappedTask<T> job = this.createJob(render, task, droppable);
 
+        this.enqueueJob(job);
+        this.wakeWorkers(1);
+
+        return job.future;
+    }
+
+    private WrappedTask<T> createJob(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task, boolean droppable) {
+        WrappedTask<T> job = new WrappedTask<>(render, task, droppable, this.jobSequence.getAndIncrement());
+        job.updatePriority(this.cameraPosition);
+
+        return job;
+    }
+
+    private void enqueueJob(WrappedTask<T> job) {
         this.buildQueue.add(job);
+        this.buildQueueSize.incrementAndGet();
+    }
+
+    /**
+     * Takes the highest priority task from the build queue, or returns null if the queue is empty.
+     */
+    private WrappedTask<T> pollJob() {
+        WrappedTask<T> job = this.buildQueue.pollFirst();
 
-        synchronized (this.jobNotifier) {
-            this.jobNotifier.notify();
+        if (job != null) {
+            this.buildQueueSize.decrementAndGet();
         }
 
-        return job.future;
+        return job;
+    }
+
+    /**
+     * Removes a specific task from the build queue.
+     * @return True if the task was removed, otherwise false if a worker thread has already taken ownership of it
+     */
+    private boolean removeJob(WrappedTask<T> job) {
+        if (this.buildQueue.remove(job)) {
+            this.buildQueueSize.decrementAndGet();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Unparks up to {@param count} idle workers so that they can begin processing newly submitted tasks. Workers which
+     * are already busy will pick up remaining tasks on their own once they finish their current work.
+     */
+    private void wakeWorkers(int count) {
+        this.idleWorkers.wake(count);
     }
 
     /**
@@ -184,6 +373,79 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      */
     public void setCameraPosition(double x, double y, double z) {
         this.cameraPosition = new Vector3d(x, y, z);
+
+        Vector3d last = this.lastPrioritizedPosition;
+
+        if (last == null || squaredDistance(last, x, y, z) >= REPRIORITIZE_DISTANCE) {
+            this.reprioritizeTasks();
+        }
+    }
+
+    /**
+     * Re-computes the priority of all pending tasks in the build queue using the current camera position. This must
+     * only be called from the main thread. Worker threads may continue to take tasks from the queue while this runs.
+     */
+    private void reprioritizeTasks() {
+        this.lastPrioritizedPosition = this.cameraPosition;
+
+        if (this.buildQueue.isEmpty()) {
+            return;
+        }
+
+        // The priority of a task cannot change while it is contained in the queue, so every task needs to be taken out
+        // and inserted again
+        List<WrappedTask<T>> jobs = new ArrayList<>();
+        WrappedTask<T> job;
+
+        while ((job = this.pollJob()) != null) {
+            job.updatePriority(this.cameraPosition);
+            jobs.add(job);
+        }
+
+        for (WrappedTask<T> it : jobs) {
+            this.enqueueJob(it);
+        }
+
+        // Workers may have gone to sleep while the queue was briefly empty
+        this.wakeWorkers(jobs.size());
+    }
+
+    /**
+     * Removes all droppable tasks from the build queue whose render is no longer considered visible. The renders
+     * belonging to removed tasks are marked as needing the same update again so that they will be re-scheduled once
+     * they come back into view. This must only be called from the main thread.
+     * @param isVisible The predicate used to test whether a render is still visible
+     * @return The number of tasks which were dropped
+     */
+    public int dropInvisibleTasks(Predicate<ChunkRenderContainer<T>> isVisible) {
+        int count = 0;
+
+        for (WrappedTask<T> job : this.buildQueue) {
+            if (!job.droppable || isVisible.test(job.render)) {
+                continue;
+            }
+
+            // If the removal fails, a worker thread has already taken ownership of the task
+            if (!this.removeJob(job)) {
+                continue;
+            }
+
+            job.future.cancel(false);
+            job.task.releaseResources();
+            job.task.onDropped();
+
+            count++;
+        }
+
+        return count;
+    }
+
+    private static double squaredDistance(Vector3d pos, double x, double y, double z) {
+        double xDist = pos.x - x;
+        double yDist = pos.y - y;
+        double zDist = pos.z - z;
+
+        return (xDist * xDist) + (yDist * yDist) + (zDist * zDist);
     }
 
     /**
@@ -217,6 +479,11 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         this.world = world;
         this.renderPassManager = renderPassManager;
         this.biomeCacheManager = new BiomeCacheManager(world.getDimension().getBiomeAccessType(), ((ClientWorldExtended) world).getBiomeSeed());
+        this.sectionCache = new ChunkSectionCache();
+
+        // The render layers of blocks can change with the graphics settings, which always re-initializes the builder
+        BlockStateFlags.rebuild();
+        ShapeOcclusionTable.clear();
 
         this.startWorkers();
     }
@@ -262,6 +529,17 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         return this.biomeCacheManager;
     }
 
+    public ChunkBuildStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Returns the cache of chunk sections shared by all world slices of this world.
+     */
+    public ChunkSectionCache getSectionCache() {
+        return this.sectionCache;
+    }
+
     /**
      * Called after a chunk's status is changed in the world (i.e. after a load or unload.) This is used to reset any
      * caches which depend on its data and to release any pooled resources attached to it.
@@ -270,6 +548,7 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      */
     public void onChunkStatusChanged(int x, int z) {
         this.biomeCacheManager.dropCachesForChunk(x, z);
+        this.sectionCache.dropSectionsForChunk(x, z);
     }
 
     /**
@@ -279,10 +558,35 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @param render The render to rebuild
      */
     public void deferRebuild(ChunkRenderContainer<T> render) {
-        this.scheduleRebuildTaskAsync(render)
+        this.schedule(render, this.createRebuildTask(render), true)
                 .thenAccept(this::enqueueUpload);
     }
 
+    /**
+     * Creates rebuild tasks for all the given renders and defers them to the work queue in a single batch. This is
+     * preferred over calling {@link ChunkBuilder#deferRebuild(ChunkRenderContainer)} for each render as idle workers
+     * will only be woken once after all the tasks have been made available.
+     * @param renders The renders to rebuild
+     */
+    public void deferRebuilds(Collection<ChunkRenderContainer<T>> renders) {
+        if (!this.running.get()) {
+            throw new IllegalStateException("Executor is stopped");
+        }
+
+        if (renders.isEmpty()) {
+            return;
+        }
+
+        for (ChunkRenderContainer<T> render : renders) {
+            WrappedTask<T> job = this.createJob(render, this.createRebuildTask(render), true);
+            job.future.thenAccept(this::enqueueUpload);
+
+            this.enqueueJob(job);
+        }
+
+        this.wakeWorkers(renders.size());
+    }
+
 
     /**
      * Enqueues the build task result to the pending result queue to be later processed during the next available
@@ -298,7 +602,7 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @param render The render to rebuild
      */
     public CompletableFuture<ChunkBuildResult<T>> scheduleRebuildTaskAsync(ChunkRenderContainer<T> render) {
-        return this.schedule(this.createRebuildTask(render));
+        return this.schedule(render, this.createRebuildTask(render), false);
     }
 
     /**
@@ -306,20 +610,34 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
      * @param render The render to rebuild
      */
     private ChunkRenderBuildTask<T> createRebuildTask(ChunkRenderContainer<T> render) {
+        IntArrayList dirtyBlocks = render.getDirtyBlocks();
+        boolean relight = render.needsRelight();
+        ChunkRenderData data = render.getData();
+
+        // The previous data can only be patched if no other build is in flight which would replace it
+        boolean incremental = dirtyBlocks != null && data.getMeshIndex() != null && render.isDataCurrent();
+
         render.cancelRebuildTask();
 
+        int version = render.createBuildVersion();
+
         WorldSlice slice = this.createWorldSlice(render.getChunkPos());
 
         if (slice == null) {
-            return new ChunkRenderEmptyBuildTask<>(render);
+            return new ChunkRenderEmptyBuildTask<>(render, version);
+        } else if (incremental) {
+            return new ChunkRenderIncrementalRebuildTask<>(this, render, slice, render.getRenderOrigin(), version, data, dirtyBlocks, relight);
         } else {
-            return new ChunkRenderRebuildTask<>(this, render, slice, render.getRenderOrigin());
+            return new ChunkRenderRebuildTask<>(this, render, slice, render.getRenderOrigin(), version, this.useIncrementalUpdates, this.useFaceMerging);
         }
     }
 
     private class WorkerRunnable implements Runnable {
         private final AtomicBoolean running = ChunkBuilder.this.running;
 
+        // The idle state of the thread which is executing this worker, set before the thread is started
+        private IdleWorkerQueue.Worker idleState;
+
         // The re-useable build buffers used by this worker for building chunk meshes
         private final ChunkBuildBuffers bufferCache;
 
@@ -361,37 +679,57 @@ public class ChunkBuilder<T extends ChunkGraphicsState> {
         }
 
         /**
-         * Returns the next task which this worker can work on or blocks until one becomes available. If no tasks are
-         * currently available, it will wait on {@link ChunkBuilder#jobNotifier} field until notified.
+         * Returns the next task which this worker can work on or parks the thread until woken. If no tasks are
+         * currently available, the worker registers itself in {@link ChunkBuilder#idleWorkers} and parks until a
+         * submitter unparks it, after which null is returned and the caller should try again.
          */
         private WrappedTask<T> getNextJob() {
-            WrappedTask<T> job = ChunkBuilder.this.buildQueue.poll();
-
-            if (job == null) {
-                synchronized (ChunkBuilder.this.jobNotifier) {
-                    try {
-                        ChunkBuilder.this.jobNotifier.wait();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-
-            return job;
+            return ChunkBuilder.this.idleWorkers.take(this.idleState, ChunkBuilder.this::pollJob, this.running::get);
         }
     }
 
-    private static class WrappedTask<T extends ChunkGraphicsState> implements CancellationSource {
+    private static class WrappedTask<T extends ChunkGraphicsState> implements CancellationSource, Comparable<WrappedTask<T>> {
+        private final ChunkRenderContainer<T> render;
         private final ChunkRenderBuildTask<T> task;
         private final CompletableFuture<ChunkBuildResult<T>> future;
+        private final boolean droppable;
+        private final long sequence;
+
+        // Only modified while the task is not contained in the build queue
+        private double priority;
 
-        private WrappedTask(ChunkRenderBuildTask<T> task) {
+        private WrappedTask(ChunkRenderContainer<T> render, ChunkRenderBuildTask<T> task, boolean droppable, long sequence) {
+            this.render = render;
             this.task = task;
+            this.droppable = droppable;
+            this.sequence = sequence;
             this.future = new CompletableFuture<>();
         }
 
+        private void updatePriority(Vector3d camera) {
+            this.priority = camera == null ? 0.0D : this.render.getSquaredDistance(camera.x, camera.y, camera.z);
+        }
+
         @Override
         public boolean isCancelled() {
             return this.future.isCancelled();
         }
+
+        @Override
+        public int compareTo(WrappedTask<T> other) {
+            // Blocking tasks are always processed first as the main thread is waiting on them
+            if (this.droppable != other.droppable) {
+                return this.droppable ? 1 : -1;
+            }
+
+            int cmp = Double.compare(this.priority, other.priority);
+
+            // Tasks with equal priority are processed in the order they were submitted
+            if (cmp == 0) {
+                cmp = Long.compare(this.sequence, other.sequence);
+            }
+
+            return cmp;
+        }
     }
 }
@@ -0,0 +1,104 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * A bitset of the blocks in and directly around a chunk section which are opaque full cubes. This is computed once
+ * before a section is meshed and allows blocks which are completely enclosed by such cubes to be skipped before any
+ * work is done on their models, as none of their faces could ever be seen.
+ *
+ * Coordinates are relative to the origin of the section and range from -1 to 16 on each axis, which covers the section
+ * and the one block border provided by its {@link WorldSlice}.
+ */
+public class ChunkOpacityMask {
+    private static final int LENGTH = 16 + 2;
+
+    private final long[] bits = new long[((LENGTH * LENGTH * LENGTH) + 63) >>> 6];
+
+    /**
+     * Fills the mask from the blocks in the given slice.
+     * @param slice The world slice around the section
+     * @param origin The section to compute the mask for
+     */
+    public void init(WorldSlice slice, ChunkSectionPos origin) {
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        int originX = origin.getMinX();
+        int originY = origin.getMinY();
+        int originZ = origin.getMinZ();
+
+        for (int y = -1; y <= 16; y++) {
+            for (int z = -1; z <= 16; z++) {
+                for (int x = -1; x <= 16; x++) {
+                    BlockState state = slice.getBlockState(originX + x, originY + y, originZ + z);
+
+                    if (state.isAir()) {
+                        continue;
+                    }
+
+                    pos.set(originX + x, originY + y, originZ + z);
+
+                    if (BlockStateFlags.isOpaqueFullCube(BlockStateFlags.get(state), state, slice, pos)) {
+                        this.setOpaque(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the block at the given position as an opaque full cube.
+     */
+    void setOpaque(int x, int y, int z) {
+        int index = getIndex(x, y, z);
+
+        this.bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * @return True if the block at the given position is an opaque full cube
+     */
+    public boolean isOpaque(int x, int y, int z) {
+        int index = getIndex(x, y, z);
+
+        return (this.bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    /**
+     * @return True if all six blocks adjacent to the given position are opaque full cubes. The position itself must be
+     * within the section, not its border.
+     */
+    public boolean isHidden(int x, int y, int z) {
+        return this.isOpaque(x - 1, y, z) && this.isOpaque(x + 1, y, z) &&
+                this.isOpaque(x, y - 1, z) && this.isOpaque(x, y + 1, z) &&
+                this.isOpaque(x, y, z - 1) && this.isOpaque(x, y, z + 1);
+    }
+
+    /**
+     * @return The bits of the blocks in a row of the section along the X axis, where bit {@code x} is set if the block
+     * at that X coordinate is an opaque full cube. The row must be within the section, not its border.
+     */
+    public int getSectionRow(int y, int z) {
+        int index = getIndex(0, y, z);
+
+        int word = index >>> 6;
+        int bit = index & 63;
+
+        long row = this.bits[word] >>> bit;
+
+        // The row continues into the next word
+        if (bit > 64 - 16) {
+            row |= this.bits[word + 1] << (64 - bit);
+        }
+
+        return (int) row & 0xFFFF;
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return (((y + 1) * LENGTH) + (z + 1)) * LENGTH + (x + 1);
+    }
+}
@@ -0,0 +1,269 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkVisibilityData;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the {@link ChunkVisibilityData} of a chunk section from its opaque blocks. This produces the same results
+ * as vanilla's chunk occlusion data builder, but rather than visiting each open block through a queue, the regions of
+ * open blocks are flood-filled 64 blocks at a time using bitwise operations.
+ *
+ * The blocks of the section are stored as 64 words of four rows each, where the bit of a block is given by
+ * {@code (y << 8) | (z << 4) | x}. Every row of a word is filled along the X axis in a single step, after which the
+ * fill spreads to the rows around it on the Y and Z axes. The words are swept forwards and backwards until the fill
+ * stops growing, which only takes a few passes for all but the most twisted cave systems.
+ */
+public class ChunkVisibilityBuilder {
+    private static final int WORDS = (16 * 16 * 16) / 64;
+
+    // The number of words in each layer of the section along the Y axis
+    private static final int LAYER_WORDS = WORDS / 16;
+
+    // The bits of the blocks at X = 0 and X = 15 in each row of a word
+    private static final long ROWS_MIN_X = 0x0001000100010001L;
+    private static final long ROWS_MAX_X = 0x8000800080008000L;
+
+    // The bits of the first and last row of a word
+    private static final long ROW_FIRST = 0x000000000000FFFFL;
+    private static final long ROW_LAST = 0xFFFF000000000000L;
+
+    // Vanilla assumes that sections with fewer closed blocks than this can always be seen through
+    private static final int MIN_CLOSED_BLOCKS = 256;
+
+    /**
+     * @param opacity The opaque blocks in and around the section
+     * @return The visibility data of the section
+     */
+    public static int build(ChunkOpacityMask opacity) {
+        long[] open = new long[WORDS];
+        int openCount = 0;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                long row = ~opacity.getSectionRow(y, z) & 0xFFFFL;
+
+                open[getWordIndex(y, z)] |= row << ((z & 3) << 4);
+            }
+        }
+
+        for (long word : open) {
+            openCount += Long.bitCount(word);
+        }
+
+        if ((16 * 16 * 16) - openCount < MIN_CLOSED_BLOCKS) {
+            return ChunkVisibilityData.ALL;
+        }
+
+        if (openCount == 0) {
+            return ChunkVisibilityData.NONE;
+        }
+
+        long[] fill = new long[WORDS];
+        int data = ChunkVisibilityData.NONE;
+
+        // Each connected region of open blocks is only filled once, starting from the first of its blocks on the edge
+        // of the section. Regions which do not touch an edge can't connect any faces and are never visited.
+        for (int i = 0; i < WORDS; i++) {
+            long seeds;
+
+            while ((seeds = open[i] & getEdgeMask(i)) != 0L) {
+                Arrays.fill(fill, 0L);
+                fill[i] = spreadWithinWord(Long.lowestOneBit(seeds), open[i]);
+
+                floodFill(fill, open);
+
+                for (int j = 0; j < WORDS; j++) {
+                    open[j] &= ~fill[j];
+                }
+
+                data |= ChunkVisibilityData.fromFaces(getTouchedFaces(fill));
+
+                if (data == ChunkVisibilityData.ALL) {
+                    return data;
+                }
+            }
+        }
+
+        return data;
+    }
+
+    private static void floodFill(long[] fill, long[] open) {
+        boolean changed;
+
+        do {
+            changed = false;
+
+            for (int i = 0; i < WORDS; i++) {
+                changed |= expandWord(fill, open, i);
+            }
+
+            for (int i = WORDS - 1; i >= 0; i--) {
+                changed |= expandWord(fill, open, i);
+            }
+        } while (changed);
+    }
+
+    /**
+     * Grows the fill of a word into all open blocks which can be reached from the filled blocks of the word and its
+     * neighbors without leaving the word.
+     * @return True if any blocks were added to the fill
+     */
+    private static boolean expandWord(long[] fill, long[] open, int i) {
+        long prev = fill[i];
+        long bits = prev;
+
+        // The neighbors along the Z axis in the previous and next word, unless they are in another layer
+        if ((i & 3) != 0) {
+            bits |= fill[i - 1] >>> 48;
+        }
+
+        if ((i & 3) != 3) {
+            bits |= fill[i + 1] << 48;
+        }
+
+        // The neighbors along the Y axis
+        if (i >= LAYER_WORDS) {
+            bits |= fill[i - LAYER_WORDS];
+        }
+
+        if (i < WORDS - LAYER_WORDS) {
+            bits |= fill[i + LAYER_WORDS];
+        }
+
+        long mask = open[i];
+        bits &= mask;
+
+        if (bits == prev) {
+            return false;
+        }
+
+        fill[i] = spreadWithinWord(bits, mask);
+
+        return true;
+    }
+
+    /**
+     * Fills along the X axis, and then spreads to the neighbors along the Z axis within the word, until all open
+     * blocks of the word which can be reached from the filled blocks are filled.
+     */
+    private static long spreadWithinWord(long bits, long open) {
+        while (true) {
+            bits = fillRows(bits, open);
+
+            long next = (bits | (bits << 16) | (bits >>> 16)) & open;
+
+            if (next == bits) {
+                return bits;
+            }
+
+            bits = next;
+        }
+    }
+
+    /**
+     * Fills each row of a word in both directions until a closed block is reached, using a Kogge-Stone fill for each
+     * direction. The rows are kept apart by excluding the first block of each row from the open blocks which can be
+     * filled from below it, and likewise for the last block in the other direction.
+     * @param gen The filled blocks, which must all be open
+     * @param open The open blocks
+     */
+    private static long fillRows(long gen, long open) {
+        long up = gen;
+        long pu = open & ~ROWS_MIN_X;
+
+        up |= pu & (up << 1);
+        pu &= pu << 1;
+        up |= pu & (up << 2);
+        pu &= pu << 2;
+        up |= pu & (up << 4);
+        pu &= pu << 4;
+        up |= pu & (up << 8);
+
+        long down = gen;
+        long pd = open & ~ROWS_MAX_X;
+
+        down |= pd & (down >>> 1);
+        pd &= pd >>> 1;
+        down |= pd & (down >>> 2);
+        pd &= pd >>> 2;
+        down |= pd & (down >>> 4);
+        pd &= pd >>> 4;
+        down |= pd & (down >>> 8);
+
+        return up | down;
+    }
+
+    /**
+     * @return A bitmask of the ordinals of the section's faces which the filled blocks touch
+     */
+    private static int getTouchedFaces(long[] fill) {
+        long all = 0L;
+        long first = 0L;
+        long last = 0L;
+
+        for (int i = 0; i < WORDS; i += LAYER_WORDS) {
+            first |= fill[i];
+            last |= fill[i + 3];
+
+            all |= fill[i] | fill[i + 1] | fill[i + 2] | fill[i + 3];
+        }
+
+        long bottom = fill[0] | fill[1] | fill[2] | fill[3];
+        long top = fill[WORDS - 4] | fill[WORDS - 3] | fill[WORDS - 2] | fill[WORDS - 1];
+
+        int faces = 0;
+
+        if (bottom != 0L) {
+            faces |= 1 << Direction.DOWN.ordinal();
+        }
+
+        if (top != 0L) {
+            faces |= 1 << Direction.UP.ordinal();
+        }
+
+        if ((first & ROW_FIRST) != 0L) {
+            faces |= 1 << Direction.NORTH.ordinal();
+        }
+
+        if ((last & ROW_LAST) != 0L) {
+            faces |= 1 << Direction.SOUTH.ordinal();
+        }
+
+        if ((all & ROWS_MIN_X) != 0L) {
+            faces |= 1 << Direction.WEST.ordinal();
+        }
+
+        if ((all & ROWS_MAX_X) != 0L) {
+            faces |= 1 << Direction.EAST.ordinal();
+        }
+
+        return faces;
+    }
+
+    /**
+     * @return The bits of a word which are on the edge of the section
+     */
+    private static long getEdgeMask(int i) {
+        int y = i / LAYER_WORDS;
+
+        if (y == 0 || y == 15) {
+            return -1L;
+        }
+
+        long mask = ROWS_MIN_X | ROWS_MAX_X;
+
+        if ((i & 3) == 0) {
+            mask |= ROW_FIRST;
+        } else if ((i & 3) == 3) {
+            mask |= ROW_LAST;
+        }
+
+        return mask;
+    }
+
+    private static int getWordIndex(int y, int z) {
+        return (y * LAYER_WORDS) + (z >> 2);
+    }
+}
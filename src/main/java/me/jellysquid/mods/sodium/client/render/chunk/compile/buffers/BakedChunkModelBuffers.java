@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
 
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
@@ -8,9 +9,17 @@ public class BakedChunkModelBuffers implements ChunkModelBuffers {
     private final ModelVertexSink[] builders;
     private final ChunkRenderData.Builder renderData;
 
-    public BakedChunkModelBuffers(ModelVertexSink[] builders, ChunkRenderData.Builder renderData) {
+    // The light source of each vertex written into each facing's builder, or null if they are not being tracked
+    private final ByteArrayList[] lightSources;
+
+    // The merger for the faces of full cubes, or null if faces are not being merged
+    private final ChunkFaceMerger faceMerger;
+
+    public BakedChunkModelBuffers(ModelVertexSink[] builders, ChunkRenderData.Builder renderData, ByteArrayList[] lightSources, ChunkFaceMerger faceMerger) {
         this.builders = builders;
         this.renderData = renderData;
+        this.lightSources = lightSources;
+        this.faceMerger = faceMerger;
     }
 
     @Override
@@ -22,4 +31,16 @@ public class BakedChunkModelBuffers implements ChunkModelBuffers {
     public ChunkRenderData.Builder getRenderData() {
         return this.renderData;
     }
+
+    @Override
+    public void recordLightSource(ModelQuadFacing facing, int source) {
+        if (this.lightSources != null) {
+            this.lightSources[facing.ordinal()].add((byte) source);
+        }
+    }
+
+    @Override
+    public ChunkFaceMerger getFaceMerger() {
+        return this.faceMerger;
+    }
 }
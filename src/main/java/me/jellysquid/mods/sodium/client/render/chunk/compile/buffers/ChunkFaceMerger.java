@@ -0,0 +1,396 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
+
+import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.util.color.ColorABGR;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Merges the coplanar faces of neighboring full cubes in a chunk section into larger quads, which reduces the number
+ * of vertices in flat areas such as walls, floors and the surface of the terrain. Only faces which cover the whole side
+ * of their block with a single full sprite can be merged, and only with faces that have the same sprite, orientation,
+ * color and light.
+ *
+ * The texture of a merged quad is repeated once per block by the fragment shader using the tile coordinates written by
+ * {@link ModelVertexSink#writeTiledQuad(float, float, float, int, float, float, int, int, int)}. As the shader only knows
+ * the size of a single sprite, as given by {@link ChunkFaceMerger#getTileSprite()}, faces of sprites with any other size
+ * are never collected.
+ */
+public class ChunkFaceMerger {
+    private static final int LAYER_SIZE = 16 * 16;
+    private static final int DIRECTION_SIZE = 16 * LAYER_SIZE;
+
+    // The tolerance used when checking if a vertex lies on the corner of its block face
+    private static final float POSITION_EPSILON = 1.0e-4f;
+
+    // The bits of a face's orientation which describe how its texture is mapped onto the face. The tangent axes of a
+    // face are the two axes other than its normal, in X, Y, Z order.
+    private static final int ORIENT_U_ALONG_B = 0b0001; // U follows the second tangent axis rather than the first
+    private static final int ORIENT_FLIP_U = 0b0010; // U is at the max edge of the sprite on the face's origin corner
+    private static final int ORIENT_FLIP_V = 0b0100; // V is at the max edge of the sprite on the face's origin corner
+    private static final int ORIENT_CCW = 0b1000; // The vertices wind counter-clockwise in tangent space
+
+    // The collected faces, indexed by (direction * DIRECTION_SIZE) + (layer * LAYER_SIZE) + (b * 16) + a
+    private final Sprite[] sprites = new Sprite[DirectionUtil.DIRECTION_COUNT * DIRECTION_SIZE];
+    private final int[] colors = new int[this.sprites.length];
+    private final int[] lights = new int[this.sprites.length];
+    private final byte[] orientations = new byte[this.sprites.length];
+
+    // The faces of the current layer which have already been merged into a quad
+    private final boolean[] merged = new boolean[LAYER_SIZE];
+
+    private final float tileWidth, tileHeight;
+    private boolean empty = true;
+
+    /**
+     * @param tileSprite The sprite returned by {@link ChunkFaceMerger#getTileSprite()}
+     */
+    public ChunkFaceMerger(Sprite tileSprite) {
+        this.tileWidth = tileSprite.getMaxU() - tileSprite.getMinU();
+        this.tileHeight = tileSprite.getMaxV() - tileSprite.getMinV();
+    }
+
+    /**
+     * Returns the sprite which defines the size of a tile when texturing merged faces. The chunk builders and the chunk
+     * shaders must agree on it, so both look it up from the current block models once after resources are reloaded.
+     */
+    public static Sprite getTileSprite() {
+        return MinecraftClient.getInstance().getBakedModelManager().getBlockModels().getSprite(Blocks.STONE.getDefaultState());
+    }
+
+    /**
+     * Prepares the merger for a new chunk section.
+     */
+    public void init() {
+        if (!this.empty) {
+            Arrays.fill(this.sprites, null);
+
+            this.empty = true;
+        }
+    }
+
+    /**
+     * Collects a face of a full cube so that it can later be merged with its neighbors. This is only possible if all
+     * four vertices of the face share the same color and light.
+     * @param pos The position of the block, of which only the position within its chunk section is used
+     * @param quad The quad of the face
+     * @param dir The side of the block which the face lies on
+     * @param colors The ABGR-packed color of each vertex of the face, or null if the face is not tinted
+     * @param light The light data of each vertex of the face
+     * @return True if the face was collected, otherwise false if it cannot be merged and must be rendered as-is
+     */
+    public boolean add(BlockPos pos, ModelQuadView quad, Direction dir, int[] colors, QuadLightData light) {
+        int color = ColorABGR.mul(colors != null ? colors[0] : 0xFFFFFFFF, light.br[0]);
+        int lm = light.lm[0];
+
+        for (int i = 1; i < 4; i++) {
+            if (light.lm[i] != lm || ColorABGR.mul(colors != null ? colors[i] : 0xFFFFFFFF, light.br[i]) != color) {
+                return false;
+            }
+        }
+
+        Sprite sprite = quad.getSprite();
+
+        if (sprite == null || !this.isTileSized(sprite)) {
+            return false;
+        }
+
+        int orientation = getOrientation(quad, dir, sprite);
+
+        if (orientation < 0) {
+            return false;
+        }
+
+        int axis = dir.getAxis().ordinal();
+
+        int x = pos.getX() & 15;
+        int y = pos.getY() & 15;
+        int z = pos.getZ() & 15;
+
+        int layer = axis == 0 ? x : (axis == 1 ? y : z);
+        int a = axis == 0 ? y : x;
+        int b = axis == 2 ? y : z;
+
+        int index = (dir.ordinal() * DIRECTION_SIZE) + (layer * LAYER_SIZE) + (b * 16) + a;
+
+        this.sprites[index] = sprite;
+        this.colors[index] = color;
+        this.lights[index] = lm;
+        this.orientations[index] = (byte) orientation;
+
+        this.empty = false;
+
+        return true;
+    }
+
+    /**
+     * Greedily merges all collected faces into quads and writes them into the buffers. Faces which could not be merged
+     * with any neighbor are written with their original texture coordinates, just like any other quad.
+     */
+    public void flush(ChunkModelBuffers buffers) {
+        if (this.empty) {
+            return;
+        }
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            ModelVertexSink sink = buffers.getSink(ModelQuadFacing.fromDirection(dir));
+
+            for (int layer = 0; layer < 16; layer++) {
+                this.flushLayer(sink, dir, layer);
+            }
+
+            sink.flush();
+        }
+
+        Arrays.fill(this.sprites, null);
+
+        this.empty = true;
+    }
+
+    private void flushLayer(ModelVertexSink sink, Direction dir, int layer) {
+        int base = (dir.ordinal() * DIRECTION_SIZE) + (layer * LAYER_SIZE);
+
+        Arrays.fill(this.merged, false);
+
+        for (int b = 0; b < 16; b++) {
+            for (int a = 0; a < 16; a++) {
+                int cell = (b * 16) + a;
+
+                if (this.merged[cell] || this.sprites[base + cell] == null) {
+                    continue;
+                }
+
+                int w = 1;
+
+                while (a + w < 16 && this.canMerge(base, cell, cell + w)) {
+                    w++;
+                }
+
+                int h = 1;
+
+                while (b + h < 16 && this.canMergeRow(base, cell, cell + (h * 16), w)) {
+                    h++;
+                }
+
+                for (int j = 0; j < h; j++) {
+                    Arrays.fill(this.merged, cell + (j * 16), cell + (j * 16) + w, true);
+                }
+
+                this.writeQuad(sink, dir, layer, a, b, w, h, base + cell);
+            }
+        }
+    }
+
+    private boolean canMergeRow(int base, int origin, int rowStart, int w) {
+        for (int i = 0; i < w; i++) {
+            if (!this.canMerge(base, origin, rowStart + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean canMerge(int base, int origin, int cell) {
+        int i = base + origin;
+        int j = base + cell;
+
+        return !this.merged[cell] &&
+                this.sprites[j] == this.sprites[i] &&
+                this.colors[j] == this.colors[i] &&
+                this.lights[j] == this.lights[i] &&
+                this.orientations[j] == this.orientations[i];
+    }
+
+    private void writeQuad(ModelVertexSink sink, Direction dir, int layer, int a, int b, int w, int h, int index) {
+        Sprite sprite = this.sprites[index];
+        int color = this.colors[index];
+        int light = this.lights[index];
+        int orientation = this.orientations[index];
+
+        int axis = dir.getAxis().ordinal();
+        float plane = layer + (dir.getDirection() == Direction.AxisDirection.POSITIVE ? 1.0f : 0.0f);
+
+        boolean uAlongB = (orientation & ORIENT_U_ALONG_B) != 0;
+        int flipU = (orientation & ORIENT_FLIP_U) != 0 ? 1 : 0;
+        int flipV = (orientation & ORIENT_FLIP_V) != 0 ? 1 : 0;
+
+        boolean tiled = w > 1 || h > 1;
+
+        sink.ensureCapacity(4);
+
+        for (int i = 0; i < 4; i++) {
+            // Walk around the corners of the quad in the same winding order as the original faces
+            int step = (orientation & ORIENT_CCW) != 0 ? i : (4 - i) & 3;
+
+            int ca = (step == 1 || step == 2) ? 1 : 0;
+            int cb = step >> 1;
+
+            float ta = a + (ca * w);
+            float tb = b + (cb * h);
+
+            float x = axis == 0 ? plane : ta;
+            float y = axis == 0 ? ta : (axis == 1 ? plane : tb);
+            float z = axis == 2 ? plane : tb;
+
+            int su = (uAlongB ? cb : ca) ^ flipU;
+            int sv = (uAlongB ? ca : cb) ^ flipV;
+
+            if (tiled) {
+                int tileU = su * (uAlongB ? h : w);
+                int tileV = sv * (uAlongB ? w : h);
+
+                sink.writeTiledQuad(x, y, z, color, sprite.getMinU(), sprite.getMinV(), light, tileU, tileV);
+            } else {
+                float u = su != 0 ? sprite.getMaxU() : sprite.getMinU();
+                float v = sv != 0 ? sprite.getMaxV() : sprite.getMinV();
+
+                sink.writeQuad(x, y, z, color, u, v, light);
+            }
+        }
+    }
+
+    private boolean isTileSized(Sprite sprite) {
+        float epsilon = this.tileWidth / (sprite.getWidth() * 2.0f);
+
+        return Math.abs((sprite.getMaxU() - sprite.getMinU()) - this.tileWidth) <= epsilon &&
+                Math.abs((sprite.getMaxV() - sprite.getMinV()) - this.tileHeight) <= epsilon;
+    }
+
+    /**
+     * Determines how the sprite is mapped onto a face, which must cover the whole side of the block with the whole
+     * sprite and map each corner of the face to a corner of the sprite without any skewing.
+     * @return The orientation bits of the face, or -1 if it cannot be merged
+     */
+    private static int getOrientation(ModelQuadView quad, Direction dir, Sprite sprite) {
+        int axis = dir.getAxis().ordinal();
+        float plane = dir.getDirection() == Direction.AxisDirection.POSITIVE ? 1.0f : 0.0f;
+
+        // Models are baked with a slight inset of their texture coordinates, so allow for up to half a texel of error
+        float epsilonU = (sprite.getMaxU() - sprite.getMinU()) / (sprite.getWidth() * 2.0f);
+        float epsilonV = (sprite.getMaxV() - sprite.getMinV()) / (sprite.getHeight() * 2.0f);
+
+        // The edge of the sprite on each axis at each corner of the face, and the corners in the order of the vertices
+        int uBits = 0;
+        int vBits = 0;
+        int corners = 0;
+        int seen = 0;
+
+        for (int i = 0; i < 4; i++) {
+            float x = quad.getX(i);
+            float y = quad.getY(i);
+            float z = quad.getZ(i);
+
+            float n = axis == 0 ? x : (axis == 1 ? y : z);
+            int a = getCorner(axis == 0 ? y : x);
+            int b = getCorner(axis == 2 ? y : z);
+
+            int su = getEdge(quad.getTexU(i), sprite.getMinU(), sprite.getMaxU(), epsilonU);
+            int sv = getEdge(quad.getTexV(i), sprite.getMinV(), sprite.getMaxV(), epsilonV);
+
+            if (Math.abs(n - plane) > POSITION_EPSILON || a < 0 || b < 0 || su < 0 || sv < 0) {
+                return -1;
+            }
+
+            int corner = (b << 1) | a;
+
+            if ((seen & (1 << corner)) != 0) {
+                return -1;
+            }
+
+            seen |= 1 << corner;
+
+            uBits |= su << corner;
+            vBits |= sv << corner;
+            corners |= corner << (i << 1);
+        }
+
+        // Each vertex must be adjacent to the next, as the quad would otherwise cross over itself
+        for (int i = 0; i < 4; i++) {
+            int from = (corners >> (i << 1)) & 3;
+            int to = (corners >> (((i + 1) & 3) << 1)) & 3;
+
+            if (Integer.bitCount(from ^ to) != 1) {
+                return -1;
+            }
+        }
+
+        int u0 = uBits & 1;
+        int v0 = vBits & 1;
+
+        boolean uAlongB = ((uBits >> 0b01) & 1) == u0;
+
+        for (int corner = 0; corner < 4; corner++) {
+            int ca = corner & 1;
+            int cb = corner >> 1;
+
+            if (((uBits >> corner) & 1) != ((uAlongB ? cb : ca) ^ u0) ||
+                    ((vBits >> corner) & 1) != ((uAlongB ? ca : cb) ^ v0)) {
+                return -1;
+            }
+        }
+
+        int orientation = 0;
+
+        if (uAlongB) {
+            orientation |= ORIENT_U_ALONG_B;
+        }
+
+        if (u0 != 0) {
+            orientation |= ORIENT_FLIP_U;
+        }
+
+        if (v0 != 0) {
+            orientation |= ORIENT_FLIP_V;
+        }
+
+        if (isCounterClockwise(corners)) {
+            orientation |= ORIENT_CCW;
+        }
+
+        return orientation;
+    }
+
+    /**
+     * @param corners The corners of the first three vertices in tangent space, packed as two bits each
+     * @return True if the vertices wind counter-clockwise in tangent space
+     */
+    private static boolean isCounterClockwise(int corners) {
+        int c0 = corners & 3, c1 = (corners >> 2) & 3, c2 = (corners >> 4) & 3;
+
+        int a0 = c0 & 1, b0 = c0 >> 1;
+        int a1 = c1 & 1, b1 = c1 >> 1;
+        int a2 = c2 & 1, b2 = c2 >> 1;
+
+        return ((a1 - a0) * (b2 - b1)) - ((b1 - b0) * (a2 - a1)) > 0;
+    }
+
+    private static int getCorner(float value) {
+        if (Math.abs(value) <= POSITION_EPSILON) {
+            return 0;
+        } else if (Math.abs(value - 1.0f) <= POSITION_EPSILON) {
+            return 1;
+        } else {
+            return -1;
+        }
+    }
+
+    private static int getEdge(float value, float min, float max, float epsilon) {
+        if (Math.abs(value - min) <= epsilon) {
+            return 0;
+        } else if (Math.abs(value - max) <= epsilon) {
+            return 1;
+        } else {
+            return -1;
+        }
+    }
+}
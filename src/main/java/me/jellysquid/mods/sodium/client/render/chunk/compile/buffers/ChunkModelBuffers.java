@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
 
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
@@ -8,4 +9,17 @@ public interface ChunkModelBuffers {
     ModelVertexSink getSink(ModelQuadFacing facing);
 
     ChunkRenderData.Builder getRenderData();
+
+    /**
+     * Records the light source of the vertex which was last written into the sink of the given facing. This must be
+     * called once for each vertex written.
+     * @param source The light source of the vertex, as described by {@link VertexLightSource}
+     */
+    void recordLightSource(ModelQuadFacing facing, int source);
+
+    /**
+     * @return The merger which the faces of full cubes can be handed to instead of being written into the sinks, or null
+     * if faces should not be merged for these buffers
+     */
+    ChunkFaceMerger getFaceMerger();
 }
@@ -29,4 +29,13 @@ public class ChunkModelVertexTransformer extends AbstractVertexTransformer<Model
 
         this.delegate.writeQuad(x, y, z, color, u, v, light);
     }
+
+    @Override
+    public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
+        x = (x * SCALE_NORM) + (this.offset.x * SCALE_NORM);
+        y = (y * SCALE_NORM) + (this.offset.y * SCALE_NORM);
+        z = (z * SCALE_NORM) + (this.offset.z * SCALE_NORM);
+
+        this.delegate.writeTiledQuad(x, y, z, color, u, v, light, tileU, tileV);
+    }
 }
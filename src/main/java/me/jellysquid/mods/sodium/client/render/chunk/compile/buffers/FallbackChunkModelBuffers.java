@@ -18,4 +18,14 @@ public class FallbackChunkModelBuffers implements ChunkModelBuffers {
     public ChunkRenderData.Builder getRenderData() {
         return null;
     }
+
+    @Override
+    public void recordLightSource(ModelQuadFacing facing, int source) {
+
+    }
+
+    @Override
+    public ChunkFaceMerger getFaceMerger() {
+        return null;
+    }
 }
@@ -3,12 +3,11 @@ package me.jellysquid.mods.sodium.client.render.chunk.cull;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
 import net.minecraft.client.render.Camera;
-import net.minecraft.client.render.chunk.ChunkOcclusionData;
 
 public interface ChunkCuller {
     IntArrayList computeVisible(Camera camera, FrustumExtended frustum, int frame, boolean spectator);
 
-    void onSectionStateChanged(int x, int y, int z, ChunkOcclusionData occlusionData);
+    void onSectionStateChanged(int x, int y, int z, int visibilityData);
     void onSectionLoaded(int x, int y, int z, int id);
     void onSectionUnloaded(int x, int y, int z);
 
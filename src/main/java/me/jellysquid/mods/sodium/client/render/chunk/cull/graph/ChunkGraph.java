@@ -0,0 +1,227 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
+
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkVisibilityData;
+import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores the nodes of the chunk graph in flat arrays which are indexed by the position of each node's chunk section.
+ * The horizontal axes wrap around, which turns the arrays into a ring buffer that is large enough to hold every section
+ * the client can have loaded at once. Finding the neighbor of a node is then simple arithmetic on its index rather than
+ * a hash table lookup or pointer dereference, and the state touched by the culling search is packed tightly in memory.
+ *
+ * Each slot remembers the position of the section it holds so that lookups can't return a section from the other side
+ * of the ring. If a section is loaded into a slot which is still occupied (which can only happen if the server sends
+ * chunks outside the client's load radius), the newer section replaces the older one.
+ */
+public class ChunkGraph {
+    /**
+     * The index returned by lookups for sections which are not loaded.
+     */
+    public static final int ABSENT = -1;
+
+    private static final int HEIGHT = 16;
+
+    private static final int[] OFFSET_X = new int[DirectionUtil.DIRECTION_COUNT];
+    private static final int[] OFFSET_Y = new int[DirectionUtil.DIRECTION_COUNT];
+    private static final int[] OFFSET_Z = new int[DirectionUtil.DIRECTION_COUNT];
+
+    static {
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            OFFSET_X[dir.ordinal()] = dir.getOffsetX();
+            OFFSET_Y[dir.ordinal()] = dir.getOffsetY();
+            OFFSET_Z[dir.ordinal()] = dir.getOffsetZ();
+        }
+    }
+
+    private final int width;
+    private final int layerSize;
+
+    // The render id of the section in each slot, or ABSENT if the slot is empty
+    private final int[] ids;
+
+    // The horizontal position of the section in each slot, its vertical position is implied by the slot's layer
+    private final int[] sectionX, sectionZ;
+
+    // The ChunkVisibilityData of the section in each slot, which always fits in 15 bits
+    private final short[] visibilityData;
+    private final int[] lastVisibleFrame;
+    private final byte[] cullingState;
+
+    // The search and the lowest edge which claimed each slot, see ChunkGraphParallelSearch
+    private final AtomicLongArray searchClaims;
+
+    public ChunkGraph(int renderDistance) {
+        // Matches the radius of the client's chunk map, plus the center chunk
+        this.width = ((Math.max(2, renderDistance) + 3) * 2) + 1;
+        this.layerSize = this.width * this.width;
+
+        int capacity = this.layerSize * HEIGHT;
+
+        this.ids = new int[capacity];
+        this.sectionX = new int[capacity];
+        this.sectionZ = new int[capacity];
+        this.visibilityData = new short[capacity];
+        this.lastVisibleFrame = new int[capacity];
+        this.cullingState = new byte[capacity];
+
+        // Searches are numbered from one, so the initial value of zero never matches a claim
+        this.searchClaims = new AtomicLongArray(capacity);
+
+        Arrays.fill(this.ids, ABSENT);
+    }
+
+    /**
+     * @return The index of the loaded section at the given position, or {@link ChunkGraph#ABSENT} if there is none
+     */
+    public int getIndex(int x, int y, int z) {
+        if (y < 0 || y >= HEIGHT) {
+            return ABSENT;
+        }
+
+        int index = this.getSlot(x, y, z);
+
+        if (this.ids[index] == ABSENT || this.sectionX[index] != x || this.sectionZ[index] != z) {
+            return ABSENT;
+        }
+
+        return index;
+    }
+
+    /**
+     * @return The index of the loaded section next to the given section in the direction with the given ordinal, or
+     * {@link ChunkGraph#ABSENT} if there is none
+     */
+    public int getAdjacentIndex(int index, int dir) {
+        return this.getIndex(this.getSectionX(index) + OFFSET_X[dir], this.getSectionY(index) + OFFSET_Y[dir],
+                this.getSectionZ(index) + OFFSET_Z[dir]);
+    }
+
+    private int getSlot(int x, int y, int z) {
+        return (y * this.layerSize) + (Math.floorMod(z, this.width) * this.width) + Math.floorMod(x, this.width);
+    }
+
+    public void addSection(int x, int y, int z, int id) {
+        if (y < 0 || y >= HEIGHT) {
+            return;
+        }
+
+        int index = this.getSlot(x, y, z);
+
+        this.ids[index] = id;
+        this.sectionX[index] = x;
+        this.sectionZ[index] = z;
+        this.visibilityData[index] = (short) ChunkVisibilityData.ALL;
+        this.lastVisibleFrame[index] = -1;
+        this.cullingState[index] = 0;
+    }
+
+    public void removeSection(int x, int y, int z) {
+        int index = this.getIndex(x, y, z);
+
+        if (index != ABSENT) {
+            this.ids[index] = ABSENT;
+        }
+    }
+
+    public int getId(int index) {
+        return this.ids[index];
+    }
+
+    public int getSectionX(int index) {
+        return this.sectionX[index];
+    }
+
+    public int getSectionY(int index) {
+        return index / this.layerSize;
+    }
+
+    public int getSectionZ(int index) {
+        return this.sectionZ[index];
+    }
+
+    public void setVisibilityData(int index, int visibilityData) {
+        this.visibilityData[index] = (short) visibilityData;
+    }
+
+    public boolean isVisibleThrough(int index, int from, int to) {
+        return ChunkVisibilityData.isVisibleThrough(this.visibilityData[index], from, to);
+    }
+
+    public int getLastVisibleFrame(int index) {
+        return this.lastVisibleFrame[index];
+    }
+
+    public void setLastVisibleFrame(int index, int frame) {
+        this.lastVisibleFrame[index] = frame;
+    }
+
+    public void setCullingState(int index, byte parent, int dir) {
+        this.cullingState[index] = (byte) (parent | (1 << dir));
+    }
+
+    public boolean canCull(int index, int dir) {
+        return (this.cullingState[index] & 1 << dir) != 0;
+    }
+
+    public byte getCullingState(int index) {
+        return this.cullingState[index];
+    }
+
+    public void resetCullingState(int index) {
+        this.cullingState[index] = 0;
+    }
+
+    /**
+     * Records that the edge with the given key reached the section during the given search. If several edges reach the
+     * section concurrently, the edge with the lowest key wins regardless of the order in which they were recorded.
+     */
+    public void claim(int index, int search, int edge) {
+        long value = packClaim(search, edge);
+        long prev;
+
+        do {
+            prev = this.searchClaims.get(index);
+
+            if ((int) (prev >>> 32) == search && (int) prev <= edge) {
+                return;
+            }
+        } while (!this.searchClaims.compareAndSet(index, prev, value));
+    }
+
+    /**
+     * @return True if the edge with the given key was the lowest edge which claimed the section in the given search
+     */
+    public boolean isClaimedBy(int index, int search, int edge) {
+        return this.searchClaims.get(index) == packClaim(search, edge);
+    }
+
+    private static long packClaim(int search, int edge) {
+        return ((long) search << 32) | (edge & 0xFFFFFFFFL);
+    }
+
+    public boolean isCulledByFrustum(int index, FrustumExtended frustum) {
+        float x = this.getSectionX(index) << 4;
+        float y = this.getSectionY(index) << 4;
+        float z = this.getSectionZ(index) << 4;
+
+        return !frustum.fastAabbTest(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
+    }
+
+    /**
+     * @return The squared distance from the center of the section to the center of the block position given by
+     * {@param pos}
+     */
+    public double getSquaredDistance(int index, BlockPos pos) {
+        double xDist = (pos.getX() + 0.5D) - ((this.getSectionX(index) << 4) + 8.0D);
+        double yDist = (pos.getY() + 0.5D) - ((this.getSectionY(index) << 4) + 8.0D);
+        double zDist = (pos.getZ() + 0.5D) - ((this.getSectionZ(index) << 4) + 8.0D);
+
+        return (xDist * xDist) + (yDist * yDist) + (zDist * zDist);
+    }
+}
@@ -1,26 +1,28 @@
 package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import me.jellysquid.mods.sodium.client.render.chunk.cull.ChunkCuller;
 import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
 import me.jellysquid.mods.sodium.common.util.DirectionUtil;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.Camera;
-import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkSectionPos;
-import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class ChunkGraphCuller implements ChunkCuller {
-    private final Long2ObjectMap<ChunkGraphNode> nodes = new Long2ObjectOpenHashMap<>();
+    private static final int[] OPPOSITE_DIRECTIONS = new int[DirectionUtil.DIRECTION_COUNT];
+
+    static {
+        for (int i = 0; i < DirectionUtil.DIRECTION_COUNT; i++) {
+            OPPOSITE_DIRECTIONS[i] = DirectionUtil.ALL_DIRECTIONS[i].getOpposite().ordinal();
+        }
+    }
+
+    private final ChunkGraph graph;
 
     private final ChunkGraphIterationQueue visible = new ChunkGraphIterationQueue();
     private final World world;
@@ -31,183 +33,203 @@ public class ChunkGraphCuller implements ChunkCuller {
 
     private int activeFrame = 0;
 
-    public ChunkGraphCuller(World world, int renderDistance) {
+    // Incremented for each search, unlike the frame index which may be shared by several searches
+    private int activeSearch = 0;
+
+    // Null if levels of the search should always be expanded on the calling thread
+    private final ChunkGraphParallelSearch parallelSearch;
+
+    public ChunkGraphCuller(World world, int renderDistance, boolean useParallelSearch) {
         this.world = world;
         this.renderDistance = renderDistance;
+        this.graph = new ChunkGraph(renderDistance);
+
+        if (useParallelSearch && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            this.parallelSearch = new ChunkGraphParallelSearch(ForkJoinPool.commonPool());
+        } else {
+            this.parallelSearch = null;
+        }
     }
 
     @Override
     public IntArrayList computeVisible(Camera camera, FrustumExtended frustum, int frame, boolean spectator) {
-        this.initSearch(camera, frustum, frame, spectator);
+        BlockPos origin = camera.getBlockPos();
+        boolean useOcclusionCulling = MinecraftClient.getInstance().chunkCullingEnabled;
 
-        ChunkGraphIterationQueue queue = this.visible;
+        if (spectator && this.world.getBlockState(origin).isOpaqueFullCube(this.world, origin)) {
+            useOcclusionCulling = false;
+        }
 
-        for (int i = 0; i < queue.size(); i++) {
-            ChunkGraphNode node = queue.getNode(i);
-            Direction flow = queue.getDirection(i);
+        return this.computeVisible(origin, frustum, frame, useOcclusionCulling);
+    }
 
-            for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
-                if (this.isCulled(node, flow, dir)) {
-                    continue;
-                }
+    /**
+     * Performs the search without depending on the client or the world, which allows it to be benchmarked on its own.
+     * @param origin The position of the camera
+     */
+    IntArrayList computeVisible(BlockPos origin, FrustumExtended frustum, int frame, boolean useOcclusionCulling) {
+        this.initSearch(origin, frustum, frame, useOcclusionCulling);
+
+        ChunkGraphIterationQueue queue = this.visible;
 
-                ChunkGraphNode adj = node.getConnectedNode(dir);
+        // The queue is expanded one level of the breadth-first search at a time, which allows large levels to be
+        // processed in parallel while producing the same order of nodes as a serial search
+        int levelStart = 0;
 
-                if (adj != null) {
-                    this.bfsEnqueue(node, adj, dir.getOpposite());
+        while (levelStart < queue.size()) {
+            int levelEnd = queue.size();
+
+            if (this.parallelSearch != null && levelEnd - levelStart >= ChunkGraphParallelSearch.MIN_PARALLEL_LEVEL_SIZE) {
+                this.parallelSearch.expandLevel(this, queue, levelStart, levelEnd);
+            } else {
+                for (int i = levelStart; i < levelEnd; i++) {
+                    this.expandNode(queue.getNode(i), queue.getDirection(i));
                 }
             }
+
+            levelStart = levelEnd;
         }
 
         return this.visible.getOrderedIdList();
     }
 
-    private boolean isCulled(ChunkGraphNode node, Direction from, Direction to) {
-        if (node.canCull(to)) {
+    private void expandNode(int node, int flow) {
+        for (int dir = 0; dir < DirectionUtil.DIRECTION_COUNT; dir++) {
+            if (this.isCulled(node, flow, dir)) {
+                continue;
+            }
+
+            int adj = this.graph.getAdjacentIndex(node, dir);
+
+            if (adj != ChunkGraph.ABSENT) {
+                this.bfsEnqueue(node, adj, OPPOSITE_DIRECTIONS[dir]);
+            }
+        }
+    }
+
+    boolean isCulled(int node, int from, int to) {
+        if (this.graph.canCull(node, to)) {
             return true;
         }
 
-        return this.useOcclusionCulling && from != null && !node.isVisibleThrough(from, to);
+        return this.useOcclusionCulling && from != ChunkGraphIterationQueue.NO_DIRECTION && !this.graph.isVisibleThrough(node, from, to);
     }
 
-    private void initSearch(Camera camera, FrustumExtended frustum, int frame, boolean spectator) {
+    private void initSearch(BlockPos origin, FrustumExtended frustum, int frame, boolean useOcclusionCulling) {
         this.activeFrame = frame;
+        this.activeSearch++;
         this.frustum = frustum;
-        this.useOcclusionCulling = MinecraftClient.getInstance().chunkCullingEnabled;
+        this.useOcclusionCulling = useOcclusionCulling;
 
         this.visible.clear();
 
-        BlockPos origin = camera.getBlockPos();
+        ChunkGraph graph = this.graph;
 
         int chunkX = origin.getX() >> 4;
         int chunkY = origin.getY() >> 4;
         int chunkZ = origin.getZ() >> 4;
 
-        ChunkGraphNode rootNode = this.getNode(chunkX, chunkY, chunkZ);
+        int rootNode = graph.getIndex(chunkX, chunkY, chunkZ);
 
-        if (rootNode != null) {
-            rootNode.resetCullingState();
-            rootNode.setLastVisibleFrame(frame);
+        if (rootNode != ChunkGraph.ABSENT) {
+            graph.resetCullingState(rootNode);
+            graph.setLastVisibleFrame(rootNode, frame);
 
-            if (spectator && this.world.getBlockState(origin).isOpaqueFullCube(this.world, origin)) {
-                this.useOcclusionCulling = false;
-            }
-
-            this.visible.add(rootNode, null);
+            this.visible.add(graph, rootNode, ChunkGraphIterationQueue.NO_DIRECTION);
         } else {
             chunkY = MathHelper.clamp(origin.getY() >> 4, 0, 15);
 
-            List<ChunkGraphNode> bestNodes = new ArrayList<>();
+            IntArrayList bestNodes = new IntArrayList();
 
             for (int x2 = -this.renderDistance; x2 <= this.renderDistance; ++x2) {
                 for (int z2 = -this.renderDistance; z2 <= this.renderDistance; ++z2) {
-                    ChunkGraphNode node = this.getNode(chunkX + x2, chunkY, chunkZ + z2);
+                    int node = graph.getIndex(chunkX + x2, chunkY, chunkZ + z2);
 
-                    if (node == null || node.isCulledByFrustum(frustum)) {
+                    if (node == ChunkGraph.ABSENT || graph.isCulledByFrustum(node, frustum)) {
                         continue;
                     }
 
-                    node.resetCullingState();
-                    node.setLastVisibleFrame(frame);
+                    graph.resetCullingState(node);
+                    graph.setLastVisibleFrame(node, frame);
 
                     bestNodes.add(node);
                 }
             }
 
-            bestNodes.sort(Comparator.comparingDouble(node -> node.getSquaredDistance(origin)));
+            IntArrays.mergeSort(bestNodes.elements(), 0, bestNodes.size(),
+                    (a, b) -> Double.compare(graph.getSquaredDistance(a, origin), graph.getSquaredDistance(b, origin)));
 
-            for (ChunkGraphNode node : bestNodes) {
-                this.visible.add(node, null);
+            for (int i = 0; i < bestNodes.size(); i++) {
+                this.visible.add(graph, bestNodes.getInt(i), ChunkGraphIterationQueue.NO_DIRECTION);
             }
         }
     }
 
 
-    private void bfsEnqueue(ChunkGraphNode parent, ChunkGraphNode node, Direction flow) {
-        if (node.getLastVisibleFrame() == this.activeFrame) {
+    private void bfsEnqueue(int parent, int node, int flow) {
+        ChunkGraph graph = this.graph;
+
+        if (graph.getLastVisibleFrame(node) == this.activeFrame) {
             return;
         }
 
-        if (node.isCulledByFrustum(this.frustum)) {
+        if (graph.isCulledByFrustum(node, this.frustum)) {
             return;
         }
 
-        node.setLastVisibleFrame(this.activeFrame);
-        node.setCullingState(parent.getCullingState(), flow);
+        graph.setLastVisibleFrame(node, this.activeFrame);
+        graph.setCullingState(node, graph.getCullingState(parent), flow);
 
-        this.visible.add(node, flow);
+        this.visible.add(graph, node, flow);
     }
 
-    private void connectNeighborNodes(ChunkGraphNode node) {
-        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
-            ChunkGraphNode adj = this.findAdjacentNode(node, dir);
-
-            if (adj != null) {
-                adj.setAdjacentNode(dir.getOpposite(), node);
-            }
-
-            node.setAdjacentNode(dir, adj);
-        }
+    ChunkGraph getGraph() {
+        return this.graph;
     }
 
-    private void disconnectNeighborNodes(ChunkGraphNode node) {
-        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
-            ChunkGraphNode adj = node.getConnectedNode(dir);
-
-            if (adj != null) {
-                adj.setAdjacentNode(dir.getOpposite(), null);
-            }
+    int getActiveFrame() {
+        return this.activeFrame;
+    }
 
-            node.setAdjacentNode(dir, null);
-        }
+    int getActiveSearch() {
+        return this.activeSearch;
     }
 
-    private ChunkGraphNode findAdjacentNode(ChunkGraphNode node, Direction dir) {
-        return this.getNode(node.getChunkX() + dir.getOffsetX(), node.getChunkY() + dir.getOffsetY(), node.getChunkZ() + dir.getOffsetZ());
+    FrustumExtended getFrustum() {
+        return this.frustum;
     }
 
-    private ChunkGraphNode getNode(int x, int y, int z) {
-        return this.nodes.get(ChunkSectionPos.asLong(x, y, z));
+    static int getOppositeDirection(int dir) {
+        return OPPOSITE_DIRECTIONS[dir];
     }
 
     @Override
-    public void onSectionStateChanged(int x, int y, int z, ChunkOcclusionData occlusionData) {
-        ChunkGraphNode node = this.getNode(x, y, z);
+    public void onSectionStateChanged(int x, int y, int z, int visibilityData) {
+        int node = this.graph.getIndex(x, y, z);
 
-        if (node != null) {
-            node.setOcclusionData(occlusionData);
+        if (node != ChunkGraph.ABSENT) {
+            this.graph.setVisibilityData(node, visibilityData);
         }
     }
 
     @Override
     public void onSectionLoaded(int x, int y, int z, int id) {
-        ChunkGraphNode node = new ChunkGraphNode(x, y, z, id);
-        ChunkGraphNode prev;
-
-        if ((prev = this.nodes.put(ChunkSectionPos.asLong(x, y, z), node)) != null) {
-            this.disconnectNeighborNodes(prev);
-        }
-
-        this.connectNeighborNodes(node);
+        this.graph.addSection(x, y, z, id);
     }
 
     @Override
     public void onSectionUnloaded(int x, int y, int z) {
-        ChunkGraphNode node = this.nodes.remove(ChunkSectionPos.asLong(x, y, z));
-
-        if (node != null) {
-            this.disconnectNeighborNodes(node);
-        }
+        this.graph.removeSection(x, y, z);
     }
 
     @Override
     public boolean isSectionVisible(int x, int y, int z) {
-        ChunkGraphNode render = this.getNode(x, y, z);
+        int node = this.graph.getIndex(x, y, z);
 
-        if (render == null) {
+        if (node == ChunkGraph.ABSENT) {
             return false;
         }
 
-        return render.getLastVisibleFrame() == this.activeFrame;
+        return this.graph.getLastVisibleFrame(node) == this.activeFrame;
     }
 }
@@ -1,14 +1,18 @@
 package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
-import net.minecraft.util.math.Direction;
 
 import java.util.Arrays;
 
 public class ChunkGraphIterationQueue {
+    /**
+     * The direction of entries which were not reached through a neighbor, such as the starting nodes of a search.
+     */
+    public static final int NO_DIRECTION = -1;
+
     private int[] positions;
-    private ChunkGraphNode[] nodes;
-    private Direction[] directions;
+    private int[] nodes;
+    private byte[] directions;
 
     private int pos;
     private int capacity;
@@ -19,22 +23,43 @@ public class ChunkGraphIterationQueue {
 
     public ChunkGraphIterationQueue(int capacity) {
         this.positions = new int[capacity];
-        this.nodes = new ChunkGraphNode[capacity];
-        this.directions = new Direction[capacity];
+        this.nodes = new int[capacity];
+        this.directions = new byte[capacity];
 
         this.capacity = capacity;
     }
 
-    public void add(ChunkGraphNode node, Direction direction) {
+    public void add(ChunkGraph graph, int node, int direction) {
         int i = this.pos++;
 
         if (i == this.capacity) {
             this.resize();
         }
 
-        this.positions[i] = node.getId();
+        this.set(i, graph, node, direction);
+    }
+
+    /**
+     * Appends the given number of empty entries to the queue, which must then be filled using
+     * {@link ChunkGraphIterationQueue#set(int, ChunkGraph, int, int)}. Different entries can be filled concurrently.
+     * @return The index of the first appended entry
+     */
+    public int reserve(int count) {
+        int start = this.pos;
+
+        this.pos += count;
+
+        while (this.pos > this.capacity) {
+            this.resize();
+        }
+
+        return start;
+    }
+
+    public void set(int i, ChunkGraph graph, int node, int direction) {
+        this.positions[i] = graph.getId(node);
         this.nodes[i] = node;
-        this.directions[i] = direction;
+        this.directions[i] = (byte) direction;
     }
 
     private void resize() {
@@ -45,11 +70,17 @@ public class ChunkGraphIterationQueue {
         this.directions = Arrays.copyOf(this.directions, this.capacity);
     }
 
-    public ChunkGraphNode getNode(int i) {
+    /**
+     * @return The index of the node in the chunk graph
+     */
+    public int getNode(int i) {
         return this.nodes[i];
     }
 
-    public Direction getDirection(int i) {
+    /**
+     * @return The ordinal of the direction the node was entered from, or {@link ChunkGraphIterationQueue#NO_DIRECTION}
+     */
+    public int getDirection(int i) {
         return this.directions[i];
     }
 
@@ -0,0 +1,186 @@
+package me.jellysquid.mods.sodium.client.render.chunk.cull.graph;
+
+import me.jellysquid.mods.sodium.client.util.math.FrustumExtended;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Expands single levels of the breadth-first search performed by {@link ChunkGraphCuller} across the threads of a
+ * fork-join pool. The result is identical to that of the serial search, including the order of nodes in the queue.
+ *
+ * Every edge leaving a node of the level is identified by the index of its node within the level and the index of its
+ * direction, which is exactly the order in which the serial search would visit the edges. A level is expanded in three
+ * passes:
+ *
+ * 1. Each edge which passes the culling tests claims the node it leads to. Nodes which are reached by several edges
+ *    keep the claim of the lowest edge, which is the edge the serial search would have enqueued the node from.
+ * 2. Each range of nodes counts the edges which won their claim, after which the ranges are assigned their offsets in
+ *    the queue.
+ * 3. Each range of nodes writes the nodes reached by its winning edges into the queue in edge order and updates their
+ *    search state.
+ */
+class ChunkGraphParallelSearch {
+    /**
+     * Levels with fewer nodes than this are expanded serially, as the overhead of forking tasks would exceed the gains.
+     */
+    static final int MIN_PARALLEL_LEVEL_SIZE = 1024;
+
+    // The number of nodes of a level which are processed by each task
+    private static final int NODES_PER_TASK = 256;
+
+    private static final int DIRECTION_COUNT = DirectionUtil.DIRECTION_COUNT;
+
+    private final ForkJoinPool pool;
+
+    // The node reached by each edge of the current level, or ABSENT if the edge is culled or lost its claim
+    private int[] edges = new int[0];
+
+    // The number of winning edges of each range of nodes, and then the queue index each range writes its nodes to
+    private int[] offsets = new int[0];
+
+    ChunkGraphParallelSearch(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Expands the nodes of the queue in the range [start, end), which must be exactly one level of the search, and
+     * appends the nodes of the next level to the queue.
+     */
+    void expandLevel(ChunkGraphCuller culler, ChunkGraphIterationQueue queue, int start, int end) {
+        int count = end - start;
+        int ranges = (count + NODES_PER_TASK - 1) / NODES_PER_TASK;
+
+        if (this.edges.length < count * DIRECTION_COUNT) {
+            this.edges = new int[count * DIRECTION_COUNT];
+        }
+
+        if (this.offsets.length < ranges) {
+            this.offsets = new int[ranges];
+        }
+
+        int frame = culler.getActiveFrame();
+        int search = culler.getActiveSearch();
+        FrustumExtended frustum = culler.getFrustum();
+
+        ChunkGraph graph = culler.getGraph();
+
+        int[] edges = this.edges;
+        int[] offsets = this.offsets;
+
+        this.forEachRange(ranges, range -> {
+            int last = Math.min(count, (range + 1) * NODES_PER_TASK);
+
+            for (int i = range * NODES_PER_TASK; i < last; i++) {
+                int node = queue.getNode(start + i);
+                int flow = queue.getDirection(start + i);
+
+                for (int dir = 0; dir < DIRECTION_COUNT; dir++) {
+                    int edge = (i * DIRECTION_COUNT) + dir;
+                    edges[edge] = ChunkGraph.ABSENT;
+
+                    if (culler.isCulled(node, flow, dir)) {
+                        continue;
+                    }
+
+                    int adj = graph.getAdjacentIndex(node, dir);
+
+                    if (adj == ChunkGraph.ABSENT || graph.getLastVisibleFrame(adj) == frame || graph.isCulledByFrustum(adj, frustum)) {
+                        continue;
+                    }
+
+                    graph.claim(adj, search, edge);
+                    edges[edge] = adj;
+                }
+            }
+        });
+
+        this.forEachRange(ranges, range -> {
+            int last = Math.min(count, (range + 1) * NODES_PER_TASK) * DIRECTION_COUNT;
+            int winners = 0;
+
+            for (int edge = range * NODES_PER_TASK * DIRECTION_COUNT; edge < last; edge++) {
+                int adj = edges[edge];
+
+                if (adj == ChunkGraph.ABSENT) {
+                    continue;
+                }
+
+                if (graph.isClaimedBy(adj, search, edge)) {
+                    winners++;
+                } else {
+                    edges[edge] = ChunkGraph.ABSENT;
+                }
+            }
+
+            offsets[range] = winners;
+        });
+
+        int total = 0;
+
+        for (int range = 0; range < ranges; range++) {
+            int winners = offsets[range];
+            offsets[range] = total;
+
+            total += winners;
+        }
+
+        int base = queue.reserve(total);
+
+        this.forEachRange(ranges, range -> {
+            int last = Math.min(count, (range + 1) * NODES_PER_TASK) * DIRECTION_COUNT;
+            int index = base + offsets[range];
+
+            for (int edge = range * NODES_PER_TASK * DIRECTION_COUNT; edge < last; edge++) {
+                int adj = edges[edge];
+
+                if (adj == ChunkGraph.ABSENT) {
+                    continue;
+                }
+
+                int parent = queue.getNode(start + (edge / DIRECTION_COUNT));
+                int flow = ChunkGraphCuller.getOppositeDirection(edge % DIRECTION_COUNT);
+
+                graph.setLastVisibleFrame(adj, frame);
+                graph.setCullingState(adj, graph.getCullingState(parent), flow);
+
+                queue.set(index++, graph, adj, flow);
+            }
+        });
+    }
+
+    private void forEachRange(int ranges, RangeConsumer consumer) {
+        this.pool.invoke(new RangeAction(consumer, 0, ranges));
+    }
+
+    private interface RangeConsumer {
+        void accept(int range);
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private final RangeConsumer consumer;
+        private final int from, to;
+
+        private RangeAction(RangeConsumer consumer, int from, int to) {
+            this.consumer = consumer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= 1) {
+                if (this.from < this.to) {
+                    this.consumer.accept(this.from);
+                }
+
+                return;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+
+            invokeAll(new RangeAction(this.consumer, this.from, mid), new RangeAction(this.consumer, mid, this.to));
+        }
+    }
+}
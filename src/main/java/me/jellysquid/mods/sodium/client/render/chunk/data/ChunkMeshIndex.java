@@ -0,0 +1,212 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Retains the vertex data of a chunk section's meshes on the CPU alongside the range of vertices emitted by each block.
+ * This allows a later build to re-render only the handful of blocks which changed and splice their new geometry into
+ * the existing meshes instead of rebuilding the whole section.
+ *
+ * The light source of each vertex is retained as well, so that a build caused by a change in light values alone can
+ * re-compute the light of the existing vertices in place rather than rendering their blocks again.
+ *
+ * Instances are immutable after construction and can be safely shared between the main thread and worker threads.
+ */
+public class ChunkMeshIndex {
+    /**
+     * The number of words in a bit-set which holds one bit for every block index of a chunk section.
+     */
+    public static final int BLOCK_SET_LENGTH = 16 * 16 * 16 / 64;
+
+    private final Pass[] passes;
+
+    public ChunkMeshIndex(Pass[] passes) {
+        if (passes.length != BlockRenderPass.COUNT) {
+            throw new IllegalArgumentException("Expected one entry for each render pass");
+        }
+
+        this.passes = passes;
+    }
+
+    /**
+     * @return The index of the given render pass, or null if the pass has no geometry
+     */
+    public Pass getPass(BlockRenderPass pass) {
+        return this.passes[pass.ordinal()];
+    }
+
+    /**
+     * Adds every block which emitted geometry in any render pass to the given bounds builder.
+     */
+    public void addBlocksToBounds(ChunkRenderBounds.Builder bounds) {
+        for (Pass pass : this.passes) {
+            if (pass == null) {
+                continue;
+            }
+
+            for (short[] blocks : pass.blocks) {
+                if (blocks == null) {
+                    continue;
+                }
+
+                for (short block : blocks) {
+                    bounds.addBlock(unpackX(block), unpackY(block), unpackZ(block));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks every block which has at least one vertex whose light can't be re-computed from its light source in the
+     * given bit-set. These blocks must be rendered again when the light of the chunk changes.
+     */
+    public void markBlocksWithoutLightSources(long[] bits) {
+        for (Pass pass : this.passes) {
+            if (pass == null) {
+                continue;
+            }
+
+            for (int facingId = 0; facingId < pass.blocks.length; facingId++) {
+                short[] blocks = pass.blocks[facingId];
+
+                if (blocks == null) {
+                    continue;
+                }
+
+                int[] offsets = pass.offsets[facingId];
+                byte[] sources = pass.lightSources[facingId];
+
+                for (int i = 0; i < blocks.length; i++) {
+                    int start = offsets[i] / pass.stride;
+                    int end = (i + 1 < blocks.length ? offsets[i + 1] : pass.slices[facingId].len) / pass.stride;
+
+                    for (int j = start; j < end; j++) {
+                        if (VertexLightSource.getMode(sources[j]) == VertexLightSource.NONE) {
+                            addToBlockSet(bits, blocks[i]);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs the position of a block relative to its chunk section's origin into a block index. This matches the order
+     * in which blocks are visited by the chunk build tasks (y, then z, then x), which is required for the tables of each
+     * facing to remain sorted.
+     */
+    public static int packIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+
+    public static int unpackX(int index) {
+        return index & 15;
+    }
+
+    public static int unpackY(int index) {
+        return (index >> 8) & 15;
+    }
+
+    public static int unpackZ(int index) {
+        return (index >> 4) & 15;
+    }
+
+    /**
+     * Creates a bit-set of block indices, as used to describe the blocks re-rendered by a build, from the given list.
+     */
+    public static long[] createBlockSet(IntList blocks) {
+        long[] bits = new long[BLOCK_SET_LENGTH];
+
+        for (int i = 0; i < blocks.size(); i++) {
+            addToBlockSet(bits, blocks.getInt(i));
+        }
+
+        return bits;
+    }
+
+    /**
+     * @return The block indices contained in the given bit-set, in ascending order
+     */
+    public static IntArrayList getBlockSetEntries(long[] bits) {
+        IntArrayList blocks = new IntArrayList();
+
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+
+            while (word != 0L) {
+                blocks.add((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1L;
+            }
+        }
+
+        return blocks;
+    }
+
+    public static void addToBlockSet(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    public static boolean isInBlockSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    /**
+     * The retained vertex data of a single render pass. For each facing, the blocks which emitted geometry are stored in
+     * ascending order together with the byte offset (relative to the start of the facing's slice) of their first vertex.
+     * The vertices of a block end where the next block's vertices begin, or at the end of the slice.
+     *
+     * The light source of each vertex in a facing's slice is stored in the same order as the vertices themselves.
+     */
+    public static class Pass {
+        private final ByteBuffer vertexData;
+        private final int stride;
+        private final BufferSlice[] slices;
+        private final short[][] blocks;
+        private final int[][] offsets;
+        private final byte[][] lightSources;
+
+        public Pass(ByteBuffer vertexData, int stride, BufferSlice[] slices, short[][] blocks, int[][] offsets, byte[][] lightSources) {
+            this.vertexData = vertexData;
+            this.stride = stride;
+            this.slices = slices;
+            this.blocks = blocks;
+            this.offsets = offsets;
+            this.lightSources = lightSources;
+        }
+
+        /**
+         * @return The slice of vertex data belonging to the given facing, or null if it has no geometry
+         */
+        public BufferSlice getSlice(ModelQuadFacing facing) {
+            return this.slices[facing.ordinal()];
+        }
+
+        public short[] getBlocks(ModelQuadFacing facing) {
+            return this.blocks[facing.ordinal()];
+        }
+
+        public int[] getOffsets(ModelQuadFacing facing) {
+            return this.offsets[facing.ordinal()];
+        }
+
+        public byte[] getLightSources(ModelQuadFacing facing) {
+            return this.lightSources[facing.ordinal()];
+        }
+
+        /**
+         * Returns a read-only view of the retained vertex data. Each caller receives its own view so that concurrent
+         * readers do not interfere with each other's position and limit.
+         */
+        public ByteBuffer getVertexData() {
+            return this.vertexData.asReadOnlyBuffer();
+        }
+    }
+}
@@ -6,9 +6,7 @@ import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import net.minecraft.block.entity.BlockEntity;
-import net.minecraft.client.render.chunk.ChunkOcclusionData;
 import net.minecraft.client.texture.Sprite;
-import net.minecraft.util.math.Direction;
 
 import java.util.*;
 
@@ -26,8 +24,9 @@ public class ChunkRenderData {
 
     private EnumMap<BlockRenderPass, ChunkMeshData> meshes;
 
-    private ChunkOcclusionData occlusionData;
+    private int visibilityData;
     private ChunkRenderBounds bounds;
+    private ChunkMeshIndex meshIndex;
 
     private List<Sprite> animatedSprites;
 
@@ -46,8 +45,11 @@ public class ChunkRenderData {
         return this.bounds;
     }
 
-    public ChunkOcclusionData getOcclusionData() {
-        return this.occlusionData;
+    /**
+     * @return The {@link ChunkVisibilityData} of the chunk
+     */
+    public int getVisibilityData() {
+        return this.visibilityData;
     }
 
     public List<Sprite> getAnimatedSprites() {
@@ -76,6 +78,14 @@ public class ChunkRenderData {
         return this.meshes.get(pass);
     }
 
+    /**
+     * The retained mesh index used for incremental rebuilds, or null if this data can only be replaced by a full
+     * rebuild.
+     */
+    public ChunkMeshIndex getMeshIndex() {
+        return this.meshIndex;
+    }
+
     public int getMeshSize() {
         return this.meshByteSize;
     }
@@ -91,8 +101,9 @@ public class ChunkRenderData {
 
         private final EnumMap<BlockRenderPass, ChunkMeshData> meshes = new EnumMap<>(BlockRenderPass.class);
 
-        private ChunkOcclusionData occlusionData;
+        private int visibilityData = ChunkVisibilityData.ALL;
         private ChunkRenderBounds bounds = ChunkRenderBounds.ALWAYS_FALSE;
+        private ChunkMeshIndex meshIndex;
 
         public Builder() {
             for (BlockRenderPass pass : BlockRenderPass.VALUES) {
@@ -104,8 +115,12 @@ public class ChunkRenderData {
             this.bounds = bounds;
         }
 
-        public void setOcclusionData(ChunkOcclusionData data) {
-            this.occlusionData = data;
+        public void setVisibilityData(int data) {
+            this.visibilityData = data;
+        }
+
+        public void setMeshIndex(ChunkMeshIndex meshIndex) {
+            this.meshIndex = meshIndex;
         }
 
         /**
@@ -136,9 +151,10 @@ public class ChunkRenderData {
             ChunkRenderData data = new ChunkRenderData();
             data.globalBlockEntities = this.globalBlockEntities;
             data.blockEntities = this.blockEntities;
-            data.occlusionData = this.occlusionData;
+            data.visibilityData = this.visibilityData;
             data.meshes = this.meshes;
             data.bounds = this.bounds;
+            data.meshIndex = this.meshIndex;
             data.animatedSprites = new ObjectArrayList<>(this.animatedSprites);
 
             int facesWithData = 0;
@@ -161,11 +177,8 @@ public class ChunkRenderData {
     }
 
     private static ChunkRenderData createEmptyData() {
-        ChunkOcclusionData occlusionData = new ChunkOcclusionData();
-        occlusionData.addOpenEdgeFaces(EnumSet.allOf(Direction.class));
-
         ChunkRenderData.Builder meshInfo = new ChunkRenderData.Builder();
-        meshInfo.setOcclusionData(occlusionData);
+        meshInfo.setVisibilityData(ChunkVisibilityData.ALL);
 
         return meshInfo.build();
     }
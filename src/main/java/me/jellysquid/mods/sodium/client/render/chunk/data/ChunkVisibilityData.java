@@ -0,0 +1,74 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+
+/**
+ * Describes which faces of a chunk section can see each other through the blocks inside it, which is used by the chunk
+ * graph to cull sections that are hidden behind others. This replaces the bitset of vanilla's chunk occlusion data with
+ * a primitive mask, where each of the 15 bits records whether one unordered pair of distinct faces is connected.
+ *
+ * Whether a face can see itself is not stored. The chunk graph never leaves a section through the face it entered from,
+ * so such a query is always reported as visible as long as any pair of faces is.
+ */
+public class ChunkVisibilityData {
+    /** No faces of the section can see each other **/
+    public static final int NONE = 0;
+
+    /** All faces of the section can see each other **/
+    public static final int ALL = (1 << 15) - 1;
+
+    private static final int DIRECTION_COUNT = DirectionUtil.DIRECTION_COUNT;
+
+    // The mask of each ordered pair of faces, indexed by (from * DIRECTION_COUNT) + to
+    private static final int[] PAIR_MASKS = new int[DIRECTION_COUNT * DIRECTION_COUNT];
+
+    // The pairs connected by a region touching each set of faces, indexed by a bitmask of face ordinals
+    private static final int[] FACE_SET_MASKS = new int[1 << DIRECTION_COUNT];
+
+    static {
+        int bit = 0;
+
+        for (int a = 0; a < DIRECTION_COUNT; a++) {
+            PAIR_MASKS[(a * DIRECTION_COUNT) + a] = ALL;
+
+            for (int b = a + 1; b < DIRECTION_COUNT; b++) {
+                int mask = 1 << bit++;
+
+                PAIR_MASKS[(a * DIRECTION_COUNT) + b] = mask;
+                PAIR_MASKS[(b * DIRECTION_COUNT) + a] = mask;
+            }
+        }
+
+        for (int faces = 0; faces < FACE_SET_MASKS.length; faces++) {
+            int mask = 0;
+
+            for (int a = 0; a < DIRECTION_COUNT; a++) {
+                for (int b = a + 1; b < DIRECTION_COUNT; b++) {
+                    if ((faces & (1 << a)) != 0 && (faces & (1 << b)) != 0) {
+                        mask |= PAIR_MASKS[(a * DIRECTION_COUNT) + b];
+                    }
+                }
+            }
+
+            FACE_SET_MASKS[faces] = mask;
+        }
+    }
+
+    /**
+     * @param faces A bitmask of the ordinals of the faces touched by a connected region of open blocks
+     * @return The visibility data in which each pair of the given faces can see each other
+     */
+    public static int fromFaces(int faces) {
+        return FACE_SET_MASKS[faces];
+    }
+
+    /**
+     * @param data The visibility data of a section
+     * @param from The ordinal of the face which the section is entered through
+     * @param to The ordinal of the face which the section is left through
+     * @return True if the faces can see each other through the section
+     */
+    public static boolean isVisibleThrough(int data, int from, int to) {
+        return (data & PAIR_MASKS[(from * DIRECTION_COUNT) + to]) != 0;
+    }
+}
@@ -3,6 +3,11 @@ package me.jellysquid.mods.sodium.client.render.chunk.format;
 import me.jellysquid.mods.sodium.client.model.vertex.VertexSink;
 
 public interface ModelVertexSink extends VertexSink {
+    /**
+     * The tile coordinate written for vertices of quads which are not tiled, which is larger than any merged quad.
+     */
+    int NO_TILE = 255;
+
     /**
      * Writes a quad vertex to this sink.
      * @param x The x-position of the vertex
@@ -14,4 +19,14 @@ public interface ModelVertexSink extends VertexSink {
      * @param light The packed light-map coordinates of the vertex
      */
     void writeQuad(float x, float y, float z, int color, float u, float v, int light);
+
+    /**
+     * Writes a quad vertex to this sink whose texture repeats once for every block covered by the quad, as used by
+     * faces merged with {@link me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkFaceMerger}.
+     * @param u The u-texture of the sprite's origin, which must be the same for all vertices of the quad
+     * @param v The v-texture of the sprite's origin, which must be the same for all vertices of the quad
+     * @param tileU The number of times the sprite has repeated along the u-axis at this vertex
+     * @param tileV The number of times the sprite has repeated along the v-axis at this vertex
+     */
+    void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV);
 }
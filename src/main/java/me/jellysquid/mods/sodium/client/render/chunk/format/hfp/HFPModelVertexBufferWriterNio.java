@@ -15,6 +15,11 @@ public class HFPModelVertexBufferWriterNio extends VertexBufferWriterNio impleme
 
     @Override
     public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+        this.writeTiledQuad(x, y, z, color, u, v, light, NO_TILE, NO_TILE);
+    }
+
+    @Override
+    public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
         this.writeQuadInternal(
                 ModelVertexUtil.denormalizeFloatAsShort(x),
                 ModelVertexUtil.denormalizeFloatAsShort(y),
@@ -22,17 +27,21 @@ public class HFPModelVertexBufferWriterNio extends VertexBufferWriterNio impleme
                 color,
                 ModelVertexUtil.denormalizeFloatAsShort(u),
                 ModelVertexUtil.denormalizeFloatAsShort(v),
-                ModelVertexUtil.encodeLightMapTexCoord(light)
+                ModelVertexUtil.encodeLightMapTexCoord(light),
+                (byte) tileU,
+                (byte) tileV
         );
     }
 
-    private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light) {
+    private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, byte tileU, byte tileV) {
         int i = this.writeOffset;
 
         ByteBuffer buffer = this.byteBuffer;
         buffer.putShort(i, x);
         buffer.putShort(i + 2, y);
         buffer.putShort(i + 4, z);
+        buffer.put(i + 6, tileU);
+        buffer.put(i + 7, tileV);
         buffer.putInt(i + 8, color);
         buffer.putShort(i + 12, u);
         buffer.putShort(i + 14, v);
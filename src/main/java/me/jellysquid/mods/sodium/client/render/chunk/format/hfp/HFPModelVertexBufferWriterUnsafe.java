@@ -13,6 +13,11 @@ public class HFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe i
 
     @Override
     public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+        this.writeTiledQuad(x, y, z, color, u, v, light, NO_TILE, NO_TILE);
+    }
+
+    @Override
+    public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
         this.writeQuadInternal(
                 ModelVertexUtil.denormalizeFloatAsShort(x),
                 ModelVertexUtil.denormalizeFloatAsShort(y),
@@ -20,17 +25,21 @@ public class HFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe i
                 color,
                 ModelVertexUtil.denormalizeFloatAsShort(u),
                 ModelVertexUtil.denormalizeFloatAsShort(v),
-                ModelVertexUtil.encodeLightMapTexCoord(light)
+                ModelVertexUtil.encodeLightMapTexCoord(light),
+                (byte) tileU,
+                (byte) tileV
         );
     }
 
     @SuppressWarnings("SuspiciousNameCombination")
-    private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light) {
+    private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, byte tileU, byte tileV) {
         long i = this.writePointer;
 
         UNSAFE.putShort(i, x);
         UNSAFE.putShort(i + 2, y);
         UNSAFE.putShort(i + 4, z);
+        UNSAFE.putByte(i + 6, tileU);
+        UNSAFE.putByte(i + 7, tileV);
         UNSAFE.putInt(i + 8, color);
         UNSAFE.putShort(i + 12, u);
         UNSAFE.putShort(i + 14, v);
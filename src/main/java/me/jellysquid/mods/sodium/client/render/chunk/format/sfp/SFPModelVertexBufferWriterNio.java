@@ -14,6 +14,11 @@ public class SFPModelVertexBufferWriterNio extends VertexBufferWriterNio impleme
 
     @Override
     public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+        this.writeTiledQuad(x, y, z, color, u, v, light, NO_TILE, NO_TILE);
+    }
+
+    @Override
+    public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
         int i = this.writeOffset;
 
         ByteBuffer buffer = this.byteBuffer;
@@ -24,6 +29,8 @@ public class SFPModelVertexBufferWriterNio extends VertexBufferWriterNio impleme
         buffer.putFloat(i + 16, u);
         buffer.putFloat(i + 20, v);
         buffer.putInt(i + 24, encodeLightMapTexCoord(light));
+        buffer.put(i + 28, (byte) tileU);
+        buffer.put(i + 29, (byte) tileV);
 
         this.advance();
     }
@@ -10,9 +10,14 @@ public class SFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe i
         super(backingBuffer, DefaultModelVertexFormats.MODEL_VERTEX_SFP);
     }
 
-    @SuppressWarnings("SuspiciousNameCombination")
     @Override
     public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+        this.writeTiledQuad(x, y, z, color, u, v, light, NO_TILE, NO_TILE);
+    }
+
+    @SuppressWarnings("SuspiciousNameCombination")
+    @Override
+    public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
         long i = this.writePointer;
 
         UNSAFE.putFloat(i, x);
@@ -22,6 +27,8 @@ public class SFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe i
         UNSAFE.putFloat(i + 16, u);
         UNSAFE.putFloat(i + 20, v);
         UNSAFE.putInt(i + 24, encodeLightMapTexCoord(light));
+        UNSAFE.putByte(i + 28, (byte) tileU);
+        UNSAFE.putByte(i + 29, (byte) tileV);
 
         this.advance();
     }
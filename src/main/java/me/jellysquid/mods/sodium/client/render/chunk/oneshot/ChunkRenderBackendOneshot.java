@@ -95,7 +95,7 @@ public abstract class ChunkRenderBackendOneshot<T extends ChunkOneshotGraphicsSt
                 render.setGraphicsState(pass, state);
             }
 
-            render.setData(data);
+            render.setData(data, result.version);
         }
     }
 
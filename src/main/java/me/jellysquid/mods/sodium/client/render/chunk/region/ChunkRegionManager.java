@@ -2,6 +2,7 @@ package me.jellysquid.mods.sodium.client.render.chunk.region;
 
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import me.jellysquid.mods.sodium.client.gl.arena.GlBufferArena;
 import me.jellysquid.mods.sodium.client.gl.util.MemoryTracker;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
 import me.jellysquid.mods.sodium.client.util.MathUtil;
@@ -72,6 +73,26 @@ public class ChunkRegionManager<T extends ChunkGraphicsState> {
         }
     }
 
+    /**
+     * Compacts the buffer arenas of regions which had space freed since they were last compacted, moving at most the
+     * given number of bytes in total. Arenas which are not finished are continued on the next call.
+     */
+    public void compact(int maxBytes) {
+        int remaining = maxBytes;
+
+        for (ChunkRegion<T> region : this.regions.values()) {
+            if (remaining <= 0) {
+                break;
+            }
+
+            GlBufferArena arena = region.getBufferArena();
+
+            if (arena.isCompactionPending()) {
+                remaining -= arena.compact(remaining);
+            }
+        }
+    }
+
     public int getAllocatedRegionCount() {
         return this.regions.size();
     }
@@ -1,6 +1,8 @@
 package me.jellysquid.mods.sodium.client.render.chunk.shader;
 
 import me.jellysquid.mods.sodium.client.gl.shader.GlProgram;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkFaceMerger;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.Identifier;
 import org.lwjgl.opengl.GL11;
@@ -24,6 +26,10 @@ public abstract class ChunkProgram extends GlProgram {
     private final int uBlockTex;
     private final int uLightTex;
     private final int uDepthTex;
+    private final int uTileSize;
+
+    // The size of a tile when texturing merged faces, which only changes when resources are reloaded along with the shaders
+    private final float tileWidth, tileHeight;
 
     // The fog shader component used by this program in order to setup the appropriate GL state
     private final ChunkShaderFogComponent fogShader;
@@ -36,6 +42,11 @@ public abstract class ChunkProgram extends GlProgram {
         this.uBlockTex = this.getUniformLocation("u_BlockTex");
         this.uLightTex = this.getUniformLocation("u_LightTex");
         this.uModelScale = this.getUniformLocation("u_ModelScale");
+        this.uTileSize = this.getUniformLocation("u_TileSize");
+
+        Sprite tileSprite = ChunkFaceMerger.getTileSprite();
+        this.tileWidth = tileSprite.getMaxU() - tileSprite.getMinU();
+        this.tileHeight = tileSprite.getMaxV() - tileSprite.getMinV();
 
         int depthTex;
         try {
@@ -55,6 +66,7 @@ public abstract class ChunkProgram extends GlProgram {
             GL20.glUniform1i(this.uDepthTex, 5);
         }
         GL20.glUniform3f(this.uModelScale, MODEL_SIZE, MODEL_SIZE, MODEL_SIZE);
+        GL20.glUniform2f(this.uTileSize, this.tileWidth, this.tileHeight);
 
         this.fogShader.setup();
 
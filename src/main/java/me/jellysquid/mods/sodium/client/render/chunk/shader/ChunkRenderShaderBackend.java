@@ -59,6 +59,7 @@ public abstract class ChunkRenderShaderBackend<T extends ChunkGraphicsState, P e
                     .bindAttribute("a_Color", format.getAttribute(ChunkMeshAttribute.COLOR))
                     .bindAttribute("a_TexCoord", format.getAttribute(ChunkMeshAttribute.TEXTURE))
                     .bindAttribute("a_LightCoord", format.getAttribute(ChunkMeshAttribute.LIGHT))
+                    .bindAttribute("a_TileCoord", format.getAttribute(ChunkMeshAttribute.TILE))
                     .build((program, name) -> this.createShaderProgram(program, name, fogMode));
             if (translucent) {
                 this.translucencyPrograms.put(fogMode, prog);
@@ -37,4 +37,11 @@ public abstract class ChunkRenderBuildTask<T extends ChunkGraphicsState> {
      * resources it's still holding onto at this point.
      */
     public abstract void releaseResources();
+
+    /**
+     * Called on the main render thread if the task is dropped from the build queue before it was executed. The
+     * implementation should mark its render as needing the same update again, so that the render is rebuilt in the
+     * same way once it is scheduled again.
+     */
+    public abstract void onDropped();
 }
@@ -16,18 +16,25 @@ import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
  */
 public class ChunkRenderEmptyBuildTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
     private final ChunkRenderContainer<T> render;
+    private final int version;
 
-    public ChunkRenderEmptyBuildTask(ChunkRenderContainer<T> render) {
+    public ChunkRenderEmptyBuildTask(ChunkRenderContainer<T> render, int version) {
         this.render = render;
+        this.version = version;
     }
 
     @Override
     public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
-        return new ChunkBuildResult<>(this.render, ChunkRenderData.EMPTY);
+        return new ChunkBuildResult<>(this.render, ChunkRenderData.EMPTY, this.version);
     }
 
     @Override
     public void releaseResources() {
 
     }
+
+    @Override
+    public void onDropped() {
+        this.render.rescheduleDroppedBuild(this.version, null, false);
+    }
 }
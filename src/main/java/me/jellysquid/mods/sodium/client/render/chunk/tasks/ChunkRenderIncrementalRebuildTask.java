@@ -0,0 +1,182 @@
+package me.jellysquid.mods.sodium.client.render.chunk.tasks;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkOpacityMask;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkVisibilityBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshIndex;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
+import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
+import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Collection;
+
+/**
+ * Updates the meshes of a chunk after only a small number of blocks have changed. Rather than rendering every block in
+ * the chunk again, only the changed blocks are re-rendered and their geometry is spliced into the retained vertex data
+ * of the previous build using its {@link ChunkMeshIndex}.
+ *
+ * The occlusion data of the chunk is still computed from all blocks, as it depends on the connectivity of the whole
+ * section, but this is cheap in comparison to rendering block models.
+ *
+ * When the light around the chunk has changed, the light of every retained vertex is re-computed in place from the
+ * light source recorded for it, which avoids rendering any models at all for a chunk whose blocks are unchanged. Blocks
+ * with vertices whose light was interpolated (such as those of inset or partial faces) are rendered again instead.
+ */
+public class ChunkRenderIncrementalRebuildTask<T extends ChunkGraphicsState> extends ChunkRenderRebuildTask<T> {
+    private final ChunkRenderData previous;
+    private final long[] dirtyBlocks;
+    private final boolean relight;
+
+    public ChunkRenderIncrementalRebuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset,
+                                             int version, ChunkRenderData previous, IntList dirtyBlocks, boolean relight) {
+        super(chunkBuilder, render, slice, offset, version, true, false);
+
+        if (previous.getMeshIndex() == null) {
+            throw new IllegalArgumentException("Previous render data has no mesh index");
+        }
+
+        this.previous = previous;
+        this.dirtyBlocks = ChunkMeshIndex.createBlockSet(dirtyBlocks);
+        this.relight = relight;
+    }
+
+    @Override
+    public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
+        ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
+        ChunkRenderBounds.Builder bounds = new ChunkRenderBounds.Builder();
+
+        buffers.init(renderData, true, false);
+        this.slice.unpackBlockStates();
+        pipeline.init(this.slice, this.slice.getOrigin());
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        ChunkOpacityMask opacity = new ChunkOpacityMask();
+        opacity.init(this.slice, this.slice.getOrigin());
+
+        ChunkMeshIndex previousIndex = this.previous.getMeshIndex();
+
+        if (this.relight) {
+            previousIndex.markBlocksWithoutLightSources(this.dirtyBlocks);
+        }
+
+        int visitedBlocks = 0;
+        int hiddenBlocks = 0;
+
+        // Blocks are visited in ascending index order as required by the build buffers
+        for (int word = 0; word < this.dirtyBlocks.length; word++) {
+            if (cancellationSource.isCancelled()) {
+                return null;
+            }
+
+            long bits = this.dirtyBlocks[word];
+
+            while (bits != 0L) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int relX = ChunkMeshIndex.unpackX(index);
+                int relY = ChunkMeshIndex.unpackY(index);
+                int relZ = ChunkMeshIndex.unpackZ(index);
+
+                BlockState blockState = this.slice.getOriginBlockState(relX, relY, relZ);
+
+                if (blockState.isAir()) {
+                    continue;
+                }
+
+                int flags = BlockStateFlags.get(blockState);
+
+                if (opacity.isHidden(relX, relY, relZ)) {
+                    flags = hideBlock(flags);
+                    hiddenBlocks++;
+                }
+
+                visitedBlocks++;
+
+                if (this.renderBlock(pipeline, buffers, renderData, blockState, flags, pos, relX, relY, relZ)) {
+                    bounds.addBlock(relX, relY, relZ);
+                }
+            }
+        }
+
+        ChunkBuildBuffers.VertexRelighter relighter = null;
+
+        if (this.relight) {
+            BlockPos.Mutable lightPos = new BlockPos.Mutable();
+
+            relighter = (block, source) -> pipeline.relightVertex(lightPos.set(this.render.getOriginX() + ChunkMeshIndex.unpackX(block),
+                    this.render.getOriginY() + ChunkMeshIndex.unpackY(block), this.render.getOriginZ() + ChunkMeshIndex.unpackZ(block)), source);
+        }
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = buffers.createPatchedMesh(pass, previousIndex.getPass(pass), this.dirtyBlocks, relighter);
+
+            if (mesh != null) {
+                renderData.setMesh(pass, mesh);
+            }
+        }
+
+        ChunkMeshIndex index = buffers.createMeshIndex();
+        index.addBlocksToBounds(bounds);
+
+        this.copyBlockEntities(this.previous.getBlockEntities(), renderData, bounds, true);
+        this.copyBlockEntities(this.previous.getGlobalBlockEntities(), renderData, bounds, false);
+
+        // Sprites which are no longer used by the chunk will be kept until the next full rebuild, which only means they
+        // might be animated while not strictly necessary
+        for (Sprite sprite : this.previous.getAnimatedSprites()) {
+            renderData.addSprite(sprite);
+        }
+
+        renderData.setVisibilityData(ChunkVisibilityBuilder.build(opacity));
+        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        renderData.setMeshIndex(index);
+
+        this.chunkBuilder.getStatistics().addBuild(visitedBlocks, hiddenBlocks);
+        this.chunkBuilder.getStatistics().addModels(pipeline.getRenderedModelCount(), pipeline.getUnseededModelCount());
+
+        return new ChunkBuildResult<>(this.render, renderData.build(), this.version);
+    }
+
+    /**
+     * Carries over the block entities of the previous build which are not located at any of the re-rendered blocks.
+     */
+    private void copyBlockEntities(Collection<BlockEntity> entities, ChunkRenderData.Builder renderData, ChunkRenderBounds.Builder bounds, boolean cull) {
+        for (BlockEntity entity : entities) {
+            BlockPos pos = entity.getPos();
+
+            int relX = pos.getX() - this.render.getOriginX();
+            int relY = pos.getY() - this.render.getOriginY();
+            int relZ = pos.getZ() - this.render.getOriginZ();
+
+            int index = ChunkMeshIndex.packIndex(relX, relY, relZ);
+
+            if (ChunkMeshIndex.isInBlockSet(this.dirtyBlocks, index)) {
+                continue;
+            }
+
+            renderData.addBlockEntity(entity, cull);
+            bounds.addBlock(relX, relY, relZ);
+        }
+    }
+
+    @Override
+    public void onDropped() {
+        this.render.rescheduleDroppedBuild(this.version, ChunkMeshIndex.getBlockSetEntries(this.dirtyBlocks), this.relight);
+    }
+}
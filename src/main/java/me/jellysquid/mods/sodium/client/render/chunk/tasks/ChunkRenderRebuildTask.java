@@ -5,22 +5,23 @@ import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildBuffers;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuildResult;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkOpacityMask;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkVisibilityBuilder;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshIndex;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderBounds;
 import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderContext;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
-import net.minecraft.block.Block;
-import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.client.render.RenderLayer;
 import net.minecraft.client.render.RenderLayers;
 import net.minecraft.client.render.block.entity.BlockEntityRenderDispatcher;
 import net.minecraft.client.render.block.entity.BlockEntityRenderer;
-import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
 import net.minecraft.client.util.math.Vector3d;
 import net.minecraft.fluid.FluidState;
 import net.minecraft.util.math.BlockPos;
@@ -34,35 +35,49 @@ import net.minecraft.world.chunk.WorldChunk;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkRenderRebuildTask<T extends ChunkGraphicsState> extends ChunkRenderBuildTask<T> {
-    private final ChunkRenderContainer<T> render;
-    private final ChunkBuilder<T> chunkBuilder;
-    private final Vector3d camera;
-    private final WorldSlice slice;
-    private final BlockPos offset;
-
-    public ChunkRenderRebuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset) {
+    protected final ChunkRenderContainer<T> render;
+    protected final ChunkBuilder<T> chunkBuilder;
+    protected final Vector3d camera;
+    protected final WorldSlice slice;
+    protected final BlockPos offset;
+    protected final int version;
+    protected final boolean trackBlocks;
+    protected final boolean mergeFaces;
+
+    /**
+     * @param trackBlocks True if a {@link ChunkMeshIndex} should be produced for the built meshes so that later updates
+     *                    can be applied incrementally
+     * @param mergeFaces True if the coplanar faces of neighboring full cubes should be merged into larger quads, which
+     *                   can't be combined with block tracking
+     */
+    public ChunkRenderRebuildTask(ChunkBuilder<T> chunkBuilder, ChunkRenderContainer<T> render, WorldSlice slice, BlockPos offset, int version,
+                                  boolean trackBlocks, boolean mergeFaces) {
         this.chunkBuilder = chunkBuilder;
         this.render = render;
         this.camera = chunkBuilder.getCameraPosition();
         this.slice = slice;
         this.offset = offset;
+        this.version = version;
+        this.trackBlocks = trackBlocks;
+        this.mergeFaces = mergeFaces;
     }
 
     @Override
     public ChunkBuildResult<T> performBuild(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
         ChunkRenderData.Builder renderData = new ChunkRenderData.Builder();
-        ChunkOcclusionDataBuilder occluder = new ChunkOcclusionDataBuilder();
         ChunkRenderBounds.Builder bounds = new ChunkRenderBounds.Builder();
 
-        buffers.init(renderData);
+        buffers.init(renderData, this.trackBlocks, this.mergeFaces);
+        this.slice.unpackBlockStates();
         pipeline.init(this.slice, this.slice.getOrigin());
 
-        int baseX = this.render.getOriginX();
-        int baseY = this.render.getOriginY();
-        int baseZ = this.render.getOriginZ();
-
         BlockPos.Mutable pos = new BlockPos.Mutable();
-        BlockPos offset = this.offset;
+
+        ChunkOpacityMask opacity = new ChunkOpacityMask();
+        opacity.init(this.slice, this.slice.getOrigin());
+
+        int visitedBlocks = 0;
+        int hiddenBlocks = 0;
 
         for (int relY = 0; relY < 16; relY++) {
             if (cancellationSource.isCancelled()) {
@@ -77,71 +92,126 @@ public class ChunkRenderRebuildTask<T extends ChunkGraphicsState> extends ChunkR
                         continue;
                     }
 
-                    Block block = blockState.getBlock();
-
-                    int x = baseX + relX;
-                    int y = baseY + relY;
-                    int z = baseZ + relZ;
+                    int flags = BlockStateFlags.get(blockState);
 
-                    if (block.getRenderType(blockState) == BlockRenderType.MODEL) {
-                        buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+                    if (opacity.isHidden(relX, relY, relZ)) {
+                        flags = hideBlock(flags);
+                        hiddenBlocks++;
+                    }
 
-                        RenderLayer layer = RenderLayers.getBlockLayer(blockState);
+                    visitedBlocks++;
 
-                        if (pipeline.renderBlock(this.slice, blockState, pos.set(x, y, z), buffers.get(layer), true)) {
-                            bounds.addBlock(relX, relY, relZ);
-                        }
+                    if (this.renderBlock(pipeline, buffers, renderData, blockState, flags, pos, relX, relY, relZ)) {
+                        bounds.addBlock(relX, relY, relZ);
                     }
+                }
+            }
+        }
 
-                    FluidState fluidState = block.getFluidState(blockState);
+        buffers.flushMergedFaces(this.render.getOriginX() - this.offset.getX(), this.render.getOriginY() - this.offset.getY(),
+                this.render.getOriginZ() - this.offset.getZ());
 
-                    if (!fluidState.isEmpty()) {
-                        buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData mesh = buffers.createMesh(pass);
 
-                        RenderLayer layer = RenderLayers.getFluidLayer(fluidState);
+            if (mesh != null) {
+                renderData.setMesh(pass, mesh);
+            }
+        }
 
-                        if (pipeline.renderFluid(this.slice, fluidState, pos.set(x, y, z), buffers.get(layer))) {
-                            bounds.addBlock(relX, relY, relZ);
-                        }
-                    }
+        renderData.setVisibilityData(ChunkVisibilityBuilder.build(opacity));
+        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        renderData.setMeshIndex(buffers.createMeshIndex());
+
+        this.chunkBuilder.getStatistics().addBuild(visitedBlocks, hiddenBlocks);
+        this.chunkBuilder.getStatistics().addModels(pipeline.getRenderedModelCount(), pipeline.getUnseededModelCount());
 
-                    if (block.hasBlockEntity()) {
-                        BlockEntity entity = this.slice.getBlockEntity(pos.set(x, y, z), WorldChunk.CreationType.CHECK);
+        return new ChunkBuildResult<>(this.render, renderData.build(), this.version);
+    }
 
-                        if (entity != null) {
-                            BlockEntityRenderer<BlockEntity> renderer = BlockEntityRenderDispatcher.INSTANCE.get(entity);
+    /**
+     * Renders the block and fluid geometry of a single block into the build buffers and collects its block entity.
+     * After this method returns, {@param pos} will be set to the world position of the block.
+     * @param flags The properties of the block state, as returned by {@link BlockStateFlags#get(BlockState)}
+     * @return True if the block contributed anything which needs to be included in the render bounds
+     */
+    protected boolean renderBlock(ChunkRenderContext pipeline, ChunkBuildBuffers buffers, ChunkRenderData.Builder renderData,
+                                  BlockState blockState, int flags, BlockPos.Mutable pos, int relX, int relY, int relZ) {
+        BlockPos offset = this.offset;
 
-                            if (renderer != null) {
-                                renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+        int x = this.render.getOriginX() + relX;
+        int y = this.render.getOriginY() + relY;
+        int z = this.render.getOriginZ() + relZ;
 
-                                bounds.addBlock(relX, relY, relZ);
-                            }
-                        }
-                    }
+        boolean rendered = false;
+        boolean emitted = false;
 
-                    if (blockState.isOpaqueFullCube(this.slice, pos)) {
-                        occluder.markClosed(pos);
-                    }
-                }
+        if (BlockStateFlags.has(flags, BlockStateFlags.RENDERS_MODEL)) {
+            buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+
+            RenderLayer layer = BlockStateFlags.getBlockLayer(flags, blockState);
+
+            if (pipeline.renderBlock(this.slice, blockState, pos.set(x, y, z), buffers.get(layer), true)) {
+                rendered = true;
             }
+
+            emitted = true;
         }
 
-        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
-            ChunkMeshData mesh = buffers.createMesh(pass);
+        if (BlockStateFlags.has(flags, BlockStateFlags.HAS_FLUID)) {
+            FluidState fluidState = blockState.getFluidState();
 
-            if (mesh != null) {
-                renderData.setMesh(pass, mesh);
+            buffers.setRenderOffset(x - offset.getX(), y - offset.getY(), z - offset.getZ());
+
+            RenderLayer layer = RenderLayers.getFluidLayer(fluidState);
+
+            if (pipeline.renderFluid(this.slice, fluidState, pos.set(x, y, z), buffers.get(layer))) {
+                rendered = true;
             }
+
+            emitted = true;
         }
 
-        renderData.setOcclusionData(occluder.build());
-        renderData.setBounds(bounds.build(this.render.getChunkPos()));
+        // Any geometry written by the renderers above needs to be attributed to this block, even if they reported that
+        // nothing was rendered
+        if (emitted) {
+            buffers.trackBlock(ChunkMeshIndex.packIndex(relX, relY, relZ));
+        }
+
+        if (BlockStateFlags.has(flags, BlockStateFlags.HAS_BLOCK_ENTITY)) {
+            BlockEntity entity = this.slice.getBlockEntity(pos.set(x, y, z), WorldChunk.CreationType.CHECK);
 
-        return new ChunkBuildResult<>(this.render, renderData.build());
+            if (entity != null) {
+                BlockEntityRenderer<BlockEntity> renderer = BlockEntityRenderDispatcher.INSTANCE.get(entity);
+
+                if (renderer != null) {
+                    renderData.addBlockEntity(entity, !renderer.rendersOutsideBoundingBox(entity));
+
+                    rendered = true;
+                }
+            }
+        }
+
+        pos.set(x, y, z);
+
+        return rendered;
+    }
+
+    /**
+     * Removes the geometry of a block which is completely enclosed by opaque full cubes from its properties, as none of
+     * its faces could be seen. Its block entity is still collected, as block entities are rendered separately.
+     */
+    protected static int hideBlock(int flags) {
+        return flags & ~(BlockStateFlags.RENDERS_MODEL | BlockStateFlags.HAS_FLUID);
     }
 
     @Override
     public void releaseResources() {
         this.chunkBuilder.releaseWorldSlice(this.slice);
     }
+
+    @Override
+    public void onDropped() {
+        this.render.rescheduleDroppedBuild(this.version, null, false);
+    }
 }
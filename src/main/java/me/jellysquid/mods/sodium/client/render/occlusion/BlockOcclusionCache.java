@@ -1,8 +1,8 @@
 package me.jellysquid.mods.sodium.client.render.occlusion;
 
 import it.unimi.dsi.fastutil.objects.Object2ByteLinkedOpenHashMap;
+import me.jellysquid.mods.sodium.client.world.BlockStateFlags;
 import net.minecraft.block.BlockState;
-import net.minecraft.util.function.BooleanBiFunction;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.shape.VoxelShape;
@@ -12,8 +12,9 @@ import net.minecraft.world.BlockView;
 public class BlockOcclusionCache {
     private static final byte UNCACHED_VALUE = (byte) 127;
 
-    private final Object2ByteLinkedOpenHashMap<CachedOcclusionShapeTest> map;
-    private final CachedOcclusionShapeTest cachedTest = new CachedOcclusionShapeTest();
+    // The results for shapes which aren't cached by their block state, which can't be stored in the global table
+    private final Object2ByteLinkedOpenHashMap<ShapeOcclusionTable.ShapePair> map;
+    private final ShapeOcclusionTable.ShapePair cachedTest = new ShapeOcclusionTable.ShapePair();
     private final BlockPos.Mutable cpos = new BlockPos.Mutable();
 
     public BlockOcclusionCache() {
@@ -44,17 +45,22 @@ public class BlockOcclusionCache {
                 return false;
             }
 
-            return this.calculate(selfShape, adjShape);
+            return this.calculate(selfState, adjState, selfShape, adjShape);
         } else {
             return true;
         }
     }
 
-    private boolean calculate(VoxelShape selfShape, VoxelShape adjShape) {
-        CachedOcclusionShapeTest cache = this.cachedTest;
-        cache.a = selfShape;
-        cache.b = adjShape;
-        cache.updateHash();
+    private boolean calculate(BlockState selfState, BlockState adjState, VoxelShape selfShape, VoxelShape adjShape) {
+        // The shape cache of a state only holds its culling faces if the state is opaque and has no dynamic bounds, and
+        // the faces of all other states are created anew for each call. The neighbor is always opaque at this point.
+        if (selfState.isOpaque() && !BlockStateFlags.has(BlockStateFlags.get(selfState), BlockStateFlags.POSITION_DEPENDENT) &&
+                !BlockStateFlags.has(BlockStateFlags.get(adjState), BlockStateFlags.POSITION_DEPENDENT)) {
+            return ShapeOcclusionTable.isVisible(this.cachedTest, selfShape, adjShape);
+        }
+
+        ShapeOcclusionTable.ShapePair cache = this.cachedTest;
+        cache.set(selfShape, adjShape);
 
         byte cached = this.map.getByte(cache);
 
@@ -62,7 +68,7 @@ public class BlockOcclusionCache {
             return cached == 1;
         }
 
-        boolean ret = VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST);
+        boolean ret = ShapeOcclusionTable.calculate(selfShape, adjShape);
 
         this.map.put(cache.copy(), (byte) (ret ? 1 : 0));
 
@@ -72,47 +78,4 @@ public class BlockOcclusionCache {
 
         return ret;
     }
-
-    private static final class CachedOcclusionShapeTest {
-        private VoxelShape a, b;
-        private int hashCode;
-
-        private CachedOcclusionShapeTest() {
-
-        }
-
-        private CachedOcclusionShapeTest(VoxelShape a, VoxelShape b, int hashCode) {
-            this.a = a;
-            this.b = b;
-            this.hashCode = hashCode;
-        }
-
-        public void updateHash() {
-            int result = System.identityHashCode(this.a);
-            result = 31 * result + System.identityHashCode(this.b);
-
-            this.hashCode = result;
-        }
-
-        public CachedOcclusionShapeTest copy() {
-            return new CachedOcclusionShapeTest(this.a, this.b, this.hashCode);
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (o instanceof CachedOcclusionShapeTest) {
-                CachedOcclusionShapeTest that = (CachedOcclusionShapeTest) o;
-
-                return this.a == that.a &&
-                        this.b == that.b;
-            }
-
-            return false;
-        }
-
-        @Override
-        public int hashCode() {
-            return this.hashCode;
-        }
-    }
 }
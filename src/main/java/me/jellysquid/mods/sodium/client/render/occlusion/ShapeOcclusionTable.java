@@ -0,0 +1,123 @@
+package me.jellysquid.mods.sodium.client.render.occlusion;
+
+import net.minecraft.util.function.BooleanBiFunction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A global table of whether the culling face of a block is visible past the culling face of its neighbor, shared by
+ * all chunk build workers. The culling faces of opaque block states without dynamic bounds are created once by the
+ * state's shape cache, so there are only a limited number of distinct shapes and each pair only ever needs to be
+ * tested once.
+ *
+ * Results are never evicted, and lookups never take a lock. The culling faces of all other states (those which are not
+ * opaque, such as cauldrons and hoppers, or which have dynamic bounds) are created anew for each call and must not be
+ * added to this table, as it would grow without bounds.
+ */
+public class ShapeOcclusionTable {
+    private static final ConcurrentHashMap<ShapePair, Boolean> TABLE = new ConcurrentHashMap<>(1024);
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns whether any part of the self shape is not covered by the adjacent shape, calculating and storing the
+     * result if this pair of shapes has not been seen before.
+     * @param probe A re-usable key owned by the calling thread, which is overwritten by this call
+     */
+    static boolean isVisible(ShapePair probe, VoxelShape selfShape, VoxelShape adjShape) {
+        probe.set(selfShape, adjShape);
+
+        Boolean cached = TABLE.get(probe);
+
+        if (cached != null) {
+            hits.increment();
+
+            return cached;
+        }
+
+        misses.increment();
+
+        boolean result = calculate(selfShape, adjShape);
+
+        // Two threads may calculate the same pair at once, but they will always agree on the result
+        TABLE.putIfAbsent(probe.copy(), result);
+
+        return result;
+    }
+
+    static boolean calculate(VoxelShape selfShape, VoxelShape adjShape) {
+        return VoxelShapes.matchesAnywhere(selfShape, adjShape, BooleanBiFunction.ONLY_FIRST);
+    }
+
+    /**
+     * Drops all results. This should be called when block shapes might have been re-created, such as after resources
+     * are reloaded, so that the table does not keep the old shapes alive.
+     */
+    public static void clear() {
+        TABLE.clear();
+
+        hits.reset();
+        misses.reset();
+    }
+
+    public static String getDebugString() {
+        long hits = ShapeOcclusionTable.hits.sum();
+        long total = hits + misses.sum();
+
+        return String.format("Occlusion Shapes: %d (%d%% hits)", TABLE.size(),
+                total > 0L ? (int) Math.floor(((double) hits / (double) total) * 100.0D) : 0);
+    }
+
+    /**
+     * A pair of shapes, compared by identity.
+     */
+    static final class ShapePair {
+        private VoxelShape a, b;
+        private int hashCode;
+
+        ShapePair() {
+
+        }
+
+        private ShapePair(VoxelShape a, VoxelShape b, int hashCode) {
+            this.a = a;
+            this.b = b;
+            this.hashCode = hashCode;
+        }
+
+        void set(VoxelShape a, VoxelShape b) {
+            this.a = a;
+            this.b = b;
+
+            int result = System.identityHashCode(a);
+            result = 31 * result + System.identityHashCode(b);
+
+            this.hashCode = result;
+        }
+
+        ShapePair copy() {
+            return new ShapePair(this.a, this.b, this.hashCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof ShapePair) {
+                ShapePair that = (ShapePair) o;
+
+                return this.a == that.a &&
+                        this.b == that.b;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
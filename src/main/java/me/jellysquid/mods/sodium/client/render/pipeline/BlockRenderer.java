@@ -1,5 +1,7 @@
 package me.jellysquid.mods.sodium.client.render.pipeline;
 
+import me.jellysquid.mods.sodium.client.model.BakedModelExtended;
+import me.jellysquid.mods.sodium.client.model.BasicBakedModelExtended;
 import me.jellysquid.mods.sodium.client.model.light.LightMode;
 import me.jellysquid.mods.sodium.client.model.light.LightPipeline;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
@@ -8,8 +10,8 @@ import me.jellysquid.mods.sodium.client.model.quad.ModelQuadView;
 import me.jellysquid.mods.sodium.client.model.quad.blender.BiomeColorBlender;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
 import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadOrientation;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkFaceMerger;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuffers;
-import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
 import me.jellysquid.mods.sodium.client.render.occlusion.BlockOcclusionCache;
 import me.jellysquid.mods.sodium.client.util.color.ColorABGR;
@@ -57,10 +59,24 @@ public class BlockRenderer {
         LightPipeline lighter = this.lighters.getLighter(this.getLightingMode(state, model));
         Vec3d offset = state.getModelOffset(world, pos);
 
+        if (model instanceof BasicBakedModelExtended) {
+            BakedQuad[] faces = ((BasicBakedModelExtended) model).getCubeFaces();
+
+            if (faces != null) {
+                return this.renderCube(world, state, pos, lighter, offset, buffers, faces, cull);
+            }
+        }
+
+        ChunkFaceMerger merger = getFaceMerger(buffers, offset);
+
+        // Models which don't use the random generator don't need it to be seeded before fetching each list of quads
+        boolean seeded = BakedModelExtended.usesRandom(model);
         boolean rendered = false;
 
         for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
-            this.random.setSeed(seed);
+            if (seeded) {
+                this.random.setSeed(seed);
+            }
 
             List<BakedQuad> sided = model.getQuads(state, dir, this.random);
 
@@ -69,13 +85,21 @@ public class BlockRenderer {
             }
 
             if (!cull || this.occlusionCache.shouldDrawSide(state, world, pos, dir)) {
-                this.renderQuadList(world, state, pos, lighter, offset, buffers, sided, ModelQuadFacing.fromDirection(dir));
+                // Sides with more than one quad, such as those with an overlay, must keep the order their quads are
+                // drawn in and are never merged
+                if (merger != null && sided.size() == 1) {
+                    this.renderFace(world, state, pos, lighter, offset, buffers, merger, dir, sided.get(0));
+                } else {
+                    this.renderQuadList(world, state, pos, lighter, offset, buffers, sided, ModelQuadFacing.fromDirection(dir));
+                }
 
                 rendered = true;
             }
         }
 
-        this.random.setSeed(seed);
+        if (seeded) {
+            this.random.setSeed(seed);
+        }
 
         List<BakedQuad> all = model.getQuads(state, null, this.random);
 
@@ -88,6 +112,56 @@ public class BlockRenderer {
         return rendered;
     }
 
+    /**
+     * Renders a model which is a simple cube without fetching its quads through the model or re-seeding the random
+     * generator for each face, as neither the quads nor their order depend on them. The output is identical to that
+     * of the generic path in {@link BlockRenderer#renderModel}.
+     */
+    private boolean renderCube(BlockRenderView world, BlockState state, BlockPos pos, LightPipeline lighter, Vec3d offset,
+                               ChunkModelBuffers buffers, BakedQuad[] faces, boolean cull) {
+        ChunkFaceMerger merger = getFaceMerger(buffers, offset);
+        boolean rendered = false;
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            if (cull && !this.occlusionCache.shouldDrawSide(state, world, pos, dir)) {
+                continue;
+            }
+
+            this.renderFace(world, state, pos, lighter, offset, buffers, merger, dir, faces[dir.ordinal()]);
+
+            rendered = true;
+        }
+
+        return rendered;
+    }
+
+    /**
+     * Renders a single quad which lies on the given side of the block, or hands it to the face merger if it can be
+     * merged with the faces of neighboring blocks.
+     * @param merger The face merger, or null if the face must be rendered as usual
+     */
+    private void renderFace(BlockRenderView world, BlockState state, BlockPos pos, LightPipeline lighter, Vec3d offset,
+                            ChunkModelBuffers buffers, ChunkFaceMerger merger, Direction dir, BakedQuad quad) {
+        QuadLightData light = this.cachedQuadLightData;
+        lighter.calculate((ModelQuadView) quad, pos, light, quad.getFace(), quad.hasShade());
+
+        BlockColorProvider colorizer = quad.hasColor() ? this.blockColors.getColorProvider(state) : null;
+        int[] colors = this.getColors(world, state, pos, colorizer, quad);
+
+        if (merger != null && this.mergeFace(merger, buffers, pos, dir, quad, colors, light)) {
+            return;
+        }
+
+        ModelQuadFacing facing = ModelQuadFacing.fromDirection(dir);
+
+        ModelVertexSink sink = buffers.getSink(facing);
+        sink.ensureCapacity(4);
+
+        this.renderQuad(buffers, sink, facing, offset, quad, colors, light);
+
+        sink.flush();
+    }
+
     private void renderQuadList(BlockRenderView world, BlockState state, BlockPos pos, LightPipeline lighter, Vec3d offset,
                                 ChunkModelBuffers buffers, List<BakedQuad> quads, ModelQuadFacing facing) {
         BlockColorProvider colorizer = null;
@@ -95,8 +169,6 @@ public class BlockRenderer {
         ModelVertexSink sink = buffers.getSink(facing);
         sink.ensureCapacity(quads.size() * 4);
 
-        ChunkRenderData.Builder renderData = buffers.getRenderData();
-
         // This is a very hot allocation, iterate over it manually
         // noinspection ForLoopReplaceableByForEach
         for (int i = 0, quadsSize = quads.size(); i < quadsSize; i++) {
@@ -109,24 +181,47 @@ public class BlockRenderer {
                 colorizer = this.blockColors.getColorProvider(state);
             }
 
-            this.renderQuad(world, state, pos, sink, offset, colorizer, quad, light, renderData);
+            this.renderQuad(buffers, sink, facing, offset, quad, this.getColors(world, state, pos, colorizer, quad), light);
         }
 
         sink.flush();
     }
 
-    private void renderQuad(BlockRenderView world, BlockState state, BlockPos pos, ModelVertexSink sink, Vec3d offset,
-                            BlockColorProvider colorProvider, BakedQuad bakedQuad, QuadLightData light, ChunkRenderData.Builder renderData) {
-        ModelQuadView src = (ModelQuadView) bakedQuad;
+    /**
+     * @return The blended color of each vertex of the quad, or null if the quad is not tinted
+     */
+    private int[] getColors(BlockRenderView world, BlockState state, BlockPos pos, BlockColorProvider colorProvider, BakedQuad bakedQuad) {
+        if (!bakedQuad.hasColor()) {
+            return null;
+        }
 
-        ModelQuadOrientation order = ModelQuadOrientation.orient(light.br);
+        return this.biomeColorBlender.getColors(colorProvider, world, state, pos, (ModelQuadView) bakedQuad);
+    }
 
-        int[] colors = null;
+    /**
+     * Hands a face which lies on a side of the block to the face merger. If the merger can't take the face, it needs to
+     * be rendered as usual.
+     * @return True if the face was collected by the merger and must not be rendered
+     */
+    private boolean mergeFace(ChunkFaceMerger merger, ChunkModelBuffers buffers, BlockPos pos, Direction dir, BakedQuad bakedQuad,
+                              int[] colors, QuadLightData light) {
+        ModelQuadView src = (ModelQuadView) bakedQuad;
 
-        if (bakedQuad.hasColor()) {
-            colors = this.biomeColorBlender.getColors(colorProvider, world, state, pos, src);
+        if (!merger.add(pos, src, dir, colors, light)) {
+            return false;
         }
 
+        buffers.getRenderData().addSprite(src.getSprite());
+
+        return true;
+    }
+
+    private void renderQuad(ChunkModelBuffers buffers, ModelVertexSink sink, ModelQuadFacing facing, Vec3d offset,
+                            BakedQuad bakedQuad, int[] colors, QuadLightData light) {
+        ModelQuadView src = (ModelQuadView) bakedQuad;
+
+        ModelQuadOrientation order = ModelQuadOrientation.orient(light.br);
+
         for (int dstIndex = 0; dstIndex < 4; dstIndex++) {
             int srcIndex = order.getVertexIndex(dstIndex);
 
@@ -142,13 +237,26 @@ public class BlockRenderer {
             int lm = light.lm[srcIndex];
 
             sink.writeQuad(x, y, z, color, u, v, lm);
+            buffers.recordLightSource(facing, light.src[srcIndex]);
         }
 
         Sprite sprite = src.getSprite();
 
         if (sprite != null) {
-            renderData.addSprite(sprite);
+            buffers.getRenderData().addSprite(sprite);
+        }
+    }
+
+    /**
+     * @return The face merger of the buffers if the faces of the block lie exactly on the sides of its cell and can be
+     * merged with those of its neighbors, otherwise null
+     */
+    private static ChunkFaceMerger getFaceMerger(ChunkModelBuffers buffers, Vec3d offset) {
+        if (offset.getX() != 0.0D || offset.getY() != 0.0D || offset.getZ() != 0.0D) {
+            return null;
         }
+
+        return buffers.getFaceMerger();
     }
 
     private LightMode getLightingMode(BlockState state, BakedModel model) {
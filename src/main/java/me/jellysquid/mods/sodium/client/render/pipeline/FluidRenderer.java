@@ -395,6 +395,7 @@ public class FluidRenderer {
             int light = this.quadLightData.lm[vertexIdx];
 
             sink.writeQuad(x, y, z, color, u, v, light);
+            buffers.recordLightSource(facing, this.quadLightData.src[vertexIdx]);
 
             vertexIdx += lightOrder;
         }
@@ -1,7 +1,9 @@
 package me.jellysquid.mods.sodium.client.render.pipeline.context;
 
+import me.jellysquid.mods.sodium.client.model.BakedModelExtended;
 import me.jellysquid.mods.sodium.client.model.light.LightPipelineProvider;
 import me.jellysquid.mods.sodium.client.model.light.cache.ArrayLightDataCache;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
 import me.jellysquid.mods.sodium.client.model.quad.blender.BiomeColorBlender;
 import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuffers;
 import me.jellysquid.mods.sodium.client.render.pipeline.BlockRenderer;
@@ -18,27 +20,40 @@ import net.minecraft.world.BlockRenderView;
 
 public class ChunkRenderContext {
     private final ArrayLightDataCache lightDataCache;
+    private final LightPipelineProvider lightPipelineProvider;
 
     private final BlockRenderer blockRenderer;
     private final FluidRenderer fluidRenderer;
 
     private final BlockModels models;
 
+    // The number of models rendered since the last call to #init, and how many of those didn't need a random seed
+    private int renderedModels;
+    private int unseededModels;
+
     public ChunkRenderContext(MinecraftClient client) {
         this.lightDataCache = new ArrayLightDataCache();
 
-        LightPipelineProvider lightPipelineProvider = new LightPipelineProvider(this.lightDataCache);
+        this.lightPipelineProvider = new LightPipelineProvider(this.lightDataCache);
         BiomeColorBlender biomeColorBlender = RenderContextCommon.createBiomeColorBlender();
 
-        this.blockRenderer = new BlockRenderer(client, lightPipelineProvider, biomeColorBlender);
-        this.fluidRenderer = new FluidRenderer(client, lightPipelineProvider, biomeColorBlender);
+        this.blockRenderer = new BlockRenderer(client, this.lightPipelineProvider, biomeColorBlender);
+        this.fluidRenderer = new FluidRenderer(client, this.lightPipelineProvider, biomeColorBlender);
 
         this.models = client.getBakedModelManager().getBlockModels();
     }
 
     public boolean renderBlock(BlockRenderView world, BlockState state, BlockPos pos, ChunkModelBuffers buffers, boolean cull) {
         BakedModel model = this.models.getModel(state);
-        long seed = state.getRenderingSeed(pos);
+        long seed = 0L;
+
+        if (BakedModelExtended.usesRandom(model)) {
+            seed = state.getRenderingSeed(pos);
+        } else {
+            this.unseededModels++;
+        }
+
+        this.renderedModels++;
 
         return this.blockRenderer.renderModel(world, state, pos, model, buffers, cull, seed);
     }
@@ -47,7 +62,29 @@ public class ChunkRenderContext {
         return this.fluidRenderer.render(world, fluidState, pos, buffers);
     }
 
+    /**
+     * Re-computes the light of a vertex which was previously rendered at the given position.
+     * @param source The light source of the vertex, as described by {@link VertexLightSource}
+     * @return The light map texture coordinates of the vertex
+     */
+    public int relightVertex(BlockPos pos, int source) {
+        return this.lightPipelineProvider.getLighter(VertexLightSource.getLightMode(source))
+                .relight(pos, source);
+    }
+
     public void init(BlockRenderView world, ChunkSectionPos pos) {
         this.lightDataCache.init(world, pos);
+        this.lightPipelineProvider.reset();
+
+        this.renderedModels = 0;
+        this.unseededModels = 0;
+    }
+
+    public int getRenderedModelCount() {
+        return this.renderedModels;
+    }
+
+    public int getUnseededModelCount() {
+        return this.unseededModels;
     }
 }
@@ -0,0 +1,165 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import net.minecraft.util.collection.PackedIntegerArray;
+
+/**
+ * Bulk decoding of {@link PackedIntegerArray}s. Calling {@link PackedIntegerArray#get(int)} for each element needs to
+ * find the word and bit offset of every element again, while these functions walk the storage one word at a time and
+ * extract all the elements packed into it. Elements never span two words, so each word holds {@code 64 / bits}
+ * elements in ascending order starting from the least significant bits.
+ *
+ * The element widths used by block state palettes in chunk sections (4, 5, 6 and 8 bits) have their own specialized
+ * loops with constant shifts and element counts, which the JIT can unroll.
+ */
+public class PackedIntegerArrayUtil {
+    /**
+     * Decodes all elements of the array into the destination. The elements must be no wider than 8 bits.
+     */
+    public static void unpack(PackedIntegerArray array, byte[] dst) {
+        int bits = array.getElementBits();
+        int size = array.getSize();
+
+        if (bits > 8) {
+            throw new IllegalArgumentException("Elements with " + bits + " bits do not fit into a byte");
+        }
+
+        if (dst.length < size) {
+            throw new IllegalArgumentException("Destination array is too small");
+        }
+
+        long[] storage = array.getStorage();
+
+        switch (bits) {
+            case 4:
+                unpack4(storage, dst, size);
+                break;
+            case 5:
+                unpack5(storage, dst, size);
+                break;
+            case 6:
+                unpack6(storage, dst, size);
+                break;
+            case 8:
+                unpack8(storage, dst, size);
+                break;
+            default:
+                unpackGeneric(storage, dst, size, bits);
+                break;
+        }
+    }
+
+    /**
+     * Decodes all elements of the array into the destination. The elements must be no wider than 16 bits, and are
+     * stored as unsigned values which must be read with {@code & 0xFFFF}.
+     */
+    public static void unpack(PackedIntegerArray array, short[] dst) {
+        int bits = array.getElementBits();
+        int size = array.getSize();
+
+        if (bits > 16) {
+            throw new IllegalArgumentException("Elements with " + bits + " bits do not fit into a short");
+        }
+
+        if (dst.length < size) {
+            throw new IllegalArgumentException("Destination array is too small");
+        }
+
+        long[] storage = array.getStorage();
+
+        int elementsPerWord = 64 / bits;
+        long mask = (1L << bits) - 1L;
+
+        int i = 0;
+
+        for (int w = 0; i < size; w++) {
+            long word = storage[w];
+            int end = Math.min(i + elementsPerWord, size);
+
+            for (; i < end; i++) {
+                dst[i] = (short) (word & mask);
+                word >>>= bits;
+            }
+        }
+    }
+
+    private static void unpack4(long[] storage, byte[] dst, int size) {
+        int i = 0;
+
+        for (int w = 0; i + 16 <= size; w++, i += 16) {
+            long word = storage[w];
+
+            for (int j = 0; j < 16; j++) {
+                dst[i + j] = (byte) ((word >>> (j * 4)) & 0xFL);
+            }
+        }
+
+        unpackTail(storage, dst, i, size, 4);
+    }
+
+    private static void unpack5(long[] storage, byte[] dst, int size) {
+        int i = 0;
+
+        for (int w = 0; i + 12 <= size; w++, i += 12) {
+            long word = storage[w];
+
+            for (int j = 0; j < 12; j++) {
+                dst[i + j] = (byte) ((word >>> (j * 5)) & 0x1FL);
+            }
+        }
+
+        unpackTail(storage, dst, i, size, 5);
+    }
+
+    private static void unpack6(long[] storage, byte[] dst, int size) {
+        int i = 0;
+
+        for (int w = 0; i + 10 <= size; w++, i += 10) {
+            long word = storage[w];
+
+            for (int j = 0; j < 10; j++) {
+                dst[i + j] = (byte) ((word >>> (j * 6)) & 0x3FL);
+            }
+        }
+
+        unpackTail(storage, dst, i, size, 6);
+    }
+
+    private static void unpack8(long[] storage, byte[] dst, int size) {
+        int i = 0;
+
+        for (int w = 0; i + 8 <= size; w++, i += 8) {
+            long word = storage[w];
+
+            for (int j = 0; j < 8; j++) {
+                dst[i + j] = (byte) (word >>> (j * 8));
+            }
+        }
+
+        unpackTail(storage, dst, i, size, 8);
+    }
+
+    private static void unpackGeneric(long[] storage, byte[] dst, int size, int bits) {
+        unpackTail(storage, dst, 0, size, bits);
+    }
+
+    /**
+     * Decodes the elements in the range [start, size) without any specialization. The start index must be the first
+     * element of a word.
+     */
+    private static void unpackTail(long[] storage, byte[] dst, int start, int size, int bits) {
+        int elementsPerWord = 64 / bits;
+        long mask = (1L << bits) - 1L;
+
+        int i = start;
+
+        for (int w = start / elementsPerWord; i < size; w++) {
+            long word = storage[w];
+            int end = Math.min(i + elementsPerWord, size);
+
+            for (; i < end; i++) {
+                dst[i] = (byte) (word & mask);
+                word >>>= bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package me.jellysquid.mods.sodium.client.util.task;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the worker threads of a pool which are parked while waiting for new tasks, so that submitters can wake exactly
+ * as many workers as they have submitted tasks for. Neither submitting nor taking tasks acquires a monitor, and workers
+ * which are busy are never woken.
+ */
+public class IdleWorkerQueue {
+    private final Queue<Worker> workers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Takes the next task for a worker. If no task is available, the worker registers itself as idle and parks until a
+     * submitter wakes it, after which null is returned and the caller should try again.
+     * @param worker The worker which is calling this method
+     * @param poll Takes the next task from the task queue, or returns null if it is empty
+     * @param running Returns false if the pool is shutting down, in which case the worker will not be parked
+     */
+    public <J> J take(Worker worker, Supplier<J> poll, BooleanSupplier running) {
+        J job = poll.get();
+
+        if (job == null) {
+            if (worker.idle.compareAndSet(false, true)) {
+                this.workers.add(worker);
+            }
+
+            // A task may have been submitted before this worker became visible as idle, in which case the submitter
+            // would not have woken it up
+            job = poll.get();
+
+            if (job == null) {
+                if (running.getAsBoolean()) {
+                    LockSupport.park(worker);
+                }
+
+                return null;
+            }
+        }
+
+        // The worker can still be registered as idle if it found a task after registering itself, or if it woke up
+        // spuriously. It must not stay in the idle queue while busy, as submitters would then wake it instead of a
+        // worker which is actually parked.
+        if (worker.idle.compareAndSet(true, false)) {
+            this.workers.remove(worker);
+        }
+
+        return job;
+    }
+
+    /**
+     * Unparks up to {@param count} idle workers so that they can begin processing newly submitted tasks. Workers which
+     * are already busy will pick up remaining tasks on their own once they finish their current work.
+     */
+    public void wake(int count) {
+        for (int i = 0; i < count; i++) {
+            Worker worker = this.workers.poll();
+
+            if (worker == null) {
+                break;
+            }
+
+            // The worker found a task on its own after registering itself as idle, so waking it would not start any
+            // more work and another worker needs to be woken instead
+            if (!worker.idle.compareAndSet(true, false)) {
+                i--;
+                continue;
+            }
+
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    /**
+     * Forgets all idle workers. This should only be called after all workers have terminated.
+     */
+    public void clear() {
+        this.workers.clear();
+    }
+
+    /**
+     * The idle state of a single worker thread.
+     */
+    public static class Worker {
+        private final Thread thread;
+
+        // True while this worker is contained in the idle queue
+        private final AtomicBoolean idle = new AtomicBoolean(false);
+
+        /**
+         * @param thread The thread which executes the worker, which must not be shared with any other worker
+         */
+        public Worker(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package me.jellysquid.mods.sodium.client.world;
+
+public interface BlockStateExtended {
+    /**
+     * @return The index of this state in the {@link BlockStateFlags} table, or -1 if it has not been assigned yet
+     */
+    int getFlagTableIndex();
+
+    void setFlagTableIndex(int index);
+}
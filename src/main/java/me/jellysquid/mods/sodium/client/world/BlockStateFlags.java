@@ -0,0 +1,210 @@
+package me.jellysquid.mods.sodium.client.world;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.RenderLayers;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.EmptyBlockView;
+
+import java.util.List;
+
+/**
+ * A dense table of the rendering and lighting properties of every block state, which allows the chunk meshing loop and
+ * the light data cache to read them from a primitive array instead of querying each block through virtual calls and
+ * hash table lookups. The table is indexed by a slot stored on each block state and is rebuilt whenever the chunk
+ * builder is initialized, which includes every resource reload and change to the graphics settings.
+ *
+ * The properties of each state are packed into an integer with the following fields:
+ * - LU: Light emitted by the block, 4 bits
+ * - OP: Light subtracted by the block (its opacity), 4 bits
+ * - LA: Index of the block's render layer in {@link RenderLayer#getBlockLayers()}, 3 bits
+ * - Flags: See the constants below
+ * - AO: Ambient occlusion light level, in the same fixed-point format used by the light data cache, 13 bits
+ *
+ * The opacity and shape of blocks with dynamic bounds depend on their position in the world, so these (along with
+ * their ambient occlusion and emissive lighting) are not stored for such states and are instead always queried from
+ * the block. This mirrors the shape cache of vanilla block states, which is also only created for blocks without
+ * dynamic bounds.
+ */
+public class BlockStateFlags {
+    private static final int LUMINANCE_MASK = 0b1111;
+
+    private static final int OPACITY_SHIFT = 4;
+    private static final int OPACITY_MASK = 0b1111;
+
+    private static final int LAYER_SHIFT = 8;
+    private static final int LAYER_MASK = 0b111;
+
+    // The layer index used for render layers which are not one of the block layers, which must be looked up again
+    private static final int LAYER_UNKNOWN = LAYER_MASK;
+
+    /** The block state is rendered using its baked model **/
+    public static final int RENDERS_MODEL = 1 << 11;
+
+    /** The block state contains a fluid **/
+    public static final int HAS_FLUID = 1 << 12;
+
+    /** The block of the state can have a block entity **/
+    public static final int HAS_BLOCK_ENTITY = 1 << 13;
+
+    /** The block state is an opaque full cube, only valid if the state is not {@link #POSITION_DEPENDENT} **/
+    public static final int OPAQUE_FULL_CUBE = 1 << 14;
+
+    /** The shape and opacity of the block state depend on its position in the world **/
+    public static final int POSITION_DEPENDENT = 1 << 15;
+
+    /** The block state has emissive lighting, only valid if the state is not {@link #POSITION_DEPENDENT} **/
+    public static final int EMISSIVE = 1 << 16;
+
+    private static final int AO_SHIFT = 17;
+    private static final int AO_MASK = 0x1FFF;
+    private static final float AO_SCALE = 4096.0f;
+
+    private static final RenderLayer[] BLOCK_LAYERS = RenderLayer.getBlockLayers().toArray(new RenderLayer[0]);
+
+    private static volatile int[] table = new int[0];
+
+    /**
+     * Re-computes the properties of all block states. This must be called on the main thread while no chunk build tasks
+     * are running.
+     */
+    public static void rebuild() {
+        List<BlockState> states = new ObjectArrayList<>();
+
+        for (BlockState state : Block.STATE_IDS) {
+            states.add(state);
+        }
+
+        int[] table = new int[states.size()];
+
+        for (int i = 0; i < table.length; i++) {
+            BlockState state = states.get(i);
+
+            ((BlockStateExtended) state).setFlagTableIndex(i);
+
+            table[i] = compute(state);
+        }
+
+        BlockStateFlags.table = table;
+    }
+
+    /**
+     * @return The packed properties of the given block state
+     */
+    public static int get(BlockState state) {
+        int[] table = BlockStateFlags.table;
+        int index = ((BlockStateExtended) state).getFlagTableIndex();
+
+        if (index >= 0 && index < table.length) {
+            return table[index];
+        }
+
+        // States which were not registered when the table was built are rare, so they are simply computed every time
+        return compute(state);
+    }
+
+    /**
+     * Computes the packed properties of a block state without consulting the table.
+     */
+    public static int compute(BlockState state) {
+        Block block = state.getBlock();
+
+        int flags = state.getLuminance() & LUMINANCE_MASK;
+
+        if (block.getRenderType(state) == BlockRenderType.MODEL) {
+            flags |= RENDERS_MODEL;
+        }
+
+        if (!block.getFluidState(state).isEmpty()) {
+            flags |= HAS_FLUID;
+        }
+
+        if (block.hasBlockEntity()) {
+            flags |= HAS_BLOCK_ENTITY;
+        }
+
+        flags |= getLayerIndex(RenderLayers.getBlockLayer(state)) << LAYER_SHIFT;
+
+        // Blocks without dynamic bounds have their shape cached by the state, which makes it independent of the world
+        if (block.hasDynamicBounds()) {
+            flags |= POSITION_DEPENDENT;
+        } else {
+            if (state.isOpaqueFullCube(EmptyBlockView.INSTANCE, BlockPos.ORIGIN)) {
+                flags |= OPAQUE_FULL_CUBE;
+            }
+
+            flags |= (state.getOpacity(EmptyBlockView.INSTANCE, BlockPos.ORIGIN) & OPACITY_MASK) << OPACITY_SHIFT;
+
+            if (state.hasEmissiveLighting(EmptyBlockView.INSTANCE, BlockPos.ORIGIN)) {
+                flags |= EMISSIVE;
+            }
+
+            int ao = (int) (state.getAmbientOcclusionLightLevel(EmptyBlockView.INSTANCE, BlockPos.ORIGIN) * AO_SCALE);
+
+            flags |= (MathHelper.clamp(ao, 0, (int) AO_SCALE) & AO_MASK) << AO_SHIFT;
+        }
+
+        return flags;
+    }
+
+    private static int getLayerIndex(RenderLayer layer) {
+        for (int i = 0; i < BLOCK_LAYERS.length && i < LAYER_UNKNOWN; i++) {
+            if (BLOCK_LAYERS[i] == layer) {
+                return i;
+            }
+        }
+
+        return LAYER_UNKNOWN;
+    }
+
+    public static boolean has(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public static int getLuminance(int flags) {
+        return flags & LUMINANCE_MASK;
+    }
+
+    public static RenderLayer getBlockLayer(int flags, BlockState state) {
+        int index = (flags >>> LAYER_SHIFT) & LAYER_MASK;
+
+        return index != LAYER_UNKNOWN ? BLOCK_LAYERS[index] : RenderLayers.getBlockLayer(state);
+    }
+
+    public static boolean isOpaqueFullCube(int flags, BlockState state, BlockView world, BlockPos pos) {
+        if ((flags & POSITION_DEPENDENT) != 0) {
+            return state.isOpaqueFullCube(world, pos);
+        }
+
+        return (flags & OPAQUE_FULL_CUBE) != 0;
+    }
+
+    public static int getOpacity(int flags, BlockState state, BlockView world, BlockPos pos) {
+        if ((flags & POSITION_DEPENDENT) != 0) {
+            return state.getOpacity(world, pos);
+        }
+
+        return (flags >>> OPACITY_SHIFT) & OPACITY_MASK;
+    }
+
+    public static boolean hasEmissiveLighting(int flags, BlockState state, BlockView world, BlockPos pos) {
+        if ((flags & POSITION_DEPENDENT) != 0) {
+            return state.hasEmissiveLighting(world, pos);
+        }
+
+        return (flags & EMISSIVE) != 0;
+    }
+
+    public static float getAmbientOcclusionLightLevel(int flags, BlockState state, BlockView world, BlockPos pos) {
+        if ((flags & POSITION_DEPENDENT) != 0) {
+            return state.getAmbientOcclusionLightLevel(world, pos);
+        }
+
+        return ((flags >>> AO_SHIFT) & AO_MASK) / AO_SCALE;
+    }
+}
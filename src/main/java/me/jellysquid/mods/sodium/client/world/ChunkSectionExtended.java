@@ -0,0 +1,8 @@
+package me.jellysquid.mods.sodium.client.world;
+
+public interface ChunkSectionExtended {
+    /**
+     * @return A counter which is incremented every time the block data of the section is modified
+     */
+    int getModificationCount();
+}
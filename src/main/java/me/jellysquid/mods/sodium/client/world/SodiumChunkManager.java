@@ -4,6 +4,7 @@ import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import me.jellysquid.mods.sodium.client.compat.CompatibilityHooks;
+import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
 import me.jellysquid.mods.sodium.client.util.collections.FixedLongHashTable;
 import net.minecraft.client.world.ClientChunkManager;
 import net.minecraft.client.world.ClientWorld;
@@ -11,6 +12,7 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.LightType;
 import net.minecraft.world.biome.source.BiomeArray;
 import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.ChunkStatus;
@@ -166,6 +168,20 @@ public class SodiumChunkManager extends ClientChunkManager implements ChunkStatu
         }
     }
 
+    /**
+     * Light updates are passed to our renderer separately from other chunk updates, as they don't change the geometry
+     * of the chunk and allow its existing meshes to be re-lit in place. Blocks on the edges of the neighboring chunks
+     * sample light from the updated chunk, so the same area as vanilla's re-render of the chunk is updated.
+     */
+    @Override
+    public void onLightUpdate(LightType type, ChunkSectionPos pos) {
+        int x = pos.getSectionX();
+        int y = pos.getSectionY();
+        int z = pos.getSectionZ();
+
+        SodiumWorldRenderer.getInstance().scheduleRelightForChunks(x - 1, y - 1, z - 1, x + 1, y + 1, z + 1);
+    }
+
     @Override
     public String getDebugString() {
         return "SodiumChunkCache: " + this.getLoadedChunkCount();
@@ -5,11 +5,13 @@ import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCache;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeCacheManager;
 import me.jellysquid.mods.sodium.client.world.biome.BiomeColorCache;
+import me.jellysquid.mods.sodium.client.world.snapshot.CachedChunkSection;
+import me.jellysquid.mods.sodium.client.world.snapshot.ChunkSectionCache;
+import me.jellysquid.mods.sodium.client.world.snapshot.ChunkSectionSnapshot;
 import me.jellysquid.mods.sodium.common.util.pool.ReusableObject;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.fluid.FluidState;
-import net.minecraft.util.collection.PackedIntegerArray;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Direction;
@@ -33,14 +35,17 @@ import java.util.Map;
  * operations. This allows chunk build tasks to see a consistent snapshot of chunk data at the exact moment the task was
  * created.
  *
+ * Block data is captured on the main thread as {@link ChunkSectionSnapshot}s, which only copy the packed form of each
+ * section. The snapshots are kept in a {@link ChunkSectionCache} which is shared by all slices, so that each section is
+ * only copied and decoded once no matter how many slices contain it. The decoded block states are then obtained by the
+ * worker thread through {@link WorldSlice#unpackBlockStates()} before the slice is used.
+ *
  * World slices are not safe to use from multiple threads at once, but the data they contain is safe from modification
  * by the main client thread.
  *
  * Object pooling should be used to avoid huge allocations as this class contains many large arrays.
  */
 public class WorldSlice extends ReusableObject implements BlockRenderView, BiomeAccess.Storage {
-    private static final ChunkSection EMPTY_SECTION = new ChunkSection(0);
-
     // The number of blocks on each axis in a section.
     private static final int SECTION_BLOCK_LENGTH = 16;
 
@@ -72,11 +77,15 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     // The array size for the section lookup table.
     private static final int SECTION_TABLE_ARRAY_SIZE = TABLE_LENGTH * TABLE_LENGTH * TABLE_LENGTH;
 
-    // Local Section->BlockState table. Read-only.
-    private final BlockState[][] blockStatesArrays;
+    // Local Section->Cached Section table. Read-only, the sections are shared with other slices and each entry holds a
+    // reference to its section.
+    private final CachedChunkSection[] sections;
+
+    // A pointer to the cached section at the origin.
+    private CachedChunkSection originSection;
 
-    // A pointer to the BlockState array for the origin section.
-    private final BlockState[] originBlockStates;
+    // The cache which the sections of this slice were acquired from
+    private ChunkSectionCache sectionCache;
 
     // Local Section->Light table. Read-only.
     private final ChunkNibbleArray[] blockLightArrays;
@@ -87,7 +96,7 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     private final BiomeArray[] biomeArrays;
 
     // The biome blend caches for each color resolver type
-    // This map is always re-initialized, but the caches themselves are taken from an object pool
+    // This map is always re-initialized, but the caches themselves are shared by all slices in the chunk column
     private final Map<ColorResolver, BiomeColorCache> colorResolvers = new Reference2ObjectOpenHashMap<>();
 
     // The previously accessed and cached color resolver, used in conjunction with the cached color cache field
@@ -105,6 +114,9 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
 
     private BiomeCacheManager biomeCacheManager;
 
+    // The color cache epoch of the biome cache manager at the time this slice was created
+    private int colorCacheEpoch;
+
     // The starting point from which this slice captures blocks
     private int baseX, baseY, baseZ;
 
@@ -145,25 +157,19 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
     }
 
     public WorldSlice() {
-        this.blockStatesArrays = new BlockState[SECTION_TABLE_ARRAY_SIZE][];
-
-        for (int x = 0; x < SECTION_LENGTH; x++) {
-            for (int y = 0; y < SECTION_LENGTH; y++) {
-                for (int z = 0; z < SECTION_LENGTH; z++) {
-                    this.blockStatesArrays[getLocalSectionIndex(x, y, z)] = new BlockState[SECTION_BLOCK_COUNT];
-                }
-            }
-        }
+        this.sections = new CachedChunkSection[SECTION_TABLE_ARRAY_SIZE];
 
         this.blockLightArrays = new ChunkNibbleArray[SECTION_TABLE_ARRAY_SIZE];
         this.skyLightArrays = new ChunkNibbleArray[SECTION_TABLE_ARRAY_SIZE];
 
         this.biomeCaches = new BiomeCache[CHUNK_TABLE_ARRAY_SIZE];
         this.biomeArrays = new BiomeArray[CHUNK_TABLE_ARRAY_SIZE];
-
-        this.originBlockStates = this.blockStatesArrays[getLocalSectionIndex((SECTION_LENGTH / 2), (SECTION_LENGTH / 2), (SECTION_LENGTH / 2))];
     }
 
+    /**
+     * Captures the world state around the origin section. This must be called on the main thread, and
+     * {@link WorldSlice#unpackBlockStates()} must be called before any block states are accessed.
+     */
     public void init(ChunkBuilder<?> builder, World world, ChunkSectionPos origin, WorldChunk[] chunks) {
         this.world = world;
         this.chunks = chunks;
@@ -189,6 +195,8 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         this.baseY = minChunkY << 4;
         this.baseZ = minChunkZ << 4;
 
+        this.sectionCache = builder.getSectionCache();
+
         // Iterate over all sliced chunks
         for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
             for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
@@ -204,7 +212,8 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
                     int sectionIdx = getLocalSectionIndex(chunkX - minChunkX, chunkY - minChunkY, chunkZ - minChunkZ);
 
                     this.populateLightArrays(sectionIdx, pos);
-                    this.populateBlockArrays(sectionIdx, pos, chunk);
+
+                    this.sections[sectionIdx] = this.sectionCache.acquire(pos, getChunkSection(chunk, pos));
                 }
 
                 this.biomeArrays[chunkIdx] = chunk.getBiomeArray();
@@ -213,6 +222,7 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
 
         this.biomeCacheManager = builder.getBiomeCacheManager();
         this.biomeCacheManager.populateArrays(origin.getX(), origin.getY(), origin.getZ(), this.biomeCaches);
+        this.colorCacheEpoch = this.biomeCacheManager.getColorCacheEpoch();
     }
 
     private void populateLightArrays(int sectionIdx, ChunkSectionPos pos) {
@@ -223,53 +233,23 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         this.skyLightArrays[sectionIdx] = skyLightProvider.getLightSection(pos);
     }
 
-    private void populateBlockArrays(int sectionIdx, ChunkSectionPos pos, Chunk chunk) {
-        ChunkSection section = getChunkSection(chunk, pos);
-
-        if (section == null || section.isEmpty()) {
-            section = EMPTY_SECTION;
-        }
-
-        PalettedContainer<BlockState> container = section.getContainer();
-
-        PackedIntegerArray intArray = container.data;
-        Palette<BlockState> palette = container.palette;
-
-        BlockState[] dst = this.blockStatesArrays[sectionIdx];
-
-        int minBlockX = Math.max(this.minX, pos.getMinX());
-        int maxBlockX = Math.min(this.maxX, pos.getMaxX());
-
-        int minBlockY = Math.max(this.minY, pos.getMinY());
-        int maxBlockY = Math.min(this.maxY, pos.getMaxY());
-
-        int minBlockZ = Math.max(this.minZ, pos.getMinZ());
-        int maxBlockZ = Math.min(this.maxZ, pos.getMaxZ());
-
-        int prevPaletteId = -1;
-        BlockState prevPaletteState = null;
-
-        for (int y = minBlockY; y <= maxBlockY; y++) {
-            for (int z = minBlockZ; z <= maxBlockZ; z++) {
-                for (int x = minBlockX; x <= maxBlockX; x++) {
-                    int blockIdx = getLocalBlockIndex(x & 15, y & 15, z & 15);
-                    int paletteId = intArray.get(blockIdx);
-
-                    BlockState state;
-
-                    if (prevPaletteId == paletteId) {
-                        state = prevPaletteState;
-                    } else {
-                        state = palette.getByIndex(paletteId);
-
-                        prevPaletteState = state;
-                        prevPaletteId = paletteId;
-                    }
+    /**
+     * Unpacks the block states of the captured sections. This is performed by the worker thread which uses the slice,
+     * keeping the expensive decoding of palette indices off the main thread. Sections which have already been unpacked
+     * for another slice are not decoded again.
+     */
+    public void unpackBlockStates() {
+        for (int x = 0; x < SECTION_LENGTH; x++) {
+            for (int y = 0; y < SECTION_LENGTH; y++) {
+                for (int z = 0; z < SECTION_LENGTH; z++) {
+                    int sectionIdx = getLocalSectionIndex(x, y, z);
 
-                    dst[blockIdx] = state;
+                    this.sections[sectionIdx].unpack();
                 }
             }
         }
+
+        this.originSection = this.sections[getLocalSectionIndex((SECTION_LENGTH / 2), (SECTION_LENGTH / 2), (SECTION_LENGTH / 2))];
     }
 
     @Override
@@ -282,12 +262,12 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
         int relY = y - this.baseY;
         int relZ = z - this.baseZ;
 
-        return this.blockStatesArrays[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
-                [getLocalBlockIndex(relX & 15, relY & 15, relZ & 15)];
+        return this.sections[getLocalSectionIndex(relX >> 4, relY >> 4, relZ >> 4)]
+                .getBlockState(getLocalBlockIndex(relX & 15, relY & 15, relZ & 15));
     }
 
     public BlockState getOriginBlockState(int x, int y, int z) {
-        return this.originBlockStates[getLocalBlockIndex(x, y, z)];
+        return this.originSection.getBlockState(getLocalBlockIndex(x, y, z));
     }
 
     @Override
@@ -334,7 +314,7 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
             cache = this.colorResolvers.get(resolver);
 
             if (cache == null) {
-                this.colorResolvers.put(resolver, cache = new BiomeColorCache(resolver, this));
+                this.colorResolvers.put(resolver, cache = this.biomeCacheManager.getColorCache(resolver, this, this.colorCacheEpoch));
             }
 
             this.prevColorResolver = resolver;
@@ -422,6 +402,17 @@ public class WorldSlice extends ReusableObject implements BlockRenderView, Biome
 
         Arrays.fill(this.biomeCaches, null);
         Arrays.fill(this.biomeArrays, null);
+
+        for (CachedChunkSection section : this.sections) {
+            if (section != null) {
+                this.sectionCache.release(section);
+            }
+        }
+
+        Arrays.fill(this.sections, null);
+
+        this.originSection = null;
+        this.sectionCache = null;
         Arrays.fill(this.blockLightArrays, null);
         Arrays.fill(this.skyLightArrays, null);
 
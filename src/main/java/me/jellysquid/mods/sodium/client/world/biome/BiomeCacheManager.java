@@ -1,18 +1,43 @@
 package me.jellysquid.mods.sodium.client.world.biome;
 
+import it.unimi.dsi.fastutil.longs.Long2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
 import me.jellysquid.mods.sodium.common.util.pool.ObjectPool;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.biome.source.BiomeAccessType;
+import net.minecraft.world.level.ColorResolver;
+
+import java.util.Map;
 
 public class BiomeCacheManager {
     private static final int CACHE_SIZE = 256;
     private static final int ARENA_SIZE = 64;
 
+    private static final int COLOR_CACHE_SIZE = 256;
+    private static final int COLOR_CACHE_DROP_HISTORY_SIZE = 4096;
+
     private final ObjectPool<BiomeCache> pool;
     private final Long2ReferenceLinkedOpenHashMap<BiomeCache> caches = new Long2ReferenceLinkedOpenHashMap<>(CACHE_SIZE, 0.5f);
 
+    // The blended color caches of each chunk column for each color resolver, which are shared between all world slices
+    // in a column. Unlike the other caches, these are accessed by worker threads and must only be used while holding
+    // the lock on this map.
+    private final Map<ColorResolver, Long2ReferenceLinkedOpenHashMap<BiomeColorCache>> colorCaches = new Reference2ReferenceOpenHashMap<>();
+
+    // Incremented each time color caches are dropped. The epoch of the last drop is recorded for each chunk column whose
+    // caches were dropped, and color caches calculated for that column by slices which were created before then may
+    // use outdated biome data, so they are not added to the cache.
+    private int colorCacheEpoch;
+    private final Long2IntLinkedOpenHashMap colorCacheDropEpochs = new Long2IntLinkedOpenHashMap(COLOR_CACHE_DROP_HISTORY_SIZE, 0.5f);
+
+    // The latest epoch which has been evicted from the drop history. Slices created before then can't tell whether the
+    // column they calculated colors for has been dropped since, so their color caches are never added to the cache.
+    private int colorCacheDropFloor;
+
     public BiomeCacheManager(BiomeAccessType type, long seed) {
         this.pool = new ObjectPool<>(ARENA_SIZE, () -> new BiomeCache(type, seed));
     }
@@ -45,6 +70,63 @@ public class BiomeCacheManager {
         }
     }
 
+    /**
+     * Returns the blended color cache of the given resolver for the chunk column of the slice, calculating it if no
+     * other slice has done so yet. This can be called from any thread.
+     * @param resolver The color resolver
+     * @param slice The slice to calculate the colors from if they aren't cached
+     * @param epoch The color cache epoch at the time the slice was created, see {@link #getColorCacheEpoch()}
+     */
+    public BiomeColorCache getColorCache(ColorResolver resolver, WorldSlice slice, int epoch) {
+        ChunkSectionPos origin = slice.getOrigin();
+
+        long key = ChunkPos.toLong(origin.getX(), origin.getZ());
+        int radius = MinecraftClient.getInstance().options.biomeBlendRadius;
+
+        synchronized (this.colorCaches) {
+            Long2ReferenceLinkedOpenHashMap<BiomeColorCache> caches = this.colorCaches.get(resolver);
+
+            if (caches != null) {
+                BiomeColorCache cache = caches.getAndMoveToFirst(key);
+
+                if (cache != null && cache.getRadius() == radius) {
+                    return cache;
+                }
+            }
+        }
+
+        // The colors are calculated without holding the lock so that other workers are not blocked, which means two
+        // slices might occasionally calculate the same colors
+        BiomeColorCache cache = new BiomeColorCache(resolver, slice, radius);
+
+        synchronized (this.colorCaches) {
+            if (epoch >= this.colorCacheDropFloor && epoch >= this.colorCacheDropEpochs.get(key)) {
+                Long2ReferenceLinkedOpenHashMap<BiomeColorCache> caches = this.colorCaches.get(resolver);
+
+                if (caches == null) {
+                    this.colorCaches.put(resolver, caches = new Long2ReferenceLinkedOpenHashMap<>(COLOR_CACHE_SIZE, 0.5f));
+                }
+
+                if (caches.size() >= COLOR_CACHE_SIZE && !caches.containsKey(key)) {
+                    caches.removeLast();
+                }
+
+                caches.putAndMoveToFirst(key, cache);
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * @return The current color cache epoch, which must be captured by world slices when they are created
+     */
+    public int getColorCacheEpoch() {
+        synchronized (this.colorCaches) {
+            return this.colorCacheEpoch;
+        }
+    }
+
     public void dropCachesForChunk(int centerX, int centerZ) {
         for (int x = centerX - 1; x <= centerX; x++) {
             for (int z = centerZ - 1; z <= centerZ; z++) {
@@ -57,6 +139,28 @@ public class BiomeCacheManager {
                 }
             }
         }
+
+        synchronized (this.colorCaches) {
+            int epoch = ++this.colorCacheEpoch;
+
+            // The colors of a column are blended with the colors of its neighbors
+            for (int x = centerX - 1; x <= centerX + 1; x++) {
+                for (int z = centerZ - 1; z <= centerZ + 1; z++) {
+                    long key = ChunkPos.toLong(x, z);
+
+                    for (Long2ReferenceLinkedOpenHashMap<BiomeColorCache> caches : this.colorCaches.values()) {
+                        caches.remove(key);
+                    }
+
+                    // Epochs only increase, so the least recently dropped column is always the first entry
+                    this.colorCacheDropEpochs.putAndMoveToLast(key, epoch);
+                }
+            }
+
+            while (this.colorCacheDropEpochs.size() > COLOR_CACHE_DROP_HISTORY_SIZE) {
+                this.colorCacheDropFloor = this.colorCacheDropEpochs.removeFirstInt();
+            }
+        }
     }
 
     public void release(BiomeCache cache) {
@@ -2,100 +2,147 @@ package me.jellysquid.mods.sodium.client.world.biome;
 
 import me.jellysquid.mods.sodium.client.util.color.ColorARGB;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
-import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.world.level.ColorResolver;
 
-import java.util.Arrays;
-
+/**
+ * The blended biome colors of a color resolver for a chunk column and the blocks just outside of it, which are all
+ * calculated when the cache is created. As biome colors do not depend on the height of a block, one cache can be shared
+ * by every world slice in the column, and it can be read from any number of threads as it is never modified.
+ *
+ * Blended colors are calculated using a summed-area table of each color channel over all samples within the blend
+ * radius of the cached area. Each blended color then only needs four lookups per channel rather than averaging
+ * {@code (2r + 1)^2} samples, and all samples are resolved exactly once. As the sums are exact, the results are
+ * identical to averaging the samples directly.
+ */
 public class BiomeColorCache {
-    private final ColorResolver resolver;
-    private final WorldSlice slice;
+    // The number of blocks outside of the chunk column which blended colors are cached for, as the color blender also
+    // samples the colors of neighboring blocks
+    private static final int BORDER = 2;
+
+    private static final int SIZE = 16 + (BORDER * 2);
 
     private final int[] blendedColors;
-    private final int[] cache;
 
     private final int radius;
-    private final int dim;
     private final int minX, minZ;
 
-    public BiomeColorCache(ColorResolver resolver, WorldSlice slice) {
-        this.resolver = resolver;
-        this.slice = slice;
-        this.radius = MinecraftClient.getInstance().options.biomeBlendRadius;
-
-        ChunkSectionPos origin = this.slice.getOrigin();
-
-        this.minX = origin.getMinX() - (this.radius + 2);
-        this.minZ = origin.getMinZ() - (this.radius + 2);
-
-        this.dim = 16 + ((this.radius + 2) * 2);
+    /**
+     * Calculates the blended colors for the chunk column of the given slice's origin.
+     * @param resolver The color resolver to use
+     * @param slice The world slice which biomes are sampled from, which must contain the blocks within the blend radius
+     *              of the cached area
+     * @param radius The biome blend radius
+     */
+    public BiomeColorCache(ColorResolver resolver, WorldSlice slice, int radius) {
+        this((x, z) -> resolver.getColor(slice.getCachedBiome(x, z), x, z), slice.getOrigin(), radius);
+    }
 
-        this.cache = new int[this.dim * this.dim];
-        this.blendedColors = new int[this.dim * this.dim];
+    BiomeColorCache(ColorSampler sampler, ChunkSectionPos origin, int radius) {
+        this.radius = radius;
+        this.minX = origin.getMinX() - BORDER;
+        this.minZ = origin.getMinZ() - BORDER;
 
-        Arrays.fill(this.cache, -1);
-        Arrays.fill(this.blendedColors, -1);
+        this.blendedColors = calculateBlendedColors(sampler, this.minX - radius, this.minZ - radius, radius);
     }
 
     public int getBlendedColor(BlockPos pos) {
-        int x2 = pos.getX() - this.minX;
-        int z2 = pos.getZ() - this.minZ;
-
-        int index = (x2 * this.dim) + z2;
-        int color = this.blendedColors[index];
+        int x = pos.getX() - this.minX;
+        int z = pos.getZ() - this.minZ;
 
-        if (color == -1) {
-            this.blendedColors[index] = color = this.calculateBlendedColor(pos.getX(), pos.getZ());
-        }
+        return this.blendedColors[(x * SIZE) + z];
+    }
 
-        return color;
+    public int getRadius() {
+        return this.radius;
     }
 
-    private int calculateBlendedColor(int posX, int posZ) {
-        if (this.radius == 0) {
-            return this.getColor(posX, posZ);
+    private static int[] calculateBlendedColors(ColorSampler sampler, int minX, int minZ, int radius) {
+        if (radius == 0) {
+            return calculateColors(sampler, minX, minZ);
         }
 
-        int diameter = (this.radius * 2) + 1;
+        int diameter = (radius * 2) + 1;
         int area = diameter * diameter;
 
-        int r = 0;
-        int g = 0;
-        int b = 0;
+        // The width of the sample grid, which covers the cached area and the blend radius on each side
+        int dim = SIZE + (radius * 2);
+        int stride = dim + 1;
+
+        // The summed-area tables of each color channel, with a row and column of zeroes in front of the sample grid.
+        // Each entry contains the sum of all samples before it on both axes.
+        int[] sumsRed = new int[stride * stride];
+        int[] sumsGreen = new int[stride * stride];
+        int[] sumsBlue = new int[stride * stride];
 
-        int minX = posX - this.radius;
-        int minZ = posZ - this.radius;
+        for (int x = 0; x < dim; x++) {
+            int rowRed = 0;
+            int rowGreen = 0;
+            int rowBlue = 0;
 
-        int maxX = posX + this.radius;
-        int maxZ = posZ + this.radius;
+            for (int z = 0; z < dim; z++) {
+                int color = sampler.getColor(minX + x, minZ + z);
 
-        for (int x2 = minX; x2 <= maxX; x2++) {
-            for (int z2 = minZ; z2 <= maxZ; z2++) {
-                int color = this.getColor(x2, z2);
+                rowRed += ColorARGB.unpackRed(color);
+                rowGreen += ColorARGB.unpackGreen(color);
+                rowBlue += ColorARGB.unpackBlue(color);
 
-                r += ColorARGB.unpackRed(color);
-                g += ColorARGB.unpackGreen(color);
-                b += ColorARGB.unpackBlue(color);
+                int above = (x * stride) + z + 1;
+                int index = above + stride;
+
+                sumsRed[index] = sumsRed[above] + rowRed;
+                sumsGreen[index] = sumsGreen[above] + rowGreen;
+                sumsBlue[index] = sumsBlue[above] + rowBlue;
+            }
+        }
+
+        int[] blendedColors = new int[SIZE * SIZE];
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                // The blend area of the block starts at the same offset in the sample grid as the block does in the
+                // cached area, so the corners in the summed-area tables are simply those of the block and the block
+                // one diameter further along each axis
+                int i11 = (x * stride) + z;
+                int i12 = (x * stride) + z + diameter;
+                int i21 = ((x + diameter) * stride) + z;
+                int i22 = ((x + diameter) * stride) + z + diameter;
+
+                int r = sumArea(sumsRed, i11, i12, i21, i22);
+                int g = sumArea(sumsGreen, i11, i12, i21, i22);
+                int b = sumArea(sumsBlue, i11, i12, i21, i22);
+
+                blendedColors[(x * SIZE) + z] = ColorARGB.pack(r / area, g / area, b / area, 255);
             }
         }
 
-        return ColorARGB.pack(r / area, g / area, b / area, 255);
+        return blendedColors;
     }
 
-    private int getColor(int x, int z) {
-        int index = ((x - this.minX) * this.dim) + (z - this.minZ);
-        int color = this.cache[index];
+    /**
+     * Without blending, the colors of each block are used as-is.
+     */
+    private static int[] calculateColors(ColorSampler sampler, int minX, int minZ) {
+        int[] colors = new int[SIZE * SIZE];
 
-        if (color == -1) {
-            this.cache[index] = color = this.calculateColor(x, z);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                colors[(x * SIZE) + z] = sampler.getColor(minX + x, minZ + z);
+            }
         }
 
-        return color;
+        return colors;
+    }
+
+    private static int sumArea(int[] sums, int i11, int i12, int i21, int i22) {
+        return sums[i22] - sums[i12] - sums[i21] + sums[i11];
     }
 
-    private int calculateColor(int x, int z) {
-        return this.resolver.getColor(this.slice.getCachedBiome(x, z), x, z);
+    /**
+     * Provides the unblended biome color of each block column.
+     */
+    interface ColorSampler {
+        int getColor(int x, int z);
     }
 }
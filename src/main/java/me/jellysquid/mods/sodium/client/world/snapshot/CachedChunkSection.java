@@ -0,0 +1,179 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import me.jellysquid.mods.sodium.client.util.PackedIntegerArrayUtil;
+import me.jellysquid.mods.sodium.common.util.pool.ReusableObject;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.PackedIntegerArray;
+
+import java.util.Arrays;
+
+/**
+ * The block states of a chunk section, decoded from a {@link ChunkSectionSnapshot} and shared between all world slices
+ * which contain the section. The block states are only unpacked once by the first worker thread which needs them, after
+ * which every other slice can access them without any further work.
+ *
+ * Block states are stored as indices into a compact palette. Sections with a local palette in the world use that
+ * palette and one byte per block, while sections using the global palette use a palette of only the states present in
+ * the section and two bytes per block. This is a quarter (or half) of the memory needed for an array of object
+ * references, and keeps much more of a section in the CPU cache while it is being rendered.
+ */
+public class CachedChunkSection extends ReusableObject {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    /**
+     * The section used for positions which are absent or only contain air. It is never pooled, and acquiring or
+     * releasing it has no effect.
+     */
+    public static final CachedChunkSection EMPTY = new CachedChunkSection(Blocks.AIR.getDefaultState());
+
+    // The palette of the section, indexed by the values of the index arrays below
+    private BlockState[] palette;
+
+    // The palette index of each block, of which only one array is used depending on the size of the palette. Both
+    // arrays are allocated on demand and kept for when this object is re-used.
+    private byte[] byteIndices;
+    private short[] shortIndices;
+    private boolean wideIndices;
+
+    private ChunkSectionSnapshot snapshot;
+    private volatile boolean unpacked;
+
+    public CachedChunkSection() {
+
+    }
+
+    private CachedChunkSection(BlockState state) {
+        this.palette = new BlockState[] { state };
+        this.byteIndices = new byte[SECTION_BLOCK_COUNT];
+        this.snapshot = ChunkSectionSnapshot.EMPTY;
+        this.unpacked = true;
+    }
+
+    void init(ChunkSectionSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public ChunkSectionSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Unpacks the block states of the section if no other thread has done so yet. This must be called at least once
+     * by each thread before {@link CachedChunkSection#getBlockState(int)} is used.
+     */
+    public void unpack() {
+        if (!this.unpacked) {
+            synchronized (this) {
+                if (!this.unpacked) {
+                    this.unpackIndices();
+                    this.unpacked = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param index The index of the block, as returned by
+     *              {@link me.jellysquid.mods.sodium.client.world.WorldSlice#getLocalBlockIndex(int, int, int)}
+     */
+    public BlockState getBlockState(int index) {
+        if (this.wideIndices) {
+            return this.palette[this.shortIndices[index]];
+        }
+
+        return this.palette[this.byteIndices[index] & 0xFF];
+    }
+
+    private void unpackIndices() {
+        ChunkSectionSnapshot snapshot = this.snapshot;
+        BlockState[] localPalette = snapshot.getLocalPalette();
+
+        if (localPalette != null) {
+            this.unpackLocalIndices(snapshot.getData(), localPalette);
+        } else {
+            this.unpackGlobalIndices(snapshot);
+        }
+    }
+
+    /**
+     * Sections with a local palette in the world never reference more than 256 distinct states, so their palette can
+     * be used as-is and their data can be decoded straight into byte indices.
+     */
+    private void unpackLocalIndices(PackedIntegerArray data, BlockState[] localPalette) {
+        if (this.byteIndices == null) {
+            this.byteIndices = new byte[SECTION_BLOCK_COUNT];
+        }
+
+        // Sections made up of a single state (i.e. all stone) don't need to be decoded at all
+        if (localPalette.length == 1) {
+            Arrays.fill(this.byteIndices, (byte) 0);
+        } else {
+            PackedIntegerArrayUtil.unpack(data, this.byteIndices);
+        }
+
+        this.palette = localPalette;
+        this.wideIndices = false;
+    }
+
+    /**
+     * Sections using the global palette are decoded into short indices, which are then re-mapped in-place to a compact
+     * palette of the states present in the section. With more than 65536 block states registered, the indices of the
+     * global palette no longer fit into a short, and each one is instead decoded as it is re-mapped.
+     */
+    private void unpackGlobalIndices(ChunkSectionSnapshot snapshot) {
+        if (this.shortIndices == null) {
+            this.shortIndices = new short[SECTION_BLOCK_COUNT];
+        }
+
+        short[] indices = this.shortIndices;
+        PackedIntegerArray data = snapshot.getData();
+
+        boolean bulk = data.getElementBits() <= 16;
+
+        if (bulk) {
+            PackedIntegerArrayUtil.unpack(data, indices);
+        }
+
+        // Maps the palette indices of the snapshot to those of our compact palette
+        Int2IntOpenHashMap remapping = new Int2IntOpenHashMap();
+        remapping.defaultReturnValue(-1);
+
+        ObjectArrayList<BlockState> palette = new ObjectArrayList<>();
+
+        int prevPaletteId = -1;
+        int prevLocalId = -1;
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            int paletteId = bulk ? indices[i] & 0xFFFF : data.get(i);
+
+            if (prevPaletteId != paletteId) {
+                int localId = remapping.get(paletteId);
+
+                if (localId == -1) {
+                    localId = palette.size();
+                    palette.add(snapshot.getPaletteEntry(paletteId));
+
+                    remapping.put(paletteId, localId);
+                }
+
+                prevPaletteId = paletteId;
+                prevLocalId = localId;
+            }
+
+            indices[i] = (short) prevLocalId;
+        }
+
+        this.palette = palette.toArray(new BlockState[0]);
+        this.wideIndices = true;
+    }
+
+    @Override
+    protected void reset() {
+        this.snapshot = null;
+        this.palette = null;
+        this.unpacked = false;
+    }
+}
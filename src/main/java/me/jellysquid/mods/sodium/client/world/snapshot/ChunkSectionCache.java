@@ -0,0 +1,88 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
+import me.jellysquid.mods.sodium.common.util.pool.ObjectPool;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+
+/**
+ * Keeps the most recently used chunk sections so that the sections shared by the world slices of neighboring chunk
+ * rebuilds are only copied and decoded once, and sections which haven't changed since the last rebuild are not copied
+ * at all. Each entry is versioned by the modification count of its section and replaced as soon as the section changes.
+ *
+ * Entries are reference counted: the cache holds one reference for as long as the entry is cached, and each world slice
+ * holds one until it is released. An entry which is evicted or replaced while still in use by a slice is only returned
+ * to the pool once the last slice has released it.
+ *
+ * Sections are only acquired from the main thread, as it reads live world data, but they can be released from any
+ * thread.
+ */
+public class ChunkSectionCache {
+    private static final int CACHE_SIZE = 512;
+    private static final int ARENA_SIZE = 64;
+
+    private final ObjectPool<CachedChunkSection> pool = new ObjectPool<>(ARENA_SIZE, CachedChunkSection::new);
+    private final Long2ReferenceLinkedOpenHashMap<CachedChunkSection> sections = new Long2ReferenceLinkedOpenHashMap<>(CACHE_SIZE, 0.5f);
+
+    /**
+     * Acquires a reference to the cached section at the given position, creating a new snapshot only if the section has
+     * been modified or replaced since the cached snapshot was taken. The reference must be released with
+     * {@link ChunkSectionCache#release(CachedChunkSection)} once the caller is done with it.
+     *
+     * @param pos The position of the section
+     * @param section The section at the position, or null if it is absent
+     * @return The cached section, or {@link CachedChunkSection#EMPTY} if the section is absent or empty
+     */
+    public CachedChunkSection acquire(ChunkSectionPos pos, ChunkSection section) {
+        long key = pos.asLong();
+
+        CachedChunkSection cached = this.sections.getAndMoveToFirst(key);
+
+        if (cached == null || !cached.getSnapshot().isCurrent(section)) {
+            if (cached != null) {
+                this.release(this.sections.remove(key));
+            }
+
+            ChunkSectionSnapshot snapshot = ChunkSectionSnapshot.create(section);
+
+            // Empty sections don't need to be cached as there is nothing to decode
+            if (snapshot.isEmpty()) {
+                return CachedChunkSection.EMPTY;
+            }
+
+            if (this.sections.size() >= CACHE_SIZE) {
+                this.release(this.sections.removeLast());
+            }
+
+            cached = this.pool.allocate();
+            cached.init(snapshot);
+
+            this.sections.putAndMoveToFirst(key, cached);
+        }
+
+        this.pool.acquireReference(cached);
+
+        return cached;
+    }
+
+    /**
+     * Drops the sections of the given chunk column from the cache.
+     */
+    public void dropSectionsForChunk(int x, int z) {
+        for (int y = 0; y < 16; y++) {
+            CachedChunkSection section = this.sections.remove(ChunkSectionPos.asLong(x, y, z));
+
+            if (section != null) {
+                this.release(section);
+            }
+        }
+    }
+
+    public void release(CachedChunkSection section) {
+        if (section == CachedChunkSection.EMPTY) {
+            return;
+        }
+
+        this.pool.release(section);
+    }
+}
@@ -0,0 +1,160 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import me.jellysquid.mods.sodium.client.world.ChunkSectionExtended;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IdListPalette;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the block data of a chunk section in its packed form. Copying the palette and the packed
+ * integer array is much cheaper than decoding every block of the section, so snapshots can be taken on the main thread
+ * while the block states are only unpacked later by the worker thread which needs them.
+ *
+ * As snapshots are never modified after creation, they can be shared by any number of world slices and threads. The
+ * modification count of the section is recorded so that a snapshot can be re-used until the section changes.
+ */
+public class ChunkSectionSnapshot {
+    /**
+     * The snapshot used for sections which are absent or contain only air.
+     */
+    public static final ChunkSectionSnapshot EMPTY = new ChunkSectionSnapshot();
+
+    private static final BlockState DEFAULT_STATE = Blocks.AIR.getDefaultState();
+
+    private final ChunkSection section;
+    private final int version;
+
+    private final PackedIntegerArray data;
+
+    // The entries of the section's local palette, or null if the section uses the global palette. Every palette index
+    // used by the section's data is a valid index into this array.
+    private final BlockState[] localPalette;
+
+    // The global palette of the section, which is immutable and therefore doesn't need to be copied
+    private final Palette<BlockState> globalPalette;
+
+    private ChunkSectionSnapshot() {
+        this.section = null;
+        this.version = 0;
+        this.data = null;
+        this.localPalette = null;
+        this.globalPalette = null;
+    }
+
+    private ChunkSectionSnapshot(ChunkSection section, int version) {
+        this.section = section;
+        this.version = version;
+
+        PalettedContainer<BlockState> container = section.getContainer();
+
+        PackedIntegerArray data = container.data;
+        Palette<BlockState> palette = container.palette;
+
+        this.data = new PackedIntegerArray(data.getElementBits(), data.getSize(), data.getStorage().clone());
+
+        if (palette instanceof IdListPalette) {
+            this.localPalette = null;
+            this.globalPalette = palette;
+        } else {
+            BlockState[] entries = new BlockState[1 << data.getElementBits()];
+            int size = 0;
+
+            // Local palettes are always filled from the first index onwards, so the first absent entry marks the end
+            while (size < entries.length && (entries[size] = palette.getByIndex(size)) != null) {
+                size++;
+            }
+
+            this.localPalette = size == entries.length ? entries : Arrays.copyOf(entries, size);
+            this.globalPalette = null;
+        }
+    }
+
+    private ChunkSectionSnapshot(PackedIntegerArray data, Palette<BlockState> globalPalette) {
+        this.section = null;
+        this.version = 0;
+        this.data = data;
+        this.localPalette = null;
+        this.globalPalette = globalPalette;
+    }
+
+    /**
+     * Creates a snapshot of the given section on the main thread.
+     * @param section The section to copy, or null if the section is absent
+     */
+    public static ChunkSectionSnapshot create(ChunkSection section) {
+        if (section == null || section.isEmpty()) {
+            return EMPTY;
+        }
+
+        return create(section, ((ChunkSectionExtended) section).getModificationCount());
+    }
+
+    /**
+     * Creates a snapshot of a section which is not empty, using the given modification count rather than the one
+     * tracked by the section. This allows snapshots to be taken when the mixins of the mod are not applied.
+     */
+    static ChunkSectionSnapshot create(ChunkSection section, int version) {
+        return new ChunkSectionSnapshot(section, version);
+    }
+
+    /**
+     * Creates a snapshot of packed data using the given global palette, which doesn't belong to any section. This
+     * allows global palettes with any number of states to be tested.
+     */
+    static ChunkSectionSnapshot create(PackedIntegerArray data, Palette<BlockState> globalPalette) {
+        return new ChunkSectionSnapshot(data, globalPalette);
+    }
+
+    /**
+     * @return True if this snapshot still reflects the current contents of the given section
+     */
+    public boolean isCurrent(ChunkSection section) {
+        if (section == null || section.isEmpty()) {
+            return this == EMPTY;
+        }
+
+        return this.section == section && this.version == ((ChunkSectionExtended) section).getModificationCount();
+    }
+
+    public boolean isEmpty() {
+        return this.data == null;
+    }
+
+    /**
+     * @return The packed palette indices of each block in the section, or null if the snapshot is empty
+     */
+    public PackedIntegerArray getData() {
+        return this.data;
+    }
+
+    /**
+     * @return The entries of the section's local palette, or null if the section uses the global palette. The
+     * returned array must not be modified.
+     */
+    public BlockState[] getLocalPalette() {
+        return this.localPalette;
+    }
+
+    /**
+     * Resolves a palette index of this snapshot to its block state.
+     */
+    public BlockState getPaletteEntry(int id) {
+        if (this.localPalette != null) {
+            return id < this.localPalette.length ? this.localPalette[id] : DEFAULT_STATE;
+        }
+
+        if (this.globalPalette != null) {
+            BlockState state = this.globalPalette.getByIndex(id);
+
+            return state != null ? state : DEFAULT_STATE;
+        }
+
+        return DEFAULT_STATE;
+    }
+}
@@ -0,0 +1,20 @@
+package me.jellysquid.mods.sodium.mixin.features.chunk_rendering;
+
+import me.jellysquid.mods.sodium.client.world.BlockStateExtended;
+import net.minecraft.block.AbstractBlock;
+import org.spongepowered.asm.mixin.Mixin;
+
+@Mixin(AbstractBlock.AbstractBlockState.class)
+public class MixinAbstractBlockState implements BlockStateExtended {
+    private int flagTableIndex = -1;
+
+    @Override
+    public int getFlagTableIndex() {
+        return this.flagTableIndex;
+    }
+
+    @Override
+    public void setFlagTableIndex(int index) {
+        this.flagTableIndex = index;
+    }
+}
@@ -0,0 +1,34 @@
+package me.jellysquid.mods.sodium.mixin.features.chunk_rendering;
+
+import me.jellysquid.mods.sodium.client.world.ChunkSectionExtended;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.world.chunk.ChunkSection;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ChunkSection.class)
+public class MixinChunkSection implements ChunkSectionExtended {
+    private int modificationCount;
+
+    /**
+     * Tracks modifications of the section's block data so that snapshots of it can be re-used until it changes.
+     */
+    @Inject(method = "setBlockState(IIILnet/minecraft/block/BlockState;Z)Lnet/minecraft/block/BlockState;", at = @At("HEAD"))
+    private void onSetBlockState(int x, int y, int z, BlockState state, boolean lock, CallbackInfoReturnable<BlockState> cir) {
+        this.modificationCount++;
+    }
+
+    @Inject(method = "fromPacket", at = @At("HEAD"))
+    private void onFromPacket(PacketByteBuf buf, CallbackInfo ci) {
+        this.modificationCount++;
+    }
+
+    @Override
+    public int getModificationCount() {
+        return this.modificationCount;
+    }
+}
@@ -3,6 +3,7 @@ package me.jellysquid.mods.sodium.mixin.features.debug;
 import me.jellysquid.mods.sodium.client.SodiumClientMod;
 import me.jellysquid.mods.sodium.client.render.SodiumWorldRenderer;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderBackend;
+import me.jellysquid.mods.sodium.client.render.occlusion.ShapeOcclusionTable;
 import net.minecraft.client.gui.hud.DebugHud;
 import net.minecraft.util.Formatting;
 import org.spongepowered.asm.mixin.Mixin;
@@ -44,11 +45,14 @@ public abstract class MixinDebugHud {
     }
 
     private static List<String> getChunkRendererDebugStrings() {
-        ChunkRenderBackend<?> backend = SodiumWorldRenderer.getInstance().getChunkRenderer();
+        SodiumWorldRenderer renderer = SodiumWorldRenderer.getInstance();
+        ChunkRenderBackend<?> backend = renderer.getChunkRenderer();
 
         List<String> strings = new ArrayList<>(4);
         strings.add("Chunk Renderer: " + backend.getRendererName());
         strings.addAll(backend.getDebugStrings());
+        strings.add(renderer.getChunkBuildStatistics().getDebugString());
+        strings.add(ShapeOcclusionTable.getDebugString());
 
         return strings;
     }
@@ -0,0 +1,49 @@
+package me.jellysquid.mods.sodium.mixin.features.model;
+
+import me.jellysquid.mods.sodium.client.model.BakedModelExtended;
+import me.jellysquid.mods.sodium.client.model.BasicBakedModelExtended;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.util.math.Direction;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.List;
+import java.util.Map;
+
+@Mixin(BasicBakedModel.class)
+public class MixinBasicBakedModel implements BasicBakedModelExtended, BakedModelExtended {
+    @Shadow
+    @Final
+    protected List<BakedQuad> quads;
+
+    @Shadow
+    @Final
+    protected Map<Direction, List<BakedQuad>> faceQuads;
+
+    private BakedQuad[] cubeFaces;
+    private boolean usesRandom = true;
+
+    @Inject(method = "<init>", at = @At("RETURN"))
+    private void init(CallbackInfo ci) {
+        // Sub-classes may override how quads are selected, so only models of this exact type can be classified
+        if (this.getClass() == BasicBakedModel.class) {
+            this.cubeFaces = BasicBakedModelExtended.findCubeFaces(this.quads, this.faceQuads);
+            this.usesRandom = false;
+        }
+    }
+
+    @Override
+    public BakedQuad[] getCubeFaces() {
+        return this.cubeFaces;
+    }
+
+    @Override
+    public boolean usesRandom() {
+        return this.usesRandom;
+    }
+}
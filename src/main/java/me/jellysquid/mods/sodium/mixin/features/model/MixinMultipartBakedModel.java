@@ -1,5 +1,6 @@
 package me.jellysquid.mods.sodium.mixin.features.model;
 
+import me.jellysquid.mods.sodium.client.model.BakedModelExtended;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.BakedQuad;
@@ -18,8 +19,9 @@ import java.util.*;
 import java.util.function.Predicate;
 
 @Mixin(MultipartBakedModel.class)
-public class MixinMultipartBakedModel {
+public class MixinMultipartBakedModel implements BakedModelExtended {
     private Map<BlockState, List<BakedModel>> stateCacheFast;
+    private boolean usesRandom;
 
     @Shadow
     @Final
@@ -29,6 +31,14 @@ public class MixinMultipartBakedModel {
     @Inject(method = "<init>", at = @At("RETURN"))
     private void init(List<Pair<Predicate<BlockState>, BakedModel>> components, CallbackInfo ci) {
         this.stateCacheFast = new IdentityHashMap<>();
+
+        // The random generator is re-seeded for each component, so it only matters if any of the components use it
+        for (Pair<Predicate<BlockState>, BakedModel> pair : components) {
+            if (BakedModelExtended.usesRandom(pair.getRight())) {
+                this.usesRandom = true;
+                break;
+            }
+        }
     }
 
     /**
@@ -68,4 +78,9 @@ public class MixinMultipartBakedModel {
         return list;
     }
 
+    @Override
+    public boolean usesRandom() {
+        return this.usesRandom;
+    }
+
 }
@@ -3,9 +3,11 @@
 varying vec4 v_Color; // The interpolated vertex color
 varying vec2 v_TexCoord; // The interpolated block texture coordinates
 varying vec2 v_LightCoord; // The interpolated light map texture coordinates
+varying vec2 v_TileCoord; // The interpolated tile coordinates of merged quads
 
 uniform sampler2D u_BlockTex; // The block texture sampler
 uniform sampler2D u_LightTex; // The light map texture sampler
+uniform vec2 u_TileSize; // The size of a single sprite in the block texture, which merged quads repeat
 
 #ifdef USE_TRANSLUCENCY
 uniform sampler2D u_DepthTex; // The opaque depth buffer sampler
@@ -38,7 +40,20 @@ float getFogFactor() {
 
 void main() {
     // Block texture sample
-    vec4 sampleBlockTex = texture2D(u_BlockTex, v_TexCoord);
+    vec4 sampleBlockTex;
+
+    // The gradients need to be calculated outside of the branch, as they are undefined in non-uniform control flow
+    vec2 tileGradX = dFdx(v_TileCoord) * u_TileSize;
+    vec2 tileGradY = dFdy(v_TileCoord) * u_TileSize;
+
+    if (v_TileCoord.x < 128.0) {
+        // Merged quads repeat their sprite once per block, starting at the origin of the sprite given by the texture
+        // coordinates. The gradients of the tile coordinates are used for mipmapping, as the wrapped coordinates jump
+        // back at the edge of each tile.
+        sampleBlockTex = textureGrad(u_BlockTex, v_TexCoord + (fract(v_TileCoord) * u_TileSize), tileGradX, tileGradY);
+    } else {
+        sampleBlockTex = texture2D(u_BlockTex, v_TexCoord);
+    }
 
     // Light map texture sample
     vec4 sampleLightTex = texture2D(u_LightTex, v_LightCoord);
@@ -3,10 +3,12 @@ attribute vec3 a_Pos; // The position of the vertex
 attribute vec4 a_Color; // The color of the vertex
 attribute vec2 a_TexCoord; // The block texture coordinate of the vertex
 attribute vec2 a_LightCoord; // The light map texture coordinate of the vertex
+attribute vec2 a_TileCoord; // The number of times the block texture has repeated at the vertex
 
 varying vec4 v_Color;
 varying vec2 v_TexCoord;
 varying vec2 v_LightCoord;
+varying vec2 v_TileCoord;
 
 #ifdef USE_FOG
 varying float v_FragDistance;
@@ -40,5 +42,6 @@ void main() {
     v_Color = a_Color;
     v_TexCoord = a_TexCoord;
     v_LightCoord = a_LightCoord;
+    v_TileCoord = a_TileCoord;
 }
 
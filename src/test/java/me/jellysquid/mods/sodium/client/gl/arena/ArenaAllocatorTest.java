@@ -0,0 +1,547 @@
+package me.jellysquid.mods.sodium.client.gl.arena;
+
+import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2IntSortedMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaAllocatorTest {
+    @Test
+    void allocTakesSpaceFromTheFrontOfAnEmptyRange() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        assertEquals(0, allocator.alloc(10));
+        assertEquals(10, allocator.alloc(20));
+
+        assertEquals(30, allocator.getUsedBytes());
+        assertEquals(70, allocator.getFreeBytes());
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(30, allocator.getHighWaterMark());
+    }
+
+    @Test
+    void allocFailsWhenNoFreeBlockIsLargeEnough() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        assertEquals(0, allocator.alloc(60));
+        assertEquals(-1, allocator.alloc(50));
+
+        // The failed allocation must not have changed anything
+        assertEquals(60, allocator.getUsedBytes());
+        assertEquals(40, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void allocRejectsEmptyAllocations() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.alloc(0));
+        assertThrows(IllegalArgumentException.class, () -> allocator.alloc(-1));
+    }
+
+    @Test
+    void allocPicksTheSmallestFreeBlockWhichFits() {
+        ArenaAllocator allocator = createWithFreeBlocks(30, 10, 20);
+
+        // Free blocks: [0, 30), [40, 50), [60, 80), [90, 100)
+        assertEquals(40, allocator.alloc(10));
+        assertEquals(60, allocator.alloc(15));
+        assertEquals(0, allocator.alloc(25));
+    }
+
+    @Test
+    void allocPicksTheLowestOffsetBetweenEquallySizedBlocks() {
+        ArenaAllocator allocator = createWithFreeBlocks(10, 10, 10);
+
+        assertEquals(0, allocator.alloc(10));
+        assertEquals(20, allocator.alloc(10));
+        assertEquals(40, allocator.alloc(10));
+    }
+
+    @Test
+    void freeCoalescesWithBothNeighbors() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        int a = allocator.alloc(10);
+        int b = allocator.alloc(10);
+        int c = allocator.alloc(10);
+        allocator.alloc(10);
+
+        allocator.free(a, 10);
+        allocator.free(c, 10);
+
+        assertEquals(3, allocator.getFreeBlockCount());
+
+        allocator.free(b, 10);
+
+        assertEquals(2, allocator.getFreeBlockCount());
+        assertEquals(60, allocator.getLargestFreeBlock());
+        assertEquals(0, allocator.alloc(30));
+        assertEquals(40, allocator.alloc(30));
+    }
+
+    @Test
+    void freeCoalescesWithTheFreeSpaceAtTheEnd() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        allocator.alloc(10);
+        int b = allocator.alloc(10);
+
+        allocator.free(b, 10);
+
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(90, allocator.getLargestFreeBlock());
+        assertEquals(10, allocator.getHighWaterMark());
+    }
+
+    @Test
+    void freeDetectsDoubleFrees() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        int a = allocator.alloc(10);
+        allocator.alloc(10);
+
+        allocator.free(a, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(a, 10));
+
+        // Blocks which only partially overlap free space are rejected as well
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(5, 10));
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(15, 10));
+
+        assertEquals(10, allocator.getUsedBytes());
+    }
+
+    @Test
+    void freeRejectsBlocksOutsideTheRange() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.alloc(100);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(95, 10));
+        assertThrows(IllegalArgumentException.class, () -> allocator.free(10, 0));
+    }
+
+    @Test
+    void growExtendsTheFreeBlockAtTheEnd() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.alloc(60);
+
+        allocator.grow(200);
+
+        assertEquals(200, allocator.getCapacity());
+        assertEquals(60, allocator.getUsedBytes());
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(140, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void growAddsAFreeBlockWhenTheRangeIsFull() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.alloc(100);
+
+        assertEquals(-1, allocator.alloc(1));
+
+        allocator.grow(150);
+
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(100, allocator.alloc(50));
+    }
+
+    @Test
+    void growRejectsSmallerCapacities() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.grow(99));
+    }
+
+    @Test
+    void relocateMovesBlocksToTheFirstFittingBlockBeforeThem() {
+        ArenaAllocator allocator = createWithFreeBlocks(5, 20, 20);
+
+        // Free blocks: [0, 5), [15, 35), [45, 65), [75, 100)
+        assertEquals(15, allocator.relocate(65, 10));
+
+        assertEquals(allocator.getCapacity() - 5 - 20 - 20 - 25, allocator.getUsedBytes());
+        assertEquals(45, allocator.getHighWaterMark());
+    }
+
+    @Test
+    void relocateFailsWhenNoFreeBlockBeforeTheBlockFits() {
+        ArenaAllocator allocator = createWithFreeBlocks(5, 5);
+
+        // Free blocks: [0, 5), [15, 20), [30, 100)
+        int used = allocator.getUsedBytes();
+
+        assertEquals(-1, allocator.relocate(20, 10));
+        assertEquals(-1, allocator.relocate(5, 10));
+
+        assertEquals(used, allocator.getUsedBytes());
+        assertEquals(3, allocator.getFreeBlockCount());
+    }
+
+    @Test
+    void shrinkRemovesFreeSpaceFromTheEnd() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.alloc(40);
+
+        allocator.shrink(60);
+
+        assertEquals(60, allocator.getCapacity());
+        assertEquals(20, allocator.getLargestFreeBlock());
+
+        allocator.shrink(40);
+
+        assertEquals(40, allocator.getCapacity());
+        assertEquals(0, allocator.getFreeBlockCount());
+        assertEquals(-1, allocator.alloc(1));
+    }
+
+    @Test
+    void shrinkRejectsCapacitiesBelowTheHighWaterMark() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        allocator.alloc(40);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.shrink(39));
+        assertThrows(IllegalArgumentException.class, () -> allocator.shrink(101));
+    }
+
+    /**
+     * Performs random operations on an allocator and a simple model which tracks the state of each byte, and checks
+     * after every operation that the free blocks of the allocator are exactly the runs of free bytes in the model. This
+     * verifies both that free space is always fully coalesced and that allocations use the best fitting block.
+     */
+    @Test
+    void matchesReferenceModelUnderRandomOperations() {
+        Random random = new Random(42L);
+
+        for (int round = 0; round < 50; round++) {
+            ReferenceModel model = new ReferenceModel(256 + random.nextInt(256));
+            ArenaAllocator allocator = new ArenaAllocator(model.capacity);
+
+            List<int[]> blocks = new ArrayList<>();
+
+            for (int step = 0; step < 2000; step++) {
+                int op = random.nextInt(10);
+
+                if (op < 5) {
+                    int len = 1 + random.nextInt(32);
+                    int expected = model.findBestFit(len);
+
+                    assertEquals(expected, allocator.alloc(len), "alloc(" + len + ")");
+
+                    if (expected >= 0) {
+                        model.set(expected, len, true);
+                        blocks.add(new int[] { expected, len });
+                    }
+                } else if (op < 9 && !blocks.isEmpty()) {
+                    int[] block = blocks.remove(random.nextInt(blocks.size()));
+
+                    allocator.free(block[0], block[1]);
+                    model.set(block[0], block[1], false);
+                } else if (op == 9 && random.nextBoolean()) {
+                    int capacity = model.capacity + random.nextInt(64);
+
+                    allocator.grow(capacity);
+                    model.resize(capacity);
+                } else if (op == 9) {
+                    int highWaterMark = model.getHighWaterMark();
+                    int capacity = highWaterMark + random.nextInt(model.capacity - highWaterMark + 1);
+
+                    allocator.shrink(capacity);
+                    model.resize(capacity);
+                }
+
+                model.verify(allocator);
+            }
+        }
+    }
+
+    /**
+     * Compacts randomly fragmented ranges, see {@link ArenaAllocatorTest#compact(ArenaAllocator, Int2IntSortedMap, ReferenceModel)}.
+     */
+    @Test
+    void compactionNeverOverlapsAndKeepsCountsConsistent() {
+        Random random = new Random(7L);
+
+        for (int round = 0; round < 200; round++) {
+            ReferenceModel model = new ReferenceModel(1024);
+            ArenaAllocator allocator = new ArenaAllocator(model.capacity);
+
+            Int2IntSortedMap blocks = new Int2IntRBTreeMap();
+
+            // Fragment the range by allocating blocks and then freeing a random subset of them
+            int len;
+
+            while ((len = 1 + random.nextInt(48)) <= allocator.getLargestFreeBlock()) {
+                int start = allocator.alloc(len);
+
+                model.set(start, len, true);
+                blocks.put(start, len);
+            }
+
+            for (int start : blocks.keySet().toIntArray()) {
+                if (random.nextInt(3) == 0) {
+                    int blockLen = blocks.remove(start);
+
+                    allocator.free(start, blockLen);
+                    model.set(start, blockLen, false);
+                }
+            }
+
+            compact(allocator, blocks, model);
+        }
+    }
+
+    @Test
+    void compactionMovesBlocksAfterASingleFreeBlock() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        ReferenceModel model = new ReferenceModel(100);
+
+        Int2IntSortedMap blocks = new Int2IntRBTreeMap();
+
+        for (int len : new int[] { 40, 30, 30 }) {
+            int start = allocator.alloc(len);
+
+            model.set(start, len, true);
+            blocks.put(start, len);
+        }
+
+        allocator.free(0, 40);
+        model.set(0, 40, false);
+        blocks.remove(0);
+
+        // All free space is in one block, but the blocks after it can still be moved into it
+        assertEquals(0.0D, allocator.getFragmentation(), 0.0D);
+        assertFalse(allocator.isCompacted());
+
+        compact(allocator, blocks, model);
+
+        // The last block was moved to the front, while the one before it doesn't fit into the remaining space
+        assertEquals(70, allocator.getCapacity());
+        assertEquals(10, allocator.getFreeBytes());
+        assertTrue(blocks.containsKey(0));
+    }
+
+    @Test
+    void isCompactedOnlyWithoutFreeSpaceBeforeTheLastBlock() {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+        assertTrue(allocator.isCompacted());
+
+        int first = allocator.alloc(40);
+        assertTrue(allocator.isCompacted());
+
+        allocator.alloc(60);
+        assertTrue(allocator.isCompacted());
+
+        allocator.free(first, 40);
+        assertFalse(allocator.isCompacted());
+
+        assertFalse(createWithFreeBlocks(5).isCompacted());
+        assertTrue(new ArenaAllocator(0).isCompacted());
+    }
+
+    @Test
+    void shrinkKeepsCountsConsistent() {
+        ArenaAllocator allocator = createWithFreeBlocks(5, 20);
+
+        // Free blocks: [0, 5), [15, 35), [45, 100)
+        int used = allocator.getUsedBytes();
+
+        allocator.shrink(50);
+
+        assertEquals(used, allocator.getUsedBytes());
+        assertEquals(3, allocator.getFreeBlockCount());
+        assertEquals(5 + 20 + 5, allocator.getFreeBytes());
+
+        allocator.shrink(45);
+
+        assertEquals(used, allocator.getUsedBytes());
+        assertEquals(2, allocator.getFreeBlockCount());
+        assertEquals(20, allocator.getLargestFreeBlock());
+    }
+
+    /**
+     * Runs a compaction pass in the same way as {@link GlBufferArena#compact(int)}, which relocates blocks starting from
+     * the end of the range unless all free space is already at its end, and then shrinks it to its high water mark.
+     * Since the arena copies each block within the same buffer, the new location of a block must never overlap its old
+     * location.
+     */
+    private static void compact(ArenaAllocator allocator, Int2IntSortedMap blocks, ReferenceModel model) {
+        int used = allocator.getUsedBytes();
+
+        if (!allocator.isCompacted()) {
+            relocateBlocks(allocator, blocks, model);
+        }
+
+        assertEquals(used, allocator.getUsedBytes());
+
+        allocator.shrink(allocator.getHighWaterMark());
+        model.resize(model.getHighWaterMark());
+
+        model.verify(allocator);
+
+        // No free space can be left after the last block once the range has been shrunk
+        assertEquals(allocator.getCapacity(), allocator.getHighWaterMark());
+    }
+
+    private static void relocateBlocks(ArenaAllocator allocator, Int2IntSortedMap blocks, ReferenceModel model) {
+        int cursor = Integer.MAX_VALUE;
+
+        while (true) {
+            Int2IntSortedMap remaining = blocks.headMap(cursor);
+
+            if (remaining.isEmpty()) {
+                break;
+            }
+
+            int src = remaining.lastIntKey();
+            int blockLen = remaining.get(src);
+
+            cursor = src;
+
+            int dst = allocator.relocate(src, blockLen);
+
+            if (dst < 0) {
+                continue;
+            }
+
+            assertTrue(dst + blockLen <= src, "Block [" + src + ", " + (src + blockLen) + ") was moved onto itself at " + dst);
+
+            blocks.remove(src);
+            blocks.put(dst, blockLen);
+
+            model.set(src, blockLen, false);
+            model.set(dst, blockLen, true);
+
+            model.verify(allocator);
+        }
+    }
+
+    /**
+     * Creates an allocator with free blocks of the given lengths at the front of its range, each followed by 10 bytes of
+     * allocated space. The rest of the range is free.
+     */
+    private static ArenaAllocator createWithFreeBlocks(int... lengths) {
+        ArenaAllocator allocator = new ArenaAllocator(100);
+
+        List<int[]> gaps = new ArrayList<>();
+
+        for (int len : lengths) {
+            gaps.add(new int[] { allocator.alloc(len), len });
+            allocator.alloc(10);
+        }
+
+        for (int[] gap : gaps) {
+            allocator.free(gap[0], gap[1]);
+        }
+
+        return allocator;
+    }
+
+    private static class ReferenceModel {
+        private boolean[] used;
+        private int capacity;
+
+        ReferenceModel(int capacity) {
+            this.used = new boolean[capacity];
+            this.capacity = capacity;
+        }
+
+        void set(int start, int len, boolean value) {
+            for (int i = start; i < start + len; i++) {
+                assertNotEquals(value, this.used[i], "Byte " + i + " is already in the requested state");
+
+                this.used[i] = value;
+            }
+        }
+
+        void resize(int capacity) {
+            boolean[] used = new boolean[capacity];
+            System.arraycopy(this.used, 0, used, 0, Math.min(capacity, this.capacity));
+
+            this.used = used;
+            this.capacity = capacity;
+        }
+
+        int getHighWaterMark() {
+            int end = this.capacity;
+
+            while (end > 0 && !this.used[end - 1]) {
+                end--;
+            }
+
+            return end;
+        }
+
+        /**
+         * @return The offset of the smallest run of free bytes which can hold the length, preferring the lowest offset
+         * between runs of the same length, or -1 if there is none
+         */
+        int findBestFit(int len) {
+            int best = -1;
+            int bestLen = Integer.MAX_VALUE;
+
+            for (int[] run : this.getFreeRuns()) {
+                if (run[1] >= len && run[1] < bestLen) {
+                    best = run[0];
+                    bestLen = run[1];
+                }
+            }
+
+            return best;
+        }
+
+        List<int[]> getFreeRuns() {
+            List<int[]> runs = new ArrayList<>();
+
+            int i = 0;
+
+            while (i < this.capacity) {
+                if (this.used[i]) {
+                    i++;
+                    continue;
+                }
+
+                int start = i;
+
+                while (i < this.capacity && !this.used[i]) {
+                    i++;
+                }
+
+                runs.add(new int[] { start, i - start });
+            }
+
+            return runs;
+        }
+
+        void verify(ArenaAllocator allocator) {
+            List<int[]> runs = this.getFreeRuns();
+            List<int[]> blocks = new ArrayList<>();
+
+            allocator.forEachFreeBlock((start, len) -> blocks.add(new int[] { start, len }));
+
+            assertEquals(runs.size(), blocks.size(), "Number of free blocks");
+
+            int free = 0;
+            int largest = 0;
+
+            for (int i = 0; i < runs.size(); i++) {
+                assertArrayEquals(runs.get(i), blocks.get(i), "Free block " + i);
+
+                free += runs.get(i)[1];
+                largest = Math.max(largest, runs.get(i)[1]);
+            }
+
+            assertEquals(this.capacity, allocator.getCapacity());
+            assertEquals(this.capacity - free, allocator.getUsedBytes());
+            assertEquals(largest, allocator.getLargestFreeBlock());
+            assertEquals(this.getHighWaterMark(), allocator.getHighWaterMark());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package me.jellysquid.mods.sodium.client.gl.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingAllocatorTest {
+    @Test
+    void allocatesSequentially() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        assertEquals(0, allocator.alloc(10));
+        assertEquals(10, allocator.alloc(20));
+        assertEquals(30, allocator.alloc(70));
+
+        assertEquals(100, allocator.getUsedBytes());
+    }
+
+    @Test
+    void wrapsAroundWhenBlockDoesNotFitBeforeEnd() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        assertEquals(0, allocator.alloc(60));
+        allocator.closeSection("a");
+
+        assertEquals(60, allocator.alloc(30));
+        allocator.closeSection("b");
+
+        allocator.releaseOldestSection();
+
+        // Only 10 bytes are left before the end of the ring, so these are skipped and counted as used
+        assertEquals(0, allocator.alloc(20));
+        assertEquals(30 + 10 + 20, allocator.getUsedBytes());
+
+        allocator.closeSection("c");
+        allocator.releaseOldestSection();
+
+        // The skipped bytes belong to the section which wrapped around and are only released along with it
+        assertEquals(30, allocator.getUsedBytes());
+        assertEquals(20, allocator.alloc(70));
+        assertEquals(100, allocator.getUsedBytes());
+
+        allocator.closeSection("d");
+        allocator.releaseOldestSection();
+
+        assertEquals(70, allocator.getUsedBytes());
+    }
+
+    @Test
+    void failsWhenRingIsFull() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        assertEquals(0, allocator.alloc(100));
+        assertEquals(-1, allocator.alloc(1));
+
+        allocator.closeSection("a");
+
+        assertEquals(-1, allocator.alloc(1));
+
+        allocator.releaseOldestSection();
+
+        assertEquals(0, allocator.alloc(1));
+    }
+
+    @Test
+    void failsWhenFreeSpaceIsNotContiguous() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        allocator.alloc(40);
+        allocator.closeSection("a");
+
+        allocator.alloc(40);
+        allocator.closeSection("b");
+
+        allocator.releaseOldestSection();
+
+        // 60 bytes are free in total, but split into [80, 100) and [0, 40)
+        assertEquals(-1, allocator.alloc(50));
+        assertEquals(40, allocator.getUsedBytes());
+
+        assertEquals(0, allocator.alloc(40));
+        assertEquals(40 + 20 + 40, allocator.getUsedBytes());
+    }
+
+    @Test
+    void failsWhenHeadWouldPassTail() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        allocator.alloc(50);
+        allocator.closeSection("a");
+
+        allocator.alloc(40);
+        allocator.closeSection("b");
+
+        allocator.releaseOldestSection();
+        allocator.alloc(20);
+
+        // The head is now at 20 and the tail at 50
+        assertEquals(-1, allocator.alloc(31));
+        assertEquals(20, allocator.alloc(30));
+    }
+
+    @Test
+    void restartsAtBeginningWhenEmpty() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        allocator.alloc(70);
+        allocator.closeSection("a");
+        allocator.releaseOldestSection();
+
+        // This would not fit after the previous allocation, but the ring is empty
+        assertEquals(0, allocator.alloc(80));
+        assertEquals(80, allocator.getUsedBytes());
+    }
+
+    @Test
+    void releasesSectionsInOrder() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        allocator.alloc(10);
+        allocator.closeSection("a");
+
+        allocator.alloc(20);
+        allocator.alloc(5);
+        allocator.closeSection("b");
+
+        allocator.alloc(30);
+        allocator.closeSection("c");
+
+        assertEquals(3, allocator.getClosedSectionCount());
+        assertEquals(65, allocator.getUsedBytes());
+
+        assertEquals("a", allocator.getOldestFence());
+        assertEquals("a", allocator.releaseOldestSection());
+        assertEquals(55, allocator.getUsedBytes());
+
+        assertEquals("b", allocator.getOldestFence());
+        assertEquals("b", allocator.releaseOldestSection());
+        assertEquals(30, allocator.getUsedBytes());
+
+        assertEquals("c", allocator.releaseOldestSection());
+        assertEquals(0, allocator.getUsedBytes());
+
+        assertNull(allocator.getOldestFence());
+        assertEquals(0, allocator.getClosedSectionCount());
+    }
+
+    @Test
+    void openSectionIsNotReleased() {
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        allocator.alloc(10);
+        allocator.closeSection("a");
+
+        allocator.alloc(20);
+
+        assertTrue(allocator.hasOpenSection());
+        assertEquals("a", allocator.releaseOldestSection());
+        assertEquals(20, allocator.getUsedBytes());
+
+        assertThrows(IllegalStateException.class, allocator::releaseOldestSection);
+    }
+
+    @Test
+    void rejectsInvalidOperations() {
+        assertThrows(IllegalArgumentException.class, () -> new RingAllocator<String>(0));
+
+        RingAllocator<String> allocator = new RingAllocator<>(100);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.alloc(0));
+        assertThrows(IllegalStateException.class, () -> allocator.closeSection("a"));
+        assertThrows(IllegalStateException.class, allocator::releaseOldestSection);
+
+        assertEquals(-1, allocator.alloc(101));
+        assertFalse(allocator.hasOpenSection());
+    }
+
+    @Test
+    void liveBlocksNeverOverlapUnderRandomOperations() {
+        Random random = new Random(1234L);
+
+        for (int round = 0; round < 50; round++) {
+            int capacity = 64 + random.nextInt(512);
+
+            RingAllocator<Integer> allocator = new RingAllocator<>(capacity);
+
+            // The blocks of each closed section which has not been released yet, and those of the open section
+            Deque<List<int[]>> closed = new ArrayDeque<>();
+            List<int[]> open = new ArrayList<>();
+
+            int nextFence = 0;
+
+            for (int op = 0; op < 2000; op++) {
+                int action = random.nextInt(10);
+
+                if (action < 6) {
+                    int len = 1 + random.nextInt(capacity / 4);
+                    int start = allocator.alloc(len);
+
+                    if (start >= 0) {
+                        assertTrue(start + len <= capacity, "Block must not extend past the end of the ring");
+
+                        open.add(new int[] { start, len });
+                    }
+                } else if (action < 8) {
+                    if (allocator.hasOpenSection()) {
+                        allocator.closeSection(nextFence++);
+
+                        closed.addLast(open);
+                        open = new ArrayList<>();
+                    }
+                } else if (!closed.isEmpty()) {
+                    Integer expected = nextFence - closed.size();
+
+                    assertEquals(expected, allocator.releaseOldestSection());
+
+                    closed.removeFirst();
+                }
+
+                boolean[] used = new boolean[capacity];
+                int liveBytes = 0;
+
+                for (List<int[]> section : closed) {
+                    liveBytes += markBlocks(used, section);
+                }
+
+                liveBytes += markBlocks(used, open);
+
+                assertEquals(closed.size(), allocator.getClosedSectionCount());
+                assertTrue(allocator.getUsedBytes() >= liveBytes, "Used bytes must include all live blocks");
+                assertTrue(allocator.getUsedBytes() <= capacity, "Used bytes must not exceed the capacity");
+
+                if (closed.isEmpty() && open.isEmpty()) {
+                    assertEquals(0, allocator.getUsedBytes());
+                }
+            }
+        }
+    }
+
+    private static int markBlocks(boolean[] used, List<int[]> blocks) {
+        int bytes = 0;
+
+        for (int[] block : blocks) {
+            for (int i = block[0]; i < block[0] + block[1]; i++) {
+                assertFalse(used[i], "Byte " + i + " belongs to more than one live block");
+
+                used[i] = true;
+            }
+
+            bytes += block[1];
+        }
+
+        return bytes;
+    }
+}
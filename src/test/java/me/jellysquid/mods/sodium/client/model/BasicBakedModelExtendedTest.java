@@ -0,0 +1,193 @@
+package me.jellysquid.mods.sodium.client.model;
+
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BasicBakedModel;
+import net.minecraft.client.render.model.json.ModelOverrideList;
+import net.minecraft.client.render.model.json.ModelTransformation;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static me.jellysquid.mods.sodium.client.util.ModelQuadUtil.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasicBakedModelExtendedTest {
+    @Test
+    void emitsSameQuadsAsGenericPathForFullCube() {
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        BakedModel model = createModel(Collections.emptyList(), faceQuads);
+
+        BakedQuad[] faces = BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads);
+        assertNotNull(faces);
+
+        // Every combination of culled sides, as the fast path skips culled faces itself
+        for (int culled = 0; culled < (1 << DirectionUtil.DIRECTION_COUNT); culled++) {
+            assertEquals(getGenericQuads(model, culled), getCubeQuads(faces, culled), "Culled sides " + Integer.toBinaryString(culled));
+        }
+    }
+
+    @Test
+    void indexesFacesByDirection() {
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        BakedQuad[] faces = BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads);
+
+        assertNotNull(faces);
+        assertEquals(DirectionUtil.DIRECTION_COUNT, faces.length);
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            assertSame(faceQuads.get(dir).get(0), faces[dir.ordinal()]);
+        }
+    }
+
+    @Test
+    void fallsBackForUnculledQuads() {
+        List<BakedQuad> quads = Collections.singletonList(createQuad(Direction.UP, 0.5f, 0.0f, 1.0f));
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(quads, createCubeFaceQuads()));
+    }
+
+    @Test
+    void fallsBackForMissingFace() {
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        faceQuads.put(Direction.NORTH, Collections.emptyList());
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+
+        faceQuads.remove(Direction.NORTH);
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+    }
+
+    @Test
+    void fallsBackForLayeredFace() {
+        // Such as the tinted overlay on the sides of grass blocks
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        faceQuads.put(Direction.EAST, Arrays.asList(createQuad(Direction.EAST, 0.0f, 0.0f, 1.0f), createQuad(Direction.EAST, 0.0f, 0.0f, 1.0f)));
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+    }
+
+    @Test
+    void fallsBackForQuadFacingOtherDirection() {
+        // The quad is culled by the top neighbor but faces downwards, such as the inner faces of some models
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        faceQuads.put(Direction.UP, Collections.singletonList(createQuad(Direction.DOWN, 0.0f, 0.0f, 1.0f)));
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+    }
+
+    @Test
+    void fallsBackForPartialFace() {
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        faceQuads.put(Direction.SOUTH, Collections.singletonList(createQuad(Direction.SOUTH, 0.0f, 0.0f, 0.5f)));
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+    }
+
+    @Test
+    void fallsBackForInsetFace() {
+        Map<Direction, List<BakedQuad>> faceQuads = createCubeFaceQuads();
+        faceQuads.put(Direction.DOWN, Collections.singletonList(createQuad(Direction.DOWN, 0.25f, 0.0f, 1.0f)));
+
+        assertNull(BasicBakedModelExtended.findCubeFaces(Collections.emptyList(), faceQuads));
+    }
+
+    /**
+     * Collects the quads emitted by the generic path of the block renderer, skipping the sides in the culled mask.
+     */
+    private static List<BakedQuad> getGenericQuads(BakedModel model, int culled) {
+        List<BakedQuad> emitted = new ArrayList<>();
+        Random random = new Random(42L);
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            List<BakedQuad> sided = model.getQuads(null, dir, random);
+
+            if (!sided.isEmpty() && (culled & (1 << dir.ordinal())) == 0) {
+                emitted.addAll(sided);
+            }
+        }
+
+        emitted.addAll(model.getQuads(null, null, random));
+
+        return emitted;
+    }
+
+    /**
+     * Collects the quads emitted by the cube path of the block renderer, skipping the sides in the culled mask.
+     */
+    private static List<BakedQuad> getCubeQuads(BakedQuad[] faces, int culled) {
+        List<BakedQuad> emitted = new ArrayList<>();
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            if ((culled & (1 << dir.ordinal())) == 0) {
+                emitted.add(faces[dir.ordinal()]);
+            }
+        }
+
+        return emitted;
+    }
+
+    private static BakedModel createModel(List<BakedQuad> quads, Map<Direction, List<BakedQuad>> faceQuads) {
+        return new BasicBakedModel(quads, faceQuads, true, true, false, null, ModelTransformation.NONE, ModelOverrideList.EMPTY);
+    }
+
+    /**
+     * Creates the culled quads of a full cube, using the same layout of the face map as models baked by the game.
+     */
+    private static Map<Direction, List<BakedQuad>> createCubeFaceQuads() {
+        Map<Direction, List<BakedQuad>> faceQuads = new EnumMap<>(Direction.class);
+
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            faceQuads.put(dir, Collections.singletonList(createQuad(dir, 0.0f, 0.0f, 1.0f)));
+        }
+
+        return faceQuads;
+    }
+
+    /**
+     * Creates a square quad facing the given direction.
+     *
+     * @param depth The distance of the quad from the side of the block it faces
+     * @param min The minimum coordinate of the quad on both axes of the side
+     * @param max The maximum coordinate of the quad on both axes of the side
+     */
+    private static BakedQuad createQuad(Direction face, float depth, float min, float max) {
+        float plane = face.getDirection() == Direction.AxisDirection.POSITIVE ? 1.0f - depth : depth;
+
+        float[] u = new float[] { min, min, max, max };
+        float[] v = new float[] { min, max, max, min };
+
+        int[] data = new int[VERTEX_SIZE * 4];
+
+        for (int i = 0; i < 4; i++) {
+            float x, y, z;
+
+            switch (face.getAxis()) {
+                case X:
+                    x = plane;
+                    y = u[i];
+                    z = v[i];
+                    break;
+                case Y:
+                    x = u[i];
+                    y = plane;
+                    z = v[i];
+                    break;
+                default:
+                    x = u[i];
+                    y = v[i];
+                    z = plane;
+                    break;
+            }
+
+            data[vertexOffset(i) + POSITION_INDEX] = Float.floatToRawIntBits(x);
+            data[vertexOffset(i) + POSITION_INDEX + 1] = Float.floatToRawIntBits(y);
+            data[vertexOffset(i) + POSITION_INDEX + 2] = Float.floatToRawIntBits(z);
+        }
+
+        return new BakedQuad(data, -1, face, null, true);
+    }
+}
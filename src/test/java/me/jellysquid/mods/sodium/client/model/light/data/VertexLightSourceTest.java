@@ -0,0 +1,56 @@
+package me.jellysquid.mods.sodium.client.model.light.data;
+
+import me.jellysquid.mods.sodium.client.model.light.LightMode;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VertexLightSourceTest {
+    private static final int[] MODES = new int[] { VertexLightSource.NONE, VertexLightSource.FLAT_BLOCK, VertexLightSource.FLAT_FACE, VertexLightSource.SMOOTH_FACE };
+
+    @Test
+    void unpacksEverySource() {
+        for (int mode : MODES) {
+            for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                for (int corner = 0; corner < 4; corner++) {
+                    int source = VertexLightSource.pack(mode, face, corner);
+
+                    assertEquals(mode, VertexLightSource.getMode(source));
+                    assertEquals(face, VertexLightSource.getFace(source));
+                    assertEquals(corner, VertexLightSource.getCorner(source));
+                }
+            }
+        }
+    }
+
+    @Test
+    void survivesStorageAsByte() {
+        // The sources of retained vertices are stored as bytes, which are sign-extended when read back
+        for (int mode : MODES) {
+            for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                for (int corner = 0; corner < 4; corner++) {
+                    int source = VertexLightSource.pack(mode, face, corner);
+                    int stored = (byte) source;
+
+                    assertTrue(source >= 0 && source < 128, "source must fit into the low 7 bits");
+                    assertEquals(source, stored);
+                }
+            }
+        }
+    }
+
+    @Test
+    void selectsLightModeOfSource() {
+        for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+            assertEquals(LightMode.FLAT, VertexLightSource.getLightMode(VertexLightSource.pack(VertexLightSource.FLAT_BLOCK, face, 0)));
+            assertEquals(LightMode.FLAT, VertexLightSource.getLightMode(VertexLightSource.pack(VertexLightSource.FLAT_FACE, face, 1)));
+            assertEquals(LightMode.SMOOTH, VertexLightSource.getLightMode(VertexLightSource.pack(VertexLightSource.SMOOTH_FACE, face, 3)));
+
+            int none = VertexLightSource.pack(VertexLightSource.NONE, face, 2);
+
+            assertThrows(IllegalArgumentException.class, () -> VertexLightSource.getLightMode(none));
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.compile.buffers.ChunkModelBuffers;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshData;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkMeshIndex;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.format.DefaultModelVertexFormats;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
+import me.jellysquid.mods.sodium.client.util.UnsafeUtil;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkBuildBuffersTest {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    // The size of each vertex and the offset of its color attribute in the vertex format used by these tests
+    private static final int STRIDE = 32;
+    private static final int COLOR_OFFSET = 12;
+
+    // The layers which blocks render into, and the render pass of each
+    private static final RenderLayer[] LAYERS = new RenderLayer[] { RenderLayer.getSolid(), RenderLayer.getCutout(), RenderLayer.getTranslucent() };
+    private static final BlockRenderPass[] PASSES = new BlockRenderPass[] { BlockRenderPass.SOLID, BlockRenderPass.CUTOUT, BlockRenderPass.TRANSLUCENT };
+
+    private final ChunkBuildBuffers buffers = new ChunkBuildBuffers(DefaultModelVertexFormats.MODEL_VERTEX_SFP, BlockRenderPassManager.createDefaultMappings(), null);
+
+    @BeforeAll
+    static void disableUnsafe() {
+        // The unsafe vertex writers need native memory access which isn't available outside of the game
+        UnsafeUtil.setEnabled(false);
+    }
+
+    @AfterAll
+    static void restoreUnsafe() {
+        UnsafeUtil.setEnabled(true);
+    }
+
+    @Test
+    void indexesVerticesOfEachBlock() {
+        int[] blocks = createSection(new Random(1L));
+        Build build = this.buildFully(blocks);
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshIndex.Pass index = build.index.getPass(pass);
+
+            if (index == null) {
+                continue;
+            }
+
+            // Views of a buffer are always big-endian, but the vertex data is written in native order
+            ByteBuffer data = index.getVertexData().order(ByteOrder.nativeOrder());
+
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                BufferSlice slice = index.getSlice(facing);
+
+                if (slice == null) {
+                    continue;
+                }
+
+                short[] indexBlocks = index.getBlocks(facing);
+                int[] offsets = index.getOffsets(facing);
+
+                assertEquals(0, offsets[0]);
+                assertEquals(slice.len / STRIDE, index.getLightSources(facing).length);
+
+                for (int i = 0; i < indexBlocks.length; i++) {
+                    int start = offsets[i];
+                    int end = i + 1 < indexBlocks.length ? offsets[i + 1] : slice.len;
+
+                    assertTrue(i == 0 || indexBlocks[i - 1] < indexBlocks[i], "blocks must be ascending");
+                    assertTrue(start < end, "blocks must own at least one vertex");
+
+                    // Every vertex in the range of a block must have been written by that block
+                    for (int offset = start; offset < end; offset += STRIDE) {
+                        int color = data.getInt(slice.start + offset + COLOR_OFFSET);
+
+                        assertEquals(indexBlocks[i], getBlockOfColor(color));
+                    }
+                }
+
+                // Every block which wrote into the facing must be listed
+                boolean[] present = new boolean[SECTION_BLOCK_COUNT];
+
+                for (short indexBlock : indexBlocks) {
+                    present[indexBlock] = true;
+                }
+
+                for (int block = 0; block < SECTION_BLOCK_COUNT; block++) {
+                    assertEquals(getQuadCount(blocks[block], pass, facing) > 0, present[block], "block " + block);
+                }
+            }
+        }
+    }
+
+    @Test
+    void patchesBlocksAtStartOfRange() {
+        this.assertPatchMatchesRebuild(0, 1, 2, 16, 256);
+    }
+
+    @Test
+    void patchesBlocksInMiddleOfRange() {
+        // Both sides of a word boundary in the set of dirty blocks
+        this.assertPatchMatchesRebuild(63, 64, 1000, 2047, 2048, 2049);
+    }
+
+    @Test
+    void patchesBlocksAtEndOfRange() {
+        this.assertPatchMatchesRebuild(3839, 4032, 4094, 4095);
+    }
+
+    @Test
+    void patchesWithoutDirtyBlocks() {
+        this.assertPatchMatchesRebuild();
+    }
+
+    @Test
+    void patchesEveryBlock() {
+        int[] dirty = new int[SECTION_BLOCK_COUNT];
+
+        for (int i = 0; i < dirty.length; i++) {
+            dirty[i] = i;
+        }
+
+        this.assertPatchMatchesRebuild(dirty);
+    }
+
+    @Test
+    void patchesPatchedMesh() {
+        Random random = new Random(2L);
+
+        int[] blocks = createSection(random);
+        ChunkMeshIndex index = this.buildFully(blocks).index;
+
+        // The index of a patched mesh must describe its vertices as well as that of a full build
+        for (int i = 0; i < 16; i++) {
+            IntArrayList dirty = new IntArrayList();
+
+            for (int j = random.nextInt(32); j >= 0; j--) {
+                int block = random.nextInt(SECTION_BLOCK_COUNT);
+
+                blocks[block] = createBlock(random);
+                dirty.add(block);
+            }
+
+            Build patched = this.buildPatched(blocks, index, dirty);
+            assertBuildsEqual(this.buildFully(blocks), patched);
+
+            index = patched.index;
+        }
+    }
+
+    @Test
+    void removesEmptyPasses() {
+        int[] blocks = new int[SECTION_BLOCK_COUNT];
+        blocks[100] = createBlock(0, 1);
+
+        ChunkMeshIndex index = this.buildFully(blocks).index;
+        assertNotNull(index.getPass(BlockRenderPass.CUTOUT));
+
+        blocks[100] = 0;
+
+        Build patched = this.buildPatched(blocks, index, IntArrayList.wrap(new int[] { 100 }));
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            assertNull(patched.meshes[pass.ordinal()]);
+            assertNull(patched.index.getPass(pass));
+        }
+    }
+
+    @Test
+    void relightsRetainedVertices() {
+        int[] blocks = createSection(new Random(4L));
+        ChunkMeshIndex previous = this.buildFully(blocks, 0).index;
+
+        // Blocks with vertices whose light can't be re-computed are rendered again, as done by the incremental rebuild
+        // task when the light of a section changes
+        long[] dirtyBlocks = new long[ChunkMeshIndex.BLOCK_SET_LENGTH];
+        previous.markBlocksWithoutLightSources(dirtyBlocks);
+
+        assertFalse(ChunkMeshIndex.getBlockSetEntries(dirtyBlocks).isEmpty());
+
+        Build stale = this.buildPatched(blocks, previous, dirtyBlocks, 1, null);
+        Build relit = this.buildPatched(blocks, previous, dirtyBlocks, 1, (block, source) -> relight(block, source, 1));
+        Build fresh = this.buildFully(blocks, 1);
+
+        // Without relighting, the retained vertices would keep their old light
+        assertNotEquals(fresh.index.getPass(BlockRenderPass.SOLID).getVertexData(), stale.index.getPass(BlockRenderPass.SOLID).getVertexData());
+
+        assertBuildsEqual(fresh, relit);
+    }
+
+    @Test
+    void relightsRetainedVerticesWhilePatchingBlocks() {
+        Random random = new Random(5L);
+
+        int[] blocks = createSection(random);
+        ChunkMeshIndex previous = this.buildFully(blocks, 0).index;
+
+        IntArrayList changed = new IntArrayList();
+
+        for (int i = 0; i < 64; i++) {
+            int block = random.nextInt(SECTION_BLOCK_COUNT);
+
+            blocks[block] = random.nextBoolean() ? createBlock(random) : 0;
+            changed.add(block);
+        }
+
+        long[] dirtyBlocks = ChunkMeshIndex.createBlockSet(changed);
+        previous.markBlocksWithoutLightSources(dirtyBlocks);
+
+        Build relit = this.buildPatched(blocks, previous, dirtyBlocks, 2, (block, source) -> relight(block, source, 2));
+
+        assertBuildsEqual(this.buildFully(blocks, 2), relit);
+    }
+
+    /**
+     * Replaces the given blocks of a random section and checks that patching the mesh of the section with the new
+     * blocks produces exactly the same vertex data and index as rendering every block again.
+     */
+    private void assertPatchMatchesRebuild(int... dirty) {
+        Random random = new Random(3L);
+
+        int[] blocks = createSection(random);
+        ChunkMeshIndex previous = this.buildFully(blocks).index;
+
+        for (int i = 0; i < dirty.length; i++) {
+            int block = dirty[i];
+
+            // Add or remove the geometry of every third block, and replace that of the others
+            if (i % 3 == 0) {
+                blocks[block] = blocks[block] == 0 ? createBlock(random) : 0;
+            } else {
+                blocks[block] = createBlock(random);
+            }
+        }
+
+        assertBuildsEqual(this.buildFully(blocks), this.buildPatched(blocks, previous, IntArrayList.wrap(dirty)));
+    }
+
+    private Build buildFully(int[] blocks) {
+        return this.buildFully(blocks, 0);
+    }
+
+    /**
+     * @param light The light data of the section, as passed to {@link ChunkBuildBuffersTest#getLight(int, int, int)}
+     */
+    private Build buildFully(int[] blocks, int light) {
+        this.buffers.init(new ChunkRenderData.Builder(), true, false);
+
+        for (int block = 0; block < SECTION_BLOCK_COUNT; block++) {
+            renderBlock(this.buffers, block, blocks[block], light);
+        }
+
+        Build build = new Build();
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            build.meshes[pass.ordinal()] = this.buffers.createMesh(pass);
+        }
+
+        build.index = this.buffers.createMeshIndex();
+
+        return build;
+    }
+
+    /**
+     * Patches the meshes of a previous build in the same way as {@link me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderIncrementalRebuildTask}.
+     */
+    private Build buildPatched(int[] blocks, ChunkMeshIndex previous, IntArrayList dirty) {
+        return this.buildPatched(blocks, previous, ChunkMeshIndex.createBlockSet(dirty), 0, null);
+    }
+
+    private Build buildPatched(int[] blocks, ChunkMeshIndex previous, long[] dirtyBlocks, int light, ChunkBuildBuffers.VertexRelighter relighter) {
+        this.buffers.init(new ChunkRenderData.Builder(), true, false);
+
+        for (int block : ChunkMeshIndex.getBlockSetEntries(dirtyBlocks)) {
+            renderBlock(this.buffers, block, blocks[block], light);
+        }
+
+        Build build = new Build();
+
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            build.meshes[pass.ordinal()] = this.buffers.createPatchedMesh(pass, previous.getPass(pass), dirtyBlocks, relighter);
+        }
+
+        build.index = this.buffers.createMeshIndex();
+
+        return build;
+    }
+
+    private static void assertBuildsEqual(Build expected, Build actual) {
+        for (BlockRenderPass pass : BlockRenderPass.VALUES) {
+            ChunkMeshData expectedMesh = expected.meshes[pass.ordinal()];
+            ChunkMeshData actualMesh = actual.meshes[pass.ordinal()];
+
+            if (expectedMesh == null) {
+                assertNull(actualMesh, pass + " should have no mesh");
+                assertNull(actual.index.getPass(pass));
+
+                continue;
+            }
+
+            assertNotNull(actualMesh, pass + " should have a mesh");
+
+            assertEquals(describeSlices(expectedMesh), describeSlices(actualMesh), pass + " slices");
+            assertEquals(expectedMesh.takeVertexData().buffer, actualMesh.takeVertexData().buffer, pass + " vertex data");
+
+            ChunkMeshIndex.Pass expectedIndex = expected.index.getPass(pass);
+            ChunkMeshIndex.Pass actualIndex = actual.index.getPass(pass);
+
+            assertEquals(expectedIndex.getVertexData(), actualIndex.getVertexData(), pass + " retained vertex data");
+
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                String name = pass + "/" + facing;
+
+                assertEquals(describeSlice(expectedIndex.getSlice(facing)), describeSlice(actualIndex.getSlice(facing)), name + " slice");
+                assertArrayEquals(expectedIndex.getBlocks(facing), actualIndex.getBlocks(facing), name + " blocks");
+                assertArrayEquals(expectedIndex.getOffsets(facing), actualIndex.getOffsets(facing), name + " offsets");
+                assertArrayEquals(expectedIndex.getLightSources(facing), actualIndex.getLightSources(facing), name + " light sources");
+            }
+        }
+    }
+
+    private static String describeSlices(ChunkMeshData mesh) {
+        StringBuilder str = new StringBuilder();
+
+        for (Map.Entry<ModelQuadFacing, BufferSlice> entry : mesh.getSlices()) {
+            str.append(entry.getKey()).append('=').append(describeSlice(entry.getValue())).append(' ');
+        }
+
+        return str.toString();
+    }
+
+    private static String describeSlice(BufferSlice slice) {
+        return slice == null ? "none" : slice.start + "+" + slice.len;
+    }
+
+    private static int[] createSection(Random random) {
+        int[] blocks = new int[SECTION_BLOCK_COUNT];
+
+        for (int i = 0; i < blocks.length; i++) {
+            if (random.nextInt(3) != 0) {
+                blocks[i] = createBlock(random);
+            }
+        }
+
+        return blocks;
+    }
+
+    private static int createBlock(Random random) {
+        return createBlock(random.nextInt(ModelQuadFacing.COUNT), random.nextInt(LAYERS.length));
+    }
+
+    /**
+     * Creates a block which renders two quads into the given facing and one quad into the next facing of the given
+     * layer. Air is represented by zero.
+     */
+    private static int createBlock(int facing, int layer) {
+        return 1 + facing + (layer * ModelQuadFacing.COUNT);
+    }
+
+    private static int getLayer(int block) {
+        return (block - 1) / ModelQuadFacing.COUNT;
+    }
+
+    /**
+     * @return The number of quads written by the block into the given pass and facing
+     */
+    private static int getQuadCount(int block, BlockRenderPass pass, ModelQuadFacing facing) {
+        if (block == 0 || PASSES[getLayer(block)] != pass) {
+            return 0;
+        }
+
+        int first = (block - 1) % ModelQuadFacing.COUNT;
+
+        if (facing.ordinal() == first) {
+            return 2;
+        } else if (facing.ordinal() == (first + 1) % ModelQuadFacing.COUNT) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Writes the geometry of a block in the same way as the block renderers, and records it as belonging to the block.
+     */
+    private static void renderBlock(ChunkBuildBuffers buffers, int index, int block, int light) {
+        if (block == 0) {
+            return;
+        }
+
+        ChunkModelBuffers layerBuffers = buffers.get(LAYERS[getLayer(block)]);
+
+        for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+            ModelVertexSink sink = layerBuffers.getSink(facing);
+            int count = getQuadCount(block, PASSES[getLayer(block)], facing);
+
+            for (int quad = 0; quad < count; quad++) {
+                sink.ensureCapacity(4);
+
+                for (int vertex = 0; vertex < 4; vertex++) {
+                    float x = ChunkMeshIndex.unpackX(index) + ((vertex & 1) * 0.5f);
+                    float y = ChunkMeshIndex.unpackY(index) + (quad * 0.25f);
+                    float z = ChunkMeshIndex.unpackZ(index) + ((vertex >> 1) * 0.5f);
+
+                    int source = getLightSource(block, vertex);
+
+                    sink.writeQuad(x, y, z, createColor(index, block), quad, vertex, getLight(index, source, light));
+                    layerBuffers.recordLightSource(facing, source);
+                }
+
+                sink.flush();
+            }
+        }
+
+        buffers.trackBlock(index);
+    }
+
+    /**
+     * Returns the light source of a vertex. Every fifth kind of block has a vertex whose light was interpolated, which
+     * can't be re-computed without rendering the block again.
+     */
+    private static int getLightSource(int block, int vertex) {
+        if (block % 5 == 0 && vertex == 0) {
+            return VertexLightSource.pack(VertexLightSource.NONE, Direction.UP, 0);
+        }
+
+        int mode = (block & 1) == 0 ? VertexLightSource.FLAT_FACE : VertexLightSource.SMOOTH_FACE;
+
+        return VertexLightSource.pack(mode, DirectionUtil.ALL_DIRECTIONS[block % 6], vertex);
+    }
+
+    /**
+     * Returns the packed light map coordinates of a vertex, as a light pipeline would compute them from the given
+     * source. Each value of {@code light} stands for different light data of the section.
+     */
+    private static int getLight(int index, int source, int light) {
+        int hash = (((index * 31) + source) * 31 + light) * 0x9E3779B9;
+        hash ^= hash >>> 16;
+
+        return ((hash & 0xF0) << 16) | ((hash >>> 8) & 0xF0);
+    }
+
+    /**
+     * Re-computes the light of a retained vertex in the same way as the light pipelines, which can't handle vertices
+     * without a light source.
+     */
+    private static int relight(int index, int source, int light) {
+        assertNotEquals(VertexLightSource.NONE, VertexLightSource.getMode(source), "vertex of block " + index + " can't be relit");
+
+        return getLight(index, source, light);
+    }
+
+    /**
+     * Encodes the block index into the color of a vertex so that the block which wrote it can be identified.
+     */
+    private static int createColor(int index, int block) {
+        return (index << 16) | block;
+    }
+
+    private static int getBlockOfColor(int color) {
+        return color >>> 16;
+    }
+
+    private static class Build {
+        private final ChunkMeshData[] meshes = new ChunkMeshData[BlockRenderPass.COUNT];
+        private ChunkMeshIndex index;
+    }
+}
@@ -0,0 +1,158 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkCameraContext;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderBackend;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderListIterator;
+import net.minecraft.client.util.math.MatrixStack;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkBuildResultTest {
+    @Test
+    void uploadsResultOfLatestBuild() {
+        TestRenderContainer render = new TestRenderContainer();
+        ChunkBuildResult<TestGraphicsState> result = createResult(render);
+
+        assertTrue(result.isCurrent());
+    }
+
+    @Test
+    void discardsSupersededResult() {
+        TestRenderContainer render = new TestRenderContainer();
+
+        ChunkBuildResult<TestGraphicsState> first = createResult(render);
+        ChunkBuildResult<TestGraphicsState> second = createResult(render);
+
+        assertFalse(first.isCurrent());
+        assertTrue(second.isCurrent());
+    }
+
+    @Test
+    void discardsResultOfDeletedRender() {
+        TestRenderContainer render = new TestRenderContainer();
+        ChunkBuildResult<TestGraphicsState> result = createResult(render);
+
+        // The build version is left untouched by the deletion, so the result would otherwise be uploaded and create
+        // graphics state for a render which will never delete it again
+        render.delete();
+
+        assertEquals(result.version, render.getBuildVersion());
+        assertFalse(result.isCurrent());
+    }
+
+    @Test
+    void filtersPendingUploads() {
+        TestRenderContainer kept = new TestRenderContainer();
+        TestRenderContainer superseded = new TestRenderContainer();
+        TestRenderContainer deleted = new TestRenderContainer();
+
+        ChunkBuildResult<TestGraphicsState> current = createResult(kept);
+
+        List<ChunkBuildResult<TestGraphicsState>> uploads = new ArrayList<>();
+        uploads.add(createResult(superseded));
+        uploads.add(current);
+        uploads.add(createResult(deleted));
+        uploads.add(createResult(superseded));
+
+        deleted.delete();
+
+        // The same filter as the one applied to the pending uploads of the chunk builder
+        uploads.removeIf(result -> !result.isCurrent());
+
+        assertEquals(2, uploads.size());
+        assertSame(current, uploads.get(0));
+        assertSame(superseded, uploads.get(1).render);
+    }
+
+    @Test
+    void ignoresDroppedBuildOfDeletedRender() {
+        TestRenderContainer render = new TestRenderContainer();
+        int version = render.createBuildVersion();
+
+        render.delete();
+        render.rescheduleDroppedBuild(version, null, true);
+
+        assertFalse(render.needsRebuild());
+        assertFalse(render.needsRelight());
+    }
+
+    private static ChunkBuildResult<TestGraphicsState> createResult(TestRenderContainer render) {
+        return new ChunkBuildResult<>(render, ChunkRenderData.EMPTY, render.createBuildVersion());
+    }
+
+    /**
+     * A render without a world renderer, which would otherwise be notified of every change to the render's data.
+     */
+    private static class TestRenderContainer extends ChunkRenderContainer<TestGraphicsState> {
+        private TestRenderContainer() {
+            super(new TestRenderBackend(), null, 0, 0, 0, null);
+        }
+
+        @Override
+        public void setData(ChunkRenderData info, int version) {
+
+        }
+    }
+
+    private static class TestGraphicsState extends ChunkGraphicsState {
+        private TestGraphicsState(ChunkRenderContainer<?> container) {
+            super(container);
+        }
+
+        @Override
+        public void delete() {
+
+        }
+    }
+
+    private static class TestRenderBackend implements ChunkRenderBackend<TestGraphicsState> {
+        @Override
+        public void upload(Iterator<ChunkBuildResult<TestGraphicsState>> queue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void render(ChunkRenderListIterator<TestGraphicsState> renders, ChunkCameraContext camera) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createShaders() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void begin(MatrixStack matrixStack, boolean translucent) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void end(MatrixStack matrixStack) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChunkVertexType getVertexType() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Class<TestGraphicsState> getGraphicsStateType() {
+            return TestGraphicsState.class;
+        }
+    }
+}
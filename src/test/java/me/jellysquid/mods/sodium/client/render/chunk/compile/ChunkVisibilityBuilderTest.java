@@ -0,0 +1,233 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile;
+
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkVisibilityData;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.render.chunk.ChunkOcclusionData;
+import net.minecraft.client.render.chunk.ChunkOcclusionDataBuilder;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkVisibilityBuilderTest {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    @Test
+    void matchesVanillaForEmptySection() {
+        assertMatchesVanilla(new boolean[SECTION_BLOCK_COUNT], "empty");
+    }
+
+    @Test
+    void matchesVanillaForFullSection() {
+        assertMatchesVanilla(createFullSection(), "full");
+    }
+
+    @Test
+    void matchesVanillaForHollowShell() {
+        assertMatchesVanilla(createShell(), "hollow shell");
+    }
+
+    @Test
+    void matchesVanillaForShellWithHoles() {
+        // A hole in a single face, in two faces, and in all faces
+        for (int faces : new int[] { 0b000001, 0b000011, 0b100100, 0b111111 }) {
+            boolean[] closed = createShell();
+
+            for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+                if ((faces & (1 << dir.ordinal())) != 0) {
+                    int x = 8 + (dir.getOffsetX() * 8) - (dir.getOffsetX() > 0 ? 1 : 0);
+                    int y = 8 + (dir.getOffsetY() * 8) - (dir.getOffsetY() > 0 ? 1 : 0);
+                    int z = 8 + (dir.getOffsetZ() * 8) - (dir.getOffsetZ() > 0 ? 1 : 0);
+
+                    closed[getIndex(x, y, z)] = false;
+                }
+            }
+
+            assertMatchesVanilla(closed, "shell with holes " + Integer.toBinaryString(faces));
+        }
+    }
+
+    @Test
+    void matchesVanillaForStraightTunnels() {
+        for (int axis = 0; axis < 3; axis++) {
+            boolean[] closed = createFullSection();
+
+            for (int i = 0; i < 16; i++) {
+                int[] pos = new int[] { 5, 9, 12 };
+                pos[axis] = i;
+
+                closed[getIndex(pos[0], pos[1], pos[2])] = false;
+            }
+
+            assertMatchesVanilla(closed, "tunnel along axis " + axis);
+        }
+    }
+
+    @Test
+    void matchesVanillaForBentTunnel() {
+        boolean[] closed = createFullSection();
+
+        // Enters through the west face, turns upwards in the middle of the section and leaves through the top face
+        for (int x = 0; x <= 7; x++) {
+            closed[getIndex(x, 3, 10)] = false;
+        }
+
+        for (int y = 3; y < 16; y++) {
+            closed[getIndex(7, y, 10)] = false;
+        }
+
+        assertMatchesVanilla(closed, "bent tunnel");
+    }
+
+    @Test
+    void matchesVanillaForRandomTunnels() {
+        Random random = new Random(1234L);
+
+        for (int i = 0; i < 500; i++) {
+            boolean[] closed = createFullSection();
+            int tunnels = 1 + random.nextInt(4);
+
+            for (int j = 0; j < tunnels; j++) {
+                int x = random.nextInt(16);
+                int y = random.nextInt(16);
+                int z = random.nextInt(16);
+
+                // Carves a random walk through the section, which stays within its bounds
+                for (int step = 0; step < 400; step++) {
+                    closed[getIndex(x, y, z)] = false;
+
+                    Direction dir = DirectionUtil.ALL_DIRECTIONS[random.nextInt(DirectionUtil.ALL_DIRECTIONS.length)];
+
+                    x = Math.max(0, Math.min(15, x + dir.getOffsetX()));
+                    y = Math.max(0, Math.min(15, y + dir.getOffsetY()));
+                    z = Math.max(0, Math.min(15, z + dir.getOffsetZ()));
+                }
+            }
+
+            assertMatchesVanilla(closed, "random tunnels " + i);
+        }
+    }
+
+    @Test
+    void matchesVanillaForRandomSections() {
+        Random random = new Random(1234L);
+
+        for (int i = 0; i < 2000; i++) {
+            // Densities around the point where sections stop being connected on all sides are the most interesting
+            double density = (i & 1) == 0 ? random.nextDouble() : 0.55D + (random.nextDouble() * 0.3D);
+
+            boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+
+            for (int j = 0; j < SECTION_BLOCK_COUNT; j++) {
+                closed[j] = random.nextDouble() < density;
+            }
+
+            assertMatchesVanilla(closed, "random section " + i + " with density " + density);
+        }
+    }
+
+    @Test
+    void matchesVanillaAroundClosedBlockThreshold() {
+        // Vanilla treats sections with fewer than 256 closed blocks as visible from all sides, which a full layer of
+        // the section crosses with its last block
+        for (int count = 254; count <= 257; count++) {
+            boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+            Arrays.fill(closed, 0, count, true);
+
+            assertMatchesVanilla(closed, count + " closed blocks");
+        }
+    }
+
+    @Test
+    void ignoresBlocksAroundSection() {
+        boolean[] closed = createShell();
+        closed[getIndex(0, 8, 8)] = false;
+        closed[getIndex(15, 8, 8)] = false;
+
+        ChunkOpacityMask opacity = createOpacityMask(closed);
+
+        // The blocks just outside of the section are part of the mask but must not affect its visibility
+        for (int a = -1; a <= 16; a++) {
+            for (int b = -1; b <= 16; b++) {
+                opacity.setOpaque(-1, a, b);
+                opacity.setOpaque(16, a, b);
+                opacity.setOpaque(a, -1, b);
+                opacity.setOpaque(a, 16, b);
+                opacity.setOpaque(a, b, -1);
+                opacity.setOpaque(a, b, 16);
+            }
+        }
+
+        int data = ChunkVisibilityBuilder.build(opacity);
+
+        assertTrue(ChunkVisibilityData.isVisibleThrough(data, Direction.WEST.ordinal(), Direction.EAST.ordinal()));
+        assertFalse(ChunkVisibilityData.isVisibleThrough(data, Direction.WEST.ordinal(), Direction.UP.ordinal()));
+    }
+
+    private static void assertMatchesVanilla(boolean[] closed, String name) {
+        ChunkOcclusionDataBuilder builder = new ChunkOcclusionDataBuilder();
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            if (closed[i]) {
+                builder.markClosed(new BlockPos(i & 15, i >> 8, (i >> 4) & 15));
+            }
+        }
+
+        ChunkOcclusionData expected = builder.build();
+        int data = ChunkVisibilityBuilder.build(createOpacityMask(closed));
+
+        // Visibility from a face to itself is not stored, as sections are never traversed back through the same face
+        for (Direction from : DirectionUtil.ALL_DIRECTIONS) {
+            for (Direction to : DirectionUtil.ALL_DIRECTIONS) {
+                if (from != to) {
+                    assertEquals(expected.isVisibleThrough(from, to), ChunkVisibilityData.isVisibleThrough(data, from.ordinal(), to.ordinal()),
+                            "Visibility from " + from + " to " + to + " in " + name);
+                }
+            }
+        }
+    }
+
+    private static ChunkOpacityMask createOpacityMask(boolean[] closed) {
+        ChunkOpacityMask opacity = new ChunkOpacityMask();
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            if (closed[i]) {
+                opacity.setOpaque(i & 15, i >> 8, (i >> 4) & 15);
+            }
+        }
+
+        return opacity;
+    }
+
+    private static boolean[] createFullSection() {
+        boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+        Arrays.fill(closed, true);
+
+        return closed;
+    }
+
+    /**
+     * Creates a section whose outer layer of blocks is closed, which leaves an open space inside of it.
+     */
+    private static boolean[] createShell() {
+        boolean[] closed = new boolean[SECTION_BLOCK_COUNT];
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            int x = i & 15;
+            int y = i >> 8;
+            int z = (i >> 4) & 15;
+
+            closed[i] = x == 0 || x == 15 || y == 0 || y == 15 || z == 0 || z == 15;
+        }
+
+        return closed;
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+}
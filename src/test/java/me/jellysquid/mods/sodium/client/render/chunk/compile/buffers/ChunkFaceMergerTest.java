@@ -0,0 +1,632 @@
+package me.jellysquid.mods.sodium.client.render.chunk.compile.buffers;
+
+import me.jellysquid.mods.sodium.client.model.light.data.QuadLightData;
+import me.jellysquid.mods.sodium.client.model.quad.ModelQuad;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.data.ChunkRenderData;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.common.util.DirectionUtil;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkFaceMergerTest {
+    private static final int LIGHT = 0x00F000F0;
+
+    private static final Sprite STONE = createSprite(0, 0, 16);
+    private static final Sprite DIRT = createSprite(16, 0, 16);
+    private static final Sprite LARGE = createSprite(0, 16, 32);
+
+    @Test
+    void mergesFacesInEveryOrientation() {
+        // Every mapping of the sprite onto a face, as produced by the rotation and UV lock options of block models, in
+        // both winding orders
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            for (int mapping = 0; mapping < 8; mapping++) {
+                for (boolean ccw : new boolean[] { false, true }) {
+                    ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+                    merger.init();
+
+                    ModelQuad face = createFace(dir, STONE, mapping, ccw);
+
+                    for (int a = 2; a < 5; a++) {
+                        for (int b = 5; b < 7; b++) {
+                            assertTrue(merger.add(getBlockPos(dir, 7, a, b), face, dir, null, createLight(1.0f, LIGHT)));
+                        }
+                    }
+
+                    RecordingBuffers buffers = flush(merger);
+                    String name = dir + " with mapping " + mapping + (ccw ? " counter-clockwise" : " clockwise");
+
+                    assertEquals(4, buffers.getVertices(dir).size(), name);
+                    assertEquals(4, buffers.getVertexCount(), name);
+
+                    assertMergedQuad(buffers.getVertices(dir), face, dir, 7, 2, 5, 3, 2, name);
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesUnmergedFacesUnchanged() {
+        for (Direction dir : DirectionUtil.ALL_DIRECTIONS) {
+            for (int mapping = 0; mapping < 8; mapping++) {
+                for (boolean ccw : new boolean[] { false, true }) {
+                    ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+                    merger.init();
+
+                    ModelQuad face = createFace(dir, DIRT, mapping, ccw);
+                    BlockPos pos = getBlockPos(dir, 3, 9, 4);
+
+                    assertTrue(merger.add(pos, face, dir, null, createLight(1.0f, LIGHT)));
+
+                    List<Vertex> vertices = flush(merger).getVertices(dir);
+                    String name = dir + " with mapping " + mapping + (ccw ? " counter-clockwise" : " clockwise");
+
+                    assertEquals(4, vertices.size(), name);
+
+                    // The vertices may start at another corner, but must keep their order
+                    int start = -1;
+
+                    for (int i = 0; i < 4; i++) {
+                        if (isSameVertex(vertices.get(i), face, 0, pos)) {
+                            start = i;
+                        }
+                    }
+
+                    assertTrue(start >= 0, name);
+
+                    for (int i = 0; i < 4; i++) {
+                        Vertex vertex = vertices.get((start + i) & 3);
+
+                        assertTrue(isSameVertex(vertex, face, i, pos), name + ", vertex " + i);
+                        assertEquals(ModelVertexSink.NO_TILE, vertex.tileU, name);
+                        assertEquals(ModelVertexSink.NO_TILE, vertex.tileV, name);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void mergesGreedilyIntoRuns() {
+        ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+        merger.init();
+
+        ModelQuad face = createFace(Direction.UP, STONE, 0, true);
+
+        // A row of six faces, with a shorter row of three faces beside it
+        for (int x = 0; x < 6; x++) {
+            assertTrue(merger.add(new BlockPos(x, 2, 0), face, Direction.UP, null, createLight(1.0f, LIGHT)));
+        }
+
+        for (int x = 0; x < 3; x++) {
+            assertTrue(merger.add(new BlockPos(x, 2, 1), face, Direction.UP, null, createLight(1.0f, LIGHT)));
+        }
+
+        List<Vertex> vertices = flush(merger).getVertices(Direction.UP);
+
+        assertEquals(8, vertices.size());
+        assertMergedQuad(vertices.subList(0, 4), face, Direction.UP, 2, 0, 0, 6, 1, "first run");
+        assertMergedQuad(vertices.subList(4, 8), face, Direction.UP, 2, 0, 1, 3, 1, "second run");
+    }
+
+    @Test
+    void mergesWholeLayer() {
+        ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+        merger.init();
+
+        ModelQuad face = createFace(Direction.NORTH, STONE, 0, true);
+
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                assertTrue(merger.add(new BlockPos(x, y, 15), face, Direction.NORTH, null, createLight(1.0f, LIGHT)));
+            }
+        }
+
+        List<Vertex> vertices = flush(merger).getVertices(Direction.NORTH);
+
+        assertEquals(4, vertices.size());
+        assertMergedQuad(vertices, face, Direction.NORTH, 15, 0, 0, 16, 16, "whole layer");
+    }
+
+    @Test
+    void doesNotMergeDifferentFaces() {
+        ModelQuad stone = createFace(Direction.UP, STONE, 0, true);
+        ModelQuad dirt = createFace(Direction.UP, DIRT, 0, true);
+        ModelQuad rotated = createFace(Direction.UP, STONE, 1, true);
+
+        assertNotMerged(stone, createLight(1.0f, LIGHT), null, stone, createLight(1.0f, 0x00F00000), null);
+        assertNotMerged(stone, createLight(1.0f, LIGHT), null, stone, createLight(0.8f, LIGHT), null);
+        assertNotMerged(stone, createLight(1.0f, LIGHT), createColors(0xFF48B518), stone, createLight(1.0f, LIGHT), createColors(0xFF1A7F2E));
+        assertNotMerged(stone, createLight(1.0f, LIGHT), null, dirt, createLight(1.0f, LIGHT), null);
+        assertNotMerged(stone, createLight(1.0f, LIGHT), null, rotated, createLight(1.0f, LIGHT), null);
+    }
+
+    @Test
+    void rejectsNonUniformLightAndColor() {
+        ModelQuad face = createFace(Direction.UP, STONE, 0, true);
+        BlockPos pos = new BlockPos(1, 1, 1);
+
+        // Smooth lighting which differs between the corners of the face, such as next to a wall
+        QuadLightData light = createLight(1.0f, LIGHT);
+        light.lm[2] = 0x00F00080;
+
+        QuadLightData shade = createLight(1.0f, LIGHT);
+        shade.br[3] = 0.8f;
+
+        // Biome colors which are blended differently at each corner
+        int[] colors = createColors(0xFF48B518);
+        colors[1] = 0xFF4AB61A;
+
+        ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+        merger.init();
+
+        assertFalse(merger.add(pos, face, Direction.UP, null, light));
+        assertFalse(merger.add(pos, face, Direction.UP, null, shade));
+        assertFalse(merger.add(pos, face, Direction.UP, colors, createLight(1.0f, LIGHT)));
+
+        assertEquals(0, flush(merger).getVertexCount());
+
+        // A tint which is the same at every corner can be merged
+        assertTrue(merger.add(pos, face, Direction.UP, createColors(0xFF48B518), createLight(1.0f, LIGHT)));
+    }
+
+    @Test
+    void rejectsFacesWhichCannotBeTiled() {
+        ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+        merger.init();
+
+        BlockPos pos = new BlockPos(1, 1, 1);
+
+        // A sprite of another size than the one known to the shader
+        assertFalse(merger.add(pos, createFace(Direction.UP, LARGE, 0, true), Direction.UP, null, createLight(1.0f, LIGHT)));
+
+        // A face which only covers half of the side of its block
+        ModelQuad partial = createFace(Direction.UP, STONE, 0, true);
+
+        for (int i = 0; i < 4; i++) {
+            partial.setX(i, Math.min(partial.getX(i), 0.5f));
+        }
+
+        assertFalse(merger.add(pos, partial, Direction.UP, null, createLight(1.0f, LIGHT)));
+
+        // A face which is inset from the side of its block
+        ModelQuad inset = createFace(Direction.UP, STONE, 0, true);
+
+        for (int i = 0; i < 4; i++) {
+            inset.setY(i, 0.75f);
+        }
+
+        assertFalse(merger.add(pos, inset, Direction.UP, null, createLight(1.0f, LIGHT)));
+
+        // A face which only uses part of its sprite
+        ModelQuad cropped = createFace(Direction.UP, STONE, 0, true);
+
+        for (int i = 0; i < 4; i++) {
+            cropped.setTexU(i, Math.min(cropped.getTexU(i), (STONE.getMinU() + STONE.getMaxU()) / 2.0f));
+        }
+
+        assertFalse(merger.add(pos, cropped, Direction.UP, null, createLight(1.0f, LIGHT)));
+
+        // A face whose vertices cross over each other
+        ModelQuad crossed = createFace(Direction.UP, STONE, 0, true);
+        swapVertices(crossed, 1, 2);
+
+        assertFalse(merger.add(pos, crossed, Direction.UP, null, createLight(1.0f, LIGHT)));
+
+        assertEquals(0, flush(merger).getVertexCount());
+    }
+
+    private static void assertNotMerged(ModelQuad first, QuadLightData firstLight, int[] firstColors,
+                                        ModelQuad second, QuadLightData secondLight, int[] secondColors) {
+        ChunkFaceMerger merger = new ChunkFaceMerger(STONE);
+        merger.init();
+
+        assertTrue(merger.add(new BlockPos(4, 0, 4), first, Direction.UP, firstColors, firstLight));
+        assertTrue(merger.add(new BlockPos(5, 0, 4), second, Direction.UP, secondColors, secondLight));
+
+        List<Vertex> vertices = flush(merger).getVertices(Direction.UP);
+
+        assertEquals(8, vertices.size());
+
+        for (Vertex vertex : vertices) {
+            assertEquals(ModelVertexSink.NO_TILE, vertex.tileU);
+        }
+    }
+
+    /**
+     * Checks that the vertices form a single quad covering the given area of faces, which winds in the same direction
+     * as the original face and repeats its sprite once per block in the same orientation.
+     */
+    private static void assertMergedQuad(List<Vertex> vertices, ModelQuad face, Direction dir, int layer, int a, int b,
+                                         int w, int h, String name) {
+        assertEquals(4, vertices.size(), name);
+
+        float plane = layer + (dir.getDirection() == Direction.AxisDirection.POSITIVE ? 1.0f : 0.0f);
+
+        // The axis along which the sprite's U coordinate changes on the original face
+        int uAxis = getTexCorner(face.getTexU(findCorner(face, dir, 0, 0)), STONE.getMinU(), STONE.getMaxU()) !=
+                getTexCorner(face.getTexU(findCorner(face, dir, 1, 0)), STONE.getMinU(), STONE.getMaxU()) ? 0 : 1;
+
+        int seen = 0;
+
+        for (Vertex vertex : vertices) {
+            float[] tangent = getTangent(dir, vertex.x, vertex.y, vertex.z);
+
+            assertEquals(plane, getNormal(dir, vertex.x, vertex.y, vertex.z), name);
+
+            int ca = getCorner(tangent[0], a, a + w);
+            int cb = getCorner(tangent[1], b, b + h);
+
+            assertTrue(ca >= 0 && cb >= 0, name + ": vertex outside of the merged area");
+
+            seen |= 1 << ((cb << 1) | ca);
+
+            int corner = findCorner(face, dir, ca, cb);
+
+            int su = getTexCorner(face.getTexU(corner), STONE.getMinU(), STONE.getMaxU());
+            int sv = getTexCorner(face.getTexV(corner), STONE.getMinV(), STONE.getMaxV());
+
+            assertEquals(su * (uAxis == 0 ? w : h), vertex.tileU, name + ": tile U at corner " + ca + ", " + cb);
+            assertEquals(sv * (uAxis == 0 ? h : w), vertex.tileV, name + ": tile V at corner " + ca + ", " + cb);
+
+            assertEquals(STONE.getMinU(), vertex.u, name);
+            assertEquals(STONE.getMinV(), vertex.v, name);
+            assertEquals(LIGHT, vertex.light, name);
+        }
+
+        assertEquals(0b1111, seen, name + ": not all corners of the merged area are covered");
+
+        float[][] positions = new float[4][];
+
+        for (int i = 0; i < 4; i++) {
+            Vertex vertex = vertices.get(i);
+            positions[i] = new float[] { vertex.x, vertex.y, vertex.z };
+        }
+
+        float[][] original = new float[4][];
+
+        for (int i = 0; i < 4; i++) {
+            original[i] = new float[] { face.getX(i), face.getY(i), face.getZ(i) };
+        }
+
+        assertEquals(Math.signum(getWinding(original, dir)), Math.signum(getWinding(positions, dir)), name + ": winding");
+    }
+
+    /**
+     * @return The index of the vertex of a face on the side of a block at the given corner of its tangent axes
+     */
+    private static int findCorner(ModelQuad face, Direction dir, int ca, int cb) {
+        for (int i = 0; i < 4; i++) {
+            float[] tangent = getTangent(dir, face.getX(i), face.getY(i), face.getZ(i));
+
+            if (tangent[0] == ca && tangent[1] == cb) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Face has no vertex at corner " + ca + ", " + cb);
+    }
+
+    private static boolean isSameVertex(Vertex vertex, ModelQuad face, int i, BlockPos pos) {
+        return vertex.x == face.getX(i) + pos.getX() &&
+                vertex.y == face.getY(i) + pos.getY() &&
+                vertex.z == face.getZ(i) + pos.getZ() &&
+                vertex.u == face.getTexU(i) &&
+                vertex.v == face.getTexV(i) &&
+                vertex.light == LIGHT;
+    }
+
+    /**
+     * @return The component of the normal of the triangle formed by the first three vertices along the face's direction
+     */
+    private static float getWinding(float[][] positions, Direction dir) {
+        float[] e0 = new float[3];
+        float[] e1 = new float[3];
+
+        for (int i = 0; i < 3; i++) {
+            e0[i] = positions[1][i] - positions[0][i];
+            e1[i] = positions[2][i] - positions[1][i];
+        }
+
+        float nx = (e0[1] * e1[2]) - (e0[2] * e1[1]);
+        float ny = (e0[2] * e1[0]) - (e0[0] * e1[2]);
+        float nz = (e0[0] * e1[1]) - (e0[1] * e1[0]);
+
+        return (nx * dir.getOffsetX()) + (ny * dir.getOffsetY()) + (nz * dir.getOffsetZ());
+    }
+
+    private static int getCorner(float value, int min, int max) {
+        return value == min ? 0 : (value == max ? 1 : -1);
+    }
+
+    private static int getTexCorner(float value, float min, float max) {
+        return Math.abs(value - min) < Math.abs(value - max) ? 0 : 1;
+    }
+
+    /**
+     * @return The coordinates of a position along the two axes other than the face's normal, in X, Y, Z order
+     */
+    private static float[] getTangent(Direction dir, float x, float y, float z) {
+        switch (dir.getAxis()) {
+            case X:
+                return new float[] { y, z };
+            case Y:
+                return new float[] { x, z };
+            default:
+                return new float[] { x, y };
+        }
+    }
+
+    private static float getNormal(Direction dir, float x, float y, float z) {
+        switch (dir.getAxis()) {
+            case X:
+                return x;
+            case Y:
+                return y;
+            default:
+                return z;
+        }
+    }
+
+    private static BlockPos getBlockPos(Direction dir, int layer, int a, int b) {
+        switch (dir.getAxis()) {
+            case X:
+                return new BlockPos(layer, a, b);
+            case Y:
+                return new BlockPos(a, layer, b);
+            default:
+                return new BlockPos(a, b, layer);
+        }
+    }
+
+    /**
+     * Creates a face which covers the side of a block with the whole sprite.
+     *
+     * @param mapping The orientation of the sprite on the face, with the first bit swapping its axes and the other two
+     *                bits mirroring it along each axis
+     * @param ccw True if the vertices wind counter-clockwise in the plane of the tangent axes, otherwise false
+     */
+    private static ModelQuad createFace(Direction dir, Sprite sprite, int mapping, boolean ccw) {
+        float plane = dir.getDirection() == Direction.AxisDirection.POSITIVE ? 1.0f : 0.0f;
+
+        int[] cornersA = ccw ? new int[] { 0, 1, 1, 0 } : new int[] { 0, 0, 1, 1 };
+        int[] cornersB = ccw ? new int[] { 0, 0, 1, 1 } : new int[] { 0, 1, 1, 0 };
+
+        boolean swap = (mapping & 1) != 0;
+
+        ModelQuad quad = new ModelQuad();
+        quad.setSprite(sprite);
+
+        for (int i = 0; i < 4; i++) {
+            int ca = cornersA[i];
+            int cb = cornersB[i];
+
+            switch (dir.getAxis()) {
+                case X:
+                    quad.setX(i, plane);
+                    quad.setY(i, ca);
+                    quad.setZ(i, cb);
+                    break;
+                case Y:
+                    quad.setX(i, ca);
+                    quad.setY(i, plane);
+                    quad.setZ(i, cb);
+                    break;
+                default:
+                    quad.setX(i, ca);
+                    quad.setY(i, cb);
+                    quad.setZ(i, plane);
+                    break;
+            }
+
+            int su = (swap ? cb : ca) ^ ((mapping >> 1) & 1);
+            int sv = (swap ? ca : cb) ^ ((mapping >> 2) & 1);
+
+            quad.setTexU(i, su != 0 ? sprite.getMaxU() : sprite.getMinU());
+            quad.setTexV(i, sv != 0 ? sprite.getMaxV() : sprite.getMinV());
+        }
+
+        return quad;
+    }
+
+    private static void swapVertices(ModelQuad quad, int i, int j) {
+        float x = quad.getX(i), y = quad.getY(i), z = quad.getZ(i), u = quad.getTexU(i), v = quad.getTexV(i);
+
+        quad.setX(i, quad.getX(j));
+        quad.setY(i, quad.getY(j));
+        quad.setZ(i, quad.getZ(j));
+        quad.setTexU(i, quad.getTexU(j));
+        quad.setTexV(i, quad.getTexV(j));
+
+        quad.setX(j, x);
+        quad.setY(j, y);
+        quad.setZ(j, z);
+        quad.setTexU(j, u);
+        quad.setTexV(j, v);
+    }
+
+    private static QuadLightData createLight(float br, int lm) {
+        QuadLightData light = new QuadLightData();
+        Arrays.fill(light.br, br);
+        Arrays.fill(light.lm, lm);
+
+        return light;
+    }
+
+    private static int[] createColors(int color) {
+        int[] colors = new int[4];
+        Arrays.fill(colors, color);
+
+        return colors;
+    }
+
+    private static RecordingBuffers flush(ChunkFaceMerger merger) {
+        RecordingBuffers buffers = new RecordingBuffers();
+        merger.flush(buffers);
+
+        return buffers;
+    }
+
+    /**
+     * Creates a sprite of the given size in an atlas of 256x256 texels.
+     */
+    private static Sprite createSprite(int x, int y, int size) {
+        TestSprite sprite;
+
+        // Sprites can only be created by their atlas from a loaded image, so the constructor is skipped entirely
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+
+            sprite = (TestSprite) ((Unsafe) field.get(null)).allocateInstance(TestSprite.class);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not create sprite", e);
+        }
+
+        sprite.size = size;
+        sprite.minU = x / 256.0f;
+        sprite.maxU = (x + size) / 256.0f;
+        sprite.minV = y / 256.0f;
+        sprite.maxV = (y + size) / 256.0f;
+
+        return sprite;
+    }
+
+    private static class TestSprite extends Sprite {
+        private int size;
+        private float minU, maxU, minV, maxV;
+
+        private TestSprite() {
+            super((SpriteAtlasTexture) null, (Sprite.Info) null, 0, 0, 0, 0, 0, (NativeImage) null);
+        }
+
+        @Override
+        public int getWidth() {
+            return this.size;
+        }
+
+        @Override
+        public int getHeight() {
+            return this.size;
+        }
+
+        @Override
+        public float getMinU() {
+            return this.minU;
+        }
+
+        @Override
+        public float getMaxU() {
+            return this.maxU;
+        }
+
+        @Override
+        public float getMinV() {
+            return this.minV;
+        }
+
+        @Override
+        public float getMaxV() {
+            return this.maxV;
+        }
+    }
+
+    private static class Vertex {
+        private final float x, y, z;
+        private final float u, v;
+        private final int light;
+        private final int tileU, tileV;
+
+        private Vertex(float x, float y, float z, float u, float v, int light, int tileU, int tileV) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.u = u;
+            this.v = v;
+            this.light = light;
+            this.tileU = tileU;
+            this.tileV = tileV;
+        }
+    }
+
+    private static class RecordingBuffers implements ChunkModelBuffers {
+        private final RecordingSink[] sinks = new RecordingSink[ModelQuadFacing.COUNT];
+
+        private RecordingBuffers() {
+            for (int i = 0; i < this.sinks.length; i++) {
+                this.sinks[i] = new RecordingSink();
+            }
+        }
+
+        private List<Vertex> getVertices(Direction dir) {
+            return this.sinks[ModelQuadFacing.fromDirection(dir).ordinal()].vertices;
+        }
+
+        private int getVertexCount() {
+            int count = 0;
+
+            for (RecordingSink sink : this.sinks) {
+                count += sink.vertices.size();
+            }
+
+            return count;
+        }
+
+        @Override
+        public ModelVertexSink getSink(ModelQuadFacing facing) {
+            return this.sinks[facing.ordinal()];
+        }
+
+        @Override
+        public ChunkRenderData.Builder getRenderData() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordLightSource(ModelQuadFacing facing, int source) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChunkFaceMerger getFaceMerger() {
+            return null;
+        }
+    }
+
+    private static class RecordingSink implements ModelVertexSink {
+        private final List<Vertex> vertices = new ArrayList<>();
+
+        @Override
+        public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+            this.vertices.add(new Vertex(x, y, z, u, v, light, NO_TILE, NO_TILE));
+        }
+
+        @Override
+        public void writeTiledQuad(float x, float y, float z, int color, float u, float v, int light, int tileU, int tileV) {
+            this.vertices.add(new Vertex(x, y, z, u, v, light, tileU, tileV));
+        }
+
+        @Override
+        public void ensureCapacity(int count) {
+
+        }
+
+        @Override
+        public void flush() {
+
+        }
+    }
+}
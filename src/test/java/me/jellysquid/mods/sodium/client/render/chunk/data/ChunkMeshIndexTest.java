@@ -0,0 +1,176 @@
+package me.jellysquid.mods.sodium.client.render.chunk.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.jellysquid.mods.sodium.client.gl.util.BufferSlice;
+import me.jellysquid.mods.sodium.client.model.light.data.VertexLightSource;
+import me.jellysquid.mods.sodium.client.model.quad.properties.ModelQuadFacing;
+import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
+import net.minecraft.util.math.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkMeshIndexTest {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    private static final int STRIDE = 8;
+
+    private static final int LIT = VertexLightSource.pack(VertexLightSource.FLAT_FACE, Direction.UP, 0);
+    private static final int SMOOTH = VertexLightSource.pack(VertexLightSource.SMOOTH_FACE, Direction.NORTH, 3);
+    private static final int NONE = VertexLightSource.pack(VertexLightSource.NONE, Direction.EAST, 2);
+
+    @Test
+    void unpacksEveryBlockIndex() {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int index = ChunkMeshIndex.packIndex(x, y, z);
+
+                    assertTrue(index >= 0 && index < SECTION_BLOCK_COUNT);
+                    assertEquals(x, ChunkMeshIndex.unpackX(index));
+                    assertEquals(y, ChunkMeshIndex.unpackY(index));
+                    assertEquals(z, ChunkMeshIndex.unpackZ(index));
+                }
+            }
+        }
+    }
+
+    @Test
+    void packsIndicesInVisitOrder() {
+        // The build tasks visit blocks in y, then z, then x order, which must produce ascending indices
+        int expected = 0;
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    assertEquals(expected++, ChunkMeshIndex.packIndex(x, y, z));
+                }
+            }
+        }
+    }
+
+    @Test
+    void convertsBlockSetsToAscendingLists() {
+        // Unordered and duplicated entries, including both sides of each word boundary and the ends of the range
+        IntArrayList blocks = IntArrayList.wrap(new int[] { 4095, 64, 0, 63, 2000, 127, 128, 4032, 64, 1, 4094 });
+
+        long[] bits = ChunkMeshIndex.createBlockSet(blocks);
+
+        assertEquals(ChunkMeshIndex.BLOCK_SET_LENGTH, bits.length);
+        assertEquals(IntArrayList.wrap(new int[] { 0, 1, 63, 64, 127, 128, 2000, 4032, 4094, 4095 }), ChunkMeshIndex.getBlockSetEntries(bits));
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            assertEquals(blocks.contains(i), ChunkMeshIndex.isInBlockSet(bits, i), "block " + i);
+        }
+    }
+
+    @Test
+    void convertsEmptyAndFullBlockSets() {
+        assertTrue(ChunkMeshIndex.getBlockSetEntries(ChunkMeshIndex.createBlockSet(new IntArrayList())).isEmpty());
+
+        IntArrayList all = new IntArrayList();
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            all.add(i);
+        }
+
+        long[] bits = ChunkMeshIndex.createBlockSet(all);
+
+        for (long word : bits) {
+            assertEquals(-1L, word);
+        }
+
+        assertEquals(all, ChunkMeshIndex.getBlockSetEntries(bits));
+    }
+
+    @Test
+    void marksBlocksWithoutLightSources() {
+        ChunkMeshIndex.Pass[] passes = new ChunkMeshIndex.Pass[BlockRenderPass.COUNT];
+
+        passes[BlockRenderPass.SOLID.ordinal()] = new PassBuilder()
+                // Only the first vertex of block 200 and the last vertex of block 64 have no source
+                .add(ModelQuadFacing.UP, new int[] { 3, 5, 64, 200 }, new int[][] {
+                        { LIT, LIT }, { SMOOTH, LIT, SMOOTH }, { SMOOTH, SMOOTH, NONE }, { NONE, LIT }
+                })
+                // Block 3 only has a vertex without a source in another facing
+                .add(ModelQuadFacing.UNASSIGNED, new int[] { 3, 6 }, new int[][] {
+                        { LIT, NONE, LIT }, { SMOOTH }
+                })
+                .build();
+
+        // The last vertex of the last block in another pass
+        passes[BlockRenderPass.TRANSLUCENT.ordinal()] = new PassBuilder()
+                .add(ModelQuadFacing.DOWN, new int[] { 5, 4095 }, new int[][] {
+                        { LIT }, { LIT, LIT, LIT, NONE }
+                })
+                .build();
+
+        long[] bits = ChunkMeshIndex.createBlockSet(IntArrayList.wrap(new int[] { 1000 }));
+        new ChunkMeshIndex(passes).markBlocksWithoutLightSources(bits);
+
+        // Blocks which were already marked must stay marked
+        assertEquals(IntArrayList.wrap(new int[] { 3, 64, 200, 1000, 4095 }), ChunkMeshIndex.getBlockSetEntries(bits));
+    }
+
+    @Test
+    void marksNothingWhenAllVerticesHaveLightSources() {
+        ChunkMeshIndex.Pass[] passes = new ChunkMeshIndex.Pass[BlockRenderPass.COUNT];
+
+        passes[BlockRenderPass.CUTOUT.ordinal()] = new PassBuilder()
+                .add(ModelQuadFacing.NORTH, new int[] { 0, 63, 64 }, new int[][] {
+                        { LIT, SMOOTH }, { SMOOTH }, { LIT, LIT, LIT, LIT }
+                })
+                .build();
+
+        long[] bits = new long[ChunkMeshIndex.BLOCK_SET_LENGTH];
+        new ChunkMeshIndex(passes).markBlocksWithoutLightSources(bits);
+
+        assertTrue(ChunkMeshIndex.getBlockSetEntries(bits).isEmpty());
+    }
+
+    /**
+     * Creates the index of a render pass from the light sources of the vertices written by each block.
+     */
+    private static class PassBuilder {
+        private final BufferSlice[] slices = new BufferSlice[ModelQuadFacing.COUNT];
+        private final short[][] blocks = new short[ModelQuadFacing.COUNT][];
+        private final int[][] offsets = new int[ModelQuadFacing.COUNT][];
+        private final byte[][] sources = new byte[ModelQuadFacing.COUNT][];
+
+        private int length;
+
+        private PassBuilder add(ModelQuadFacing facing, int[] blocks, int[][] sources) {
+            int facingId = facing.ordinal();
+            int vertexCount = 0;
+
+            this.blocks[facingId] = new short[blocks.length];
+            this.offsets[facingId] = new int[blocks.length];
+
+            for (int i = 0; i < blocks.length; i++) {
+                this.blocks[facingId][i] = (short) blocks[i];
+                this.offsets[facingId][i] = vertexCount * STRIDE;
+
+                vertexCount += sources[i].length;
+            }
+
+            this.sources[facingId] = new byte[vertexCount];
+
+            for (int i = 0, j = 0; i < sources.length; i++) {
+                for (int source : sources[i]) {
+                    this.sources[facingId][j++] = (byte) source;
+                }
+            }
+
+            this.slices[facingId] = new BufferSlice(this.length, vertexCount * STRIDE);
+            this.length += vertexCount * STRIDE;
+
+            return this;
+        }
+
+        private ChunkMeshIndex.Pass build() {
+            return new ChunkMeshIndex.Pass(ByteBuffer.allocate(this.length), STRIDE, this.slices, this.blocks, this.offsets, this.sources);
+        }
+    }
+}
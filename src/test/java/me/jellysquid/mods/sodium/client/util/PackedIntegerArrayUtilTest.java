@@ -0,0 +1,129 @@
+package me.jellysquid.mods.sodium.client.util;
+
+import net.minecraft.util.collection.PackedIntegerArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedIntegerArrayUtilTest {
+    // A full section, along with sizes which leave the last word partially filled for every element width
+    private static final int[] SIZES = new int[] { 4096, 4095, 4001, 13, 1 };
+
+    @Test
+    void unpacksBytesLikeVanilla() {
+        Random random = new Random(42L);
+
+        // Covers the specialized decoders for 4, 5, 6 and 8 bits as well as the generic decoder for 7 bits
+        for (int bits = 4; bits <= 8; bits++) {
+            for (int size : SIZES) {
+                PackedIntegerArray array = createRandomArray(random, bits, size);
+
+                byte[] dst = new byte[size];
+                PackedIntegerArrayUtil.unpack(array, dst);
+
+                for (int i = 0; i < size; i++) {
+                    assertEquals(array.get(i), dst[i] & 0xFF, "Element " + i + " of " + size + " with " + bits + " bits");
+                }
+            }
+        }
+    }
+
+    @Test
+    void unpacksShortsLikeVanilla() {
+        Random random = new Random(42L);
+
+        // Elements of 16 bits only occur in the global palette of registries with more than 32768 block states
+        for (int bits = 4; bits <= 16; bits++) {
+            for (int size : SIZES) {
+                PackedIntegerArray array = createRandomArray(random, bits, size);
+
+                short[] dst = new short[size];
+                PackedIntegerArrayUtil.unpack(array, dst);
+
+                for (int i = 0; i < size; i++) {
+                    assertEquals(array.get(i), dst[i] & 0xFFFF, "Element " + i + " of " + size + " with " + bits + " bits");
+                }
+            }
+        }
+    }
+
+    @Test
+    void ignoresPaddingBits() {
+        for (int bits = 4; bits <= 16; bits++) {
+            // Every bit is set, including those at the end of each word which don't belong to any element
+            PackedIntegerArray array = createArray(bits, 4096, -1L);
+            int max = (1 << bits) - 1;
+
+            short[] shorts = new short[4096];
+            PackedIntegerArrayUtil.unpack(array, shorts);
+
+            for (int i = 0; i < shorts.length; i++) {
+                assertEquals(max, shorts[i] & 0xFFFF);
+            }
+
+            if (bits <= 8) {
+                byte[] bytes = new byte[4096];
+                PackedIntegerArrayUtil.unpack(array, bytes);
+
+                for (int i = 0; i < bytes.length; i++) {
+                    assertEquals(max, bytes[i] & 0xFF);
+                }
+            }
+        }
+    }
+
+    @Test
+    void leavesRemainderOfDestinationUntouched() {
+        PackedIntegerArray array = createArray(5, 13, 0L);
+
+        byte[] dst = new byte[16];
+        dst[13] = dst[14] = dst[15] = 7;
+
+        PackedIntegerArrayUtil.unpack(array, dst);
+
+        assertArrayEquals(new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 7, 7, 7 }, dst);
+    }
+
+    @Test
+    void rejectsElementsWhichDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> PackedIntegerArrayUtil.unpack(new PackedIntegerArray(9, 4096), new byte[4096]));
+        assertThrows(IllegalArgumentException.class, () -> PackedIntegerArrayUtil.unpack(new PackedIntegerArray(17, 4096), new short[4096]));
+    }
+
+    @Test
+    void rejectsSmallDestination() {
+        assertThrows(IllegalArgumentException.class, () -> PackedIntegerArrayUtil.unpack(new PackedIntegerArray(4, 4096), new byte[4095]));
+        assertThrows(IllegalArgumentException.class, () -> PackedIntegerArrayUtil.unpack(new PackedIntegerArray(12, 4096), new short[4095]));
+    }
+
+    /**
+     * Creates an array whose storage is filled with random words, which also sets the padding bits of each word.
+     */
+    private static PackedIntegerArray createRandomArray(Random random, int bits, int size) {
+        long[] storage = new long[getStorageLength(bits, size)];
+
+        for (int i = 0; i < storage.length; i++) {
+            storage[i] = random.nextLong();
+        }
+
+        return new PackedIntegerArray(bits, size, storage);
+    }
+
+    private static PackedIntegerArray createArray(int bits, int size, long word) {
+        long[] storage = new long[getStorageLength(bits, size)];
+
+        for (int i = 0; i < storage.length; i++) {
+            storage[i] = word;
+        }
+
+        return new PackedIntegerArray(bits, size, storage);
+    }
+
+    private static int getStorageLength(int bits, int size) {
+        int elementsPerWord = 64 / bits;
+
+        return (size + elementsPerWord - 1) / elementsPerWord;
+    }
+}
@@ -0,0 +1,115 @@
+package me.jellysquid.mods.sodium.client.world.biome;
+
+import me.jellysquid.mods.sodium.client.util.color.ColorARGB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BiomeColorCacheTest {
+    // The largest blend radius which can be selected in the video settings
+    private static final int MAX_RADIUS = 7;
+
+    // The number of blocks outside of the chunk column which blended colors are cached for
+    private static final int BORDER = 2;
+
+    // Negative coordinates on the X axis ensure that the cached area is indexed relative to its origin
+    private static final ChunkSectionPos ORIGIN = ChunkSectionPos.from(-3, 4, 5);
+
+    @Test
+    void matchesPerBlockBlendWithoutBlending() {
+        assertMatchesPerBlockBlend(BiomeColorCacheTest::getNoiseColor, 0);
+    }
+
+    @Test
+    void matchesPerBlockBlendAtMaxRadius() {
+        assertMatchesPerBlockBlend(BiomeColorCacheTest::getNoiseColor, MAX_RADIUS);
+    }
+
+    @Test
+    void matchesPerBlockBlendAtEveryRadius() {
+        for (int radius = 1; radius < MAX_RADIUS; radius++) {
+            assertMatchesPerBlockBlend(BiomeColorCacheTest::getNoiseColor, radius);
+        }
+    }
+
+    @Test
+    void matchesPerBlockBlendAcrossBiomeBorders() {
+        // Biome borders which lie on the edges of the chunk column, so that the blend area of the blocks along each
+        // edge is split between biomes
+        int edgeX = ORIGIN.getMinX();
+        int edgeZ = ORIGIN.getMinZ() + 16;
+
+        BiomeColorCache.ColorSampler sampler = (x, z) -> {
+            if (x < edgeX) {
+                return 0xFF1A7F2E;
+            } else if (z >= edgeZ) {
+                return 0xFFE0C060;
+            } else {
+                return 0xFF48B518;
+            }
+        };
+
+        assertMatchesPerBlockBlend(sampler, 0);
+        assertMatchesPerBlockBlend(sampler, MAX_RADIUS);
+    }
+
+    @Test
+    void doesNotOverflowChannels() {
+        assertMatchesPerBlockBlend((x, z) -> 0xFFFFFFFF, MAX_RADIUS);
+    }
+
+    /**
+     * Compares every cached color, including those of the blocks around the chunk column, against the blended color
+     * calculated for each block individually.
+     */
+    private static void assertMatchesPerBlockBlend(BiomeColorCache.ColorSampler sampler, int radius) {
+        BiomeColorCache cache = new BiomeColorCache(sampler, ORIGIN, radius);
+
+        for (int x = ORIGIN.getMinX() - BORDER; x < ORIGIN.getMinX() + 16 + BORDER; x++) {
+            for (int z = ORIGIN.getMinZ() - BORDER; z < ORIGIN.getMinZ() + 16 + BORDER; z++) {
+                int expected = calculatePerBlockBlend(sampler, x, z, radius);
+
+                assertEquals(expected, cache.getBlendedColor(new BlockPos(x, 64, z)), "Block " + x + ", " + z + " with radius " + radius);
+            }
+        }
+    }
+
+    /**
+     * Averages the samples around a block as the color cache did before it used summed-area tables.
+     */
+    private static int calculatePerBlockBlend(BiomeColorCache.ColorSampler sampler, int posX, int posZ, int radius) {
+        if (radius == 0) {
+            return sampler.getColor(posX, posZ);
+        }
+
+        int diameter = (radius * 2) + 1;
+        int area = diameter * diameter;
+
+        int r = 0;
+        int g = 0;
+        int b = 0;
+
+        for (int x = posX - radius; x <= posX + radius; x++) {
+            for (int z = posZ - radius; z <= posZ + radius; z++) {
+                int color = sampler.getColor(x, z);
+
+                r += ColorARGB.unpackRed(color);
+                g += ColorARGB.unpackGreen(color);
+                b += ColorARGB.unpackBlue(color);
+            }
+        }
+
+        return ColorARGB.pack(r / area, g / area, b / area, 255);
+    }
+
+    /**
+     * @return A random color which only depends on the given position
+     */
+    private static int getNoiseColor(int x, int z) {
+        return new Random((x * 3129871L) ^ (z * 116129781L)).nextInt();
+    }
+}
@@ -0,0 +1,77 @@
+package me.jellysquid.mods.sodium.client.world.snapshot;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.collection.IdList;
+import net.minecraft.util.collection.PackedIntegerArray;
+import net.minecraft.world.chunk.IdListPalette;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedChunkSectionTest {
+    private static final int SECTION_BLOCK_COUNT = 16 * 16 * 16;
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void decodesGlobalPalette() {
+        // The width of the global palette in vanilla
+        assertDecodesGlobalPalette(14);
+    }
+
+    @Test
+    void decodesSixteenBitGlobalPalette() {
+        // Registries with more than 32768 block states, as found in large mod packs
+        assertDecodesGlobalPalette(16);
+    }
+
+    @Test
+    void decodesGlobalPaletteWiderThanShorts() {
+        // Registries with more than 65536 block states
+        assertDecodesGlobalPalette(17);
+    }
+
+    private static void assertDecodesGlobalPalette(int bits) {
+        int paletteSize = 1 << bits;
+
+        // Every index of the palette resolves to a state, which differs from the states of nearby indices and from
+        // those of indices which only differ in their upper bits
+        IdList<BlockState> ids = new IdList<>(paletteSize);
+
+        for (int id = 0; id < paletteSize; id++) {
+            ids.set(Block.STATE_IDS.get(id % Block.STATE_IDS.size()), id);
+        }
+
+        PackedIntegerArray data = new PackedIntegerArray(bits, SECTION_BLOCK_COUNT);
+        Random random = new Random(42L);
+
+        // Runs of the same state are common in sections and take a different path through the re-mapping
+        for (int i = 0; i < SECTION_BLOCK_COUNT; ) {
+            int id = random.nextInt(paletteSize);
+            int end = Math.min(i + 1 + random.nextInt(8), SECTION_BLOCK_COUNT);
+
+            for (; i < end; i++) {
+                data.set(i, id);
+            }
+        }
+
+        ChunkSectionSnapshot snapshot = ChunkSectionSnapshot.create(data, new IdListPalette<>(ids, Blocks.AIR.getDefaultState()));
+
+        CachedChunkSection section = new CachedChunkSection();
+        section.init(snapshot);
+        section.unpack();
+
+        for (int i = 0; i < SECTION_BLOCK_COUNT; i++) {
+            assertSame(snapshot.getPaletteEntry(data.get(i)), section.getBlockState(i), "Block " + i + " with " + bits + " bits");
+        }
+    }
+}